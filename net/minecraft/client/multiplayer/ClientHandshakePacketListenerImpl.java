@@ -36,6 +36,7 @@ import net.minecraft.network.chat.Component;
 import net.minecraft.network.protocol.common.ServerboundClientInformationPacket;
 import net.minecraft.network.protocol.common.ServerboundCustomPayloadPacket;
 import net.minecraft.network.protocol.common.custom.BrandPayload;
+import net.minecraft.network.protocol.common.custom.EntityDataBatchingPayload;
 import net.minecraft.network.protocol.configuration.ConfigurationProtocols;
 import net.minecraft.network.protocol.cookie.ClientboundCookieRequestPacket;
 import net.minecraft.network.protocol.cookie.ServerboundCookieResponsePacket;
@@ -191,6 +192,7 @@ public class ClientHandshakePacketListenerImpl implements ClientLoginPacketListe
 		this.connection.send(ServerboundLoginAcknowledgedPacket.INSTANCE);
 		this.connection.setupOutboundProtocol(ConfigurationProtocols.SERVERBOUND);
 		this.connection.send(new ServerboundCustomPayloadPacket(new BrandPayload(ClientBrandRetriever.getClientModName())));
+		this.connection.send(new ServerboundCustomPayloadPacket(new EntityDataBatchingPayload(EntityDataBatchingPayload.VERSION)));
 		this.connection.send(new ServerboundClientInformationPacket(this.minecraft.options.buildPlayerInformation()));
 	}
 
@@ -196,6 +196,7 @@ import net.minecraft.network.protocol.game.ClientboundSetChunkCacheRadiusPacket;
 import net.minecraft.network.protocol.game.ClientboundSetCursorItemPacket;
 import net.minecraft.network.protocol.game.ClientboundSetDefaultSpawnPositionPacket;
 import net.minecraft.network.protocol.game.ClientboundSetDisplayObjectivePacket;
+import net.minecraft.network.protocol.game.ClientboundSetEntitiesDataPacket;
 import net.minecraft.network.protocol.game.ClientboundSetEntityDataPacket;
 import net.minecraft.network.protocol.game.ClientboundSetEntityLinkPacket;
 import net.minecraft.network.protocol.game.ClientboundSetEntityMotionPacket;
@@ -626,6 +627,14 @@ public class ClientPacketListener extends ClientCommonPacketListenerImpl impleme
 		}
 	}
 
+	public void handleSetEntitiesData(ClientboundSetEntitiesDataPacket clientboundSetEntitiesDataPacket) {
+		PacketUtils.ensureRunningOnSameThread(clientboundSetEntitiesDataPacket, this, this.minecraft.packetProcessor());
+
+		for (ClientboundSetEntityDataPacket clientboundSetEntityDataPacket : clientboundSetEntitiesDataPacket.entities()) {
+			this.handleSetEntityData(clientboundSetEntityDataPacket);
+		}
+	}
+
 	public void handleEntityPositionSync(ClientboundEntityPositionSyncPacket clientboundEntityPositionSyncPacket) {
 		PacketUtils.ensureRunningOnSameThread(clientboundEntityPositionSyncPacket, this, this.minecraft.packetProcessor());
 		Entity entity = this.level.getEntity(clientboundEntityPositionSyncPacket.id());
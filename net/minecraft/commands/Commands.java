@@ -96,6 +96,7 @@ import net.minecraft.server.commands.PerfCommand;
 import net.minecraft.server.commands.PermissionCheck;
 import net.minecraft.server.commands.PlaceCommand;
 import net.minecraft.server.commands.PlaySoundCommand;
+import net.minecraft.server.commands.PregenerateCommand;
 import net.minecraft.server.commands.PublishCommand;
 import net.minecraft.server.commands.RaidCommand;
 import net.minecraft.server.commands.RandomCommand;
@@ -215,6 +216,7 @@ public class Commands {
 		ParticleCommand.register(this.dispatcher, commandBuildContext);
 		PlaceCommand.register(this.dispatcher);
 		PlaySoundCommand.register(this.dispatcher);
+		PregenerateCommand.register(this.dispatcher);
 		RandomCommand.register(this.dispatcher);
 		ReloadCommand.register(this.dispatcher);
 		RecipeCommand.register(this.dispatcher);
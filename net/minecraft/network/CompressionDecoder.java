@@ -12,21 +12,23 @@ import java.util.zip.Inflater;
 public class CompressionDecoder extends ByteToMessageDecoder {
 	public static final int MAXIMUM_COMPRESSED_LENGTH = 2097152;
 	public static final int MAXIMUM_UNCOMPRESSED_LENGTH = 8388608;
-	private final Inflater inflater;
+	/**
+	 * Inflaters are shared by the connections of a network thread, like the deflaters of {@link CompressionEncoder}.
+	 */
+	private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
 	private int threshold;
 	private boolean validateDecompressed;
 
 	public CompressionDecoder(int i, boolean bl) {
 		this.threshold = i;
 		this.validateDecompressed = bl;
-		this.inflater = new Inflater();
 	}
 
 	@Override
 	protected void decode(ChannelHandlerContext channelHandlerContext, ByteBuf byteBuf, List<Object> list) throws Exception {
 		int i = VarInt.read(byteBuf);
 		if (i == 0) {
-			list.add(byteBuf.readBytes(byteBuf.readableBytes()));
+			list.add(byteBuf.readRetainedSlice(byteBuf.readableBytes()));
 		} else {
 			if (this.validateDecompressed) {
 				if (i < this.threshold) {
@@ -38,14 +40,18 @@ public class CompressionDecoder extends ByteToMessageDecoder {
 				}
 			}
 
-			this.setupInflaterInput(byteBuf);
-			ByteBuf byteBuf2 = this.inflate(channelHandlerContext, i);
-			this.inflater.reset();
-			list.add(byteBuf2);
+			Inflater inflater = INFLATER.get();
+
+			try {
+				setupInflaterInput(inflater, byteBuf);
+				list.add(inflate(inflater, channelHandlerContext, i));
+			} finally {
+				inflater.reset();
+			}
 		}
 	}
 
-	private void setupInflaterInput(ByteBuf byteBuf) {
+	private static void setupInflaterInput(Inflater inflater, ByteBuf byteBuf) {
 		ByteBuffer byteBuffer;
 		if (byteBuf.nioBufferCount() > 0) {
 			byteBuffer = byteBuf.nioBuffer();
@@ -56,16 +62,16 @@ public class CompressionDecoder extends ByteToMessageDecoder {
 			byteBuffer.flip();
 		}
 
-		this.inflater.setInput(byteBuffer);
+		inflater.setInput(byteBuffer);
 	}
 
-	private ByteBuf inflate(ChannelHandlerContext channelHandlerContext, int i) throws DataFormatException {
+	private static ByteBuf inflate(Inflater inflater, ChannelHandlerContext channelHandlerContext, int i) throws DataFormatException {
 		ByteBuf byteBuf = channelHandlerContext.alloc().directBuffer(i);
 
 		try {
 			ByteBuffer byteBuffer = byteBuf.internalNioBuffer(0, i);
 			int j = byteBuffer.position();
-			this.inflater.inflate(byteBuffer);
+			inflater.inflate(byteBuffer);
 			int k = byteBuffer.position() - j;
 			if (k != i) {
 				throw new DecoderException("Badly compressed packet - actual length of uncompressed payload " + k + " is does not match declared size " + i);
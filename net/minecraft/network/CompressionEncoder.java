@@ -3,41 +3,109 @@ package net.minecraft.network;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.util.AttributeKey;
+import java.nio.ByteBuffer;
 import java.util.zip.Deflater;
+import net.minecraft.network.protocol.PacketType;
+import net.minecraft.network.protocol.game.GamePacketTypes;
+import net.minecraft.util.Mth;
 
 public class CompressionEncoder extends MessageToByteEncoder<ByteBuf> {
 	public static final int MAXIMUM_UNCOMPRESSED_LENGTH = 8388608;
-	private static final int ENCODE_BUFFER_SIZE = 8192;
-	private final byte[] encodeBuf = new byte[ENCODE_BUFFER_SIZE];
-	private final Deflater deflater;
+	private static final int MIN_WRITABLE_BYTES = 256;
+	/**
+	 * The compression level {@link PacketEncoder} picked for the last packet it encoded on the channel, only set when
+	 * {@link #hasPacketLevels} is true.
+	 */
+	static final AttributeKey<Integer> PACKET_LEVEL = AttributeKey.valueOf("compression_level");
+	/**
+	 * Deflaters are shared by the connections of a network thread instead of being kept by each connection, as they
+	 * are only used while a packet is compressed.
+	 */
+	private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(Deflater::new);
+	private static volatile int playLevel = Deflater.DEFAULT_COMPRESSION;
+	private static volatile int chunkLevel = Deflater.DEFAULT_COMPRESSION;
+	private static volatile int configurationLevel = Deflater.DEFAULT_COMPRESSION;
 	private int threshold;
 
 	public CompressionEncoder(int i) {
 		this.threshold = i;
-		this.deflater = new Deflater();
 	}
 
-	protected void encode(ChannelHandlerContext channelHandlerContext, ByteBuf byteBuf, ByteBuf byteBuf2) {
+	/**
+	 * Sets the zlib levels, from {@code 0} to {@code 9} or {@code -1} for the default, used to compress game packets,
+	 * the chunk and light packets of the game protocol and the packets of the other protocols, such as the registries
+	 * sent during configuration.
+	 */
+	public static void setLevels(int i, int j, int k) {
+		playLevel = Mth.clamp(i, Deflater.DEFAULT_COMPRESSION, Deflater.BEST_COMPRESSION);
+		chunkLevel = Mth.clamp(j, Deflater.DEFAULT_COMPRESSION, Deflater.BEST_COMPRESSION);
+		configurationLevel = Mth.clamp(k, Deflater.DEFAULT_COMPRESSION, Deflater.BEST_COMPRESSION);
+	}
+
+	/**
+	 * Whether packets are compressed at different levels depending on their type.
+	 */
+	public static boolean hasPacketLevels() {
+		return playLevel != chunkLevel || playLevel != configurationLevel;
+	}
+
+	public static int levelFor(ConnectionProtocol connectionProtocol, PacketType<?> packetType) {
+		if (connectionProtocol != ConnectionProtocol.PLAY) {
+			return configurationLevel;
+		} else {
+			return packetType != GamePacketTypes.CLIENTBOUND_LEVEL_CHUNK_WITH_LIGHT
+					&& packetType != GamePacketTypes.CLIENTBOUND_LIGHT_UPDATE
+					&& packetType != GamePacketTypes.CLIENTBOUND_CHUNKS_BIOMES
+				? playLevel
+				: chunkLevel;
+		}
+	}
+
+	@Override
+	protected ByteBuf allocateBuffer(ChannelHandlerContext channelHandlerContext, ByteBuf byteBuf, boolean bl) {
 		int i = byteBuf.readableBytes();
-		if (i > MAXIMUM_UNCOMPRESSED_LENGTH) {
-			throw new IllegalArgumentException("Packet too big (is " + i + ", should be less than " + MAXIMUM_UNCOMPRESSED_LENGTH + ")");
+		int j = i < this.threshold ? i + 1 : (i >>> 2) + 5;
+		return bl ? channelHandlerContext.alloc().ioBuffer(j) : channelHandlerContext.alloc().heapBuffer(j);
+	}
+
+	protected void encode(ChannelHandlerContext channelHandlerContext, ByteBuf byteBuf, ByteBuf byteBuf2) {
+		Integer integer = hasPacketLevels() ? channelHandlerContext.channel().attr(PACKET_LEVEL).get() : null;
+		this.encode(byteBuf, byteBuf2, integer != null ? integer : playLevel);
+	}
+
+	/**
+	 * Writes the packet to the output, compressed at the given level if it is not below the threshold. Both buffers
+	 * are handed to zlib as they are, without copying them to arrays first.
+	 */
+	void encode(ByteBuf byteBuf, ByteBuf byteBuf2, int i) {
+		int j = byteBuf.readableBytes();
+		if (j > MAXIMUM_UNCOMPRESSED_LENGTH) {
+			throw new IllegalArgumentException("Packet too big (is " + j + ", should be less than " + MAXIMUM_UNCOMPRESSED_LENGTH + ")");
 		} else {
-			if (i < this.threshold) {
+			if (j < this.threshold) {
 				VarInt.write(byteBuf2, 0);
 				byteBuf2.writeBytes(byteBuf);
 			} else {
-				byte[] bs = new byte[i];
-				byteBuf.readBytes(bs);
-				VarInt.write(byteBuf2, bs.length);
-				this.deflater.setInput(bs, 0, i);
-				this.deflater.finish();
-
-				while (!this.deflater.finished()) {
-					int j = this.deflater.deflate(this.encodeBuf);
-					byteBuf2.writeBytes(this.encodeBuf, 0, j);
-				}
+				VarInt.write(byteBuf2, j);
+				Deflater deflater = DEFLATER.get();
+
+				try {
+					deflater.setLevel(i);
+					deflater.setInput(byteBuf.nioBuffer());
+					deflater.finish();
 
-				this.deflater.reset();
+					while (!deflater.finished()) {
+						byteBuf2.ensureWritable(MIN_WRITABLE_BYTES);
+						ByteBuffer byteBuffer = byteBuf2.internalNioBuffer(byteBuf2.writerIndex(), byteBuf2.writableBytes());
+						int k = deflater.deflate(byteBuffer);
+						byteBuf2.writerIndex(byteBuf2.writerIndex() + k);
+					}
+
+					byteBuf.skipBytes(j);
+				} finally {
+					deflater.reset();
+				}
 			}
 		}
 	}
@@ -5,6 +5,7 @@ import com.google.common.collect.Queues;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.mojang.logging.LogUtils;
 import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelException;
 import io.netty.channel.ChannelFuture;
@@ -60,6 +61,7 @@ import net.minecraft.network.protocol.status.StatusProtocols;
 import net.minecraft.server.RunningOnDifferentThreadException;
 import net.minecraft.util.Mth;
 import net.minecraft.util.debugchart.LocalSampleLogger;
+import net.minecraft.util.profiling.jfr.JvmProfiler;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.Marker;
@@ -312,6 +314,60 @@ public class Connection extends SimpleChannelInboundHandler<Packet<?>> {
 		}
 	}
 
+	/**
+	 * Sends a packet encoded for several connections, see {@link SharedPacketEncoder}. The shared frame is used if this
+	 * connection would have encoded the packet the same way when it is written, otherwise the packet is encoded as
+	 * usual.
+	 */
+	public void send(SharedPacketEncoder.Encoded encoded, boolean bl) {
+		if (this.isConnected() && !this.isMemoryConnection()) {
+			this.flushQueue();
+			this.sentPackets++;
+			ByteBuf byteBuf = encoded.retainedBuffer();
+			if (this.channel.eventLoop().inEventLoop()) {
+				this.doSendEncoded(encoded, byteBuf, bl);
+			} else {
+				this.channel.eventLoop().execute(() -> this.doSendEncoded(encoded, byteBuf, bl));
+			}
+		} else {
+			this.send(encoded.packet(), null, bl);
+		}
+	}
+
+	private void doSendEncoded(SharedPacketEncoder.Encoded encoded, ByteBuf byteBuf, boolean bl) {
+		ChannelHandlerContext channelHandlerContext = this.getEncodedPacketContext(encoded);
+		if (channelHandlerContext == null) {
+			byteBuf.release();
+			this.doSendPacket(encoded.packet(), null, bl);
+		} else {
+			encoded.onSent();
+			JvmProfiler.INSTANCE.onPacketSent(encoded.protocol(), encoded.packet().type(), this.channel.remoteAddress(), encoded.size());
+			if (bl) {
+				channelHandlerContext.writeAndFlush(byteBuf, this.channel.voidPromise());
+			} else {
+				channelHandlerContext.write(byteBuf, this.channel.voidPromise());
+			}
+		}
+	}
+
+	/**
+	 * The context whose next outbound handler is the frame prepender, if the packet encoder and compression of this
+	 * connection match the ones the packet was encoded with.
+	 */
+	@Nullable
+	private ChannelHandlerContext getEncodedPacketContext(SharedPacketEncoder.Encoded encoded) {
+		ChannelPipeline channelPipeline = this.channel.pipeline();
+		if (channelPipeline.get("encoder") instanceof PacketEncoder<?> packetEncoder && packetEncoder.getProtocolInfo().id() == encoded.protocol()) {
+			if (channelPipeline.get("compress") instanceof CompressionEncoder compressionEncoder) {
+				return compressionEncoder.getThreshold() == encoded.threshold() ? channelPipeline.context("compress") : null;
+			} else {
+				return encoded.threshold() < 0 ? channelPipeline.context("encoder") : null;
+			}
+		} else {
+			return null;
+		}
+	}
+
 	public void runOnceConnected(Consumer<Connection> consumer) {
 		if (this.isConnected()) {
 			this.flushQueue();
@@ -17,11 +17,19 @@ public class PacketEncoder<T extends PacketListener> extends MessageToByteEncode
 		this.protocolInfo = protocolInfo;
 	}
 
+	public ProtocolInfo<T> getProtocolInfo() {
+		return this.protocolInfo;
+	}
+
 	protected void encode(ChannelHandlerContext channelHandlerContext, Packet<T> packet, ByteBuf byteBuf) throws Exception {
 		PacketType<? extends Packet<? super T>> packetType = packet.type();
 
 		try {
 			this.protocolInfo.codec().encode(byteBuf, packet);
+			if (CompressionEncoder.hasPacketLevels()) {
+				channelHandlerContext.channel().attr(CompressionEncoder.PACKET_LEVEL).set(CompressionEncoder.levelFor(this.protocolInfo.id(), packetType));
+			}
+
 			int i = byteBuf.readableBytes();
 			if (LOGGER.isDebugEnabled()) {
 				LOGGER.debug(Connection.PACKET_SENT_MARKER, "OUT: [{}:{}] {} -> {} bytes", this.protocolInfo.id().id(), packetType, packet.getClass().getName(), i);
@@ -1,22 +1,67 @@
 package net.minecraft.network;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Queues;
 import com.mojang.logging.LogUtils;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 import net.minecraft.ReportedException;
+import net.minecraft.Util;
 import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.PacketType;
 import net.minecraft.network.protocol.PacketUtils;
+import net.minecraft.util.profiling.metrics.MetricCategory;
+import net.minecraft.util.profiling.metrics.MetricSampler;
+import net.minecraft.util.profiling.metrics.MetricsRegistry;
+import net.minecraft.util.profiling.metrics.ProfilerMeasured;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 
-public class PacketProcessor implements AutoCloseable {
+public class PacketProcessor implements AutoCloseable, ProfilerMeasured {
 	static final Logger LOGGER = LogUtils.getLogger();
+	private static volatile int workerThreads;
 	private final Queue<PacketProcessor.ListenerAndPacket<?>> packetsToBeHandled = Queues.<PacketProcessor.ListenerAndPacket<?>>newConcurrentLinkedQueue();
 	private final Thread runningThread;
-	private boolean closed;
+	/**
+	 * Nanoseconds spent handling each packet type since the metrics last sampled it.
+	 */
+	private final Map<PacketType<?>, LongAdder> processingTimes = new ConcurrentHashMap<>();
+	@Nullable
+	private final ExecutorService workerExecutor;
+	@Nullable
+	private final Semaphore workerPermits;
+	private volatile boolean closed;
 
 	public PacketProcessor(Thread thread) {
 		this.runningThread = thread;
+		int i = workerThreads;
+		if (i > 0) {
+			this.workerExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("Packet Worker-", 0L).factory());
+			this.workerPermits = new Semaphore(i);
+		} else {
+			this.workerExecutor = null;
+			this.workerPermits = null;
+		}
+
+		MetricsRegistry.INSTANCE.add(this);
+	}
+
+	/**
+	 * Sets how many packets that do not touch the world, such as chat messages and chat session updates, may be handled
+	 * at once on virtual threads instead of the server thread, {@code 0} handling them the way they always were. Only
+	 * applies to processors created afterwards.
+	 */
+	public static void setWorkerThreads(int i) {
+		workerThreads = Math.max(i, 0);
 	}
 
 	public boolean isSameThread() {
@@ -34,13 +79,70 @@ public class PacketProcessor implements AutoCloseable {
 	public void processQueuedPackets() {
 		if (!this.closed) {
 			while (!this.packetsToBeHandled.isEmpty()) {
-				((PacketProcessor.ListenerAndPacket)this.packetsToBeHandled.poll()).handle();
+				PacketProcessor.ListenerAndPacket<?> listenerAndPacket = (PacketProcessor.ListenerAndPacket<?>)this.packetsToBeHandled.poll();
+				this.runTimed(listenerAndPacket.packet.type(), listenerAndPacket::handle);
 			}
 		}
 	}
 
+	/**
+	 * Creates a worker for the packets of one connection, or returns {@code null} if workers are disabled.
+	 */
+	@Nullable
+	public PacketProcessor.Worker createWorker(String string) {
+		return this.workerExecutor != null ? new PacketProcessor.Worker(string) : null;
+	}
+
+	private void runTimed(PacketType<?> packetType, Runnable runnable) {
+		this.runTimed(packetType, () -> {
+			runnable.run();
+			return null;
+		});
+	}
+
+	private <T> T runTimed(PacketType<?> packetType, Supplier<T> supplier) {
+		long l = Util.getNanos();
+
+		try {
+			return (T)supplier.get();
+		} finally {
+			this.processingTimes.computeIfAbsent(packetType, packetTypex -> new LongAdder()).add(Util.getNanos() - l);
+		}
+	}
+
+	private void executeOnWorkerThread(Runnable runnable) {
+		this.workerExecutor.execute(() -> {
+			this.workerPermits.acquireUninterruptibly();
+
+			try {
+				runnable.run();
+			} finally {
+				this.workerPermits.release();
+			}
+		});
+	}
+
 	public void close() {
 		this.closed = true;
+		if (this.workerExecutor != null) {
+			this.workerExecutor.shutdownNow();
+		}
+	}
+
+	@Override
+	public List<MetricSampler> profiledMetrics() {
+		ImmutableList.Builder<MetricSampler> builder = ImmutableList.builder();
+		this.processingTimes
+			.forEach(
+				(packetType, longAdder) -> builder.add(
+					MetricSampler.create("packet-processing-time/" + packetType, MetricCategory.NETWORK, () -> longAdder.sumThenReset() / 1000000.0)
+				)
+			);
+		if (this.workerPermits != null) {
+			builder.add(MetricSampler.create("packet-workers-busy", MetricCategory.NETWORK, () -> workerThreads - this.workerPermits.availablePermits()));
+		}
+
+		return builder.build();
 	}
 
 	record ListenerAndPacket<T extends PacketListener>(T listener, Packet<T> packet) {
@@ -60,4 +162,77 @@ public class PacketProcessor implements AutoCloseable {
 			}
 		}
 	}
+
+	/**
+	 * Handles the packets and tasks of one connection in the order they were handed over, one after the other, on the
+	 * virtual threads of the processor instead of the server thread. The processing time of every task counts towards
+	 * the packet type it was handed over with.
+	 */
+	public class Worker implements AutoCloseable {
+		private final String name;
+		private CompletableFuture<?> tail = CompletableFuture.completedFuture(null);
+		private volatile boolean closed;
+		@Nullable
+		private volatile Thread currentThread;
+
+		Worker(final String string) {
+			this.name = string;
+		}
+
+		public boolean isSameThread() {
+			return Thread.currentThread() == this.currentThread;
+		}
+
+		public <T extends PacketListener> void scheduleIfPossible(T packetListener, Packet<T> packet) {
+			PacketProcessor.ListenerAndPacket<T> listenerAndPacket = new PacketProcessor.ListenerAndPacket<>(packetListener, packet);
+			this.execute(packet.type(), listenerAndPacket::handle);
+		}
+
+		public void execute(PacketType<?> packetType, Runnable runnable) {
+			this.executeChained(packetType, () -> {
+				runnable.run();
+				return null;
+			});
+		}
+
+		/**
+		 * Runs a task like {@link #execute}, but only starts the tasks handed over after it once the future it returns
+		 * has completed. A task can so continue on another thread, such as the server thread, and keep its place in the
+		 * order without holding a worker while it waits. A {@code null} future lets the next task start right away.
+		 */
+		public synchronized void executeChained(PacketType<?> packetType, Supplier<CompletableFuture<?>> supplier) {
+			if (PacketProcessor.this.closed || this.closed) {
+				throw new RejectedExecutionException("Server already shutting down");
+			} else {
+				this.tail = this.tail.thenComposeAsync(object -> this.run(packetType, supplier), PacketProcessor.this::executeOnWorkerThread);
+			}
+		}
+
+		private CompletableFuture<?> run(PacketType<?> packetType, Supplier<CompletableFuture<?>> supplier) {
+			CompletableFuture<?> completableFuture = null;
+			if (!this.closed) {
+				this.currentThread = Thread.currentThread();
+
+				try {
+					completableFuture = PacketProcessor.this.runTimed(packetType, supplier);
+				} catch (Exception var8) {
+					PacketProcessor.LOGGER.error("Error executing task on {}", this.name, var8);
+				} finally {
+					this.currentThread = null;
+				}
+			}
+
+			return completableFuture == null ? CompletableFuture.completedFuture(null) : completableFuture.handle((object, throwable) -> {
+				if (throwable != null) {
+					PacketProcessor.LOGGER.error("Error executing task on {}", this.name, throwable);
+				}
+
+				return null;
+			});
+		}
+
+		public void close() {
+			this.closed = true;
+		}
+	}
 }
@@ -0,0 +1,183 @@
+package net.minecraft.network;
+
+import com.google.common.collect.ImmutableList;
+import com.mojang.logging.LogUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import net.minecraft.network.protocol.BundlePacket;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.util.profiling.metrics.MetricCategory;
+import net.minecraft.util.profiling.metrics.MetricSampler;
+import net.minecraft.util.profiling.metrics.MetricsRegistry;
+import net.minecraft.util.profiling.metrics.ProfilerMeasured;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+
+/**
+ * Encodes and compresses a packet once for all connections it is broadcast to.
+ * <p>
+ * The result holds the frame body every connection would have produced itself, that is the output of
+ * {@link PacketEncoder} followed by {@link CompressionEncoder}. {@link Connection#send(SharedPacketEncoder.Encoded, boolean)}
+ * writes a retained view of it straight to the frame prepender, so encryption still happens per connection. A
+ * connection whose outbound protocol or compression threshold differs from the ones used here, and memory
+ * connections, send the packet the usual way instead.
+ * </p>
+ * <p>
+ * Bundles, which are split before encoding, and terminal packets, which switch protocols once encoded, are never
+ * shared. Everything else is encoded on the calling thread when it is broadcast, rather than on each connection's
+ * event loop.
+ * </p>
+ */
+public class SharedPacketEncoder implements ProfilerMeasured {
+	private static final Logger LOGGER = LogUtils.getLogger();
+	private static volatile boolean enabled;
+	private final ProtocolInfo<?> protocolInfo;
+	private final int threshold;
+	@Nullable
+	private final CompressionEncoder compressionEncoder;
+	private final AtomicLong packetsEncoded = new AtomicLong();
+	private final AtomicLong packetsShared = new AtomicLong();
+	private final AtomicLong bytesSaved = new AtomicLong();
+
+	public SharedPacketEncoder(ProtocolInfo<?> protocolInfo, int i) {
+		this.protocolInfo = protocolInfo;
+		this.threshold = i;
+		this.compressionEncoder = i >= 0 ? new CompressionEncoder(i) : null;
+		MetricsRegistry.INSTANCE.add(this);
+	}
+
+	/**
+	 * Enables encoding packets sent to every player tracking an entity once instead of once per player. Chunk packets
+	 * are shared through {@link net.minecraft.server.level.ChunkPacketCache} regardless.
+	 */
+	public static void setEnabled(boolean bl) {
+		enabled = bl;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Encodes the packet for sharing, or returns {@code null} if it cannot be shared or fails to encode, in which case
+	 * it should be sent the usual way. The caller owns the result and must {@link Encoded#release release} it once it
+	 * was handed to every connection. Not thread safe.
+	 */
+	@Nullable
+	public SharedPacketEncoder.Encoded encode(Packet<?> packet) {
+		if (!(packet instanceof BundlePacket) && !packet.isTerminal()) {
+			ByteBuf byteBuf = ByteBufAllocator.DEFAULT.buffer();
+
+			try {
+				((ProtocolInfo<PacketListener>)this.protocolInfo).codec().encode(byteBuf, (Packet<? super PacketListener>)packet);
+				int i = byteBuf.readableBytes();
+				if (this.compressionEncoder != null) {
+					ByteBuf byteBuf2 = ByteBufAllocator.DEFAULT.buffer(Math.min(i, CompressionEncoder.MAXIMUM_UNCOMPRESSED_LENGTH) + 5);
+
+					try {
+						this.compressionEncoder.encode(byteBuf, byteBuf2, CompressionEncoder.levelFor(this.protocolInfo.id(), packet.type()));
+					} catch (RuntimeException var9) {
+						byteBuf2.release();
+						throw var9;
+					}
+
+					byteBuf.release();
+					byteBuf = byteBuf2;
+				}
+
+				this.packetsEncoded.incrementAndGet();
+				return new SharedPacketEncoder.Encoded(this, packet, this.protocolInfo.id(), this.threshold, byteBuf, i);
+			} catch (RuntimeException var10) {
+				LOGGER.debug("Failed to encode {} for sharing", packet.type(), var10);
+				byteBuf.release();
+				return null;
+			}
+		} else {
+			return null;
+		}
+	}
+
+	@Override
+	public List<MetricSampler> profiledMetrics() {
+		return ImmutableList.of(
+			MetricSampler.create("shared-packets-encoded", MetricCategory.NETWORK, () -> this.packetsEncoded.getAndSet(0L)),
+			MetricSampler.create("shared-packets-sent", MetricCategory.NETWORK, () -> this.packetsShared.getAndSet(0L)),
+			MetricSampler.create("shared-packet-bytes-saved", MetricCategory.NETWORK, () -> this.bytesSaved.getAndSet(0L))
+		);
+	}
+
+	/**
+	 * A packet encoded for a protocol and compression threshold.
+	 */
+	public static class Encoded {
+		private final SharedPacketEncoder encoder;
+		private final Packet<?> packet;
+		private final ConnectionProtocol protocol;
+		private final int threshold;
+		private final ByteBuf buffer;
+		private final int size;
+		private final AtomicInteger sends = new AtomicInteger();
+
+		Encoded(SharedPacketEncoder sharedPacketEncoder, Packet<?> packet, ConnectionProtocol connectionProtocol, int i, ByteBuf byteBuf, int j) {
+			this.encoder = sharedPacketEncoder;
+			this.packet = packet;
+			this.protocol = connectionProtocol;
+			this.threshold = i;
+			this.buffer = byteBuf;
+			this.size = j;
+		}
+
+		public Packet<?> packet() {
+			return this.packet;
+		}
+
+		public ConnectionProtocol protocol() {
+			return this.protocol;
+		}
+
+		/**
+		 * The compression threshold the packet was encoded for, negative if it is not compressed.
+		 */
+		public int threshold() {
+			return this.threshold;
+		}
+
+		/**
+		 * The length of the packet before compression.
+		 */
+		public int size() {
+			return this.size;
+		}
+
+		/**
+		 * The length of the encoded, and possibly compressed, frame body.
+		 */
+		public int bufferSize() {
+			return this.buffer.readableBytes();
+		}
+
+		/**
+		 * A view of the frame body with its own indices, which the receiver must release.
+		 */
+		ByteBuf retainedBuffer() {
+			return this.buffer.retainedDuplicate();
+		}
+
+		/**
+		 * Records that a connection sent the shared frame instead of encoding the packet itself.
+		 */
+		void onSent() {
+			this.encoder.packetsShared.incrementAndGet();
+			if (this.sends.getAndIncrement() > 0) {
+				this.encoder.bytesSaved.addAndGet(this.size);
+			}
+		}
+
+		public void release() {
+			this.buffer.release();
+		}
+	}
+}
@@ -26,6 +26,21 @@ public class PacketUtils {
 		}
 	}
 
+	/**
+	 * Hands a packet that does not touch the world over to the connection's worker, or to the server thread like
+	 * {@link #ensureRunningOnSameThread} if workers are disabled.
+	 */
+	public static <T extends PacketListener> void ensureRunningOnWorker(
+		Packet<T> packet, T packetListener, @Nullable PacketProcessor.Worker worker, PacketProcessor packetProcessor
+	) throws RunningOnDifferentThreadException {
+		if (worker == null) {
+			ensureRunningOnSameThread(packet, packetListener, packetProcessor);
+		} else if (!worker.isSameThread()) {
+			worker.scheduleIfPossible(packetListener, packet);
+			throw RunningOnDifferentThreadException.RUNNING_ON_DIFFERENT_THREAD;
+		}
+	}
+
 	public static <T extends PacketListener> ReportedException makeReportedException(Exception exception, Packet<T> packet, T packetListener) {
 		if (exception instanceof ReportedException reportedException) {
 			fillCrashReport(reportedException.getReport(), packetListener, packet);
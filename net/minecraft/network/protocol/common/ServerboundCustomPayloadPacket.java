@@ -9,6 +9,7 @@ import net.minecraft.network.protocol.PacketType;
 import net.minecraft.network.protocol.common.custom.BrandPayload;
 import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
 import net.minecraft.network.protocol.common.custom.DiscardedPayload;
+import net.minecraft.network.protocol.common.custom.EntityDataBatchingPayload;
 
 public record ServerboundCustomPayloadPacket(CustomPacketPayload payload) implements Packet<ServerCommonPacketListener> {
 	private static final int MAX_PAYLOAD_SIZE = 32767;
@@ -16,7 +17,8 @@ public record ServerboundCustomPayloadPacket(CustomPacketPayload payload) implem
 			resourceLocation -> DiscardedPayload.codec(resourceLocation, 32767),
 			Util.make(
 				Lists.<CustomPacketPayload.TypeAndCodec<? super FriendlyByteBuf, ?>>newArrayList(
-					new CustomPacketPayload.TypeAndCodec<>(BrandPayload.TYPE, BrandPayload.STREAM_CODEC)
+					new CustomPacketPayload.TypeAndCodec<>(BrandPayload.TYPE, BrandPayload.STREAM_CODEC),
+					new CustomPacketPayload.TypeAndCodec<>(EntityDataBatchingPayload.TYPE, EntityDataBatchingPayload.STREAM_CODEC)
 				),
 				arrayList -> {}
 			)
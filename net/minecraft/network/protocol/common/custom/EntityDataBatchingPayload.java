@@ -0,0 +1,31 @@
+package net.minecraft.network.protocol.common.custom;
+
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+
+/**
+ * Sent by the client during configuration to announce which version of
+ * {@link net.minecraft.network.protocol.game.ClientboundSetEntitiesDataPacket} it understands. The server only batches
+ * the entity data changes of clients that announced the version it sends; every other client keeps getting one packet
+ * per entity, and servers that do not know this payload discard it.
+ */
+public record EntityDataBatchingPayload(int version) implements CustomPacketPayload {
+	public static final int VERSION = 1;
+	public static final StreamCodec<FriendlyByteBuf, EntityDataBatchingPayload> STREAM_CODEC = CustomPacketPayload.codec(
+		EntityDataBatchingPayload::write, EntityDataBatchingPayload::new
+	);
+	public static final CustomPacketPayload.Type<EntityDataBatchingPayload> TYPE = CustomPacketPayload.createType("entity_data_batching");
+
+	private EntityDataBatchingPayload(FriendlyByteBuf friendlyByteBuf) {
+		this(friendlyByteBuf.readVarInt());
+	}
+
+	private void write(FriendlyByteBuf friendlyByteBuf) {
+		friendlyByteBuf.writeVarInt(this.version);
+	}
+
+	@Override
+	public CustomPacketPayload.Type<EntityDataBatchingPayload> type() {
+		return TYPE;
+	}
+}
@@ -112,6 +112,8 @@ public interface ClientGamePacketListener extends ClientCommonPacketListener, Cl
 
 	void handleSetEntityData(ClientboundSetEntityDataPacket clientboundSetEntityDataPacket);
 
+	void handleSetEntitiesData(ClientboundSetEntitiesDataPacket clientboundSetEntitiesDataPacket);
+
 	void handleSetEntityMotion(ClientboundSetEntityMotionPacket clientboundSetEntityMotionPacket);
 
 	void handleSetEquipment(ClientboundSetEquipmentPacket clientboundSetEquipmentPacket);
@@ -0,0 +1,134 @@
+package net.minecraft.network.protocol.game;
+
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.EncoderException;
+import java.util.ArrayList;
+import java.util.List;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.PacketType;
+import net.minecraft.network.syncher.EntityDataSerializer;
+import net.minecraft.network.syncher.EntityDataSerializers;
+import net.minecraft.network.syncher.SynchedEntityData;
+
+/**
+ * The entity data changes of many entities in one packet, applied like a {@link ClientboundSetEntityDataPacket} for
+ * each of them.
+ * <p>
+ * Entity ids are written as the difference to the previous one, so a batch sorted by id mostly takes a byte per
+ * entity. A value equal to the last value written for the same data id, such as the shared flags most mobs set to the
+ * same byte, is written as its data id alone. Otherwise values are written like in
+ * {@link ClientboundSetEntityDataPacket}, with the serializer id shifted by one.
+ * </p>
+ */
+public record ClientboundSetEntitiesDataPacket(List<ClientboundSetEntityDataPacket> entities) implements Packet<ClientGamePacketListener> {
+	public static final StreamCodec<RegistryFriendlyByteBuf, ClientboundSetEntitiesDataPacket> STREAM_CODEC = Packet.codec(
+		ClientboundSetEntitiesDataPacket::write, ClientboundSetEntitiesDataPacket::new
+	);
+	public static final int MAX_ENTITIES = 1024;
+	private static final int REPEATED_VALUE = 0;
+
+	private ClientboundSetEntitiesDataPacket(RegistryFriendlyByteBuf registryFriendlyByteBuf) {
+		this(read(registryFriendlyByteBuf));
+	}
+
+	private static List<ClientboundSetEntityDataPacket> read(RegistryFriendlyByteBuf registryFriendlyByteBuf) {
+		int i = registryFriendlyByteBuf.readVarInt();
+		if (i < 0 || i > MAX_ENTITIES) {
+			throw new DecoderException("Invalid entity count " + i);
+		} else {
+			List<ClientboundSetEntityDataPacket> list = new ArrayList(i);
+			SynchedEntityData.DataValue<?>[] dataValues = new SynchedEntityData.DataValue[ClientboundSetEntityDataPacket.EOF_MARKER];
+			int j = 0;
+
+			for (int k = 0; k < i; k++) {
+				j += registryFriendlyByteBuf.readVarInt();
+				List<SynchedEntityData.DataValue<?>> list2 = new ArrayList();
+
+				int l;
+				while ((l = registryFriendlyByteBuf.readUnsignedByte()) != ClientboundSetEntityDataPacket.EOF_MARKER) {
+					int m = registryFriendlyByteBuf.readVarInt();
+					SynchedEntityData.DataValue<?> dataValue;
+					if (m == REPEATED_VALUE) {
+						if (dataValues[l] == null) {
+							throw new DecoderException("No previous value for entity data " + l);
+						}
+
+						dataValue = copy(dataValues[l]);
+					} else {
+						EntityDataSerializer<?> entityDataSerializer = EntityDataSerializers.getSerializer(m - 1);
+						if (entityDataSerializer == null) {
+							throw new DecoderException("Unknown serializer type " + (m - 1));
+						}
+
+						dataValue = readValue(registryFriendlyByteBuf, l, entityDataSerializer);
+						dataValues[l] = dataValue;
+					}
+
+					list2.add(dataValue);
+				}
+
+				list.add(new ClientboundSetEntityDataPacket(j, list2));
+			}
+
+			return list;
+		}
+	}
+
+	private static <T> SynchedEntityData.DataValue<T> readValue(
+		RegistryFriendlyByteBuf registryFriendlyByteBuf, int i, EntityDataSerializer<T> entityDataSerializer
+	) {
+		return new SynchedEntityData.DataValue<>(i, entityDataSerializer, entityDataSerializer.codec().decode(registryFriendlyByteBuf));
+	}
+
+	private static <T> SynchedEntityData.DataValue<T> copy(SynchedEntityData.DataValue<T> dataValue) {
+		return new SynchedEntityData.DataValue<>(dataValue.id(), dataValue.serializer(), dataValue.serializer().copy(dataValue.value()));
+	}
+
+	private void write(RegistryFriendlyByteBuf registryFriendlyByteBuf) {
+		if (this.entities.size() > MAX_ENTITIES) {
+			throw new EncoderException("Too many entities " + this.entities.size() + ", should be at most " + MAX_ENTITIES);
+		} else {
+			registryFriendlyByteBuf.writeVarInt(this.entities.size());
+			SynchedEntityData.DataValue<?>[] dataValues = new SynchedEntityData.DataValue[ClientboundSetEntityDataPacket.EOF_MARKER];
+			int i = 0;
+
+			for (ClientboundSetEntityDataPacket clientboundSetEntityDataPacket : this.entities) {
+				registryFriendlyByteBuf.writeVarInt(clientboundSetEntityDataPacket.id() - i);
+				i = clientboundSetEntityDataPacket.id();
+
+				for (SynchedEntityData.DataValue<?> dataValue : clientboundSetEntityDataPacket.packedItems()) {
+					registryFriendlyByteBuf.writeByte(dataValue.id());
+					if (dataValue.equals(dataValues[dataValue.id()])) {
+						registryFriendlyByteBuf.writeVarInt(REPEATED_VALUE);
+					} else {
+						writeValue(registryFriendlyByteBuf, dataValue);
+						dataValues[dataValue.id()] = dataValue;
+					}
+				}
+
+				registryFriendlyByteBuf.writeByte(ClientboundSetEntityDataPacket.EOF_MARKER);
+			}
+		}
+	}
+
+	private static <T> void writeValue(RegistryFriendlyByteBuf registryFriendlyByteBuf, SynchedEntityData.DataValue<T> dataValue) {
+		int i = EntityDataSerializers.getSerializedId(dataValue.serializer());
+		if (i < 0) {
+			throw new EncoderException("Unknown serializer type " + dataValue.serializer());
+		} else {
+			registryFriendlyByteBuf.writeVarInt(i + 1);
+			dataValue.serializer().codec().encode(registryFriendlyByteBuf, dataValue.value());
+		}
+	}
+
+	@Override
+	public PacketType<ClientboundSetEntitiesDataPacket> type() {
+		return GamePacketTypes.CLIENTBOUND_SET_ENTITIES_DATA;
+	}
+
+	public void handle(ClientGamePacketListener clientGamePacketListener) {
+		clientGamePacketListener.handleSetEntitiesData(this);
+	}
+}
@@ -98,6 +98,7 @@ public class GamePacketTypes {
 		"set_default_spawn_position"
 	);
 	public static final PacketType<ClientboundSetDisplayObjectivePacket> CLIENTBOUND_SET_DISPLAY_OBJECTIVE = createClientbound("set_display_objective");
+	public static final PacketType<ClientboundSetEntitiesDataPacket> CLIENTBOUND_SET_ENTITIES_DATA = createClientbound("set_entities_data");
 	public static final PacketType<ClientboundSetEntityDataPacket> CLIENTBOUND_SET_ENTITY_DATA = createClientbound("set_entity_data");
 	public static final PacketType<ClientboundSetEntityLinkPacket> CLIENTBOUND_SET_ENTITY_LINK = createClientbound("set_entity_link");
 	public static final PacketType<ClientboundSetEntityMotionPacket> CLIENTBOUND_SET_ENTITY_MOTION = createClientbound("set_entity_motion");
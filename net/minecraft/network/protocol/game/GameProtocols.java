@@ -271,6 +271,7 @@ public class GameProtocols {
 			.addPacket(GamePacketTypes.CLIENTBOUND_WAYPOINT, ClientboundTrackedWaypointPacket.STREAM_CODEC)
 			.addPacket(CommonPacketTypes.CLIENTBOUND_CLEAR_DIALOG, ClientboundClearDialogPacket.STREAM_CODEC)
 			.addPacket(CommonPacketTypes.CLIENTBOUND_SHOW_DIALOG, ClientboundShowDialogPacket.STREAM_CODEC)
+			.addPacket(GamePacketTypes.CLIENTBOUND_SET_ENTITIES_DATA, ClientboundSetEntitiesDataPacket.STREAM_CODEC)
 	);
 
 	public interface Context {
@@ -30,11 +30,19 @@ import net.minecraft.core.RegistryAccess;
 import net.minecraft.core.registries.Registries;
 import net.minecraft.nbt.NbtException;
 import net.minecraft.nbt.ReportedNbtException;
+import net.minecraft.network.CompressionEncoder;
+import net.minecraft.network.PacketProcessor;
+import net.minecraft.network.SharedPacketEncoder;
 import net.minecraft.network.chat.Component;
 import net.minecraft.obfuscate.DontObfuscate;
 import net.minecraft.server.dedicated.DedicatedServer;
 import net.minecraft.server.dedicated.DedicatedServerProperties;
 import net.minecraft.server.dedicated.DedicatedServerSettings;
+import net.minecraft.server.level.ChunkMap;
+import net.minecraft.server.level.ChunkPacketCache;
+import net.minecraft.server.level.ChunkPregenerator;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ThreadedLevelLightEngine;
 import net.minecraft.server.packs.repository.PackRepository;
 import net.minecraft.server.packs.repository.ServerPacksSource;
 import net.minecraft.util.Mth;
@@ -42,15 +50,21 @@ import net.minecraft.util.datafix.DataFixers;
 import net.minecraft.util.profiling.jfr.Environment;
 import net.minecraft.util.profiling.jfr.JvmProfiler;
 import net.minecraft.util.worldupdate.WorldUpgrader;
+import net.minecraft.world.entity.ai.navigation.AsyncPathfinder;
 import net.minecraft.world.flag.FeatureFlags;
 import net.minecraft.world.level.GameRules;
 import net.minecraft.world.level.LevelSettings;
 import net.minecraft.world.level.WorldDataConfiguration;
+import net.minecraft.world.level.chunk.storage.IOWorker;
+import net.minecraft.world.level.chunk.storage.RegionFile;
+import net.minecraft.world.level.chunk.storage.RegionFileCompactor;
 import net.minecraft.world.level.chunk.storage.RegionFileVersion;
 import net.minecraft.world.level.dimension.LevelStem;
 import net.minecraft.world.level.levelgen.WorldDimensions;
 import net.minecraft.world.level.levelgen.WorldOptions;
 import net.minecraft.world.level.levelgen.presets.WorldPresets;
+import net.minecraft.world.level.levelgen.structure.StructureCheck;
+import net.minecraft.world.level.lighting.LightEngine;
 import net.minecraft.world.level.storage.LevelDataAndDimensions;
 import net.minecraft.world.level.storage.LevelStorageSource;
 import net.minecraft.world.level.storage.LevelSummary;
@@ -88,6 +102,7 @@ import org.slf4j.Logger;
  * --forceUpgrade    Upgrade world to current version
  * --eraseCache      Clear cached data
  * --safeMode        Load with vanilla datapack only
+ * --compactRegionFiles  Compact all region files of the world, then exit
  * </pre>
  * 
  * @see net.minecraft.server.dedicated.DedicatedServer Main server class after initialization
@@ -135,6 +150,7 @@ public class Main {
 		OptionSpec<String> optionSpec13 = optionParser.accepts("serverId").withRequiredArg();
 		OptionSpec<Void> optionSpec14 = optionParser.accepts("jfrProfile");
 		OptionSpec<Path> optionSpec15 = optionParser.accepts("pidFile").withRequiredArg().withValuesConvertedBy(new PathConverter());
+		OptionSpec<Void> optionSpec17 = optionParser.accepts("compactRegionFiles", "Compacts all region files of the world, then quits");
 		OptionSpec<String> optionSpec16 = optionParser.nonOptions();
 
 		try {
@@ -161,6 +177,32 @@ public class Main {
 			DedicatedServerSettings dedicatedServerSettings = new DedicatedServerSettings(path2);
 			dedicatedServerSettings.forceSave();
 			RegionFileVersion.configure(dedicatedServerSettings.getProperties().regionFileComression);
+			RegionFile.setMemoryMappedReads(dedicatedServerSettings.getProperties().regionFileMemoryMappedReads);
+			IOWorker.setParallelDeserialization(dedicatedServerSettings.getProperties().chunkParallelDeserialization);
+			ChunkMap.setStreamingChunkDecoding(dedicatedServerSettings.getProperties().chunkStreamingDecode);
+			ChunkMap.setDirectChunkSerialization(dedicatedServerSettings.getProperties().chunkDirectSerialization);
+			ServerLevel.setParallelRandomTicks(dedicatedServerSettings.getProperties().parallelRandomTicks);
+			ServerLevel.setIndexedRandomTicks(dedicatedServerSettings.getProperties().indexedRandomTicks);
+			ChunkMap.setIndexedEntityTracking(dedicatedServerSettings.getProperties().indexedEntityTracking);
+			ThreadedLevelLightEngine.setParallelLightUpdates(dedicatedServerSettings.getProperties().parallelLightUpdates);
+			LightEngine.setOpacityMapsEnabled(dedicatedServerSettings.getProperties().lightOpacityMaps);
+			StructureCheck.setStartIndexEnabled(dedicatedServerSettings.getProperties().structureStartIndex);
+			ChunkPregenerator.setMaxChunksInFlight(dedicatedServerSettings.getProperties().pregenerationMaxChunksInFlight);
+			AsyncPathfinder.setEnabled(dedicatedServerSettings.getProperties().asyncPathfinding);
+			AsyncPathfinder.setMaxSearchesInFlight(dedicatedServerSettings.getProperties().asyncPathfindingMaxSearches);
+			SharedPacketEncoder.setEnabled(dedicatedServerSettings.getProperties().sharedPacketEncoding);
+			ChunkPacketCache.setMaxSize(dedicatedServerSettings.getProperties().chunkPacketCacheSize);
+			CompressionEncoder.setLevels(
+				dedicatedServerSettings.getProperties().networkCompressionLevel,
+				dedicatedServerSettings.getProperties().networkCompressionLevelChunks,
+				dedicatedServerSettings.getProperties().networkCompressionLevelConfiguration
+			);
+			ChunkMap.setEntityDataBatching(dedicatedServerSettings.getProperties().entityDataBatching);
+			PacketProcessor.setWorkerThreads(dedicatedServerSettings.getProperties().packetWorkerThreads);
+			IOWorker.setBatchedWrites(dedicatedServerSettings.getProperties().regionFileBatchedWrites);
+			IOWorker.setRegionCompaction(
+				dedicatedServerSettings.getProperties().regionFileCompactionInterval, dedicatedServerSettings.getProperties().regionFileCompactionThreshold / 100.0F
+			);
 			Path path3 = Paths.get("eula.txt");
 			Eula eula = new Eula(path3);
 			if (optionSet.has(optionSpec2)) {
@@ -178,6 +220,12 @@ public class Main {
 			String string = (String)Optional.ofNullable(optionSet.valueOf(optionSpec11)).orElse(dedicatedServerSettings.getProperties().levelName);
 			LevelStorageSource levelStorageSource = LevelStorageSource.createDefault(file.toPath());
 			LevelStorageSource.LevelStorageAccess levelStorageAccess = levelStorageSource.validateAndCreateAccess(string);
+			if (optionSet.has(optionSpec17)) {
+				RegionFileCompactor.compactWorld(levelStorageAccess.getLevelId(), levelStorageAccess.getLevelDirectory().path());
+				levelStorageAccess.close();
+				return;
+			}
+
 			Dynamic<?> dynamic;
 			if (levelStorageAccess.hasWorldData()) {
 				LevelSummary levelSummary;
@@ -73,6 +73,8 @@ import net.minecraft.data.worldgen.features.MiscOverworldFeatures;
 import net.minecraft.gametest.framework.GameTestTicker;
 import net.minecraft.nbt.Tag;
 import net.minecraft.network.PacketProcessor;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.SharedPacketEncoder;
 import net.minecraft.network.chat.ChatDecorator;
 import net.minecraft.network.chat.ChatType;
 import net.minecraft.network.chat.Component;
@@ -80,6 +82,7 @@ import net.minecraft.network.protocol.PacketType;
 import net.minecraft.network.protocol.game.ClientboundChangeDifficultyPacket;
 import net.minecraft.network.protocol.game.ClientboundSetDefaultSpawnPositionPacket;
 import net.minecraft.network.protocol.game.ClientboundSetTimePacket;
+import net.minecraft.network.protocol.game.GameProtocols;
 import net.minecraft.network.protocol.status.ServerStatus;
 import net.minecraft.obfuscate.DontObfuscate;
 import net.minecraft.resources.ResourceKey;
@@ -279,6 +282,8 @@ public abstract class MinecraftServer extends ReentrantBlockableEventLoop<TickTa
 	private FuelValues fuelValues;
 	private int emptyTicks;
 	private volatile boolean isSaving;
+	@Nullable
+	private SharedPacketEncoder sharedPacketEncoder;
 	private static final AtomicReference<RuntimeException> fatalException = new AtomicReference();
 	private final SuppressedExceptionCollector suppressedExceptions = new SuppressedExceptionCollector();
 	private final DiscontinuousFrame tickFrame;
@@ -978,11 +983,21 @@ public abstract class MinecraftServer extends ReentrantBlockableEventLoop<TickTa
 		return false;
 	}
 
+	private boolean isPregenerating() {
+		for (ServerLevel serverLevel : this.getAllLevels()) {
+			if (serverLevel.getChunkSource().getPregenerator().isRunning()) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
 	public void tickServer(BooleanSupplier booleanSupplier) {
 		long l = Util.getNanos();
 		int i = this.pauseWhenEmptySeconds() * TICKS_PER_SECOND;
 		if (i > 0) {
-			if (this.playerList.getPlayerCount() == 0 && !this.tickRateManager.isSprinting()) {
+			if (this.playerList.getPlayerCount() == 0 && !this.tickRateManager.isSprinting() && !this.isPregenerating()) {
 				this.emptyTicks++;
 			} else {
 				this.emptyTicks = 0;
@@ -1526,6 +1541,24 @@ public abstract class MinecraftServer extends ReentrantBlockableEventLoop<TickTa
 		return 256;
 	}
 
+	/**
+	 * The encoder for game packets sent to several players, or {@code null} if this is not the server thread.
+	 */
+	@Nullable
+	public SharedPacketEncoder getSharedPacketEncoder() {
+		if (this.isSameThread()) {
+			if (this.sharedPacketEncoder == null) {
+				this.sharedPacketEncoder = new SharedPacketEncoder(
+					GameProtocols.CLIENTBOUND_TEMPLATE.bind(RegistryFriendlyByteBuf.decorator(this.registryAccess())), this.getCompressionThreshold()
+				);
+			}
+
+			return this.sharedPacketEncoder;
+		} else {
+			return null;
+		}
+	}
+
 	public boolean enforceSecureProfile() {
 		return false;
 	}
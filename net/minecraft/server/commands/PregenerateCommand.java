@@ -0,0 +1,94 @@
+package net.minecraft.server.commands;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.exceptions.SimpleCommandExceptionType;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.commands.arguments.coordinates.ColumnPosArgument;
+import net.minecraft.core.SectionPos;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.level.ChunkPregenerator;
+import net.minecraft.server.level.ColumnPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+
+public class PregenerateCommand {
+	private static final int MAX_RADIUS_BLOCKS = ChunkPregenerator.MAX_RADIUS * 16;
+	private static final SimpleCommandExceptionType ERROR_NOT_RUNNING = new SimpleCommandExceptionType(
+		Component.literal("No pregeneration is running in this dimension")
+	);
+
+	public static void register(CommandDispatcher<CommandSourceStack> commandDispatcher) {
+		commandDispatcher.register(
+			Commands.literal("pregenerate")
+				.requires(Commands.hasPermission(3))
+				.then(
+					Commands.literal("start")
+						.then(
+							Commands.argument("center", ColumnPosArgument.columnPos())
+								.then(
+									Commands.argument("radius", IntegerArgumentType.integer(0, MAX_RADIUS_BLOCKS))
+										.executes(
+											commandContext -> start(
+												commandContext.getSource(),
+												ColumnPosArgument.getColumnPos(commandContext, "center"),
+												IntegerArgumentType.getInteger(commandContext, "radius")
+											)
+										)
+								)
+						)
+				)
+				.then(Commands.literal("stop").executes(commandContext -> stop(commandContext.getSource())))
+				.then(Commands.literal("status").executes(commandContext -> status(commandContext.getSource())))
+		);
+	}
+
+	private static int start(CommandSourceStack commandSourceStack, ColumnPos columnPos, int i) {
+		ServerLevel serverLevel = commandSourceStack.getLevel();
+		ChunkPos chunkPos = new ChunkPos(SectionPos.blockToSectionCoord(columnPos.x()), SectionPos.blockToSectionCoord(columnPos.z()));
+		int j = SectionPos.blockToSectionCoord(i + 15);
+		serverLevel.getChunkSource().getPregenerator().start(chunkPos, j);
+		long l = (2L * j + 1L) * (2L * j + 1L);
+		commandSourceStack.sendSuccess(
+			() -> Component.literal("Pregenerating " + l + " chunks of " + serverLevel.dimension().location() + " around chunk " + chunkPos), true
+		);
+		return (int)Math.min(l, Integer.MAX_VALUE);
+	}
+
+	private static int stop(CommandSourceStack commandSourceStack) throws CommandSyntaxException {
+		ServerLevel serverLevel = commandSourceStack.getLevel();
+		if (!serverLevel.getChunkSource().getPregenerator().stop()) {
+			throw ERROR_NOT_RUNNING.create();
+		} else {
+			commandSourceStack.sendSuccess(() -> Component.literal("Stopped pregenerating " + serverLevel.dimension().location()), true);
+			return 1;
+		}
+	}
+
+	private static int status(CommandSourceStack commandSourceStack) throws CommandSyntaxException {
+		ServerLevel serverLevel = commandSourceStack.getLevel();
+		ChunkPregenerator.Progress progress = serverLevel.getChunkSource().getPregenerator().getProgress();
+		if (progress == null) {
+			throw ERROR_NOT_RUNNING.create();
+		} else {
+			commandSourceStack.sendSuccess(
+				() -> Component.literal(
+					String.format(
+						"Pregenerating %s: %d/%d chunks (%.1f%%), %.1f chunks/s, %d in flight, %d failed",
+						serverLevel.dimension().location(),
+						progress.completedChunks(),
+						progress.totalChunks(),
+						progress.completedChunks() * 100.0 / progress.totalChunks(),
+						progress.chunksPerSecond(),
+						progress.chunksInFlight(),
+						progress.failedChunks()
+					)
+				),
+				false
+			);
+			return (int)Math.min(progress.completedChunks(), Integer.MAX_VALUE);
+		}
+	}
+}
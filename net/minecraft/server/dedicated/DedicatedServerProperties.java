@@ -99,6 +99,29 @@ public class DedicatedServerProperties extends Settings<DedicatedServerPropertie
 	public final int maxWorldSize = this.get("max-world-size", integer -> Mth.clamp(integer, 1, 29999984), 29999984);
 	public final boolean syncChunkWrites = this.get("sync-chunk-writes", true);
 	public final String regionFileComression = this.get("region-file-compression", "deflate");
+	public final boolean regionFileMemoryMappedReads = this.get("region-file-memory-mapped-reads", false);
+	public final boolean chunkParallelDeserialization = this.get("chunk-parallel-deserialization", false);
+	public final boolean chunkStreamingDecode = this.get("chunk-streaming-decode", false);
+	public final boolean chunkDirectSerialization = this.get("chunk-direct-serialization", false);
+	public final boolean parallelRandomTicks = this.get("parallel-random-ticks", false);
+	public final boolean indexedRandomTicks = this.get("indexed-random-ticks", false);
+	public final boolean indexedEntityTracking = this.get("indexed-entity-tracking", false);
+	public final boolean parallelLightUpdates = this.get("parallel-light-updates", false);
+	public final boolean lightOpacityMaps = this.get("light-opacity-maps", false);
+	public final boolean structureStartIndex = this.get("structure-start-index", false);
+	public final int pregenerationMaxChunksInFlight = this.get("pregeneration-max-chunks-in-flight", integer -> Math.max(integer, 1), 128);
+	public final boolean asyncPathfinding = this.get("async-pathfinding", false);
+	public final int asyncPathfindingMaxSearches = this.get("async-pathfinding-max-searches", integer -> Math.max(integer, 1), 64);
+	public final boolean sharedPacketEncoding = this.get("shared-packet-encoding", false);
+	public final int chunkPacketCacheSize = this.get("chunk-packet-cache-size", integer -> Math.max(integer, 0), 0);
+	public final int networkCompressionLevel = this.get("network-compression-level", integer -> Mth.clamp(integer, -1, 9), -1);
+	public final int networkCompressionLevelChunks = this.get("network-compression-level-chunks", integer -> Mth.clamp(integer, -1, 9), -1);
+	public final int networkCompressionLevelConfiguration = this.get("network-compression-level-configuration", integer -> Mth.clamp(integer, -1, 9), -1);
+	public final boolean entityDataBatching = this.get("entity-data-batching", false);
+	public final int packetWorkerThreads = this.get("packet-worker-threads", integer -> Mth.clamp(integer, 0, 1024), 0);
+	public final boolean regionFileBatchedWrites = this.get("region-file-batched-writes", false);
+	public final int regionFileCompactionInterval = this.get("region-file-compaction-interval", integer -> Math.max(integer, 0), 0);
+	public final int regionFileCompactionThreshold = this.get("region-file-compaction-threshold", integer -> Mth.clamp(integer, 0, 100), 25);
 	public final boolean enableJmxMonitoring = this.get("enable-jmx-monitoring", false);
 	public final Settings<DedicatedServerProperties>.MutableValue<Boolean> enableStatus = this.getMutable("enable-status", true);
 	public final Settings<DedicatedServerProperties>.MutableValue<Boolean> hideOnlinePlayers = this.getMutable("hide-online-players", false);
@@ -19,10 +19,13 @@ import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import it.unimi.dsi.fastutil.longs.LongSet;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap.Entry;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -54,9 +57,12 @@ import net.minecraft.core.SectionPos;
 import net.minecraft.core.registries.Registries;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.NbtException;
+import net.minecraft.network.SharedPacketEncoder;
 import net.minecraft.network.protocol.Packet;
 import net.minecraft.network.protocol.game.ClientGamePacketListener;
 import net.minecraft.network.protocol.game.ClientboundChunksBiomesPacket;
+import net.minecraft.network.protocol.game.ClientboundSetEntitiesDataPacket;
+import net.minecraft.network.protocol.game.ClientboundSetEntityDataPacket;
 import net.minecraft.network.protocol.game.ClientboundSetChunkCacheCenterPacket;
 import net.minecraft.server.network.ServerPlayerConnection;
 import net.minecraft.util.CsvOutput;
@@ -86,9 +92,11 @@ import net.minecraft.world.level.chunk.status.ChunkStatus;
 import net.minecraft.world.level.chunk.status.ChunkStep;
 import net.minecraft.world.level.chunk.status.ChunkType;
 import net.minecraft.world.level.chunk.status.WorldGenContext;
+import net.minecraft.world.level.chunk.storage.ChunkNbtWriter;
 import net.minecraft.world.level.chunk.storage.ChunkStorage;
 import net.minecraft.world.level.chunk.storage.RegionStorageInfo;
 import net.minecraft.world.level.chunk.storage.SerializableChunkData;
+import net.minecraft.world.level.chunk.storage.StreamingChunkDecoder;
 import net.minecraft.world.level.entity.ChunkStatusUpdateListener;
 import net.minecraft.world.level.levelgen.NoiseBasedChunkGenerator;
 import net.minecraft.world.level.levelgen.NoiseGeneratorSettings;
@@ -118,6 +126,10 @@ public class ChunkMap extends ChunkStorage implements ChunkHolder.PlayerProvider
 	public static final int MIN_VIEW_DISTANCE = 2;
 	public static final int MAX_VIEW_DISTANCE = 32;
 	public static final int FORCED_TICKET_LEVEL = ChunkLevel.byStatus(FullChunkStatus.ENTITY_TICKING);
+	private static volatile boolean streamingChunkDecoding;
+	private static volatile boolean directChunkSerialization;
+	private static volatile boolean indexedEntityTracking;
+	private static volatile boolean entityDataBatching;
 	private final Long2ObjectLinkedOpenHashMap<ChunkHolder> updatingChunkMap = new Long2ObjectLinkedOpenHashMap<>();
 	private volatile Long2ObjectLinkedOpenHashMap<ChunkHolder> visibleChunkMap = this.updatingChunkMap.clone();
 	private final Long2ObjectLinkedOpenHashMap<ChunkHolder> pendingUnloads = new Long2ObjectLinkedOpenHashMap<>();
@@ -139,14 +151,53 @@ public class ChunkMap extends ChunkStorage implements ChunkHolder.PlayerProvider
 	private final String storageName;
 	private final PlayerMap playerMap = new PlayerMap();
 	private final Int2ObjectMap<ChunkMap.TrackedEntity> entityMap = new Int2ObjectOpenHashMap<>();
+	final EntityTrackingIndex<ChunkMap.TrackedEntity> entityTrackingIndex = new EntityTrackingIndex<>();
 	private final Long2ByteMap chunkTypeCache = new Long2ByteOpenHashMap();
 	private final Long2LongMap nextChunkSaveTime = new Long2LongOpenHashMap();
 	private final LongSet chunksToEagerlySave = new LongLinkedOpenHashSet();
 	private final Queue<Runnable> unloadQueue = Queues.<Runnable>newConcurrentLinkedQueue();
 	private final AtomicInteger activeChunkWrites = new AtomicInteger();
+	private final ChunkPacketCache chunkPacketCache = new ChunkPacketCache();
+	private final Map<ServerPlayerConnection, List<ClientboundSetEntityDataPacket>> entityDataBatches = new Reference2ObjectOpenHashMap<>();
+	private boolean batchingEntityData;
 	private int serverViewDistance;
 	private final WorldGenContext worldGenContext;
 
+	/**
+	 * Enables loading chunks through {@link StreamingChunkDecoder}, which decodes sections straight from
+	 * the stored NBT stream instead of parsing a complete tag tree first. Chunks from older data versions
+	 * are still read as a tree so they can be upgraded.
+	 */
+	public static void setStreamingChunkDecoding(boolean bl) {
+		streamingChunkDecoding = bl;
+	}
+
+	/**
+	 * Enables saving chunks through {@link ChunkNbtWriter}, which encodes the chunk snapshot straight to NBT
+	 * bytes instead of building a tag tree first. The bytes written to the region files are the same.
+	 */
+	public static void setDirectChunkSerialization(boolean bl) {
+		directChunkSerialization = bl;
+	}
+
+	/**
+	 * Enables re-evaluating entity visibility through {@link EntityTrackingIndex} when players change section:
+	 * only the entities within a moved player's view distance or currently seen by it are checked, instead of
+	 * every tracked entity.
+	 */
+	public static void setIndexedEntityTracking(boolean bl) {
+		indexedEntityTracking = bl;
+	}
+
+	/**
+	 * Enables sending the entity data changes of a tick to each player in {@link ClientboundSetEntitiesDataPacket}s once
+	 * every tracked entity was updated, instead of one packet per entity. Only clients that announced support for that
+	 * packet during configuration get batches, every other client keeps getting one packet per entity right away.
+	 */
+	public static void setEntityDataBatching(boolean bl) {
+		entityDataBatching = bl;
+	}
+
 	public ChunkMap(
 		ServerLevel serverLevel,
 		LevelStorageSource.LevelStorageAccess levelStorageAccess,
@@ -413,6 +464,7 @@ public class ChunkMap extends ChunkStorage implements ChunkHolder.PlayerProvider
 			this.worldgenTaskDispatcher.close();
 			this.lightTaskDispatcher.close();
 			this.poiManager.close();
+			this.chunkPacketCache.clear();
 		} finally {
 			super.close();
 		}
@@ -532,6 +584,7 @@ public class ChunkMap extends ChunkStorage implements ChunkHolder.PlayerProvider
 					}
 
 					this.save(chunkAccess);
+					this.chunkPacketCache.invalidate(l);
 					if (chunkAccess instanceof LevelChunk levelChunk) {
 						this.level.unload(levelChunk);
 					}
@@ -559,14 +612,10 @@ public class ChunkMap extends ChunkStorage implements ChunkHolder.PlayerProvider
 	}
 
 	private CompletableFuture<ChunkAccess> scheduleChunkLoad(ChunkPos chunkPos) {
-		CompletableFuture<Optional<SerializableChunkData>> completableFuture = this.readChunk(chunkPos).thenApplyAsync(optional -> optional.map(compoundTag -> {
-			SerializableChunkData serializableChunkData = SerializableChunkData.parse(this.level, this.level.palettedContainerFactory(), compoundTag);
-			if (serializableChunkData == null) {
-				LOGGER.error("Chunk file at {} is missing level data, skipping", chunkPos);
-			}
-
-			return serializableChunkData;
-		}), Util.backgroundExecutor().forName("parseChunk"));
+		CompletableFuture<Optional<SerializableChunkData>> completableFuture = streamingChunkDecoding
+			? this.readChunkStreaming(chunkPos)
+			: this.readChunk(chunkPos)
+				.thenApplyAsync(optional -> optional.map(compoundTag -> this.parseChunk(chunkPos, compoundTag)), Util.backgroundExecutor().forName("parseChunk"));
 		CompletableFuture<?> completableFuture2 = this.poiManager.prefetch(chunkPos);
 		return completableFuture.thenCombine(completableFuture2, (optional, object) -> optional).thenApplyAsync(optional -> {
 			Profiler.get().incrementCounter("chunkLoad");
@@ -769,8 +818,22 @@ public class ChunkMap extends ChunkStorage implements ChunkHolder.PlayerProvider
 				Profiler.get().incrementCounter("chunkSave");
 				this.activeChunkWrites.incrementAndGet();
 				SerializableChunkData serializableChunkData = SerializableChunkData.copyOf(this.level, chunkAccess);
-				CompletableFuture<CompoundTag> completableFuture = CompletableFuture.supplyAsync(serializableChunkData::write, Util.backgroundExecutor());
-				this.write(chunkPos, completableFuture::join).handle((void_, throwable) -> {
+				CompletableFuture<Void> completableFuture;
+				if (directChunkSerialization) {
+					CompletableFuture<byte[]> completableFuture2 = CompletableFuture.supplyAsync(() -> {
+						try {
+							return ChunkNbtWriter.write(serializableChunkData);
+						} catch (IOException var2x) {
+							throw new UncheckedIOException(var2x);
+						}
+					}, Util.backgroundExecutor());
+					completableFuture = this.writeEncoded(chunkPos, completableFuture2::join);
+				} else {
+					CompletableFuture<CompoundTag> completableFuture2 = CompletableFuture.supplyAsync(serializableChunkData::write, Util.backgroundExecutor());
+					completableFuture = this.write(chunkPos, completableFuture2::join);
+				}
+
+				completableFuture.handle((void_, throwable) -> {
 					if (throwable != null) {
 						this.level.getServer().reportChunkSaveFailure(throwable, this.storageInfo(), chunkPos);
 					}
@@ -841,6 +904,10 @@ public class ChunkMap extends ChunkStorage implements ChunkHolder.PlayerProvider
 		serverPlayer.connection.chunkSender.dropChunk(serverPlayer, chunkPos);
 	}
 
+	public ChunkPacketCache getChunkPacketCache() {
+		return this.chunkPacketCache;
+	}
+
 	@Nullable
 	public LevelChunk getChunkToSend(long l) {
 		ChunkHolder chunkHolder = this.getVisibleChunkIfPresent(l);
@@ -917,6 +984,35 @@ public class ChunkMap extends ChunkStorage implements ChunkHolder.PlayerProvider
 		}
 	}
 
+	@Nullable
+	private SerializableChunkData parseChunk(ChunkPos chunkPos, CompoundTag compoundTag) {
+		SerializableChunkData serializableChunkData = SerializableChunkData.parse(this.level, this.level.palettedContainerFactory(), compoundTag);
+		if (serializableChunkData == null) {
+			LOGGER.error("Chunk file at {} is missing level data, skipping", chunkPos);
+		}
+
+		return serializableChunkData;
+	}
+
+	private CompletableFuture<Optional<SerializableChunkData>> readChunkStreaming(ChunkPos chunkPos) {
+		StreamingChunkDecoder streamingChunkDecoder = new StreamingChunkDecoder(this.level, this.level.palettedContainerFactory(), chunkPos);
+		Executor executor = Util.backgroundExecutor().forName("parseChunk");
+		return this.read(chunkPos, streamingChunkDecoder).thenComposeAsync(void_ -> {
+			if (streamingChunkDecoder.isEmpty()) {
+				return CompletableFuture.completedFuture(Optional.empty());
+			} else if (streamingChunkDecoder.needsUpgrade()) {
+				return this.readChunk(chunkPos).thenApplyAsync(optional -> optional.map(compoundTag -> this.parseChunk(chunkPos, compoundTag)), executor);
+			} else {
+				SerializableChunkData serializableChunkData = streamingChunkDecoder.build();
+				if (serializableChunkData == null) {
+					LOGGER.error("Chunk file at {} is missing level data, skipping", chunkPos);
+				}
+
+				return CompletableFuture.completedFuture(Optional.ofNullable(serializableChunkData));
+			}
+		}, executor);
+	}
+
 	private CompletableFuture<Optional<CompoundTag>> readChunk(ChunkPos chunkPos) {
 		return this.read(chunkPos).thenApplyAsync(optional -> optional.map(this::upgradeChunkTag), Util.backgroundExecutor().forName("upgradeChunk"));
 	}
@@ -1120,6 +1216,7 @@ public class ChunkMap extends ChunkStorage implements ChunkHolder.PlayerProvider
 				} else {
 					ChunkMap.TrackedEntity trackedEntity = new ChunkMap.TrackedEntity(entity, i, j, entityType.trackDeltas());
 					this.entityMap.put(entity.getId(), trackedEntity);
+					this.entityTrackingIndex.add(trackedEntity, trackedEntity.lastSectionPos.chunk().toLong());
 					trackedEntity.updatePlayers(this.level.players());
 					if (entity instanceof ServerPlayer serverPlayer) {
 						this.updatePlayerStatus(serverPlayer, true);
@@ -1146,6 +1243,7 @@ public class ChunkMap extends ChunkStorage implements ChunkHolder.PlayerProvider
 
 		ChunkMap.TrackedEntity trackedEntity2 = this.entityMap.remove(entity.getId());
 		if (trackedEntity2 != null) {
+			this.entityTrackingIndex.remove(trackedEntity2, trackedEntity2.lastSectionPos.chunk().toLong());
 			trackedEntity2.broadcastRemoved();
 		}
 	}
@@ -1157,6 +1255,7 @@ public class ChunkMap extends ChunkStorage implements ChunkHolder.PlayerProvider
 
 		List<ServerPlayer> list = Lists.<ServerPlayer>newArrayList();
 		List<ServerPlayer> list2 = this.level.players();
+		this.batchingEntityData = entityDataBatching;
 
 		for (ChunkMap.TrackedEntity trackedEntity : this.entityMap.values()) {
 			SectionPos sectionPos = trackedEntity.lastSectionPos;
@@ -1170,6 +1269,7 @@ public class ChunkMap extends ChunkStorage implements ChunkHolder.PlayerProvider
 				}
 
 				trackedEntity.lastSectionPos = sectionPos2;
+				this.entityTrackingIndex.move(trackedEntity, sectionPos.chunk().toLong(), sectionPos2.chunk().toLong());
 			}
 
 			if (bl || this.distanceManager.inEntityTickingRange(sectionPos2.chunk().toLong())) {
@@ -1177,13 +1277,64 @@ public class ChunkMap extends ChunkStorage implements ChunkHolder.PlayerProvider
 			}
 		}
 
+		if (this.batchingEntityData) {
+			this.batchingEntityData = false;
+			this.sendEntityDataBatches();
+		}
+
 		if (!list.isEmpty()) {
+			this.updateMovedPlayers(list);
+		}
+	}
+
+	/**
+	 * Re-evaluates which entities the given players, which entered another section this tick, can see.
+	 */
+	void updateMovedPlayers(List<ServerPlayer> list) {
+		if (indexedEntityTracking) {
+			for (ServerPlayer serverPlayer : list) {
+				ChunkPos chunkPos = serverPlayer.chunkPosition();
+				int i = this.getPlayerViewDistance(serverPlayer) + 1;
+
+				for (ChunkMap.TrackedEntity trackedEntity : this.entityTrackingIndex.getCandidates(serverPlayer.connection, chunkPos.x, chunkPos.z, i)) {
+					trackedEntity.updatePlayer(serverPlayer);
+				}
+			}
+		} else {
 			for (ChunkMap.TrackedEntity trackedEntity : this.entityMap.values()) {
 				trackedEntity.updatePlayers(list);
 			}
 		}
 	}
 
+	void batchEntityData(ServerPlayerConnection serverPlayerConnection, ClientboundSetEntityDataPacket clientboundSetEntityDataPacket) {
+		if (serverPlayerConnection.acceptsEntityDataBatches()) {
+			((List)this.entityDataBatches.computeIfAbsent(serverPlayerConnection, object -> new ArrayList())).add(clientboundSetEntityDataPacket);
+		} else {
+			serverPlayerConnection.send(clientboundSetEntityDataPacket);
+		}
+	}
+
+	void sendEntityDataBatches() {
+		for (Map.Entry<ServerPlayerConnection, List<ClientboundSetEntityDataPacket>> entry : this.entityDataBatches.entrySet()) {
+			ServerPlayerConnection serverPlayerConnection = (ServerPlayerConnection)entry.getKey();
+			List<ClientboundSetEntityDataPacket> list = (List<ClientboundSetEntityDataPacket>)entry.getValue();
+			if (list.size() == 1) {
+				serverPlayerConnection.send((Packet<?>)list.getFirst());
+			} else {
+				list.sort(Comparator.comparingInt(ClientboundSetEntityDataPacket::id));
+
+				for (int i = 0; i < list.size(); i += ClientboundSetEntitiesDataPacket.MAX_ENTITIES) {
+					serverPlayerConnection.send(
+						new ClientboundSetEntitiesDataPacket(List.copyOf(list.subList(i, Math.min(i + ClientboundSetEntitiesDataPacket.MAX_ENTITIES, list.size()))))
+					);
+				}
+			}
+		}
+
+		this.entityDataBatches.clear();
+	}
+
 	public void sendToTrackingPlayers(Entity entity, Packet<? super ClientGamePacketListener> packet) {
 		ChunkMap.TrackedEntity trackedEntity = this.entityMap.get(entity.getId());
 		if (trackedEntity != null) {
@@ -1223,6 +1374,7 @@ public class ChunkMap extends ChunkStorage implements ChunkHolder.PlayerProvider
 
 		for (ChunkAccess chunkAccess : list) {
 			ChunkPos chunkPos = chunkAccess.getPos();
+			this.chunkPacketCache.invalidate(chunkPos);
 			LevelChunk levelChunk2;
 			if (chunkAccess instanceof LevelChunk levelChunk) {
 				levelChunk2 = levelChunk;
@@ -1316,36 +1468,129 @@ public class ChunkMap extends ChunkStorage implements ChunkHolder.PlayerProvider
 
 		@Override
 		public void sendToTrackingPlayers(Packet<? super ClientGamePacketListener> packet) {
-			for (ServerPlayerConnection serverPlayerConnection : this.seenBy) {
-				serverPlayerConnection.send(packet);
+			SharedPacketEncoder.Encoded encoded = this.encodeShared(packet, this.seenBy.size());
+			if (encoded == null) {
+				for (ServerPlayerConnection serverPlayerConnection : this.seenBy) {
+					serverPlayerConnection.send(packet);
+				}
+			} else {
+				try {
+					for (ServerPlayerConnection serverPlayerConnection : this.seenBy) {
+						serverPlayerConnection.send(encoded);
+					}
+				} finally {
+					encoded.release();
+				}
+			}
+		}
+
+		@Override
+		public void sendEntityData(ClientboundSetEntityDataPacket clientboundSetEntityDataPacket) {
+			if (ChunkMap.this.batchingEntityData) {
+				for (ServerPlayerConnection serverPlayerConnection : this.seenBy) {
+					ChunkMap.this.batchEntityData(serverPlayerConnection, clientboundSetEntityDataPacket);
+				}
+
+				if (this.entity instanceof ServerPlayer serverPlayer) {
+					ChunkMap.this.batchEntityData(serverPlayer.connection, clientboundSetEntityDataPacket);
+				}
+			} else {
+				this.sendToTrackingPlayersAndSelf(clientboundSetEntityDataPacket);
 			}
 		}
 
 		@Override
 		public void sendToTrackingPlayersAndSelf(Packet<? super ClientGamePacketListener> packet) {
-			this.sendToTrackingPlayers(packet);
-			if (this.entity instanceof ServerPlayer serverPlayer) {
-				serverPlayer.connection.send(packet);
+			ServerPlayer serverPlayer = this.entity instanceof ServerPlayer serverPlayer2 ? serverPlayer2 : null;
+			SharedPacketEncoder.Encoded encoded = this.encodeShared(packet, this.seenBy.size() + (serverPlayer != null ? 1 : 0));
+			if (encoded == null) {
+				this.sendToTrackingPlayers(packet);
+				if (serverPlayer != null) {
+					serverPlayer.connection.send(packet);
+				}
+			} else {
+				try {
+					for (ServerPlayerConnection serverPlayerConnection : this.seenBy) {
+						serverPlayerConnection.send(encoded);
+					}
+
+					if (serverPlayer != null) {
+						serverPlayer.connection.send(encoded);
+					}
+				} finally {
+					encoded.release();
+				}
 			}
 		}
 
+		/**
+		 * Holds back the first matching recipient and only encodes the packet for sharing once a second one matches, so
+		 * filters that let through a single player or none never pay for the shared frame.
+		 */
 		@Override
 		public void sendToTrackingPlayersFiltered(Packet<? super ClientGamePacketListener> packet, Predicate<ServerPlayer> predicate) {
-			for (ServerPlayerConnection serverPlayerConnection : this.seenBy) {
-				if (predicate.test(serverPlayerConnection.getPlayer())) {
+			ServerPlayerConnection serverPlayerConnection = null;
+			boolean bl = false;
+			SharedPacketEncoder.Encoded encoded = null;
+
+			try {
+				for (ServerPlayerConnection serverPlayerConnection2 : this.seenBy) {
+					if (predicate.test(serverPlayerConnection2.getPlayer())) {
+						if (serverPlayerConnection == null) {
+							serverPlayerConnection = serverPlayerConnection2;
+						} else {
+							if (!bl) {
+								bl = true;
+								encoded = this.encodeShared(packet, 2);
+								if (encoded != null) {
+									serverPlayerConnection.send(encoded);
+								} else {
+									serverPlayerConnection.send(packet);
+								}
+							}
+
+							if (encoded != null) {
+								serverPlayerConnection2.send(encoded);
+							} else {
+								serverPlayerConnection2.send(packet);
+							}
+						}
+					}
+				}
+
+				if (serverPlayerConnection != null && !bl) {
 					serverPlayerConnection.send(packet);
 				}
+			} finally {
+				if (encoded != null) {
+					encoded.release();
+				}
+			}
+		}
+
+		/**
+		 * Encodes the packet once for all recipients if there are several and sharing is enabled.
+		 */
+		@Nullable
+		private SharedPacketEncoder.Encoded encodeShared(Packet<? super ClientGamePacketListener> packet, int i) {
+			if (i < 2 || !SharedPacketEncoder.isEnabled()) {
+				return null;
+			} else {
+				SharedPacketEncoder sharedPacketEncoder = ChunkMap.this.level.getServer().getSharedPacketEncoder();
+				return sharedPacketEncoder != null ? sharedPacketEncoder.encode(packet) : null;
 			}
 		}
 
 		public void broadcastRemoved() {
 			for (ServerPlayerConnection serverPlayerConnection : this.seenBy) {
 				this.serverEntity.removePairing(serverPlayerConnection.getPlayer());
+				ChunkMap.this.entityTrackingIndex.stopSeeing(serverPlayerConnection, this);
 			}
 		}
 
 		public void removePlayer(ServerPlayer serverPlayer) {
 			if (this.seenBy.remove(serverPlayer.connection)) {
+				ChunkMap.this.entityTrackingIndex.stopSeeing(serverPlayer.connection, this);
 				this.serverEntity.removePairing(serverPlayer);
 				if (this.seenBy.isEmpty()) {
 					ChunkMap.this.level.debugSynchronizers().dropEntity(this.entity);
@@ -1365,6 +1610,7 @@ public class ChunkMap extends ChunkStorage implements ChunkHolder.PlayerProvider
 					&& ChunkMap.this.isChunkTracked(serverPlayer, this.entity.chunkPosition().x, this.entity.chunkPosition().z);
 				if (bl) {
 					if (this.seenBy.add(serverPlayer.connection)) {
+						ChunkMap.this.entityTrackingIndex.startSeeing(serverPlayer.connection, this);
 						this.serverEntity.addPairing(serverPlayer);
 						if (this.seenBy.size() == 1) {
 							ChunkMap.this.level.debugSynchronizers().registerEntity(this.entity);
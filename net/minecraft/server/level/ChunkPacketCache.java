@@ -0,0 +1,138 @@
+package net.minecraft.server.level;
+
+import com.google.common.collect.ImmutableList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import java.util.List;
+import net.minecraft.network.SharedPacketEncoder;
+import net.minecraft.network.protocol.game.ClientboundLevelChunkWithLightPacket;
+import net.minecraft.util.profiling.metrics.MetricCategory;
+import net.minecraft.util.profiling.metrics.MetricSampler;
+import net.minecraft.util.profiling.metrics.MetricsRegistry;
+import net.minecraft.util.profiling.metrics.ProfilerMeasured;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.lighting.LevelLightEngine;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Keeps the chunk and light packets last sent for the chunks of a level, encoded and compressed once by
+ * {@link SharedPacketEncoder}, so that every player loading a chunk is sent the same bytes.
+ * <p>
+ * A chunk's packet is dropped when one of its blocks changes, whatever the update flags, when its block entities,
+ * biomes or light sections change and when it is unloaded. The cache holds at most the configured number of bytes of
+ * encoded packets, dropping the least recently sent ones first. All methods must be called on the server thread.
+ * </p>
+ */
+public class ChunkPacketCache implements ProfilerMeasured {
+	private static volatile long maxBytes;
+	private final Long2ObjectLinkedOpenHashMap<ChunkPacketCache.Entry> entries = new Long2ObjectLinkedOpenHashMap<>();
+	private long bytes;
+	private int hits;
+	private int misses;
+
+	public ChunkPacketCache() {
+		MetricsRegistry.INSTANCE.add(this);
+	}
+
+	/**
+	 * Sets how many megabytes of encoded chunk packets each level may keep, {@code 0} disabling the cache.
+	 */
+	public static void setMaxSize(int i) {
+		maxBytes = Math.max(i, 0) * 1024L * 1024L;
+	}
+
+	public static boolean isEnabled() {
+		return maxBytes > 0L;
+	}
+
+	/**
+	 * Returns the encoded packet for the chunk, encoding it if it is not cached, or {@code null} if the cache is
+	 * disabled or the packet could not be encoded. The result stays owned by the cache and must be sent before the
+	 * cache is used again.
+	 */
+	@Nullable
+	public SharedPacketEncoder.Encoded get(ServerLevel serverLevel, LevelChunk levelChunk, LevelLightEngine levelLightEngine) {
+		if (!isEnabled()) {
+			this.clear();
+			return null;
+		} else {
+			long l = levelChunk.getPos().toLong();
+			ChunkPacketCache.Entry entry = this.entries.getAndMoveToLast(l);
+			if (entry != null && entry.chunk == levelChunk) {
+				this.hits++;
+				return entry.encoded;
+			} else {
+				this.misses++;
+				if (entry != null) {
+					this.invalidate(l);
+				}
+
+				SharedPacketEncoder sharedPacketEncoder = serverLevel.getServer().getSharedPacketEncoder();
+				if (sharedPacketEncoder == null) {
+					return null;
+				} else {
+					SharedPacketEncoder.Encoded encoded = sharedPacketEncoder.encode(new ClientboundLevelChunkWithLightPacket(levelChunk, levelLightEngine, null, null));
+					if (encoded == null) {
+						return null;
+					} else {
+						this.entries.putAndMoveToLast(l, new ChunkPacketCache.Entry(levelChunk, encoded));
+						this.bytes = this.bytes + encoded.bufferSize();
+
+						while (this.bytes > maxBytes && this.entries.size() > 1) {
+							this.release(this.entries.removeFirst());
+						}
+
+						return encoded;
+					}
+				}
+			}
+		}
+	}
+
+	public void invalidate(long l) {
+		if (!this.entries.isEmpty()) {
+			ChunkPacketCache.Entry entry = this.entries.remove(l);
+			if (entry != null) {
+				this.release(entry);
+			}
+		}
+	}
+
+	public void invalidate(ChunkPos chunkPos) {
+		this.invalidate(chunkPos.toLong());
+	}
+
+	public void clear() {
+		if (!this.entries.isEmpty()) {
+			this.entries.values().forEach(this::release);
+			this.entries.clear();
+		}
+	}
+
+	private void release(ChunkPacketCache.Entry entry) {
+		this.bytes = this.bytes - entry.encoded.bufferSize();
+		entry.encoded.release();
+	}
+
+	public int size() {
+		return this.entries.size();
+	}
+
+	public long getBytes() {
+		return this.bytes;
+	}
+
+	@Override
+	public List<MetricSampler> profiledMetrics() {
+		return ImmutableList.of(MetricSampler.create("chunk-packet-cache-hit-rate", MetricCategory.NETWORK, () -> {
+			int i = this.hits + this.misses;
+			double d = i == 0 ? 0.0 : (double)this.hits / i;
+			this.hits = 0;
+			this.misses = 0;
+			return d;
+		}), MetricSampler.create("chunk-packet-cache-bytes", MetricCategory.NETWORK, () -> this.bytes));
+	}
+
+	record Entry(LevelChunk chunk, SharedPacketEncoder.Encoded encoded) {
+	}
+}
@@ -0,0 +1,104 @@
+package net.minecraft.server.level;
+
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import java.util.Optional;
+import net.minecraft.util.ExtraCodecs;
+import net.minecraft.util.datafix.DataFixTypes;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.saveddata.SavedData;
+import net.minecraft.world.level.saveddata.SavedDataType;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The persistent part of a dimension's {@link ChunkPregenerator}: the area being pregenerated and how many
+ * of its region tiles, in curve order, have been generated completely. Only whole tiles are recorded, so a
+ * restarted server repeats at most the tiles that were in progress, and those chunks load from disk.
+ */
+public class ChunkPregenerationData extends SavedData {
+	private static final Codec<ChunkPregenerationData.Area> AREA_CODEC = RecordCodecBuilder.create(
+		instance -> instance.group(
+				Codec.INT.fieldOf("center_x").forGetter(ChunkPregenerationData.Area::centerX),
+				Codec.INT.fieldOf("center_z").forGetter(ChunkPregenerationData.Area::centerZ),
+				ExtraCodecs.NON_NEGATIVE_INT.fieldOf("radius").forGetter(ChunkPregenerationData.Area::radius)
+			)
+			.apply(instance, ChunkPregenerationData.Area::new)
+	);
+	public static final Codec<ChunkPregenerationData> CODEC = RecordCodecBuilder.create(
+		instance -> instance.group(
+				AREA_CODEC.optionalFieldOf("area").forGetter(chunkPregenerationData -> Optional.ofNullable(chunkPregenerationData.area)),
+				ExtraCodecs.NON_NEGATIVE_INT.optionalFieldOf("completed_tiles", 0).forGetter(chunkPregenerationData -> chunkPregenerationData.completedTiles)
+			)
+			.apply(instance, ChunkPregenerationData::new)
+	);
+	public static final SavedDataType<ChunkPregenerationData> TYPE = new SavedDataType<>(
+		"chunk_pregeneration", ChunkPregenerationData::new, CODEC, DataFixTypes.SAVED_DATA_CHUNK_PREGENERATION
+	);
+	@Nullable
+	private ChunkPregenerationData.Area area;
+	private int completedTiles;
+
+	public ChunkPregenerationData() {
+	}
+
+	private ChunkPregenerationData(Optional<ChunkPregenerationData.Area> optional, int i) {
+		this.area = (ChunkPregenerationData.Area)optional.orElse(null);
+		this.completedTiles = i;
+	}
+
+	@Nullable
+	public ChunkPregenerationData.Area area() {
+		return this.area;
+	}
+
+	public int completedTiles() {
+		return this.completedTiles;
+	}
+
+	public void start(ChunkPregenerationData.Area area) {
+		this.area = area;
+		this.completedTiles = 0;
+		this.setDirty();
+	}
+
+	public void completeTile() {
+		this.completedTiles++;
+		this.setDirty();
+	}
+
+	public void clear() {
+		this.area = null;
+		this.completedTiles = 0;
+		this.setDirty();
+	}
+
+	/**
+	 * A square of chunks, {@code radius} chunks out from the center chunk in every direction.
+	 */
+	public record Area(int centerX, int centerZ, int radius) {
+		public int minX() {
+			return this.centerX - this.radius;
+		}
+
+		public int minZ() {
+			return this.centerZ - this.radius;
+		}
+
+		public int maxX() {
+			return this.centerX + this.radius;
+		}
+
+		public int maxZ() {
+			return this.centerZ + this.radius;
+		}
+
+		public long chunkCount() {
+			long l = 2L * this.radius + 1L;
+			return l * l;
+		}
+
+		public ChunkPos center() {
+			return new ChunkPos(this.centerX, this.centerZ);
+		}
+	}
+}
@@ -0,0 +1,349 @@
+package net.minecraft.server.level;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Queues;
+import com.mojang.logging.LogUtils;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import net.minecraft.Util;
+import net.minecraft.util.Mth;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.chunk.status.ChunkStatus;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+
+/**
+ * Generates every chunk in a square area of one dimension without players or forced chunks.
+ *
+ * <p>The area is split into region-sized tiles of 32x32 chunks, visited along a Hilbert curve so that
+ * consecutive tiles share edges and the neighbours generated for one tile are still loaded for the next.
+ * Each chunk is held at full status by a {@link TicketType#PREGENERATION} ticket only until it has been
+ * generated; the ticket is then dropped so the chunk is saved and unloaded straight away. The number of
+ * chunks in flight is bounded both by {@link #setMaxChunksInFlight} and by the free heap, so memory use
+ * stays flat over arbitrarily large areas.
+ *
+ * <p>Progress is stored in {@link ChunkPregenerationData} one completed tile at a time, and a pregeneration
+ * that was running when the server stopped resumes when the dimension is loaded again.
+ */
+public class ChunkPregenerator {
+	private static final Logger LOGGER = LogUtils.getLogger();
+	private static final int TILE_SHIFT = 5;
+	private static final int MAX_OPEN_TILES = 2;
+	private static final long ESTIMATED_BYTES_PER_CHUNK = 1048576L;
+	private static final long REPORT_INTERVAL_MILLIS = 10000L;
+	public static final int MAX_RADIUS = 15625;
+	private static volatile int maxChunksInFlight = 128;
+	private final ServerChunkCache chunkSource;
+	private final ChunkPregenerationData data;
+	private final Queue<ChunkPregenerator.Completion> completions = Queues.<ChunkPregenerator.Completion>newConcurrentLinkedQueue();
+	private final ArrayDeque<ChunkPregenerator.Tile> openTiles = new ArrayDeque<>();
+	private final LongSet inFlight = new LongOpenHashSet();
+	@Nullable
+	private ChunkPregenerationData.Area area;
+	private long[] tiles = new long[0];
+	private int nextTile;
+	private long completedChunks;
+	private long failedChunks;
+	private long startMillis;
+	private long lastReportMillis;
+	private long lastReportChunks;
+	private double chunksPerSecond;
+
+	ChunkPregenerator(ServerChunkCache serverChunkCache, ChunkPregenerationData chunkPregenerationData) {
+		this.chunkSource = serverChunkCache;
+		this.data = chunkPregenerationData;
+		ChunkPregenerationData.Area area = chunkPregenerationData.area();
+		if (area != null) {
+			this.begin(area, chunkPregenerationData.completedTiles());
+			LOGGER.info(
+				"Resuming pregeneration of {} around chunk {} at {}/{} chunks",
+				this.chunkSource.getLevel().dimension().location(),
+				area.center(),
+				this.completedChunks,
+				area.chunkCount()
+			);
+		}
+	}
+
+	/**
+	 * Caps the number of chunks the pregenerator waits on at once. Fewer chunks are scheduled when the
+	 * free heap would not fit this many.
+	 */
+	public static void setMaxChunksInFlight(int i) {
+		maxChunksInFlight = Math.max(i, 1);
+	}
+
+	/**
+	 * Starts pregenerating every chunk within the given radius, in chunks, of the center chunk, replacing
+	 * any pregeneration already running in this dimension.
+	 */
+	public void start(ChunkPos chunkPos, int i) {
+		this.stop();
+		ChunkPregenerationData.Area area = new ChunkPregenerationData.Area(chunkPos.x, chunkPos.z, Mth.clamp(i, 0, MAX_RADIUS));
+		this.data.start(area);
+		this.begin(area, 0);
+		LOGGER.info("Pregenerating {} chunks of {} around chunk {}", area.chunkCount(), this.chunkSource.getLevel().dimension().location(), chunkPos);
+	}
+
+	public boolean stop() {
+		if (this.area == null) {
+			return false;
+		} else {
+			this.releaseAll();
+			this.area = null;
+			this.data.clear();
+			return true;
+		}
+	}
+
+	public boolean isRunning() {
+		return this.area != null;
+	}
+
+	@Nullable
+	public ChunkPregenerator.Progress getProgress() {
+		return this.area == null
+			? null
+			: new ChunkPregenerator.Progress(this.area, this.completedChunks, this.failedChunks, this.inFlight.size(), this.chunksPerSecond);
+	}
+
+	private void begin(ChunkPregenerationData.Area area, int i) {
+		this.area = area;
+		this.tiles = tileOrder(area);
+		this.nextTile = Math.min(i, this.tiles.length);
+		this.completedChunks = 0L;
+		this.failedChunks = 0L;
+
+		for (int j = 0; j < this.nextTile; j++) {
+			this.completedChunks = this.completedChunks + new ChunkPregenerator.Tile(area, this.tiles[j]).chunkCount;
+		}
+
+		this.startMillis = Util.getMillis();
+		this.lastReportMillis = this.startMillis;
+		this.lastReportChunks = this.completedChunks;
+		this.chunksPerSecond = 0.0;
+	}
+
+	private void releaseAll() {
+		LongIterator longIterator = this.inFlight.iterator();
+
+		while (longIterator.hasNext()) {
+			this.chunkSource.removeTicketWithRadius(TicketType.PREGENERATION, new ChunkPos(longIterator.nextLong()), 0);
+		}
+
+		this.inFlight.clear();
+		this.openTiles.clear();
+		this.completions.clear();
+	}
+
+	void tick() {
+		ChunkPregenerator.Completion completion;
+		while ((completion = (ChunkPregenerator.Completion)this.completions.poll()) != null) {
+			if (completion.tile.area == this.area && this.inFlight.remove(completion.pos.toLong())) {
+				this.chunkSource.removeTicketWithRadius(TicketType.PREGENERATION, completion.pos, 0);
+				completion.tile.remaining--;
+				this.completedChunks++;
+				if (!completion.success) {
+					this.failedChunks++;
+					LOGGER.warn("Failed to pregenerate chunk {}", completion.pos);
+				}
+			}
+		}
+
+		if (this.area != null) {
+			while (!this.openTiles.isEmpty() && ((ChunkPregenerator.Tile)this.openTiles.peekFirst()).isDone()) {
+				this.openTiles.removeFirst();
+				this.data.completeTile();
+			}
+
+			if (this.openTiles.isEmpty() && this.nextTile >= this.tiles.length) {
+				this.finish();
+			} else {
+				this.schedule(this.chunkBudget() - this.inFlight.size());
+				this.report();
+			}
+		}
+	}
+
+	private void schedule(int i) {
+		List<ChunkPregenerator.Completion> list = Lists.<ChunkPregenerator.Completion>newArrayList();
+
+		for (int j = 0; j < i; j++) {
+			ChunkPregenerator.Tile tile = this.tileWithPendingChunks();
+			if (tile == null) {
+				break;
+			}
+
+			ChunkPos chunkPos = tile.nextChunk();
+			this.chunkSource.addTicketWithRadius(TicketType.PREGENERATION, chunkPos, 0);
+			this.inFlight.add(chunkPos.toLong());
+			list.add(new ChunkPregenerator.Completion(tile, chunkPos, true));
+		}
+
+		if (!list.isEmpty()) {
+			this.chunkSource.runDistanceManagerUpdates();
+			ChunkMap chunkMap = this.chunkSource.chunkMap;
+
+			for (ChunkPregenerator.Completion completion : list) {
+				ChunkHolder chunkHolder = chunkMap.getVisibleChunkIfPresent(completion.pos.toLong());
+				if (chunkHolder == null) {
+					this.completions.add(new ChunkPregenerator.Completion(completion.tile, completion.pos, false));
+				} else {
+					chunkHolder.scheduleChunkGenerationTask(ChunkStatus.FULL, chunkMap)
+						.whenComplete(
+							(chunkResult, throwable) -> this.completions
+								.add(new ChunkPregenerator.Completion(completion.tile, completion.pos, throwable == null && chunkResult.isSuccess()))
+						);
+				}
+			}
+		}
+	}
+
+	@Nullable
+	private ChunkPregenerator.Tile tileWithPendingChunks() {
+		for (ChunkPregenerator.Tile tile : this.openTiles) {
+			if (tile.hasPendingChunks()) {
+				return tile;
+			}
+		}
+
+		if (this.openTiles.size() < MAX_OPEN_TILES && this.nextTile < this.tiles.length) {
+			ChunkPregenerator.Tile tile = new ChunkPregenerator.Tile(this.area, this.tiles[this.nextTile++]);
+			this.openTiles.addLast(tile);
+			return tile;
+		} else {
+			return null;
+		}
+	}
+
+	private int chunkBudget() {
+		Runtime runtime = Runtime.getRuntime();
+		long l = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory()) - runtime.maxMemory() / 4L;
+		int i = (int)Mth.clamp(l / ESTIMATED_BYTES_PER_CHUNK, 0L, (long)maxChunksInFlight);
+		return Math.max(i, 1);
+	}
+
+	private void report() {
+		long l = Util.getMillis();
+		if (l - this.lastReportMillis >= REPORT_INTERVAL_MILLIS) {
+			this.chunksPerSecond = (this.completedChunks - this.lastReportChunks) * 1000.0 / (l - this.lastReportMillis);
+			this.lastReportMillis = l;
+			this.lastReportChunks = this.completedChunks;
+			LOGGER.info(
+				"Pregenerating {}: {}/{} chunks ({}%), {} chunks/s, {} in flight",
+				this.chunkSource.getLevel().dimension().location(),
+				this.completedChunks,
+				this.area.chunkCount(),
+				String.format("%.1f", this.completedChunks * 100.0 / this.area.chunkCount()),
+				String.format("%.1f", this.chunksPerSecond),
+				this.inFlight.size()
+			);
+		}
+	}
+
+	private void finish() {
+		long l = Math.max(Util.getMillis() - this.startMillis, 1L);
+		LOGGER.info(
+			"Finished pregenerating {} chunks of {} in {}s ({} failed)",
+			this.completedChunks,
+			this.chunkSource.getLevel().dimension().location(),
+			l / 1000L,
+			this.failedChunks
+		);
+		this.area = null;
+		this.tiles = new long[0];
+		this.data.clear();
+	}
+
+	/**
+	 * Lists the region tiles overlapping {@code area} along a Hilbert curve over the smallest power of two
+	 * square covering them, so each tile is next to the one before it.
+	 */
+	static long[] tileOrder(ChunkPregenerationData.Area area) {
+		int i = area.minX() >> TILE_SHIFT;
+		int j = area.minZ() >> TILE_SHIFT;
+		int k = (area.maxX() >> TILE_SHIFT) - i + 1;
+		int l = (area.maxZ() >> TILE_SHIFT) - j + 1;
+		int m = Mth.smallestEncompassingPowerOfTwo(Math.max(k, l));
+		long[] ls = new long[k * l];
+		int n = 0;
+
+		for (long o = 0L; o < (long)m * m; o++) {
+			long p = o;
+			int q = 0;
+			int r = 0;
+
+			for (int s = 1; s < m; s <<= 1) {
+				int t = (int)(1L & p >> 1);
+				int u = (int)(1L & (p ^ t));
+				if (u == 0) {
+					if (t == 1) {
+						q = s - 1 - q;
+						r = s - 1 - r;
+					}
+
+					int v = q;
+					q = r;
+					r = v;
+				}
+
+				q += s * t;
+				r += s * u;
+				p >>= 2;
+			}
+
+			if (q < k && r < l) {
+				ls[n++] = ChunkPos.asLong(i + q, j + r);
+			}
+		}
+
+		return ls;
+	}
+
+	record Completion(ChunkPregenerator.Tile tile, ChunkPos pos, boolean success) {
+	}
+
+	public record Progress(ChunkPregenerationData.Area area, long completedChunks, long failedChunks, int chunksInFlight, double chunksPerSecond) {
+		public long totalChunks() {
+			return this.area.chunkCount();
+		}
+	}
+
+	static class Tile {
+		final ChunkPregenerationData.Area area;
+		final int minX;
+		final int minZ;
+		final int width;
+		final int chunkCount;
+		int next;
+		int remaining;
+
+		Tile(ChunkPregenerationData.Area area, long l) {
+			int i = ChunkPos.getX(l) << TILE_SHIFT;
+			int j = ChunkPos.getZ(l) << TILE_SHIFT;
+			this.area = area;
+			this.minX = Math.max(i, area.minX());
+			this.minZ = Math.max(j, area.minZ());
+			this.width = Math.min(i + (1 << TILE_SHIFT) - 1, area.maxX()) - this.minX + 1;
+			this.chunkCount = this.width * (Math.min(j + (1 << TILE_SHIFT) - 1, area.maxZ()) - this.minZ + 1);
+			this.remaining = this.chunkCount;
+		}
+
+		boolean hasPendingChunks() {
+			return this.next < this.chunkCount;
+		}
+
+		ChunkPos nextChunk() {
+			int i = this.next++;
+			return new ChunkPos(this.minX + i % this.width, this.minZ + i / this.width);
+		}
+
+		boolean isDone() {
+			return this.next >= this.chunkCount && this.remaining == 0;
+		}
+	}
+}
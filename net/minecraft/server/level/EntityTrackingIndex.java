@@ -0,0 +1,88 @@
+package net.minecraft.server.level;
+
+import com.google.common.collect.Maps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import java.util.Map;
+import java.util.Set;
+import net.minecraft.server.network.ServerPlayerConnection;
+import net.minecraft.world.level.ChunkPos;
+
+/**
+ * Spatial index of the entities tracked by a {@link ChunkMap}.
+ * <p>
+ * Entities are bucketed by the chunk column of the section they were last checked in, and every player
+ * connection keeps the set of entities it currently sees. Together these bound the entities whose
+ * visibility can change when a player enters another section: an entity can only become visible if it
+ * is within the player's view distance, and can only stop being visible if the player sees it now.
+ * </p>
+ */
+class EntityTrackingIndex<T> {
+	private final Long2ObjectMap<Set<T>> entitiesByChunk = new Long2ObjectOpenHashMap<>();
+	private final Map<ServerPlayerConnection, Set<T>> entitiesBySeer = Maps.newIdentityHashMap();
+	private final Set<T> candidates = new ReferenceOpenHashSet<>();
+
+	public void add(T object, long l) {
+		this.entitiesByChunk.computeIfAbsent(l, lx -> new ReferenceOpenHashSet()).add(object);
+	}
+
+	public void remove(T object, long l) {
+		Set<T> set = this.entitiesByChunk.get(l);
+		if (set != null && set.remove(object) && set.isEmpty()) {
+			this.entitiesByChunk.remove(l);
+		}
+	}
+
+	public void move(T object, long l, long m) {
+		if (l != m) {
+			this.remove(object, l);
+			this.add(object, m);
+		}
+	}
+
+	public void startSeeing(ServerPlayerConnection serverPlayerConnection, T object) {
+		((Set)this.entitiesBySeer.computeIfAbsent(serverPlayerConnection, serverPlayerConnectionx -> new ReferenceOpenHashSet())).add(object);
+	}
+
+	public void stopSeeing(ServerPlayerConnection serverPlayerConnection, T object) {
+		Set<T> set = (Set<T>)this.entitiesBySeer.get(serverPlayerConnection);
+		if (set != null && set.remove(object) && set.isEmpty()) {
+			this.entitiesBySeer.remove(serverPlayerConnection);
+		}
+	}
+
+	/**
+	 * Returns the entities that are in a chunk within {@code k} chunks of {@code i, j}, or that are seen by the
+	 * given connection. The returned set is reused by the next call, so it must not be kept.
+	 */
+	public Set<T> getCandidates(ServerPlayerConnection serverPlayerConnection, int i, int j, int k) {
+		Set<T> set = this.candidates;
+		set.clear();
+		Set<T> set2 = (Set<T>)this.entitiesBySeer.get(serverPlayerConnection);
+		if (set2 != null) {
+			set.addAll(set2);
+		}
+
+		int l = 2 * k + 1;
+		if (this.entitiesByChunk.size() < l * l) {
+			for (Long2ObjectMap.Entry<Set<T>> entry : this.entitiesByChunk.long2ObjectEntrySet()) {
+				long m = entry.getLongKey();
+				if (Math.abs(ChunkPos.getX(m) - i) <= k && Math.abs(ChunkPos.getZ(m) - j) <= k) {
+					set.addAll((Set)entry.getValue());
+				}
+			}
+		} else {
+			for (int n = i - k; n <= i + k; n++) {
+				for (int o = j - k; o <= j + k; o++) {
+					Set<T> set3 = this.entitiesByChunk.get(ChunkPos.asLong(n, o));
+					if (set3 != null) {
+						set.addAll(set3);
+					}
+				}
+			}
+		}
+
+		return set;
+	}
+}
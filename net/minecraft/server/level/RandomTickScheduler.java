@@ -0,0 +1,127 @@
+package net.minecraft.server.level;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import net.minecraft.Util;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.RandomTickIndex;
+
+/**
+ * Selects random-tick candidates for many chunks in parallel.
+ * <p>
+ * Random ticking is split into two phases. This class implements the first one: for every chunk it
+ * samples {@code randomTickSpeed} positions in each section that has randomly ticking blocks or fluids,
+ * exactly like {@link ServerLevel#tickChunk}, and keeps only the positions whose state actually ticks.
+ * Sections without randomly ticking states are skipped. The sampling only reads block states and uses a
+ * random generator seeded from the level seed, the chunk position and the game time, so the result does
+ * not depend on how chunks are spread over threads. With {@link ServerLevel#setIndexedRandomTicks} the draws
+ * come from each section's {@link RandomTickIndex} instead, without looking up any state.
+ * </p>
+ * <p>
+ * The second phase, {@link ServerLevel#tickChunks}, runs on the main thread and applies the candidates
+ * section by section. It reads the state again before ticking, since earlier ticks may have changed it, and
+ * hands the ticks a random generator reseeded from the tick seed and the chunk position by {@link #randomFor},
+ * so the outcome does not depend on the order chunks are ticked in either.
+ * </p>
+ */
+public class RandomTickScheduler {
+	private static final int CHUNKS_PER_TASK = 64;
+	private static final int[] NO_CANDIDATES = new int[0];
+	private final Executor executor = Util.backgroundExecutor().forName("randomTickSelection");
+	private final RandomSource random = RandomSource.create();
+
+	/**
+	 * Returns the candidates of every chunk, in the order of the given list. The candidates of a chunk are
+	 * batched per section: each batch starts with the section index in the upper 8 bits and the number of
+	 * candidates in the lower 24 bits, followed by that many section-local {@code y << 8 | z << 4 | x} indices.
+	 * Sections without candidates have no batch. {@code l} seeds this tick and is mixed with each chunk position.
+	 */
+	public int[][] selectCandidates(List<LevelChunk> list, int i, long l) {
+		int[][] is = new int[list.size()][];
+		if (list.size() <= CHUNKS_PER_TASK) {
+			selectCandidates(list, is, 0, list.size(), i, l);
+		} else {
+			List<CompletableFuture<Void>> list2 = new ArrayList();
+
+			for (int j = 0; j < list.size(); j += CHUNKS_PER_TASK) {
+				int k = j;
+				int m = Math.min(j + CHUNKS_PER_TASK, list.size());
+				list2.add(CompletableFuture.runAsync(() -> selectCandidates(list, is, k, m, i, l), this.executor));
+			}
+
+			CompletableFuture.allOf((CompletableFuture[])list2.toArray(CompletableFuture[]::new)).join();
+		}
+
+		return is;
+	}
+
+	/**
+	 * Reseeds and returns the random generator the candidates of a chunk are ticked with, so that the ticks only
+	 * depend on the tick seed {@code l} and the chunk position. Only for use on the main thread.
+	 */
+	public RandomSource randomFor(long l, ChunkPos chunkPos) {
+		this.random.setSeed(HashCommon.murmurHash3(l ^ chunkPos.toLong()));
+		return this.random;
+	}
+
+	private static void selectCandidates(List<LevelChunk> list, int[][] is, int i, int j, int k, long l) {
+		IntArrayList intArrayList = new IntArrayList();
+		boolean bl = ServerLevel.isIndexedRandomTicks();
+
+		for (int m = i; m < j; m++) {
+			LevelChunk levelChunk = (LevelChunk)list.get(m);
+			LevelChunkSection[] levelChunkSections = levelChunk.getSections();
+			int n = (int)HashCommon.mix(l ^ levelChunk.getPos().toLong());
+
+			for (int o = 0; o < levelChunkSections.length; o++) {
+				LevelChunkSection levelChunkSection = levelChunkSections[o];
+				if (levelChunkSection.isRandomlyTicking()) {
+					int p = intArrayList.size();
+					intArrayList.add(o << 24);
+					if (bl) {
+						RandomTickIndex randomTickIndex = levelChunkSection.getRandomTickIndex();
+
+						for (int q = 0; q < k; q++) {
+							n = n * 3 + 1013904223;
+							int r = n >> 2;
+							int s = randomTickIndex.sample((r >> 16 & 15) << 8 | (r >> 8 & 15) << 4 | r & 15);
+							if (s != -1) {
+								intArrayList.add(s);
+							}
+						}
+					} else {
+						for (int q = 0; q < k; q++) {
+							n = n * 3 + 1013904223;
+							int r = n >> 2;
+							int s = r & 15;
+							int t = r >> 16 & 15;
+							int u = r >> 8 & 15;
+							BlockState blockState = levelChunkSection.getBlockState(s, t, u);
+							if (blockState.isRandomlyTicking() || blockState.getFluidState().isRandomlyTicking()) {
+								intArrayList.add(t << 8 | u << 4 | s);
+							}
+						}
+					}
+
+					int q = intArrayList.size() - p - 1;
+					if (q == 0) {
+						intArrayList.removeInt(p);
+					} else {
+						intArrayList.set(p, o << 24 | q);
+					}
+				}
+			}
+
+			is[m] = intArrayList.isEmpty() ? NO_CANDIDATES : intArrayList.toIntArray();
+			intArrayList.clear();
+		}
+	}
+}
@@ -64,6 +64,7 @@ public class ServerChunkCache extends ChunkSource {
 	private final ServerChunkCache.MainThreadExecutor mainThreadProcessor;
 	public final ChunkMap chunkMap;
 	private final DimensionDataStorage dataStorage;
+	private final ChunkPregenerator pregenerator;
 	private final TicketStorage ticketStorage;
 	private long lastInhabitedUpdate;
 	private boolean spawnEnemies = true;
@@ -72,6 +73,7 @@ public class ServerChunkCache extends ChunkSource {
 	private final ChunkStatus[] lastChunkStatus = new ChunkStatus[4];
 	private final ChunkAccess[] lastChunk = new ChunkAccess[4];
 	private final List<LevelChunk> spawningChunks = new ObjectArrayList<>();
+	private final List<LevelChunk> tickingChunks = new ObjectArrayList<>();
 	private final Set<ChunkHolder> chunkHoldersToBroadcast = new ReferenceOpenHashSet<>();
 	@Nullable
 	@VisibleForDebug
@@ -121,6 +123,7 @@ public class ServerChunkCache extends ChunkSource {
 		this.lightEngine = this.chunkMap.getLightEngine();
 		this.distanceManager = this.chunkMap.getDistanceManager();
 		this.distanceManager.updateSimulationDistance(j);
+		this.pregenerator = new ChunkPregenerator(this, this.dataStorage.computeIfAbsent(ChunkPregenerationData.TYPE));
 		this.clearCache();
 	}
 
@@ -322,6 +325,7 @@ public class ServerChunkCache extends ChunkSource {
 			this.ticketStorage.purgeStaleTickets(this.chunkMap);
 		}
 
+		this.pregenerator.tick();
 		this.runDistanceManagerUpdates();
 		profilerFiller.popPush("chunks");
 		if (bl) {
@@ -401,7 +405,19 @@ public class ServerChunkCache extends ChunkSource {
 		}
 
 		profilerFiller.popPush("tickTickingChunks");
-		this.chunkMap.forEachBlockTickingChunk(levelChunkx -> this.level.tickChunk(levelChunkx, j));
+		if (ServerLevel.isParallelRandomTicks()) {
+			List<LevelChunk> list3 = this.tickingChunks;
+
+			try {
+				this.chunkMap.forEachBlockTickingChunk(list3::add);
+				this.level.tickChunks(list3, j);
+			} finally {
+				list3.clear();
+			}
+		} else {
+			this.chunkMap.forEachBlockTickingChunk(levelChunkx -> this.level.tickChunk(levelChunkx, j));
+		}
+
 		if (bl) {
 			profilerFiller.popPush("customSpawners");
 			this.level.tickCustomSpawners(this.spawnEnemies);
@@ -441,6 +457,10 @@ public class ServerChunkCache extends ChunkSource {
 		return this.mainThreadProcessor.getPendingTasksCount();
 	}
 
+	public ChunkPregenerator getPregenerator() {
+		return this.pregenerator;
+	}
+
 	public ChunkGenerator getGenerator() {
 		return this.chunkMap.generator();
 	}
@@ -461,6 +481,7 @@ public class ServerChunkCache extends ChunkSource {
 	public void blockChanged(BlockPos blockPos) {
 		int i = SectionPos.blockToSectionCoord(blockPos.getX());
 		int j = SectionPos.blockToSectionCoord(blockPos.getZ());
+		this.chunkMap.getChunkPacketCache().invalidate(ChunkPos.asLong(i, j));
 		ChunkHolder chunkHolder = this.getVisibleChunkIfPresent(ChunkPos.asLong(i, j));
 		if (chunkHolder != null && chunkHolder.blockChanged(blockPos)) {
 			this.chunkHoldersToBroadcast.add(chunkHolder);
@@ -470,6 +491,7 @@ public class ServerChunkCache extends ChunkSource {
 	@Override
 	public void onLightUpdate(LightLayer lightLayer, SectionPos sectionPos) {
 		this.mainThreadProcessor.execute(() -> {
+			this.chunkMap.getChunkPacketCache().invalidate(sectionPos.chunk());
 			ChunkHolder chunkHolder = this.getVisibleChunkIfPresent(sectionPos.chunk().toLong());
 			if (chunkHolder != null && chunkHolder.sectionLightChanged(lightLayer, sectionPos.y())) {
 				this.chunkHoldersToBroadcast.add(chunkHolder);
@@ -327,7 +327,7 @@ public class ServerEntity {
 		List<SynchedEntityData.DataValue<?>> list = synchedEntityData.packDirty();
 		if (list != null) {
 			this.trackedDataValues = synchedEntityData.getNonDefaultValues();
-			this.synchronizer.sendToTrackingPlayersAndSelf(new ClientboundSetEntityDataPacket(this.entity.getId(), list));
+			this.synchronizer.sendEntityData(new ClientboundSetEntityDataPacket(this.entity.getId(), list));
 		}
 
 		if (this.entity instanceof LivingEntity) {
@@ -346,5 +346,13 @@ public class ServerEntity {
 		void sendToTrackingPlayersAndSelf(Packet<? super ClientGamePacketListener> packet);
 
 		void sendToTrackingPlayersFiltered(Packet<? super ClientGamePacketListener> packet, Predicate<ServerPlayer> predicate);
+
+		/**
+		 * Sends entity data changes to the tracking players and the entity itself, possibly together with the changes
+		 * of other entities.
+		 */
+		default void sendEntityData(ClientboundSetEntityDataPacket clientboundSetEntityDataPacket) {
+			this.sendToTrackingPlayersAndSelf(clientboundSetEntityDataPacket);
+		}
 	}
 }
@@ -94,6 +94,7 @@ import net.minecraft.world.entity.LivingEntity;
 import net.minecraft.world.entity.Mob;
 import net.minecraft.world.entity.MobCategory;
 import net.minecraft.world.entity.ReputationEventHandler;
+import net.minecraft.world.entity.ai.navigation.AsyncPathfinder;
 import net.minecraft.world.entity.ai.navigation.PathNavigation;
 import net.minecraft.world.entity.ai.village.ReputationEventType;
 import net.minecraft.world.entity.ai.village.poi.PoiManager;
@@ -133,6 +134,7 @@ import net.minecraft.world.level.chunk.ChunkAccess;
 import net.minecraft.world.level.chunk.ChunkGenerator;
 import net.minecraft.world.level.chunk.LevelChunk;
 import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.RandomTickIndex;
 import net.minecraft.world.level.chunk.storage.EntityStorage;
 import net.minecraft.world.level.chunk.storage.RegionStorageInfo;
 import net.minecraft.world.level.chunk.storage.SimpleRegionStorage;
@@ -152,6 +154,7 @@ import net.minecraft.world.level.levelgen.Heightmap;
 import net.minecraft.world.level.levelgen.structure.BoundingBox;
 import net.minecraft.world.level.levelgen.structure.Structure;
 import net.minecraft.world.level.levelgen.structure.StructureCheck;
+import net.minecraft.world.level.levelgen.structure.StructureStartIndex;
 import net.minecraft.world.level.levelgen.structure.templatesystem.StructureTemplateManager;
 import net.minecraft.world.level.material.Fluid;
 import net.minecraft.world.level.material.FluidState;
@@ -186,6 +189,8 @@ public class ServerLevel extends Level implements ServerEntityGetter, WorldGenLe
 	private static final Logger LOGGER = LogUtils.getLogger();
 	private static final int EMPTY_TIME_NO_TICK = 300;
 	private static final int MAX_SCHEDULED_TICKS_PER_TICK = 65536;
+	private static volatile boolean parallelRandomTicks;
+	private static volatile boolean indexedRandomTicks;
 	final List<ServerPlayer> players = Lists.<ServerPlayer>newArrayList();
 	private final ServerChunkCache chunkSource;
 	private final MinecraftServer server;
@@ -201,6 +206,8 @@ public class ServerLevel extends Level implements ServerEntityGetter, WorldGenLe
 	private final LevelTicks<Block> blockTicks = new LevelTicks<>(this::isPositionTickingWithEntitiesLoaded);
 	private final LevelTicks<Fluid> fluidTicks = new LevelTicks<>(this::isPositionTickingWithEntitiesLoaded);
 	private final PathTypeCache pathTypesByPosCache = new PathTypeCache();
+	private final RandomTickScheduler randomTickScheduler = new RandomTickScheduler();
+	private final AsyncPathfinder asyncPathfinder = new AsyncPathfinder();
 	final Set<Mob> navigatingMobs = new ObjectOpenHashSet<>();
 	volatile boolean isUpdatingNavigations;
 	protected final Raids raids;
@@ -283,7 +290,8 @@ public class ServerLevel extends Level implements ServerEntityGetter, WorldGenLe
 			this,
 			chunkGenerator.getBiomeSource(),
 			m,
-			dataFixer
+			dataFixer,
+			StructureCheck.isStartIndexEnabled() ? this.getDataStorage().computeIfAbsent(StructureStartIndex.TYPE) : null
 		);
 		this.structureManager = new StructureManager(this, minecraftServer.getWorldData().worldGenOptions(), this.structureCheck);
 		if (this.dimension() == Level.END && this.dimensionTypeRegistration().is(BuiltinDimensionTypes.END)) {
@@ -471,19 +479,36 @@ public class ServerLevel extends Level implements ServerEntityGetter, WorldGenLe
 			.forEach(sp -> sp.stopSleepInBed(false, false));
 	}
 
+	/**
+	 * Enables selecting random-tick candidates in parallel across chunks, see {@link #tickChunks}.
+	 */
+	public static void setParallelRandomTicks(boolean bl) {
+		parallelRandomTicks = bl;
+	}
+
+	public static boolean isParallelRandomTicks() {
+		return parallelRandomTicks;
+	}
+
+	/**
+	 * Enables drawing random ticks from each section's {@link RandomTickIndex} instead of sampling positions
+	 * and looking up their states. Every ticking block keeps the same chance to be ticked.
+	 */
+	public static void setIndexedRandomTicks(boolean bl) {
+		indexedRandomTicks = bl;
+	}
+
+	public static boolean isIndexedRandomTicks() {
+		return indexedRandomTicks;
+	}
+
 	public void tickChunk(LevelChunk levelChunk, int i) {
 		ChunkPos chunkPos = levelChunk.getPos();
 		int j = chunkPos.getMinBlockX();
 		int k = chunkPos.getMinBlockZ();
 		ProfilerFiller profilerFiller = Profiler.get();
 		profilerFiller.push("iceandsnow");
-
-		for (int l = 0; l < i; l++) {
-			if (this.random.nextInt(48) == 0) {
-				this.tickPrecipitation(this.getBlockRandomPos(j, 0, k, 15));
-			}
-		}
-
+		this.tickIceAndSnow(j, k, i);
 		profilerFiller.popPush("tickBlocks");
 		if (i > 0) {
 			LevelChunkSection[] levelChunkSections = levelChunk.getSections();
@@ -493,6 +518,10 @@ public class ServerLevel extends Level implements ServerEntityGetter, WorldGenLe
 				if (levelChunkSection.isRandomlyTicking()) {
 					int n = levelChunk.getSectionYFromSectionIndex(m);
 					int o = SectionPos.sectionToBlockCoord(n);
+					if (indexedRandomTicks) {
+						this.tickIndexedSection(levelChunkSection, j, o, k, i);
+						continue;
+					}
 
 					for (int p = 0; p < i; p++) {
 						BlockPos blockPos = this.getBlockRandomPos(j, o, k, 15);
@@ -516,6 +545,110 @@ public class ServerLevel extends Level implements ServerEntityGetter, WorldGenLe
 		profilerFiller.pop();
 	}
 
+	private void tickIndexedSection(LevelChunkSection levelChunkSection, int i, int j, int k, int l) {
+		RandomTickIndex randomTickIndex = levelChunkSection.getRandomTickIndex();
+		ProfilerFiller profilerFiller = Profiler.get();
+
+		for (int m = 0; m < l; m++) {
+			this.randValue = this.randValue * 3 + 1013904223;
+			int n = this.randValue >> 2;
+			int o = randomTickIndex.sample((n >> 16 & 15) << 8 | (n >> 8 & 15) << 4 | n & 15);
+			if (o != -1) {
+				int p = o & 15;
+				int q = o >> 8 & 15;
+				int r = o >> 4 & 15;
+				profilerFiller.push("randomTick");
+				BlockState blockState = levelChunkSection.getBlockState(p, q, r);
+				BlockPos blockPos = new BlockPos(i + p, j + q, k + r);
+				if (blockState.isRandomlyTicking()) {
+					blockState.randomTick(this, blockPos, this.random);
+				}
+
+				FluidState fluidState = blockState.getFluidState();
+				if (fluidState.isRandomlyTicking()) {
+					fluidState.randomTick(this, blockPos, this.random);
+				}
+
+				profilerFiller.pop();
+			}
+		}
+	}
+
+	/**
+	 * Ticks chunks like {@link #tickChunk}, but selects the random-tick candidates of all chunks in parallel
+	 * through {@link RandomTickScheduler} first, and then only ticks the positions that hold randomly
+	 * ticking states.
+	 */
+	public void tickChunks(List<LevelChunk> list, int i) {
+		ProfilerFiller profilerFiller = Profiler.get();
+		profilerFiller.push("selectRandomTicks");
+		long m = this.getSeed() ^ this.getGameTime() * -7046029254386353131L;
+		int[][] is = i > 0 ? this.randomTickScheduler.selectCandidates(list, i, m) : null;
+		profilerFiller.pop();
+
+		for (int j = 0; j < list.size(); j++) {
+			LevelChunk levelChunk = (LevelChunk)list.get(j);
+			ChunkPos chunkPos = levelChunk.getPos();
+			int k = chunkPos.getMinBlockX();
+			int l = chunkPos.getMinBlockZ();
+			profilerFiller.push("iceandsnow");
+			this.tickIceAndSnow(k, l, i);
+			profilerFiller.popPush("tickBlocks");
+			if (is != null && is[j].length > 0) {
+				this.tickRandomTickCandidates(levelChunk, is[j], this.randomTickScheduler.randomFor(m, chunkPos));
+			}
+
+			profilerFiller.pop();
+		}
+	}
+
+	private void tickIceAndSnow(int i, int j, int k) {
+		for (int l = 0; l < k; l++) {
+			if (this.random.nextInt(48) == 0) {
+				this.tickPrecipitation(this.getBlockRandomPos(i, 0, j, 15));
+			}
+		}
+	}
+
+	/**
+	 * Applies the candidates of a chunk selected by {@link RandomTickScheduler}, one section batch at a time, with
+	 * the given random generator. Sections that stopped ticking randomly since the selection are skipped as a whole.
+	 */
+	void tickRandomTickCandidates(LevelChunk levelChunk, int[] is, RandomSource randomSource) {
+		ChunkPos chunkPos = levelChunk.getPos();
+		int i = chunkPos.getMinBlockX();
+		int j = chunkPos.getMinBlockZ();
+		LevelChunkSection[] levelChunkSections = levelChunk.getSections();
+		int k = 0;
+
+		while (k < is.length) {
+			int l = is[k] >>> 24;
+			int m = k + 1 + (is[k] & 16777215);
+			LevelChunkSection levelChunkSection = levelChunkSections[l];
+			if (levelChunkSection.isRandomlyTicking()) {
+				int n = SectionPos.sectionToBlockCoord(levelChunk.getSectionYFromSectionIndex(l));
+
+				for (int o = k + 1; o < m; o++) {
+					int p = is[o] & 15;
+					int q = is[o] >> 8 & 15;
+					int r = is[o] >> 4 & 15;
+					BlockState blockState = levelChunkSection.getBlockState(p, q, r);
+					BlockPos blockPos = new BlockPos(i + p, n + q, j + r);
+					if (blockState.isRandomlyTicking()) {
+						blockState.randomTick(this, blockPos, randomSource);
+					}
+
+					FluidState fluidState = blockState.getFluidState();
+					if (fluidState.isRandomlyTicking()) {
+						fluidState.randomTick(this, blockPos, randomSource);
+					}
+				}
+			}
+
+			k = m;
+		}
+	}
+
 	public void tickThunder(LevelChunk levelChunk) {
 		ChunkPos chunkPos = levelChunk.getPos();
 		boolean bl = this.isRaining();
@@ -964,6 +1097,7 @@ public class ServerLevel extends Level implements ServerEntityGetter, WorldGenLe
 	public void unload(LevelChunk levelChunk) {
 		levelChunk.clearAllBlockEntities();
 		levelChunk.unregisterTickContainerFromLevel(this);
+		this.pathTypesByPosCache.invalidateChunk(levelChunk.getPos());
 		this.debugSynchronizers.dropChunk(levelChunk.getPos());
 	}
 
@@ -1065,6 +1199,12 @@ public class ServerLevel extends Level implements ServerEntityGetter, WorldGenLe
 		this.gameEventDispatcher.post(holder, vec3, context);
 	}
 
+	@Override
+	public void blockEntityChanged(BlockPos blockPos) {
+		super.blockEntityChanged(blockPos);
+		this.getChunkSource().chunkMap.getChunkPacketCache().invalidate(ChunkPos.asLong(blockPos));
+	}
+
 	@Override
 	public void sendBlockUpdated(BlockPos blockPos, BlockState blockState, BlockState blockState2, int i) {
 		if (this.isUpdatingNavigations) {
@@ -1073,7 +1213,6 @@ public class ServerLevel extends Level implements ServerEntityGetter, WorldGenLe
 		}
 
 		this.getChunkSource().blockChanged(blockPos);
-		this.pathTypesByPosCache.invalidate(blockPos);
 		VoxelShape voxelShape = blockState.getCollisionShape(this, blockPos);
 		VoxelShape voxelShape2 = blockState2.getCollisionShape(this, blockPos);
 		if (Shapes.joinIsNotEmpty(voxelShape, voxelShape2, BooleanOp.NOT_SAME)) {
@@ -1415,6 +1554,13 @@ public class ServerLevel extends Level implements ServerEntityGetter, WorldGenLe
 		return this.players;
 	}
 
+	@Override
+	public void setBlocksDirty(BlockPos blockPos, BlockState blockState, BlockState blockState2) {
+		this.getChunkSource().chunkMap.getChunkPacketCache().invalidate(ChunkPos.asLong(blockPos));
+		this.pathTypesByPosCache.invalidate(blockPos);
+		this.asyncPathfinder.blockChanged(blockPos);
+	}
+
 	@Override
 	public void updatePOIOnBlockStateChange(BlockPos blockPos, BlockState blockState, BlockState blockState2) {
 		Optional<Holder<PoiType>> optional = PoiTypes.forState(blockState);
@@ -1748,6 +1894,10 @@ public class ServerLevel extends Level implements ServerEntityGetter, WorldGenLe
 		return this.pathTypesByPosCache;
 	}
 
+	public AsyncPathfinder getAsyncPathfinder() {
+		return this.asyncPathfinder;
+	}
+
 	public void waitForEntities(ChunkPos chunkPos, int i) {
 		List<ChunkPos> list = ChunkPos.rangeClosed(chunkPos, i).toList();
 		this.server.managedBlock(() -> {
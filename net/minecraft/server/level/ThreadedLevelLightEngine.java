@@ -6,6 +6,7 @@ import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectList;
 import it.unimi.dsi.fastutil.objects.ObjectListIterator;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.IntSupplier;
 import net.minecraft.SharedConstants;
@@ -32,6 +33,8 @@ public class ThreadedLevelLightEngine extends LevelLightEngine implements AutoCl
 	private final ChunkTaskDispatcher taskDispatcher;
 	private final int taskPerBatch = 1000;
 	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private final Executor parallelExecutor = Util.backgroundExecutor().forName("lightUpdates");
+	private static volatile boolean parallelLightUpdates;
 
 	public ThreadedLevelLightEngine(
 		LightChunkGetter lightChunkGetter, ChunkMap chunkMap, boolean bl, ConsecutiveExecutor consecutiveExecutor, ChunkTaskDispatcher chunkTaskDispatcher
@@ -42,6 +45,14 @@ public class ThreadedLevelLightEngine extends LevelLightEngine implements AutoCl
 		this.consecutiveExecutor = consecutiveExecutor;
 	}
 
+	/**
+	 * Enables running the block and sky light layers of each batch on separate threads, see
+	 * {@link LevelLightEngine#runLightUpdates(Executor)}.
+	 */
+	public static void setParallelLightUpdates(boolean bl) {
+		parallelLightUpdates = bl;
+	}
+
 	public void close() {
 	}
 
@@ -203,7 +214,11 @@ public class ThreadedLevelLightEngine extends LevelLightEngine implements AutoCl
 		}
 
 		objectListIterator.back(j);
-		super.runLightUpdates();
+		if (parallelLightUpdates) {
+			super.runLightUpdates(this.parallelExecutor);
+		} else {
+			super.runLightUpdates();
+		}
 
 		for (int var5 = 0; objectListIterator.hasNext() && var5 < i; var5++) {
 			Pair<ThreadedLevelLightEngine.TaskType, Runnable> pair = (Pair<ThreadedLevelLightEngine.TaskType, Runnable>)objectListIterator.next();
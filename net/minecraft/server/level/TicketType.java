@@ -19,6 +19,7 @@ public record TicketType(long timeout, int flags) {
 	public static final TicketType PORTAL = register("portal", 300L, 15);
 	public static final TicketType ENDER_PEARL = register("ender_pearl", 40L, 14);
 	public static final TicketType UNKNOWN = register("unknown", 1L, 18);
+	public static final TicketType PREGENERATION = register("pregeneration", 0L, 2);
 
 	private static TicketType register(String string, long l, int i) {
 		return Registry.register(BuiltInRegistries.TICKET_TYPE, string, new TicketType(l, i));
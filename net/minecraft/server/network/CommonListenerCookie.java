@@ -3,8 +3,8 @@ package net.minecraft.server.network;
 import net.minecraft.server.profile.PlayerProfile;
 import net.minecraft.server.level.ClientInformation;
 
-public record CommonListenerCookie(PlayerProfile playerProfile, int latency, ClientInformation clientInformation, boolean transferred) {
+public record CommonListenerCookie(PlayerProfile playerProfile, int latency, ClientInformation clientInformation, boolean transferred, boolean entityDataBatching) {
 	public static CommonListenerCookie createInitial(PlayerProfile playerProfile, boolean bl) {
-		return new CommonListenerCookie(playerProfile, 0, ClientInformation.createDefault(), bl);
+		return new CommonListenerCookie(playerProfile, 0, ClientInformation.createDefault(), bl, false);
 	}
 }
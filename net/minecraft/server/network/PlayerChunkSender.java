@@ -8,6 +8,7 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import net.minecraft.SharedConstants;
+import net.minecraft.network.SharedPacketEncoder;
 import net.minecraft.network.protocol.game.ClientboundChunkBatchFinishedPacket;
 import net.minecraft.network.protocol.game.ClientboundChunkBatchStartPacket;
 import net.minecraft.network.protocol.game.ClientboundForgetLevelChunkPacket;
@@ -74,7 +75,13 @@ public class PlayerChunkSender {
 	}
 
 	private static void sendChunk(ServerGamePacketListenerImpl serverGamePacketListenerImpl, ServerLevel serverLevel, LevelChunk levelChunk) {
-		serverGamePacketListenerImpl.send(new ClientboundLevelChunkWithLightPacket(levelChunk, serverLevel.getLightEngine(), null, null));
+		SharedPacketEncoder.Encoded encoded = serverLevel.getChunkSource().chunkMap.getChunkPacketCache().get(serverLevel, levelChunk, serverLevel.getLightEngine());
+		if (encoded != null) {
+			serverGamePacketListenerImpl.send(encoded);
+		} else {
+			serverGamePacketListenerImpl.send(new ClientboundLevelChunkWithLightPacket(levelChunk, serverLevel.getLightEngine(), null, null));
+		}
+
 		ChunkPos chunkPos = levelChunk.getPos();
 		if (SharedConstants.DEBUG_VERBOSE_SERVER_EVENTS) {
 			LOGGER.debug("SEN {}", chunkPos);
@@ -11,6 +11,7 @@ import net.minecraft.Util;
 import net.minecraft.network.Connection;
 import net.minecraft.network.DisconnectionDetails;
 import net.minecraft.network.PacketSendListener;
+import net.minecraft.network.SharedPacketEncoder;
 import net.minecraft.network.chat.Component;
 import net.minecraft.network.protocol.Packet;
 import net.minecraft.network.protocol.PacketUtils;
@@ -40,6 +41,7 @@ public abstract class ServerCommonPacketListenerImpl implements ServerCommonPack
 	protected final MinecraftServer server;
 	protected final Connection connection;
 	private final boolean transferred;
+	protected boolean entityDataBatching;
 	private long keepAliveTime;
 	private boolean keepAlivePending;
 	private long keepAliveChallenge;
@@ -54,6 +56,7 @@ public abstract class ServerCommonPacketListenerImpl implements ServerCommonPack
 		this.keepAliveTime = Util.getMillis();
 		this.latency = commonListenerCookie.latency();
 		this.transferred = commonListenerCookie.transferred();
+		this.entityDataBatching = commonListenerCookie.entityDataBatching();
 	}
 
 	private void close() {
@@ -158,6 +161,22 @@ public abstract class ServerCommonPacketListenerImpl implements ServerCommonPack
 		this.send(packet, null);
 	}
 
+	/**
+	 * Sends a packet encoded once for several players, see {@link SharedPacketEncoder}.
+	 */
+	public void send(SharedPacketEncoder.Encoded encoded) {
+		boolean bl = !this.suspendFlushingOnServerThread || !this.server.isSameThread();
+
+		try {
+			this.connection.send(encoded, bl);
+		} catch (Throwable var5) {
+			CrashReport crashReport = CrashReport.forThrowable(var5, "Sending packet");
+			CrashReportCategory crashReportCategory = crashReport.addCategory("Packet being sent");
+			crashReportCategory.setDetail("Packet class", (CrashReportDetail<String>)(() -> encoded.packet().getClass().getCanonicalName()));
+			throw new ReportedException(crashReport);
+		}
+	}
+
 	public void send(Packet<?> packet, @Nullable ChannelFutureListener channelFutureListener) {
 		if (packet.isTerminal()) {
 			this.close();
@@ -202,6 +221,6 @@ public abstract class ServerCommonPacketListenerImpl implements ServerCommonPack
 	}
 
 	protected CommonListenerCookie createCookie(ClientInformation clientInformation) {
-		return new CommonListenerCookie(this.playerProfile(), this.latency, clientInformation, this.transferred);
+		return new CommonListenerCookie(this.playerProfile(), this.latency, clientInformation, this.transferred, this.entityDataBatching);
 	}
 }
@@ -18,8 +18,10 @@ import net.minecraft.network.protocol.PacketUtils;
 import net.minecraft.network.protocol.common.ClientboundCustomPayloadPacket;
 import net.minecraft.network.protocol.common.ClientboundServerLinksPacket;
 import net.minecraft.network.protocol.common.ServerboundClientInformationPacket;
+import net.minecraft.network.protocol.common.ServerboundCustomPayloadPacket;
 import net.minecraft.network.protocol.common.ServerboundResourcePackPacket;
 import net.minecraft.network.protocol.common.custom.BrandPayload;
+import net.minecraft.network.protocol.common.custom.EntityDataBatchingPayload;
 import net.minecraft.network.protocol.configuration.ClientboundUpdateEnabledFeaturesPacket;
 import net.minecraft.network.protocol.configuration.ServerConfigurationPacketListener;
 import net.minecraft.network.protocol.configuration.ServerboundAcceptCodeOfConductPacket;
@@ -136,6 +138,13 @@ public class ServerConfigurationPacketListenerImpl
 		this.clientInformation = serverboundClientInformationPacket.information();
 	}
 
+	@Override
+	public void handleCustomPayload(ServerboundCustomPayloadPacket serverboundCustomPayloadPacket) {
+		if (serverboundCustomPayloadPacket.payload() instanceof EntityDataBatchingPayload entityDataBatchingPayload) {
+			this.entityDataBatching = entityDataBatchingPayload.version() == EntityDataBatchingPayload.VERSION;
+		}
+	}
+
 	@Override
 	public void handleResourcePackResponse(ServerboundResourcePackPacket serverboundResourcePackPacket) {
 		super.handleResourcePackResponse(serverboundResourcePackPacket);
@@ -47,6 +47,7 @@ import net.minecraft.nbt.CompoundTag;
 import net.minecraft.network.Connection;
 import net.minecraft.network.DisconnectionDetails;
 import net.minecraft.network.HashedStack;
+import net.minecraft.network.PacketProcessor;
 import net.minecraft.network.TickablePacketListener;
 import net.minecraft.network.chat.ChatType;
 import net.minecraft.network.chat.Component;
@@ -60,6 +61,7 @@ import net.minecraft.network.chat.SignableCommand;
 import net.minecraft.network.chat.SignedMessageBody;
 import net.minecraft.network.chat.SignedMessageChain;
 import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.PacketType;
 import net.minecraft.network.protocol.PacketUtils;
 import net.minecraft.network.protocol.common.ServerboundClientInformationPacket;
 import net.minecraft.network.protocol.common.ServerboundCustomPayloadPacket;
@@ -257,13 +259,24 @@ public class ServerGamePacketListenerImpl
 	private int receivedMovePacketCount;
 	private int knownMovePacketCount;
 	private boolean receivedMovementThisTick;
+	/**
+	 * The chat session and message decoder are owned by whatever handles this player's chat packets in order: the
+	 * packet worker when there is one, except for commands, which the worker hands to the server thread and holds back
+	 * everything else of the player for until they ran. Volatile because that owner changes threads.
+	 */
 	@Nullable
-	private RemoteChatSession chatSession;
-	private SignedMessageChain.Decoder signedMessageDecoder;
+	private volatile RemoteChatSession chatSession;
+	private volatile SignedMessageChain.Decoder signedMessageDecoder;
 	private final LastSeenMessagesValidator lastSeenMessages = new LastSeenMessagesValidator(20);
 	private int nextChatIndex;
 	private final MessageSignatureCache messageSignatureCache = MessageSignatureCache.createDefault();
 	private final FutureChain chatMessageChain;
+	/**
+	 * Decodes chat messages and validates chat sessions off the server thread, or {@code null} if packet workers are
+	 * disabled.
+	 */
+	@Nullable
+	private final PacketProcessor.Worker packetWorker;
 	private boolean waitingForSwitchToConfig;
 
 	public ServerGamePacketListenerImpl(
@@ -276,6 +289,7 @@ public class ServerGamePacketListenerImpl
 		serverPlayer.getTextFilter().join();
 		this.signedMessageDecoder = SignedMessageChain.Decoder.unsigned(serverPlayer.getUUID(), minecraftServer::enforceSecureProfile);
 		this.chatMessageChain = new FutureChain(minecraftServer);
+		this.packetWorker = minecraftServer.packetProcessor().createWorker("Packet Worker");
 	}
 
 	@Override
@@ -1357,6 +1371,10 @@ public class ServerGamePacketListenerImpl
 
 	private void removePlayerFromWorld() {
 		this.chatMessageChain.close();
+		if (this.packetWorker != null) {
+			this.packetWorker.close();
+		}
+
 		this.server.invalidateStatus();
 		this.server
 			.getPlayerList()
@@ -1393,7 +1411,7 @@ public class ServerGamePacketListenerImpl
 	public void handleChat(ServerboundChatPacket serverboundChatPacket) {
 		Optional<LastSeenMessages> optional = this.unpackAndApplyLastSeen(serverboundChatPacket.lastSeenMessages());
 		if (!optional.isEmpty()) {
-			this.tryHandleChat(serverboundChatPacket.message(), false, () -> {
+			this.tryHandleChat(serverboundChatPacket.type(), serverboundChatPacket.message(), false, () -> {
 				PlayerChatMessage playerChatMessage;
 				try {
 					playerChatMessage = this.getSignedMessage(serverboundChatPacket, (LastSeenMessages)optional.get());
@@ -1414,7 +1432,7 @@ public class ServerGamePacketListenerImpl
 
 	@Override
 	public void handleChatCommand(ServerboundChatCommandPacket serverboundChatCommandPacket) {
-		this.tryHandleChat(serverboundChatCommandPacket.command(), true, () -> {
+		this.tryHandleChat(serverboundChatCommandPacket.type(), serverboundChatCommandPacket.command(), true, () -> {
 			this.performUnsignedChatCommand(serverboundChatCommandPacket.command());
 			this.detectRateSpam();
 		});
@@ -1434,7 +1452,7 @@ public class ServerGamePacketListenerImpl
 	public void handleSignedChatCommand(ServerboundChatCommandSignedPacket serverboundChatCommandSignedPacket) {
 		Optional<LastSeenMessages> optional = this.unpackAndApplyLastSeen(serverboundChatCommandSignedPacket.lastSeenMessages());
 		if (!optional.isEmpty()) {
-			this.tryHandleChat(serverboundChatCommandSignedPacket.command(), true, () -> {
+			this.tryHandleChat(serverboundChatCommandSignedPacket.type(), serverboundChatCommandSignedPacket.command(), true, () -> {
 				this.performSignedChatCommand(serverboundChatCommandSignedPacket, (LastSeenMessages)optional.get());
 				this.detectRateSpam();
 			});
@@ -1520,14 +1538,20 @@ public class ServerGamePacketListenerImpl
 		return commandDispatcher.parse(string, this.player.createCommandSourceStack());
 	}
 
-	private void tryHandleChat(String string, boolean bl, Runnable runnable) {
+	private void tryHandleChat(PacketType<?> packetType, String string, boolean bl, Runnable runnable) {
 		if (isChatMessageIllegal(string)) {
 			this.disconnect(Component.translatable("multiplayer.disconnect.illegal_characters"));
 		} else if (!bl && this.player.getChatVisibility() == ChatVisiblity.HIDDEN) {
 			this.send(new ClientboundSystemChatPacket(Component.translatable("chat.disabled.options").withStyle(ChatFormatting.RED), false));
 		} else {
 			this.player.resetLastActionTime();
-			this.server.execute(runnable);
+			if (this.packetWorker != null && bl) {
+				this.packetWorker.executeChained(packetType, () -> this.server.submit(runnable));
+			} else if (this.packetWorker != null) {
+				this.packetWorker.execute(packetType, runnable);
+			} else {
+				this.server.execute(runnable);
+			}
 		}
 	}
 
@@ -1999,7 +2023,7 @@ public class ServerGamePacketListenerImpl
 
 	@Override
 	public void handleChatSessionUpdate(ServerboundChatSessionUpdatePacket serverboundChatSessionUpdatePacket) {
-		PacketUtils.ensureRunningOnSameThread(serverboundChatSessionUpdatePacket, this, this.player.level());
+		PacketUtils.ensureRunningOnWorker(serverboundChatSessionUpdatePacket, this, this.packetWorker, this.server.packetProcessor());
 		RemoteChatSession.Data data = serverboundChatSessionUpdatePacket.chatSession();
 		ProfilePublicKey.Data data2 = this.chatSession != null ? this.chatSession.profilePublicKey().data() : null;
 		ProfilePublicKey.Data data3 = data.profilePublicKey();
@@ -2095,6 +2119,11 @@ public class ServerGamePacketListenerImpl
 		return this.player;
 	}
 
+	@Override
+	public boolean acceptsEntityDataBatches() {
+		return this.entityDataBatching;
+	}
+
 	@FunctionalInterface
 	interface EntityInteraction {
 		InteractionResult run(ServerPlayer serverPlayer, Entity entity, InteractionHand interactionHand);
@@ -1,5 +1,6 @@
 package net.minecraft.server.network;
 
+import net.minecraft.network.SharedPacketEncoder;
 import net.minecraft.network.protocol.Packet;
 import net.minecraft.server.level.ServerPlayer;
 
@@ -7,4 +8,16 @@ public interface ServerPlayerConnection {
 	ServerPlayer getPlayer();
 
 	void send(Packet<?> packet);
+
+	/**
+	 * Whether the client announced during configuration that it understands
+	 * {@link net.minecraft.network.protocol.game.ClientboundSetEntitiesDataPacket}.
+	 */
+	default boolean acceptsEntityDataBatches() {
+		return false;
+	}
+
+	default void send(SharedPacketEncoder.Encoded encoded) {
+		this.send(encoded.packet());
+	}
 }
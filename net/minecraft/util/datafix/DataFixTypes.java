@@ -31,6 +31,8 @@ public enum DataFixTypes {
 	SAVED_DATA_SCOREBOARD(References.SAVED_DATA_SCOREBOARD),
 	SAVED_DATA_STRUCTURE_FEATURE_INDICES(References.SAVED_DATA_STRUCTURE_FEATURE_INDICES),
 	SAVED_DATA_WORLD_BORDER(References.SAVED_DATA_WORLD_BORDER),
+	SAVED_DATA_CHUNK_PREGENERATION(References.SAVED_DATA_CHUNK_PREGENERATION),
+	SAVED_DATA_STRUCTURE_START_INDEX(References.SAVED_DATA_STRUCTURE_START_INDEX),
 	ADVANCEMENTS(References.ADVANCEMENTS),
 	POI_CHUNK(References.POI_CHUNK),
 	WORLD_GEN_SETTINGS(References.WORLD_GEN_SETTINGS),
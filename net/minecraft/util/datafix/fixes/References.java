@@ -20,6 +20,8 @@ public class References {
 	public static final TypeReference SAVED_DATA_SCOREBOARD = reference("saved_data/scoreboard");
 	public static final TypeReference SAVED_DATA_STRUCTURE_FEATURE_INDICES = reference("saved_data/structure_feature_indices");
 	public static final TypeReference SAVED_DATA_WORLD_BORDER = reference("saved_data/world_border");
+	public static final TypeReference SAVED_DATA_CHUNK_PREGENERATION = reference("saved_data/chunk_pregeneration");
+	public static final TypeReference SAVED_DATA_STRUCTURE_START_INDEX = reference("saved_data/structure_start_index");
 	public static final TypeReference ADVANCEMENTS = reference("advancements");
 	public static final TypeReference POI_CHUNK = reference("poi_chunk");
 	public static final TypeReference ENTITY_CHUNK = reference("entity_chunk");
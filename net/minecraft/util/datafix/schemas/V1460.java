@@ -347,6 +347,8 @@ public class V1460 extends NamespacedSchema {
 			() -> DSL.optionalFields("data", DSL.optionalFields("Features", DSL.compoundList(References.STRUCTURE_FEATURE.in(schema))))
 		);
 		schema.registerType(false, References.SAVED_DATA_WORLD_BORDER, DSL::remainder);
+		schema.registerType(false, References.SAVED_DATA_CHUNK_PREGENERATION, DSL::remainder);
+		schema.registerType(false, References.SAVED_DATA_STRUCTURE_START_INDEX, DSL::remainder);
 		schema.registerType(false, References.STRUCTURE_FEATURE, DSL::remainder);
 		Map<String, Supplier<TypeTemplate>> map3 = V1451_6.createCriterionTypes(schema);
 		schema.registerType(
@@ -331,6 +331,8 @@ public class V99 extends Schema {
 			() -> DSL.optionalFields("data", DSL.optionalFields("Features", DSL.compoundList(References.STRUCTURE_FEATURE.in(schema))))
 		);
 		schema.registerType(false, References.SAVED_DATA_WORLD_BORDER, DSL::remainder);
+		schema.registerType(false, References.SAVED_DATA_CHUNK_PREGENERATION, DSL::remainder);
+		schema.registerType(false, References.SAVED_DATA_STRUCTURE_START_INDEX, DSL::remainder);
 		schema.registerType(false, References.STRUCTURE_FEATURE, DSL::remainder);
 		schema.registerType(false, References.OBJECTIVE, DSL::remainder);
 		schema.registerType(
@@ -4,6 +4,8 @@ public enum MetricCategory {
 	PATH_FINDING("pathfinding"),
 	EVENT_LOOPS("event-loops"),
 	CONSECUTIVE_EXECUTORS("consecutive-executors"),
+	CHUNK_IO("chunk io"),
+	NETWORK("network"),
 	TICK_LOOP("ticking"),
 	JVM("jvm"),
 	CHUNK_RENDERING("chunk rendering"),
@@ -6,9 +6,6 @@ import com.google.common.collect.Sets;
 import com.google.common.collect.ImmutableList.Builder;
 import com.mojang.logging.LogUtils;
 import com.mojang.serialization.Codec;
-import it.unimi.dsi.fastutil.floats.FloatArraySet;
-import it.unimi.dsi.fastutil.floats.FloatArrays;
-import it.unimi.dsi.fastutil.floats.FloatSet;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import it.unimi.dsi.fastutil.longs.LongSet;
 import it.unimi.dsi.fastutil.objects.Object2DoubleArrayMap;
@@ -104,6 +101,7 @@ import net.minecraft.world.item.equipment.Equippable;
 import net.minecraft.world.level.BlockGetter;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.ClipContext;
+import net.minecraft.world.level.CollisionBuffer;
 import net.minecraft.world.level.Explosion;
 import net.minecraft.world.level.ItemLike;
 import net.minecraft.world.level.Level;
@@ -1033,58 +1031,56 @@ public abstract class Entity
 	private Vec3 collide(Vec3 vec3) {
 		AABB aABB = this.getBoundingBox();
 		List<VoxelShape> list = this.level().getEntityCollisions(this, aABB.expandTowards(vec3));
-		Vec3 vec32 = vec3.lengthSqr() == 0.0 ? vec3 : collideBoundingBox(this, vec3, aABB, this.level(), list);
-		boolean bl = vec3.x != vec32.x;
-		boolean bl2 = vec3.y != vec32.y;
-		boolean bl3 = vec3.z != vec32.z;
-		boolean bl4 = bl2 && vec3.y < 0.0;
-		if (this.maxUpStep() > 0.0F && (bl4 || this.onGround()) && (bl || bl3)) {
-			AABB aABB2 = bl4 ? aABB.move(0.0, vec32.y, 0.0) : aABB;
-			AABB aABB3 = aABB2.expandTowards(vec3.x, this.maxUpStep(), vec3.z);
-			if (!bl4) {
-				aABB3 = aABB3.expandTowards(0.0, -1.0E-5F, 0.0);
-			}
-
-			List<VoxelShape> list2 = collectColliders(this, this.level, list, aABB3);
-			float f = (float)vec32.y;
-			float[] fs = collectCandidateStepUpHeights(aABB2, list2, this.maxUpStep(), f);
-
-			for (float g : fs) {
-				Vec3 vec33 = collideWithShapes(new Vec3(vec3.x, g, vec3.z), aABB2, list2);
-				if (vec33.horizontalDistanceSqr() > vec32.horizontalDistanceSqr()) {
-					double d = aABB.minY - aABB2.minY;
-					return vec33.subtract(0.0, d, 0.0);
-				}
-			}
-		}
+		CollisionBuffer collisionBuffer = CollisionBuffer.get();
 
-		return vec32;
-	}
+		try {
+			Vec3 vec32;
+			if (vec3.lengthSqr() == 0.0) {
+				vec32 = vec3;
+			} else {
+				collisionBuffer.collect(this, this.level(), list, aABB.expandTowards(vec3));
+				vec32 = collisionBuffer.collide(vec3, aABB);
+			}
+
+			boolean bl = vec3.x != vec32.x;
+			boolean bl2 = vec3.y != vec32.y;
+			boolean bl3 = vec3.z != vec32.z;
+			boolean bl4 = bl2 && vec3.y < 0.0;
+			if (this.maxUpStep() > 0.0F && (bl4 || this.onGround()) && (bl || bl3)) {
+				AABB aABB2 = bl4 ? aABB.move(0.0, vec32.y, 0.0) : aABB;
+				AABB aABB3 = aABB2.expandTowards(vec3.x, this.maxUpStep(), vec3.z);
+				if (!bl4) {
+					aABB3 = aABB3.expandTowards(0.0, -1.0E-5F, 0.0);
+				}
 
-	private static float[] collectCandidateStepUpHeights(AABB aABB, List<VoxelShape> list, float f, float g) {
-		FloatSet floatSet = new FloatArraySet(4);
+				collisionBuffer.collect(this, this.level, list, aABB3);
+				float f = (float)vec32.y;
+				float[] fs = collisionBuffer.collectCandidateStepUpHeights(aABB2, this.maxUpStep(), f);
 
-		for (VoxelShape voxelShape : list) {
-			for (double d : voxelShape.getCoords(Direction.Axis.Y)) {
-				float h = (float)(d - aABB.minY);
-				if (!(h < 0.0F) && h != g) {
-					if (h > f) {
-						break;
+				for (float g : fs) {
+					Vec3 vec33 = collisionBuffer.collide(new Vec3(vec3.x, g, vec3.z), aABB2);
+					if (vec33.horizontalDistanceSqr() > vec32.horizontalDistanceSqr()) {
+						double d = aABB.minY - aABB2.minY;
+						return vec33.subtract(0.0, d, 0.0);
 					}
-
-					floatSet.add(h);
 				}
 			}
-		}
 
-		float[] fs = floatSet.toFloatArray();
-		FloatArrays.unstableSort(fs);
-		return fs;
+			return vec32;
+		} finally {
+			collisionBuffer.release();
+		}
 	}
 
 	public static Vec3 collideBoundingBox(@Nullable Entity entity, Vec3 vec3, AABB aABB, Level level, List<VoxelShape> list) {
-		List<VoxelShape> list2 = collectColliders(entity, level, list, aABB.expandTowards(vec3));
-		return collideWithShapes(vec3, aABB, list2);
+		CollisionBuffer collisionBuffer = CollisionBuffer.get();
+
+		try {
+			collisionBuffer.collect(entity, level, list, aABB.expandTowards(vec3));
+			return collisionBuffer.collide(vec3, aABB);
+		} finally {
+			collisionBuffer.release();
+		}
 	}
 
 	public static List<VoxelShape> collectAllColliders(@Nullable Entity entity, Level level, AABB aABB) {
@@ -1108,24 +1104,6 @@ public abstract class Entity
 		return builder.build();
 	}
 
-	private static Vec3 collideWithShapes(Vec3 vec3, AABB aABB, List<VoxelShape> list) {
-		if (list.isEmpty()) {
-			return vec3;
-		} else {
-			Vec3 vec32 = Vec3.ZERO;
-
-			for (Direction.Axis axis : Direction.axisStepOrder(vec3)) {
-				double d = vec3.get(axis);
-				if (d != 0.0) {
-					double e = Shapes.collide(axis, aABB.move(vec32), list, d);
-					vec32 = vec32.with(axis, e);
-				}
-			}
-
-			return vec32;
-		}
-	}
-
 	protected float nextStep() {
 		return (int)this.moveDist + 1;
 	}
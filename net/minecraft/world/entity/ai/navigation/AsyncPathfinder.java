@@ -0,0 +1,168 @@
+package net.minecraft.world.entity.ai.navigation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.minecraft.Util;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.level.PathNavigationRegion;
+import net.minecraft.world.level.levelgen.structure.BoundingBox;
+import net.minecraft.world.level.pathfinder.Path;
+import net.minecraft.world.level.pathfinder.PathFinder;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Runs the searches of one level for recomputed paths on worker threads, see {@link PathNavigation#recomputePath}.
+ * Paths requested through {@link PathNavigation#createPath} or {@link PathNavigation#moveTo} are always searched on
+ * the main thread, since their callers act on the path they get back.
+ * <p>
+ * A search is prepared on the main thread, see {@link PathFinder#prepareSearch}: the region it reads is a
+ * {@linkplain PathNavigationRegion#copyOf copy} of the block sections around the mob, and its start and target nodes
+ * as well as everything it reads from the mob are taken before it is submitted. The worker therefore never reads the
+ * live mob or the live chunks. A search is still marked stale when a block inside its region changes before its
+ * result is delivered, see {@link #blockChanged}, so that mobs do not follow paths through blocks that are gone.
+ * Stale results must be discarded.
+ * </p>
+ * <p>
+ * The number of searches running at the same time is capped for the whole server. Submitting beyond the cap
+ * fails, and callers fall back to searching on the main thread.
+ * </p>
+ */
+public class AsyncPathfinder {
+	private static volatile boolean enabled;
+	private static volatile int maxSearchesInFlight = 64;
+	private static final AtomicInteger SEARCHES_IN_FLIGHT = new AtomicInteger();
+	private final Executor executor = Util.backgroundExecutor().forName("pathfinding");
+	private final List<AsyncPathfinder.Search> searches = new ArrayList();
+
+	/**
+	 * Enables searching off the main thread when a mob recomputes the path it is following, because a block
+	 * changed along it or a recomputation was delayed, see {@link PathNavigation#recomputePath}. The mob keeps
+	 * following its current path until {@link PathNavigation#tick} delivers the new one. Other path searches are
+	 * not affected.
+	 */
+	public static void setEnabled(boolean bl) {
+		enabled = bl;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static void setMaxSearchesInFlight(int i) {
+		maxSearchesInFlight = Math.max(i, 1);
+	}
+
+	public static int getSearchesInFlight() {
+		return SEARCHES_IN_FLIGHT.get();
+	}
+
+	/**
+	 * Whether another search may be submitted right now.
+	 */
+	public static boolean hasCapacity() {
+		return SEARCHES_IN_FLIGHT.get() < maxSearchesInFlight;
+	}
+
+	/**
+	 * Finishes the prepared search on a worker thread. The path finder is used by the worker until the returned
+	 * search is done and must not be touched before. Returns {@code null} if too many searches are already running.
+	 */
+	@Nullable
+	public AsyncPathfinder.Search submit(PathFinder pathFinder, PathFinder.PreparedSearch preparedSearch, Mob mob, float f, int i, float g) {
+		if (SEARCHES_IN_FLIGHT.incrementAndGet() > maxSearchesInFlight) {
+			SEARCHES_IN_FLIGHT.decrementAndGet();
+			return null;
+		} else {
+			AsyncPathfinder.Search search = new AsyncPathfinder.Search(mob, preparedSearch.region().getChunkBounds());
+
+			try {
+				this.executor.execute(() -> {
+					try {
+						search.path = pathFinder.findPath(preparedSearch, f, i, g);
+					} catch (RuntimeException var13) {
+						search.stale = true;
+					} finally {
+						SEARCHES_IN_FLIGHT.decrementAndGet();
+						search.done = true;
+					}
+				});
+			} catch (RejectedExecutionException var14) {
+				SEARCHES_IN_FLIGHT.decrementAndGet();
+				return null;
+			}
+
+			this.searches.removeIf(AsyncPathfinder.Search::isAbandoned);
+			this.searches.add(search);
+			return search;
+		}
+	}
+
+	/**
+	 * Marks every undelivered search that may have read the given position as stale.
+	 */
+	public void blockChanged(BlockPos blockPos) {
+		if (!this.searches.isEmpty()) {
+			this.searches.removeIf(AsyncPathfinder.Search::isAbandoned);
+
+			for (AsyncPathfinder.Search search : this.searches) {
+				if (search.boundingBox.isInside(blockPos)) {
+					search.stale = true;
+				}
+			}
+		}
+	}
+
+	public int size() {
+		return this.searches.size();
+	}
+
+	/**
+	 * A single search. Everything but {@link #isDone} may only be called on the main thread, and the path only
+	 * once the search is done.
+	 */
+	public static class Search {
+		private final Mob mob;
+		final BoundingBox boundingBox;
+		@Nullable
+		Path path;
+		volatile boolean done;
+		volatile boolean stale;
+		private boolean released;
+
+		Search(Mob mob, BoundingBox boundingBox) {
+			this.mob = mob;
+			this.boundingBox = boundingBox;
+		}
+
+		public boolean isDone() {
+			return this.done;
+		}
+
+		/**
+		 * Whether a block the search may have read changed since it was submitted, or the search failed.
+		 */
+		public boolean isStale() {
+			return this.stale;
+		}
+
+		@Nullable
+		public Path getPath() {
+			return this.path;
+		}
+
+		/**
+		 * Stops tracking block changes for this search once its result was taken or is no longer wanted.
+		 */
+		public void release() {
+			this.released = true;
+		}
+
+		boolean isAbandoned() {
+			return this.released || this.mob.isRemoved();
+		}
+	}
+}
@@ -44,6 +44,7 @@ public class FlyingPathNavigation extends PathNavigation {
 	@Override
 	public void tick() {
 		this.tick++;
+		this.tickAsyncSearch();
 		if (this.hasDelayedRecomputation) {
 			this.recomputePath();
 		}
@@ -2,6 +2,7 @@ package net.minecraft.world.entity.ai.navigation;
 
 import com.google.common.collect.ImmutableSet;
 import java.util.Set;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import net.minecraft.core.BlockPos;
@@ -57,19 +58,30 @@ public abstract class PathNavigation {
 	private final PathFinder pathFinder;
 	private boolean isStuck;
 	private float requiredPathLength = 16.0F;
+	private int maxVisitedNodes;
+	private BooleanSupplier captureDebug = () -> false;
+	@Nullable
+	private PathFinder asyncPathFinder;
+	@Nullable
+	private AsyncPathfinder.Search asyncSearch;
+	@Nullable
+	private PathNavigation.PendingSearch pendingSearch;
 
 	public PathNavigation(Mob mob, Level level) {
 		this.mob = mob;
 		this.level = level;
-		this.pathFinder = this.createPathFinder(Mth.floor(mob.getAttributeBaseValue(Attributes.FOLLOW_RANGE) * 16.0));
+		this.maxVisitedNodes = Mth.floor(mob.getAttributeBaseValue(Attributes.FOLLOW_RANGE) * 16.0);
+		this.pathFinder = this.createPathFinder(this.maxVisitedNodes);
 		if (level instanceof ServerLevel serverLevel) {
 			ServerDebugSubscribers serverDebugSubscribers = serverLevel.getServer().debugSubscribers();
-			this.pathFinder.setCaptureDebug(() -> serverDebugSubscribers.hasAnySubscriberFor(DebugSubscriptions.ENTITY_PATHS));
+			this.captureDebug = () -> serverDebugSubscribers.hasAnySubscriberFor(DebugSubscriptions.ENTITY_PATHS);
+			this.pathFinder.setCaptureDebug(this.captureDebug);
 		}
 	}
 
 	public void updatePathfinderMaxVisitedNodes() {
 		int i = Mth.floor(this.getMaxPathLength() * 16.0F);
+		this.maxVisitedNodes = i;
 		this.pathFinder.setMaxVisitedNodes(i);
 	}
 
@@ -104,8 +116,11 @@ public abstract class PathNavigation {
 	public void recomputePath() {
 		if (this.level.getGameTime() - this.timeLastRecompute > 20L) {
 			if (this.targetPos != null) {
-				this.path = null;
-				this.path = this.createPath(this.targetPos, this.reachRange);
+				if (!this.searchAsync(ImmutableSet.of(this.targetPos), 8, this.reachRange, this.getMaxPathLength())) {
+					this.path = null;
+					this.path = this.createPath(this.targetPos, this.reachRange);
+				}
+
 				this.timeLastRecompute = this.level.getGameTime();
 				this.hasDelayedRecomputation = false;
 			}
@@ -160,20 +175,122 @@ public abstract class PathNavigation {
 		} else if (this.path != null && !this.path.isDone() && set.contains(this.targetPos)) {
 			return this.path;
 		} else {
-			ProfilerFiller profilerFiller = Profiler.get();
-			profilerFiller.push("pathfind");
-			BlockPos blockPos = bl ? this.mob.blockPosition().above() : this.mob.blockPosition();
+			Path path = this.findPath(set, i, bl, j, f);
+			this.acceptPath(path, j);
+			return path;
+		}
+	}
+
+	@Nullable
+	private Path findPath(Set<BlockPos> set, int i, boolean bl, int j, float f) {
+		ProfilerFiller profilerFiller = Profiler.get();
+		profilerFiller.push("pathfind");
+		BlockPos blockPos = bl ? this.mob.blockPosition().above() : this.mob.blockPosition();
+		int k = (int)(f + i);
+		PathNavigationRegion pathNavigationRegion = new PathNavigationRegion(this.level, blockPos.offset(-k, -k, -k), blockPos.offset(k, k, k));
+		Path path = this.pathFinder.findPath(pathNavigationRegion, this.mob, set, f, j, this.maxVisitedNodesMultiplier);
+		profilerFiller.pop();
+		return path;
+	}
+
+	private void acceptPath(@Nullable Path path, int i) {
+		if (path != null && path.getTarget() != null) {
+			this.targetPos = path.getTarget();
+			this.reachRange = i;
+			this.resetStuckTimeout();
+		}
+	}
+
+	/**
+	 * Hands the search for a recomputed path to the level's {@link AsyncPathfinder} if it is enabled and the mob is
+	 * following a path that it can keep following until the new one replaces it in {@link #tick}. Requests to move
+	 * somewhere else always search on the main thread, since their callers act on the path they get back. Returns
+	 * {@code false} if the search has to run on the main thread instead.
+	 */
+	private boolean searchAsync(Set<BlockPos> set, int i, int j, float f) {
+		if (AsyncPathfinder.isEnabled()
+			&& AsyncPathfinder.hasCapacity()
+			&& this.isInProgress()
+			&& (this.asyncSearch == null || this.asyncSearch.isDone())
+			&& this.level instanceof ServerLevel serverLevel
+			&& !set.isEmpty()
+			&& !(this.mob.getY() < this.level.getMinY())
+			&& this.canUpdatePath()) {
+			PathFinder pathFinder = this.getAsyncPathFinder();
+			BlockPos blockPos = this.mob.blockPosition();
 			int k = (int)(f + i);
-			PathNavigationRegion pathNavigationRegion = new PathNavigationRegion(this.level, blockPos.offset(-k, -k, -k), blockPos.offset(k, k, k));
-			Path path = this.pathFinder.findPath(pathNavigationRegion, this.mob, set, f, j, this.maxVisitedNodesMultiplier);
-			profilerFiller.pop();
-			if (path != null && path.getTarget() != null) {
-				this.targetPos = path.getTarget();
-				this.reachRange = j;
-				this.resetStuckTimeout();
+			PathNavigationRegion pathNavigationRegion = PathNavigationRegion.copyOf(this.level, blockPos.offset(-k, -k, -k), blockPos.offset(k, k, k));
+			PathFinder.PreparedSearch preparedSearch = pathFinder.prepareSearch(pathNavigationRegion, this.mob, set);
+			AsyncPathfinder.Search search = preparedSearch == null
+				? null
+				: serverLevel.getAsyncPathfinder().submit(pathFinder, preparedSearch, this.mob, f, j, this.maxVisitedNodesMultiplier);
+			if (search == null) {
+				pathFinder.getNodeEvaluator().done();
+				return false;
+			} else {
+				this.cancelPendingSearch();
+				this.asyncSearch = search;
+				this.pendingSearch = new PathNavigation.PendingSearch(search, set, i, j, f);
+				return true;
 			}
+		} else {
+			return false;
+		}
+	}
 
-			return path;
+	/**
+	 * The path finder used off the main thread, by at most one search at a time. It has its own node evaluator, which
+	 * takes over the options of the main one before every search.
+	 */
+	private PathFinder getAsyncPathFinder() {
+		if (this.asyncPathFinder == null) {
+			NodeEvaluator nodeEvaluator = this.nodeEvaluator;
+			this.asyncPathFinder = this.createPathFinder(this.maxVisitedNodes);
+			this.nodeEvaluator = nodeEvaluator;
+		}
+
+		NodeEvaluator nodeEvaluator = this.asyncPathFinder.getNodeEvaluator();
+		nodeEvaluator.setCanPassDoors(this.nodeEvaluator.canPassDoors());
+		nodeEvaluator.setCanOpenDoors(this.nodeEvaluator.canOpenDoors());
+		nodeEvaluator.setCanFloat(this.nodeEvaluator.canFloat());
+		nodeEvaluator.setCanWalkOverFences(this.nodeEvaluator.canWalkOverFences());
+		this.asyncPathFinder.setMaxVisitedNodes(this.maxVisitedNodes);
+		boolean bl = this.captureDebug.getAsBoolean();
+		this.asyncPathFinder.setCaptureDebug(() -> bl);
+		return this.asyncPathFinder;
+	}
+
+	/**
+	 * Delivers the path of the pending asynchronous search once it is done.
+	 */
+	protected void tickAsyncSearch() {
+		if (this.pendingSearch != null && this.pendingSearch.search().isDone()) {
+			this.deliverPendingSearch();
+		}
+	}
+
+	private void deliverPendingSearch() {
+		PathNavigation.PendingSearch pendingSearch = this.pendingSearch;
+		this.pendingSearch = null;
+		AsyncPathfinder.Search search = pendingSearch.search();
+		search.release();
+		Path path;
+		if (!search.isStale()) {
+			path = search.getPath();
+		} else if (this.canUpdatePath() && !(this.mob.getY() < this.level.getMinY())) {
+			path = this.findPath(pendingSearch.targets(), pendingSearch.accuracy(), false, pendingSearch.reachRange(), pendingSearch.maxPathLength());
+		} else {
+			path = null;
+		}
+
+		this.acceptPath(path, pendingSearch.reachRange());
+		this.path = path;
+	}
+
+	private void cancelPendingSearch() {
+		if (this.pendingSearch != null) {
+			this.pendingSearch.search().release();
+			this.pendingSearch = null;
 		}
 	}
 
@@ -192,10 +309,12 @@ public abstract class PathNavigation {
 
 	public boolean moveTo(@Nullable Path path, double d) {
 		if (path == null) {
+			this.cancelPendingSearch();
 			this.path = null;
 			return false;
 		} else {
 			if (!path.sameAs(this.path)) {
+				this.cancelPendingSearch();
 				this.path = path;
 			}
 
@@ -223,6 +342,8 @@ public abstract class PathNavigation {
 
 	public void tick() {
 		this.tick++;
+		this.tickAsyncSearch();
+
 		if (this.hasDelayedRecomputation) {
 			this.recomputePath();
 		}
@@ -348,6 +469,7 @@ public abstract class PathNavigation {
 	}
 
 	public void stop() {
+		this.cancelPendingSearch();
 		this.path = null;
 	}
 
@@ -427,4 +549,7 @@ public abstract class PathNavigation {
 	public void setCanOpenDoors(boolean bl) {
 		this.nodeEvaluator.setCanOpenDoors(bl);
 	}
+
+	record PendingSearch(AsyncPathfinder.Search search, Set<BlockPos> targets, int accuracy, int reachRange, float maxPathLength) {
+	}
 }
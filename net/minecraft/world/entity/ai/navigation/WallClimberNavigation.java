@@ -41,6 +41,7 @@ public class WallClimberNavigation extends GroundPathNavigation {
 
 	@Override
 	public void tick() {
+		this.tickAsyncSearch();
 		if (!this.isDone()) {
 			super.tick();
 		} else {
@@ -600,10 +600,18 @@ public class Creaking extends Monster {
 
 	class HomeNodeEvaluator extends WalkNodeEvaluator {
 		private static final int MAX_DISTANCE_TO_HOME_SQ = 1024;
+		@Nullable
+		private BlockPos homePos;
+
+		@Override
+		protected void captureMob() {
+			super.captureMob();
+			this.homePos = Creaking.this.getHomePos();
+		}
 
 		@Override
 		public PathType getPathType(PathfindingContext pathfindingContext, int i, int j, int k) {
-			BlockPos blockPos = Creaking.this.getHomePos();
+			BlockPos blockPos = this.mob != null ? this.homePos : Creaking.this.getHomePos();
 			if (blockPos == null) {
 				return super.getPathType(pathfindingContext, i, j, k);
 			} else {
@@ -0,0 +1,306 @@
+package net.minecraft.world.level;
+
+import it.unimi.dsi.fastutil.floats.FloatArraySet;
+import it.unimi.dsi.fastutil.floats.FloatArrays;
+import it.unimi.dsi.fastutil.floats.FloatSet;
+import java.util.Arrays;
+import java.util.List;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.SectionPos;
+import net.minecraft.util.Mth;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.border.WorldBorder;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.Vec3;
+import net.minecraft.world.phys.shapes.BooleanOp;
+import net.minecraft.world.phys.shapes.CollisionContext;
+import net.minecraft.world.phys.shapes.Shapes;
+import net.minecraft.world.phys.shapes.VoxelShape;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Collects the shapes an entity may collide with while moving and resolves the movement against them, without
+ * building a list of moved {@link VoxelShape}s.
+ * <p>
+ * Blocks whose collision shape is a full cube are stored as their coordinates and collided with directly, everything
+ * else falls back to the moved shape. Blocks of loaded chunks are read straight from their sections. The colliders
+ * are visited in the same order as {@link BlockCollisions} produces them, and the cube arithmetic mirrors
+ * {@link VoxelShape#collide}, so the result is exactly the one of {@link Shapes#collide} over the shape list.
+ * </p>
+ * <p>
+ * One buffer is kept per thread, see {@link #get}, and holds the colliders of a single movement at a time.
+ * </p>
+ */
+public class CollisionBuffer {
+	private static final ThreadLocal<CollisionBuffer> BUFFER = ThreadLocal.withInitial(CollisionBuffer::new);
+	private final BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+	private VoxelShape[] shapes = new VoxelShape[32];
+	private int[] cubes = new int[96];
+	private int size;
+
+	public static CollisionBuffer get() {
+		return BUFFER.get();
+	}
+
+	/**
+	 * Replaces the colliders by the given entity shapes, the world border if the entity is close to it and the blocks
+	 * intersecting the box, in the order of {@link net.minecraft.world.entity.Entity#collideBoundingBox}.
+	 */
+	public void collect(@Nullable Entity entity, CollisionGetter collisionGetter, List<VoxelShape> list, AABB aABB) {
+		this.release();
+
+		for (VoxelShape voxelShape : list) {
+			this.add(voxelShape, 0, 0, 0);
+		}
+
+		WorldBorder worldBorder = collisionGetter.getWorldBorder();
+		if (entity != null && worldBorder.isInsideCloseToBorder(entity, aABB)) {
+			this.add(worldBorder.getCollisionShape(), 0, 0, 0);
+		}
+
+		this.collectBlocks(entity == null ? CollisionContext.empty() : CollisionContext.of(entity), collisionGetter, aABB);
+	}
+
+	private void collectBlocks(CollisionContext collisionContext, CollisionGetter collisionGetter, AABB aABB) {
+		int i = Mth.floor(aABB.minX - 1.0E-7) - 1;
+		int j = Mth.floor(aABB.maxX + 1.0E-7) + 1;
+		int k = Mth.floor(aABB.minY - 1.0E-7) - 1;
+		int l = Mth.floor(aABB.maxY + 1.0E-7) + 1;
+		int m = Mth.floor(aABB.minZ - 1.0E-7) - 1;
+		int n = Mth.floor(aABB.maxZ + 1.0E-7) + 1;
+		VoxelShape voxelShape = null;
+		long o = Long.MAX_VALUE;
+		BlockGetter blockGetter = null;
+		LevelChunk levelChunk = null;
+
+		for (int p = m; p <= n; p++) {
+			for (int q = k; q <= l; q++) {
+				for (int r = i; r <= j; r++) {
+					int s = (r != i && r != j ? 0 : 1) + (q != k && q != l ? 0 : 1) + (p != m && p != n ? 0 : 1);
+					if (s == 3) {
+						continue;
+					}
+
+					long t = ChunkPos.asLong(SectionPos.blockToSectionCoord(r), SectionPos.blockToSectionCoord(p));
+					if (t != o) {
+						o = t;
+						blockGetter = collisionGetter.getChunkForCollisions(SectionPos.blockToSectionCoord(r), SectionPos.blockToSectionCoord(p));
+						levelChunk = blockGetter instanceof LevelChunk levelChunk2 && !levelChunk2.getLevel().isDebug() ? levelChunk2 : null;
+					}
+
+					if (blockGetter == null) {
+						continue;
+					}
+
+					BlockState blockState;
+					if (levelChunk != null) {
+						int u = levelChunk.getSectionIndex(q);
+						if (u < 0 || u >= levelChunk.getSectionsCount()) {
+							continue;
+						}
+
+						LevelChunkSection levelChunkSection = levelChunk.getSection(u);
+						if (levelChunkSection.hasOnlyAir()) {
+							continue;
+						}
+
+						blockState = levelChunkSection.getBlockState(r & 15, q & 15, p & 15);
+					} else {
+						blockState = blockGetter.getBlockState(this.pos.set(r, q, p));
+					}
+
+					if (blockState.isAir() || s == 1 && !blockState.hasLargeCollisionShape() || s == 2 && !blockState.is(Blocks.MOVING_PISTON)) {
+						continue;
+					}
+
+					this.pos.set(r, q, p);
+					VoxelShape voxelShape2 = collisionContext.getCollisionShape(blockState, collisionGetter, this.pos);
+					if (voxelShape2 == Shapes.block()) {
+						if (aABB.intersects(r, q, p, r + 1.0, q + 1.0, p + 1.0)) {
+							this.add(null, r, q, p);
+						}
+					} else {
+						VoxelShape voxelShape3 = voxelShape2.move(this.pos);
+						if (!voxelShape3.isEmpty()) {
+							if (voxelShape == null) {
+								voxelShape = Shapes.create(aABB);
+							}
+
+							if (Shapes.joinIsNotEmpty(voxelShape3, voxelShape, BooleanOp.AND)) {
+								this.add(voxelShape3, 0, 0, 0);
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private void add(@Nullable VoxelShape voxelShape, int i, int j, int k) {
+		if (this.size == this.shapes.length) {
+			this.shapes = Arrays.copyOf(this.shapes, this.size * 2);
+			this.cubes = Arrays.copyOf(this.cubes, this.size * 6);
+		}
+
+		this.shapes[this.size] = voxelShape;
+		this.cubes[this.size * 3] = i;
+		this.cubes[this.size * 3 + 1] = j;
+		this.cubes[this.size * 3 + 2] = k;
+		this.size++;
+	}
+
+	/**
+	 * Drops the collected shapes so the buffer does not keep them alive.
+	 */
+	public void release() {
+		Arrays.fill(this.shapes, 0, this.size, null);
+		this.size = 0;
+	}
+
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Moves the box by the given movement one axis at a time, stopping at the colliders.
+	 */
+	public Vec3 collide(Vec3 vec3, AABB aABB) {
+		if (this.size == 0) {
+			return vec3;
+		} else {
+			double d = 0.0;
+			double e = 0.0;
+			double f = 0.0;
+			List<Direction.Axis> list = Direction.axisStepOrder(vec3);
+
+			for (int i = 0; i < list.size(); i++) {
+				Direction.Axis axis = (Direction.Axis)list.get(i);
+				double g = vec3.get(axis);
+				if (g != 0.0) {
+					double h = this.collide(axis, aABB, d, e, f, g);
+					switch (axis) {
+						case X:
+							d = h;
+							break;
+						case Y:
+							e = h;
+							break;
+						case Z:
+							f = h;
+					}
+				}
+			}
+
+			return new Vec3(d, e, f);
+		}
+	}
+
+	/**
+	 * Collides the box offset by the given amounts along one axis, like {@link Shapes#collide}.
+	 */
+	public double collide(Direction.Axis axis, AABB aABB, double d, double e, double f, double g) {
+		double h = aABB.minX + d;
+		double i = aABB.minY + e;
+		double j = aABB.minZ + f;
+		double k = aABB.maxX + d;
+		double l = aABB.maxY + e;
+		double m = aABB.maxZ + f;
+		AABB aABB2 = null;
+
+		for (int n = 0; n < this.size; n++) {
+			if (Math.abs(g) < 1.0E-7) {
+				return 0.0;
+			}
+
+			VoxelShape voxelShape = this.shapes[n];
+			if (voxelShape != null) {
+				if (aABB2 == null) {
+					aABB2 = new AABB(h, i, j, k, l, m);
+				}
+
+				g = voxelShape.collide(axis, aABB2, g);
+			} else {
+				int o = this.cubes[n * 3];
+				int p = this.cubes[n * 3 + 1];
+				int q = this.cubes[n * 3 + 2];
+				g = switch (axis) {
+					case X -> collideCube(h, k, o, i, l, p, j, m, q, g);
+					case Y -> collideCube(i, l, p, h, k, o, j, m, q, g);
+					case Z -> collideCube(j, m, q, h, k, o, i, l, p, g);
+				};
+			}
+		}
+
+		return g;
+	}
+
+	/**
+	 * The movement of a box along an axis towards the unit cube at the given block coordinates, where {@code d} and
+	 * {@code e} are the bounds of the box along the axis of movement and the others its bounds along the other axes.
+	 */
+	private static double collideCube(double d, double e, int i, double f, double g, int j, double h, double k, int l, double m) {
+		if (f + 1.0E-7 < j + 1.0 && g - 1.0E-7 >= j && h + 1.0E-7 < l + 1.0 && k - 1.0E-7 >= l) {
+			if (m > 0.0) {
+				if (e - 1.0E-7 < i) {
+					m = Math.min(m, i - e);
+				}
+			} else if (m < 0.0 && d + 1.0E-7 >= i + 1.0) {
+				m = Math.max(m, i + 1.0 - d);
+			}
+		}
+
+		return m;
+	}
+
+	/**
+	 * The heights above the box, sorted and at most {@code f}, at which a collider starts or ends, except
+	 * {@code g}, the height the box already moved to.
+	 */
+	public float[] collectCandidateStepUpHeights(AABB aABB, float f, float g) {
+		FloatSet floatSet = new FloatArraySet(4);
+
+		for (int i = 0; i < this.size; i++) {
+			VoxelShape voxelShape = this.shapes[i];
+			if (voxelShape != null) {
+				for (double d : voxelShape.getCoords(Direction.Axis.Y)) {
+					float h = (float)(d - aABB.minY);
+					if (!(h < 0.0F) && h != g) {
+						if (h > f) {
+							break;
+						}
+
+						floatSet.add(h);
+					}
+				}
+			} else {
+				int j = this.cubes[i * 3 + 1];
+				float h = (float)(j - aABB.minY);
+				float k = (float)(j + 1.0 - aABB.minY);
+				if (!(h < 0.0F) && h != g) {
+					if (h > f) {
+						continue;
+					}
+
+					floatSet.add(h);
+				}
+
+				if (!(k < 0.0F) && k != g && !(k > f)) {
+					floatSet.add(k);
+				}
+			}
+		}
+
+		float[] fs = floatSet.toFloatArray();
+		FloatArrays.unstableSort(fs);
+		return fs;
+	}
+}
@@ -17,6 +17,9 @@ import net.minecraft.world.level.border.WorldBorder;
 import net.minecraft.world.level.chunk.ChunkAccess;
 import net.minecraft.world.level.chunk.ChunkSource;
 import net.minecraft.world.level.chunk.EmptyLevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.levelgen.structure.BoundingBox;
 import net.minecraft.world.level.material.FluidState;
 import net.minecraft.world.level.material.Fluids;
 import net.minecraft.world.phys.AABB;
@@ -30,8 +33,16 @@ public class PathNavigationRegion implements CollisionGetter {
 	protected boolean allEmpty;
 	protected final Level level;
 	private final Supplier<Holder<Biome>> plains;
+	@Nullable
+	private final PathNavigationRegion.CopiedChunk[][] copiedChunks;
+	private final int minBlockY;
+	private final int maxBlockY;
 
 	public PathNavigationRegion(Level level, BlockPos blockPos, BlockPos blockPos2) {
+		this(level, blockPos, blockPos2, false);
+	}
+
+	private PathNavigationRegion(Level level, BlockPos blockPos, BlockPos blockPos2, boolean bl) {
 		this.level = level;
 		this.plains = Suppliers.memoize(() -> level.registryAccess().lookupOrThrow(Registries.BIOME).getOrThrow(Biomes.PLAINS));
 		this.centerX = SectionPos.blockToSectionCoord(blockPos.getX());
@@ -48,6 +59,28 @@ public class PathNavigationRegion implements CollisionGetter {
 			}
 		}
 
+		if (bl) {
+			int k = Math.max(SectionPos.blockToSectionCoord(blockPos.getY()), level.getMinSectionY());
+			int l = Math.min(SectionPos.blockToSectionCoord(blockPos2.getY()), level.getMaxSectionY());
+			this.copiedChunks = new PathNavigationRegion.CopiedChunk[this.chunks.length][this.chunks[0].length];
+
+			for (int m = 0; m < this.chunks.length; m++) {
+				for (int n = 0; n < this.chunks[m].length; n++) {
+					ChunkAccess chunkAccess = this.chunks[m][n];
+					if (chunkAccess != null) {
+						this.copiedChunks[m][n] = new PathNavigationRegion.CopiedChunk(chunkAccess, k, l);
+					}
+				}
+			}
+
+			this.minBlockY = SectionPos.sectionToBlockCoord(k);
+			this.maxBlockY = SectionPos.sectionToBlockCoord(l, 15);
+		} else {
+			this.copiedChunks = null;
+			this.minBlockY = level.getMinY();
+			this.maxBlockY = level.getMaxY();
+		}
+
 		for (int k = SectionPos.blockToSectionCoord(blockPos.getX()); k <= SectionPos.blockToSectionCoord(blockPos2.getX()); k++) {
 			for (int l = SectionPos.blockToSectionCoord(blockPos.getZ()); l <= SectionPos.blockToSectionCoord(blockPos2.getZ()); l++) {
 				ChunkAccess chunkAccess = this.chunks[k - this.centerX][l - this.centerZ];
@@ -59,16 +92,44 @@ public class PathNavigationRegion implements CollisionGetter {
 		}
 	}
 
-	private ChunkAccess getChunk(BlockPos blockPos) {
+	/**
+	 * Creates a region like {@link #PathNavigationRegion(Level, BlockPos, BlockPos)} that reads copies of the block
+	 * sections between the two positions instead of the live chunks, so that it can be searched on another thread
+	 * while the level keeps changing. Blocks of the copied chunks above and below those sections read as air, and
+	 * block entities read as missing.
+	 */
+	public static PathNavigationRegion copyOf(Level level, BlockPos blockPos, BlockPos blockPos2) {
+		return new PathNavigationRegion(level, blockPos, blockPos2, true);
+	}
+
+	public boolean isCopy() {
+		return this.copiedChunks != null;
+	}
+
+	/**
+	 * Returns the blocks of the chunk columns this region reads from. Everything outside them reads as empty.
+	 */
+	public BoundingBox getChunkBounds() {
+		return new BoundingBox(
+			SectionPos.sectionToBlockCoord(this.centerX),
+			this.minBlockY,
+			SectionPos.sectionToBlockCoord(this.centerZ),
+			SectionPos.sectionToBlockCoord(this.centerX + this.chunks.length - 1, 15),
+			this.maxBlockY,
+			SectionPos.sectionToBlockCoord(this.centerZ + this.chunks[0].length - 1, 15)
+		);
+	}
+
+	private BlockGetter getChunk(BlockPos blockPos) {
 		return this.getChunk(SectionPos.blockToSectionCoord(blockPos.getX()), SectionPos.blockToSectionCoord(blockPos.getZ()));
 	}
 
-	private ChunkAccess getChunk(int i, int j) {
+	private BlockGetter getChunk(int i, int j) {
 		int k = i - this.centerX;
 		int l = j - this.centerZ;
 		if (k >= 0 && k < this.chunks.length && l >= 0 && l < this.chunks[k].length) {
-			ChunkAccess chunkAccess = this.chunks[k][l];
-			return (ChunkAccess)(chunkAccess != null ? chunkAccess : new EmptyLevelChunk(this.level, new ChunkPos(i, j), (Holder<Biome>)this.plains.get()));
+			BlockGetter blockGetter = (BlockGetter)(this.copiedChunks != null ? this.copiedChunks[k][l] : this.chunks[k][l]);
+			return (BlockGetter)(blockGetter != null ? blockGetter : new EmptyLevelChunk(this.level, new ChunkPos(i, j), (Holder<Biome>)this.plains.get()));
 		} else {
 			return new EmptyLevelChunk(this.level, new ChunkPos(i, j), (Holder<Biome>)this.plains.get());
 		}
@@ -92,8 +153,8 @@ public class PathNavigationRegion implements CollisionGetter {
 	@Nullable
 	@Override
 	public BlockEntity getBlockEntity(BlockPos blockPos) {
-		ChunkAccess chunkAccess = this.getChunk(blockPos);
-		return chunkAccess.getBlockEntity(blockPos);
+		BlockGetter blockGetter = this.getChunk(blockPos);
+		return blockGetter.getBlockEntity(blockPos);
 	}
 
 	@Override
@@ -101,8 +162,8 @@ public class PathNavigationRegion implements CollisionGetter {
 		if (this.isOutsideBuildHeight(blockPos)) {
 			return Blocks.AIR.defaultBlockState();
 		} else {
-			ChunkAccess chunkAccess = this.getChunk(blockPos);
-			return chunkAccess.getBlockState(blockPos);
+			BlockGetter blockGetter = this.getChunk(blockPos);
+			return blockGetter.getBlockState(blockPos);
 		}
 	}
 
@@ -111,8 +172,8 @@ public class PathNavigationRegion implements CollisionGetter {
 		if (this.isOutsideBuildHeight(blockPos)) {
 			return Fluids.EMPTY.defaultFluidState();
 		} else {
-			ChunkAccess chunkAccess = this.getChunk(blockPos);
-			return chunkAccess.getFluidState(blockPos);
+			BlockGetter blockGetter = this.getChunk(blockPos);
+			return blockGetter.getFluidState(blockPos);
 		}
 	}
 
@@ -125,4 +186,62 @@ public class PathNavigationRegion implements CollisionGetter {
 	public int getHeight() {
 		return this.level.getHeight();
 	}
+
+	/**
+	 * The block states of some sections of a chunk, copied on the main thread. Blocks in other sections read as air.
+	 */
+	static class CopiedChunk implements BlockGetter {
+		private final PalettedContainer<BlockState>[] states;
+		private final int minSectionY;
+		private final int minY;
+		private final int height;
+
+		CopiedChunk(ChunkAccess chunkAccess, int i, int j) {
+			this.states = new PalettedContainer[Math.max(j - i + 1, 0)];
+			this.minSectionY = i;
+			this.minY = chunkAccess.getMinY();
+			this.height = chunkAccess.getHeight();
+
+			for (int k = i; k <= j; k++) {
+				LevelChunkSection levelChunkSection = chunkAccess.getSection(chunkAccess.getSectionIndexFromSectionY(k));
+				if (!levelChunkSection.hasOnlyAir()) {
+					this.states[k - i] = levelChunkSection.getStates().copy();
+				}
+			}
+		}
+
+		@Nullable
+		@Override
+		public BlockEntity getBlockEntity(BlockPos blockPos) {
+			return null;
+		}
+
+		@Override
+		public BlockState getBlockState(BlockPos blockPos) {
+			int i = SectionPos.blockToSectionCoord(blockPos.getY()) - this.minSectionY;
+			if (i >= 0 && i < this.states.length) {
+				PalettedContainer<BlockState> palettedContainer = this.states[i];
+				if (palettedContainer != null) {
+					return palettedContainer.get(blockPos.getX() & 15, blockPos.getY() & 15, blockPos.getZ() & 15);
+				}
+			}
+
+			return Blocks.AIR.defaultBlockState();
+		}
+
+		@Override
+		public FluidState getFluidState(BlockPos blockPos) {
+			return this.getBlockState(blockPos).getFluidState();
+		}
+
+		@Override
+		public int getMinY() {
+			return this.minY;
+		}
+
+		@Override
+		public int getHeight() {
+			return this.height;
+		}
+	}
 }
@@ -24,6 +24,7 @@ import net.minecraft.world.level.levelgen.WorldOptions;
 import net.minecraft.world.level.levelgen.structure.Structure;
 import net.minecraft.world.level.levelgen.structure.StructureCheck;
 import net.minecraft.world.level.levelgen.structure.StructureCheckResult;
+import net.minecraft.world.level.levelgen.structure.StructureStartIndex;
 import net.minecraft.world.level.levelgen.structure.StructurePiece;
 import net.minecraft.world.level.levelgen.structure.StructureStart;
 import net.minecraft.world.level.levelgen.structure.placement.StructurePlacement;
@@ -167,6 +168,18 @@ public class StructureManager {
 		return this.structureCheck.checkStart(chunkPos, structure, structurePlacement, bl);
 	}
 
+	/**
+	 * Returns whether the start index already knows that {@code structure} cannot start in the chunk, so
+	 * generation can skip searching for a generation point there.
+	 */
+	public boolean isStartKnownInvalid(ChunkPos chunkPos, Structure structure) {
+		return this.structureCheck.getIndexedStart(chunkPos, structure) == StructureStartIndex.INVALID;
+	}
+
+	public void recordStart(ChunkPos chunkPos, Structure structure, boolean bl) {
+		this.structureCheck.recordStart(chunkPos, structure, bl);
+	}
+
 	public void addReference(StructureStart structureStart) {
 		structureStart.addReference();
 		this.structureCheck.incrementReference(structureStart.getChunkPos(), structureStart.getStructure());
@@ -552,6 +552,10 @@ public abstract class ChunkGenerator {
 		ResourceKey<Level> resourceKey
 	) {
 		Structure structure = structureSelectionEntry.structure().value();
+		if (structureManager.isStartKnownInvalid(chunkPos, structure)) {
+			return false;
+		}
+
 		int i = fetchReferences(structureManager, chunkAccess, sectionPos, structure);
 		HolderSet<Biome> holderSet = structure.biomes();
 		Predicate<Holder<Biome>> predicate = holderSet::contains;
@@ -569,6 +573,7 @@ public abstract class ChunkGenerator {
 			chunkAccess,
 			predicate
 		);
+		structureManager.recordStart(chunkPos, structure, structureStart.isValid());
 		if (structureStart.isValid()) {
 			structureManager.setStartForStructure(sectionPos, structure, structureStart, chunkAccess);
 			return true;
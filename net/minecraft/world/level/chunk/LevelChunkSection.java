@@ -8,6 +8,7 @@ import net.minecraft.world.level.biome.BiomeResolver;
 import net.minecraft.world.level.biome.Climate;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.material.FluidState;
+import org.jetbrains.annotations.Nullable;
 
 public class LevelChunkSection {
 	public static final int SECTION_WIDTH = 16;
@@ -19,6 +20,8 @@ public class LevelChunkSection {
 	private short tickingFluidCount;
 	private final PalettedContainer<BlockState> states;
 	private PalettedContainerRO<Holder<Biome>> biomes;
+	@Nullable
+	private RandomTickIndex randomTickIndex;
 
 	private LevelChunkSection(LevelChunkSection levelChunkSection) {
 		this.nonEmptyBlockCount = levelChunkSection.nonEmptyBlockCount;
@@ -26,6 +29,7 @@ public class LevelChunkSection {
 		this.tickingFluidCount = levelChunkSection.tickingFluidCount;
 		this.states = levelChunkSection.states.copy();
 		this.biomes = levelChunkSection.biomes.copy();
+		this.randomTickIndex = levelChunkSection.randomTickIndex != null ? levelChunkSection.randomTickIndex.copy() : null;
 	}
 
 	public LevelChunkSection(PalettedContainer<BlockState> palettedContainer, PalettedContainerRO<Holder<Biome>> palettedContainerRO) {
@@ -91,9 +95,40 @@ public class LevelChunkSection {
 			this.tickingFluidCount++;
 		}
 
+		if (this.randomTickIndex != null) {
+			boolean bl2 = RandomTickIndex.isRandomlyTicking(blockState2);
+			if (bl2 != RandomTickIndex.isRandomlyTicking(blockState)) {
+				int l = (j << 4 | k) << 4 | i;
+				if (bl2) {
+					this.randomTickIndex.remove(l);
+				} else {
+					this.randomTickIndex.add(l);
+				}
+			}
+		}
+
 		return blockState2;
 	}
 
+	/**
+	 * Returns the positions of this section whose states are randomly ticking. The index is built on first use
+	 * and kept up to date by {@link #setBlockState} afterwards, so sections that are never random ticked,
+	 * e.g. on the client, never build one.
+	 */
+	public RandomTickIndex getRandomTickIndex() {
+		RandomTickIndex randomTickIndex = this.randomTickIndex;
+		if (randomTickIndex == null) {
+			randomTickIndex = new RandomTickIndex();
+			if (this.isRandomlyTicking()) {
+				this.states.findAll(RandomTickIndex::isRandomlyTicking, randomTickIndex::add);
+			}
+
+			this.randomTickIndex = randomTickIndex;
+		}
+
+		return randomTickIndex;
+	}
+
 	public boolean hasOnlyAir() {
 		return this.nonEmptyBlockCount == 0;
 	}
@@ -139,6 +174,7 @@ public class LevelChunkSection {
 		this.nonEmptyBlockCount = (short)lv.nonEmptyBlockCount;
 		this.tickingBlockCount = (short)lv.tickingBlockCount;
 		this.tickingFluidCount = (short)lv.tickingFluidCount;
+		this.randomTickIndex = null;
 	}
 
 	public PalettedContainer<BlockState> getStates() {
@@ -152,6 +188,7 @@ public class LevelChunkSection {
 	public void read(FriendlyByteBuf friendlyByteBuf) {
 		this.nonEmptyBlockCount = friendlyByteBuf.readShort();
 		this.states.read(friendlyByteBuf);
+		this.randomTickIndex = null;
 		PalettedContainer<Holder<Biome>> palettedContainer = this.biomes.recreate();
 		palettedContainer.read(friendlyByteBuf);
 		this.biomes = palettedContainer;
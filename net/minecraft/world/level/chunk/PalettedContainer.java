@@ -11,7 +11,9 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
 import java.util.stream.LongStream;
 import net.minecraft.core.IdMap;
 import net.minecraft.network.FriendlyByteBuf;
@@ -47,12 +49,20 @@ public class PalettedContainer<T> implements PaletteResize<T>, PalettedContainer
 		return codec(codec, strategy, object, unpacker);
 	}
 
+	/**
+	 * Returns the codec of a container's palette, which replaces entries that cannot be decoded with the given value
+	 * and reports them as partial errors.
+	 */
+	public static <T> Codec<List<T>> paletteCodec(Codec<T> codec, T object) {
+		return codec.mapResult(ExtraCodecs.orElsePartial(object)).listOf();
+	}
+
 	private static <T, C extends PalettedContainerRO<T>> Codec<C> codec(
 		Codec<T> codec, Strategy<T> strategy, T object, PalettedContainerRO.Unpacker<T, C> unpacker
 	) {
 		return RecordCodecBuilder.<PalettedContainerRO.PackedData<T>>create(
 				instance -> instance.group(
-						codec.mapResult(ExtraCodecs.orElsePartial(object)).listOf().fieldOf("palette").forGetter(pd -> pd.paletteEntries()),
+						paletteCodec(codec, object).fieldOf("palette").forGetter(pd -> pd.paletteEntries()),
 						Codec.LONG_STREAM.lenientOptionalFieldOf("data").forGetter(pd -> pd.storage())
 					)
 					.apply(instance, (palette, storage) -> new PalettedContainerRO.PackedData<T>(palette, storage))
@@ -154,6 +164,70 @@ public class PalettedContainer<T> implements PaletteResize<T>, PalettedContainer
 		intSet.forEach(i -> consumer.accept(palette.valueFor(i)));
 	}
 
+	/**
+	 * Passes the index of every entry that matches the predicate to the consumer, in index order.
+	 * With a small palette the predicate is tested once per palette entry rather than once per entry.
+	 */
+	public void findAll(Predicate<T> predicate, IntConsumer intConsumer) {
+		PalettedContainer.Data<T> data = this.data;
+		int i = data.palette.getSize();
+		int[] is = new int[data.storage.getSize()];
+		data.storage.unpack(is);
+		if (i <= 256) {
+			boolean[] bs = new boolean[i];
+			boolean bl = false;
+
+			for (int j = 0; j < i; j++) {
+				bs[j] = predicate.test(data.palette.valueFor(j));
+				bl |= bs[j];
+			}
+
+			if (bl) {
+				for (int j = 0; j < is.length; j++) {
+					if (bs[is[j]]) {
+						intConsumer.accept(j);
+					}
+				}
+			}
+		} else {
+			for (int j = 0; j < is.length; j++) {
+				if (predicate.test(data.palette.valueFor(is[j]))) {
+					intConsumer.accept(j);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stores the function's value for every entry into the array, in index order. With a small palette the function is
+	 * applied once per palette entry rather than once per entry.
+	 */
+	public void mapAll(ToIntFunction<T> toIntFunction, byte[] bs) {
+		PalettedContainer.Data<T> data = this.data;
+		int i = data.palette.getSize();
+		if (i == 1) {
+			Arrays.fill(bs, 0, data.storage.getSize(), (byte)toIntFunction.applyAsInt(data.palette.valueFor(0)));
+		} else {
+			int[] is = new int[data.storage.getSize()];
+			data.storage.unpack(is);
+			if (i <= 256) {
+				byte[] cs = new byte[i];
+
+				for (int j = 0; j < i; j++) {
+					cs[j] = (byte)toIntFunction.applyAsInt(data.palette.valueFor(j));
+				}
+
+				for (int j = 0; j < is.length; j++) {
+					bs[j] = cs[is[j]];
+				}
+			} else {
+				for (int j = 0; j < is.length; j++) {
+					bs[j] = (byte)toIntFunction.applyAsInt(data.palette.valueFor(is[j]));
+				}
+			}
+		}
+	}
+
 	public void read(FriendlyByteBuf friendlyByteBuf) {
 		this.acquire();
 
@@ -181,45 +255,51 @@ public class PalettedContainer<T> implements PaletteResize<T>, PalettedContainer
 
 	@VisibleForTesting
 	public static <T> DataResult<PalettedContainer<T>> unpack(Strategy<T> strategy, PalettedContainerRO.PackedData<T> packedData) {
-		List<T> list = packedData.paletteEntries();
+		int i = strategy.getConfigurationForPaletteSize(packedData.paletteEntries().size()).bitsInStorage();
+		if (packedData.bitsPerEntry() != -1 && i != packedData.bitsPerEntry()) {
+			return DataResult.error(() -> "Invalid bit count, calculated " + i + ", but container declared " + packedData.bitsPerEntry());
+		} else {
+			return unpack(strategy, packedData.paletteEntries(), (long[])packedData.storage().map(LongStream::toArray).orElse(null));
+		}
+	}
+
+	/**
+	 * Builds a container straight from its decoded palette and raw storage longs, without going
+	 * through {@link PalettedContainerRO.PackedData}. The array is used as the storage when its
+	 * layout already matches the in-memory configuration, so it must not be modified afterwards.
+	 */
+	public static <T> DataResult<PalettedContainer<T>> unpack(Strategy<T> strategy, List<T> list, @Nullable long[] ls) {
 		int i = strategy.entryCount();
 		Configuration configuration = strategy.getConfigurationForPaletteSize(list.size());
 		int j = configuration.bitsInStorage();
-		if (packedData.bitsPerEntry() != -1 && j != packedData.bitsPerEntry()) {
-			return DataResult.error(() -> "Invalid bit count, calculated " + j + ", but container declared " + packedData.bitsPerEntry());
+		BitStorage bitStorage;
+		Palette<T> palette;
+		if (configuration.bitsInMemory() == 0) {
+			palette = configuration.createPalette(strategy, list);
+			bitStorage = new ZeroBitStorage(i);
 		} else {
-			BitStorage bitStorage;
-			Palette<T> palette;
-			if (configuration.bitsInMemory() == 0) {
-				palette = configuration.createPalette(strategy, list);
-				bitStorage = new ZeroBitStorage(i);
-			} else {
-				Optional<LongStream> optional = packedData.storage();
-				if (optional.isEmpty()) {
-					return DataResult.error(() -> "Missing values for non-zero storage");
-				}
+			if (ls == null) {
+				return DataResult.error(() -> "Missing values for non-zero storage");
+			}
 
-				long[] ls = ((LongStream)optional.get()).toArray();
-
-				try {
-					if (!configuration.alwaysRepack() && configuration.bitsInMemory() == j) {
-						palette = configuration.createPalette(strategy, list);
-						bitStorage = new SimpleBitStorage(configuration.bitsInMemory(), i, ls);
-					} else {
-						Palette<T> palette2 = new HashMapPalette<>(j, list);
-						SimpleBitStorage simpleBitStorage = new SimpleBitStorage(j, i, ls);
-						Palette<T> palette3 = configuration.createPalette(strategy, list);
-						int[] is = reencodeContents(simpleBitStorage, palette2, palette3);
-						palette = palette3;
-						bitStorage = new SimpleBitStorage(configuration.bitsInMemory(), i, is);
-					}
-				} catch (SimpleBitStorage.InitializationException var14) {
-					return DataResult.error(() -> "Failed to read PalettedContainer: " + var14.getMessage());
+			try {
+				if (!configuration.alwaysRepack() && configuration.bitsInMemory() == j) {
+					palette = configuration.createPalette(strategy, list);
+					bitStorage = new SimpleBitStorage(configuration.bitsInMemory(), i, ls);
+				} else {
+					Palette<T> palette2 = new HashMapPalette<>(j, list);
+					SimpleBitStorage simpleBitStorage = new SimpleBitStorage(j, i, ls);
+					Palette<T> palette3 = configuration.createPalette(strategy, list);
+					int[] is = reencodeContents(simpleBitStorage, palette2, palette3);
+					palette = palette3;
+					bitStorage = new SimpleBitStorage(configuration.bitsInMemory(), i, is);
 				}
+			} catch (SimpleBitStorage.InitializationException var14) {
+				return DataResult.error(() -> "Failed to read PalettedContainer: " + var14.getMessage());
 			}
-
-			return DataResult.success(new PalettedContainer<>(strategy, configuration, bitStorage, palette));
 		}
+
+		return DataResult.success(new PalettedContainer<>(strategy, configuration, bitStorage, palette));
 	}
 
 	@Override
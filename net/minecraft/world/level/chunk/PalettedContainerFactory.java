@@ -1,6 +1,7 @@
 package net.minecraft.world.level.chunk;
 
 import com.mojang.serialization.Codec;
+import java.util.List;
 import net.minecraft.core.Holder;
 import net.minecraft.core.Registry;
 import net.minecraft.core.RegistryAccess;
@@ -15,9 +16,11 @@ public record PalettedContainerFactory(
 	Strategy<BlockState> blockStatesStrategy,
 	BlockState defaultBlockState,
 	Codec<PalettedContainer<BlockState>> blockStatesContainerCodec,
+	Codec<List<BlockState>> blockStatesPaletteCodec,
 	Strategy<Holder<Biome>> biomeStrategy,
 	Holder<Biome> defaultBiome,
-	Codec<PalettedContainerRO<Holder<Biome>>> biomeContainerCodec
+	Codec<PalettedContainerRO<Holder<Biome>>> biomeContainerCodec,
+	Codec<List<Holder<Biome>>> biomePaletteCodec
 ) {
 	public static PalettedContainerFactory create(RegistryAccess registryAccess) {
 		Strategy<BlockState> strategy = Strategy.createForBlockStates(Block.BLOCK_STATE_REGISTRY);
@@ -29,9 +32,11 @@ public record PalettedContainerFactory(
 			strategy,
 			blockState,
 			PalettedContainer.codecRW(BlockState.CODEC, strategy, blockState),
+			PalettedContainer.paletteCodec(BlockState.CODEC, blockState),
 			strategy2,
 			reference,
-			PalettedContainer.codecRO(registry.holderByNameCodec(), strategy2, reference)
+			PalettedContainer.codecRO(registry.holderByNameCodec(), strategy2, reference),
+			PalettedContainer.paletteCodec(registry.holderByNameCodec(), reference)
 		);
 	}
 
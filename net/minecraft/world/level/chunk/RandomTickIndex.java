@@ -0,0 +1,72 @@
+package net.minecraft.world.level.chunk;
+
+import java.util.Arrays;
+import net.minecraft.world.level.block.state.BlockState;
+
+/**
+ * The positions in a {@link LevelChunkSection} whose block or fluid state is randomly ticking.
+ * <p>
+ * Positions are stored as section-local {@code y << 8 | z << 4 | x} indices in an unordered array.
+ * Random ticking draws a uniform index in {@code [0, 4096)}, as if it picked a random position of the
+ * section, and ticks the stored position at that index when there is one. Every ticking position is
+ * therefore hit with the same {@code 1 / 4096} chance per draw as before, but draws that would have
+ * landed on a non-ticking block no longer look up any state.
+ * </p>
+ * <p>
+ * Sections keep the index up to date in {@link LevelChunkSection#setBlockState}. Removal scans the
+ * array, which is fine because a state changing between ticking and not ticking is rare compared
+ * to random ticks.
+ * </p>
+ */
+public class RandomTickIndex {
+	private static final short[] EMPTY = new short[0];
+	private static final int MIN_CAPACITY = 8;
+	private short[] positions;
+	private int size;
+
+	RandomTickIndex() {
+		this.positions = EMPTY;
+	}
+
+	private RandomTickIndex(RandomTickIndex randomTickIndex) {
+		this.positions = randomTickIndex.size == 0 ? EMPTY : Arrays.copyOf(randomTickIndex.positions, randomTickIndex.size);
+		this.size = randomTickIndex.size;
+	}
+
+	public static boolean isRandomlyTicking(BlockState blockState) {
+		return blockState.isRandomlyTicking() || blockState.getFluidState().isRandomlyTicking();
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the position drawn by the uniform index {@code i} in {@code [0, 4096)}, or {@code -1}
+	 * when the draw does not hit a ticking position.
+	 */
+	public int sample(int i) {
+		return i < this.size ? this.positions[i] : -1;
+	}
+
+	void add(int i) {
+		if (this.size == this.positions.length) {
+			this.positions = Arrays.copyOf(this.positions, Math.max(MIN_CAPACITY, this.size * 2));
+		}
+
+		this.positions[this.size++] = (short)i;
+	}
+
+	void remove(int i) {
+		for (int j = 0; j < this.size; j++) {
+			if (this.positions[j] == i) {
+				this.positions[j] = this.positions[--this.size];
+				return;
+			}
+		}
+	}
+
+	RandomTickIndex copy() {
+		return new RandomTickIndex(this);
+	}
+}
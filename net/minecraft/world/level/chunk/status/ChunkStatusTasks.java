@@ -208,6 +208,7 @@ public class ChunkStatusTasks {
 			levelChunk.setLoaded(true);
 			levelChunk.registerAllBlockEntitiesAfterLevelLoad();
 			levelChunk.registerTickContainerInLevel(serverLevel);
+			serverLevel.getPathTypeCache().invalidateChunk(chunkPos);
 			levelChunk.setUnsavedListener(worldGenContext.unsavedListener());
 			return levelChunk;
 		}, worldGenContext.mainThreadExecutor());
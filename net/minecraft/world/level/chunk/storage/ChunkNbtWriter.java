@@ -0,0 +1,417 @@
+package net.minecraft.world.level.chunk.storage;
+
+import com.mojang.serialization.Codec;
+import it.unimi.dsi.fastutil.io.FastByteArrayOutputStream;
+import it.unimi.dsi.fastutil.shorts.ShortList;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.LongStream;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.Holder;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtOps;
+import net.minecraft.nbt.Tag;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainerRO;
+import net.minecraft.world.level.chunk.status.ChunkType;
+import net.minecraft.world.level.levelgen.BelowZeroRetrogen;
+import net.minecraft.world.level.levelgen.Heightmap;
+import net.minecraft.world.level.levelgen.blending.BlendingData;
+
+/**
+ * Serializes a {@link SerializableChunkData} snapshot straight to NBT bytes, without building the
+ * intermediate {@link CompoundTag} tree that {@link SerializableChunkData#write()} returns.
+ * <p>
+ * The output is byte-for-byte what {@code NbtIo.write(data.write(), output)} produces. Compound
+ * entries are written in the iteration order of a {@link CompoundTag}'s backing {@link HashMap},
+ * which only depends on which keys are present and the order they were put in, so each compound
+ * shape has its order computed once and cached. Palette entries of block states are encoded once
+ * per state through {@link BlockState#CODEC} and reused afterwards. Values that are small or rare,
+ * such as ticks, structures and (block) entities, are still written from their tags.
+ * </p>
+ * <p>
+ * Encoding happens into a per-thread buffer that is reused between chunks, so the only allocation
+ * left per chunk is the exactly sized result array.
+ * </p>
+ */
+public final class ChunkNbtWriter {
+	private static final int INITIAL_BUFFER_SIZE = 65536;
+	private static final int MAX_POOLED_BUFFER_SIZE = 4194304;
+	private static final int REQUIRED_ROOT_KEYS = 0b11100001010001111111;
+	private static final Heightmap.Types[] HEIGHTMAP_TYPES = Heightmap.Types.values();
+	private static final ThreadLocal<FastByteArrayOutputStream> BUFFER = ThreadLocal.withInitial(() -> new FastByteArrayOutputStream(INITIAL_BUFFER_SIZE));
+	private static final Map<BlockState, byte[]> BLOCK_STATE_PAYLOADS = new ConcurrentHashMap();
+	private static final ChunkNbtWriter.KeyOrder ROOT_KEYS = new ChunkNbtWriter.KeyOrder(
+		"DataVersion",
+		"xPos",
+		"yPos",
+		"zPos",
+		"LastUpdate",
+		"InhabitedTime",
+		"Status",
+		"blending_data",
+		"below_zero_retrogen",
+		"UpgradeData",
+		"sections",
+		"isLightOn",
+		"block_entities",
+		"entities",
+		"carving_mask",
+		"block_ticks",
+		"fluid_ticks",
+		"PostProcessing",
+		"Heightmaps",
+		"structures"
+	);
+	private static final ChunkNbtWriter.KeyOrder SECTION_KEYS = new ChunkNbtWriter.KeyOrder("block_states", "biomes", "BlockLight", "SkyLight", "Y");
+	private static final ChunkNbtWriter.KeyOrder CONTAINER_KEYS = new ChunkNbtWriter.KeyOrder("palette", "data");
+	private static final ChunkNbtWriter.KeyOrder HEIGHTMAP_KEYS = new ChunkNbtWriter.KeyOrder(
+		(String[])Arrays.stream(HEIGHTMAP_TYPES).map(Heightmap.Types::getSerializationKey).toArray(String[]::new)
+	);
+
+	private ChunkNbtWriter() {
+	}
+
+	/**
+	 * Encodes the chunk into a new array holding the same bytes as {@code NbtIo.write(data.write(), output)}.
+	 */
+	public static byte[] write(SerializableChunkData serializableChunkData) throws IOException {
+		FastByteArrayOutputStream fastByteArrayOutputStream = BUFFER.get();
+		fastByteArrayOutputStream.reset();
+
+		byte[] var3;
+		try {
+			write(serializableChunkData, new NbtIo.StringFallbackDataOutput(new DataOutputStream(fastByteArrayOutputStream)));
+			var3 = Arrays.copyOf(fastByteArrayOutputStream.array, fastByteArrayOutputStream.length);
+		} finally {
+			if (fastByteArrayOutputStream.array.length > MAX_POOLED_BUFFER_SIZE) {
+				BUFFER.remove();
+			}
+		}
+
+		return var3;
+	}
+
+	/**
+	 * Writes the chunk as an unnamed root compound. The output should already apply the string
+	 * fallback of {@link NbtIo.StringFallbackDataOutput}, as {@link NbtIo#write(CompoundTag, DataOutput)} does.
+	 */
+	public static void write(SerializableChunkData serializableChunkData, DataOutput dataOutput) throws IOException {
+		boolean bl = serializableChunkData.chunkStatus().getChunkType() == ChunkType.PROTOCHUNK;
+		Tag tag = encodeNullable(BlendingData.Packed.CODEC, serializableChunkData.blendingData());
+		Tag tag2 = encodeNullable(BelowZeroRetrogen.CODEC, serializableChunkData.belowZeroRetrogen());
+		Tag tag3 = serializableChunkData.upgradeData().isEmpty() ? null : serializableChunkData.upgradeData().write();
+		Tag tag4 = encodeNullable(SerializableChunkData.BLOCK_TICKS_CODEC, serializableChunkData.packedTicks().blocks());
+		Tag tag5 = encodeNullable(SerializableChunkData.FLUID_TICKS_CODEC, serializableChunkData.packedTicks().fluids());
+		int i = REQUIRED_ROOT_KEYS;
+		i |= tag != null ? 1 << 7 : 0;
+		i |= tag2 != null ? 1 << 8 : 0;
+		i |= tag3 != null ? 1 << 9 : 0;
+		i |= serializableChunkData.lightCorrect() ? 1 << 11 : 0;
+		i |= bl ? 1 << 13 : 0;
+		i |= bl && serializableChunkData.carvingMask() != null ? 1 << 14 : 0;
+		i |= tag4 != null ? 1 << 15 : 0;
+		i |= tag5 != null ? 1 << 16 : 0;
+		dataOutput.writeByte(Tag.TAG_COMPOUND);
+		dataOutput.writeUTF("");
+
+		for (int j : ROOT_KEYS.order(i)) {
+			String string = ROOT_KEYS.key(j);
+			switch (j) {
+				case 0:
+					writeEntry(dataOutput, Tag.TAG_INT, string);
+					dataOutput.writeInt(SharedConstants.getCurrentVersion().dataVersion().version());
+					break;
+				case 1:
+					writeEntry(dataOutput, Tag.TAG_INT, string);
+					dataOutput.writeInt(serializableChunkData.chunkPos().x);
+					break;
+				case 2:
+					writeEntry(dataOutput, Tag.TAG_INT, string);
+					dataOutput.writeInt(serializableChunkData.minSectionY());
+					break;
+				case 3:
+					writeEntry(dataOutput, Tag.TAG_INT, string);
+					dataOutput.writeInt(serializableChunkData.chunkPos().z);
+					break;
+				case 4:
+					writeEntry(dataOutput, Tag.TAG_LONG, string);
+					dataOutput.writeLong(serializableChunkData.lastUpdateTime());
+					break;
+				case 5:
+					writeEntry(dataOutput, Tag.TAG_LONG, string);
+					dataOutput.writeLong(serializableChunkData.inhabitedTime());
+					break;
+				case 6:
+					writeEntry(dataOutput, Tag.TAG_STRING, string);
+					dataOutput.writeUTF(BuiltInRegistries.CHUNK_STATUS.getKey(serializableChunkData.chunkStatus()).toString());
+					break;
+				case 7:
+					writeTag(dataOutput, string, tag);
+					break;
+				case 8:
+					writeTag(dataOutput, string, tag2);
+					break;
+				case 9:
+					writeTag(dataOutput, string, tag3);
+					break;
+				case 10:
+					writeEntry(dataOutput, Tag.TAG_LIST, string);
+					writeSections(dataOutput, serializableChunkData);
+					break;
+				case 11:
+					writeEntry(dataOutput, Tag.TAG_BYTE, string);
+					dataOutput.writeByte(1);
+					break;
+				case 12:
+					writeEntry(dataOutput, Tag.TAG_LIST, string);
+					writeCompounds(dataOutput, serializableChunkData.blockEntities());
+					break;
+				case 13:
+					writeEntry(dataOutput, Tag.TAG_LIST, string);
+					writeCompounds(dataOutput, serializableChunkData.entities());
+					break;
+				case 14:
+					writeEntry(dataOutput, Tag.TAG_LONG_ARRAY, string);
+					writeLongArray(dataOutput, serializableChunkData.carvingMask());
+					break;
+				case 15:
+					writeTag(dataOutput, string, tag4);
+					break;
+				case 16:
+					writeTag(dataOutput, string, tag5);
+					break;
+				case 17:
+					writeEntry(dataOutput, Tag.TAG_LIST, string);
+					writePostProcessing(dataOutput, serializableChunkData.postProcessingSections());
+					break;
+				case 18:
+					writeEntry(dataOutput, Tag.TAG_COMPOUND, string);
+					writeHeightmaps(dataOutput, serializableChunkData.heightmaps());
+					break;
+				case 19:
+					writeTag(dataOutput, string, serializableChunkData.structureData());
+			}
+		}
+
+		dataOutput.writeByte(Tag.TAG_END);
+	}
+
+	private static <T> Tag encodeNullable(Codec<T> codec, T object) {
+		return object == null ? null : codec.encodeStart(NbtOps.INSTANCE, object).getOrThrow();
+	}
+
+	private static void writeEntry(DataOutput dataOutput, byte b, String string) throws IOException {
+		dataOutput.writeByte(b);
+		dataOutput.writeUTF(string);
+	}
+
+	private static void writeTag(DataOutput dataOutput, String string, Tag tag) throws IOException {
+		writeEntry(dataOutput, tag.getId(), string);
+		tag.write(dataOutput);
+	}
+
+	private static void writeLongArray(DataOutput dataOutput, long[] ls) throws IOException {
+		dataOutput.writeInt(ls.length);
+
+		for (long l : ls) {
+			dataOutput.writeLong(l);
+		}
+	}
+
+	private static void writeByteArray(DataOutput dataOutput, byte[] bs) throws IOException {
+		dataOutput.writeInt(bs.length);
+		dataOutput.write(bs, 0, bs.length);
+	}
+
+	private static void writeCompounds(DataOutput dataOutput, List<CompoundTag> list) throws IOException {
+		dataOutput.writeByte(list.isEmpty() ? Tag.TAG_END : Tag.TAG_COMPOUND);
+		dataOutput.writeInt(list.size());
+
+		for (CompoundTag compoundTag : list) {
+			compoundTag.write(dataOutput);
+		}
+	}
+
+	private static void writeSections(DataOutput dataOutput, SerializableChunkData serializableChunkData) throws IOException {
+		List<SerializableChunkData.SectionData> list = serializableChunkData.sectionData();
+		int i = 0;
+
+		for (SerializableChunkData.SectionData sectionData : list) {
+			if (sectionData.chunkSection() != null || sectionData.blockLight() != null || sectionData.skyLight() != null) {
+				i++;
+			}
+		}
+
+		dataOutput.writeByte(i == 0 ? Tag.TAG_END : Tag.TAG_COMPOUND);
+		dataOutput.writeInt(i);
+
+		for (SerializableChunkData.SectionData sectionData : list) {
+			LevelChunkSection levelChunkSection = sectionData.chunkSection();
+			int j = 0b10000;
+			j |= levelChunkSection != null ? 0b11 : 0;
+			j |= sectionData.blockLight() != null ? 0b100 : 0;
+			j |= sectionData.skyLight() != null ? 0b1000 : 0;
+			if (j != 0b10000) {
+				for (int k : SECTION_KEYS.order(j)) {
+					String string = SECTION_KEYS.key(k);
+					switch (k) {
+						case 0:
+							writeEntry(dataOutput, Tag.TAG_COMPOUND, string);
+							writeBlockStates(dataOutput, levelChunkSection.getStates().pack(serializableChunkData.containerFactory().blockStatesStrategy()));
+							break;
+						case 1:
+							writeEntry(dataOutput, Tag.TAG_COMPOUND, string);
+							writeBiomes(dataOutput, levelChunkSection.getBiomes().pack(serializableChunkData.containerFactory().biomeStrategy()));
+							break;
+						case 2:
+							writeEntry(dataOutput, Tag.TAG_BYTE_ARRAY, string);
+							writeByteArray(dataOutput, sectionData.blockLight().getData());
+							break;
+						case 3:
+							writeEntry(dataOutput, Tag.TAG_BYTE_ARRAY, string);
+							writeByteArray(dataOutput, sectionData.skyLight().getData());
+							break;
+						case 4:
+							writeEntry(dataOutput, Tag.TAG_BYTE, string);
+							dataOutput.writeByte((byte)sectionData.y());
+					}
+				}
+
+				dataOutput.writeByte(Tag.TAG_END);
+			}
+		}
+	}
+
+	private static void writeBlockStates(DataOutput dataOutput, PalettedContainerRO.PackedData<BlockState> packedData) throws IOException {
+		List<BlockState> list = packedData.paletteEntries();
+		Optional<LongStream> optional = packedData.storage();
+
+		for (int i : CONTAINER_KEYS.order(optional.isPresent() ? 0b11 : 0b01)) {
+			if (i == 0) {
+				writeEntry(dataOutput, Tag.TAG_LIST, CONTAINER_KEYS.key(i));
+				dataOutput.writeByte(Tag.TAG_COMPOUND);
+				dataOutput.writeInt(list.size());
+
+				for (BlockState blockState : list) {
+					dataOutput.write(BLOCK_STATE_PAYLOADS.computeIfAbsent(blockState, ChunkNbtWriter::encodeBlockState));
+				}
+			} else {
+				writeEntry(dataOutput, Tag.TAG_LONG_ARRAY, CONTAINER_KEYS.key(i));
+				writeLongArray(dataOutput, ((LongStream)optional.get()).toArray());
+			}
+		}
+
+		dataOutput.writeByte(Tag.TAG_END);
+	}
+
+	private static void writeBiomes(DataOutput dataOutput, PalettedContainerRO.PackedData<Holder<Biome>> packedData) throws IOException {
+		List<Holder<Biome>> list = packedData.paletteEntries();
+		Optional<LongStream> optional = packedData.storage();
+
+		for (int i : CONTAINER_KEYS.order(optional.isPresent() ? 0b11 : 0b01)) {
+			if (i == 0) {
+				writeEntry(dataOutput, Tag.TAG_LIST, CONTAINER_KEYS.key(i));
+				dataOutput.writeByte(Tag.TAG_STRING);
+				dataOutput.writeInt(list.size());
+
+				for (Holder<Biome> holder : list) {
+					dataOutput.writeUTF(
+						((ResourceKey)holder.unwrapKey().orElseThrow(() -> new IllegalStateException("Unregistered biome: " + holder))).location().toString()
+					);
+				}
+			} else {
+				writeEntry(dataOutput, Tag.TAG_LONG_ARRAY, CONTAINER_KEYS.key(i));
+				writeLongArray(dataOutput, ((LongStream)optional.get()).toArray());
+			}
+		}
+
+		dataOutput.writeByte(Tag.TAG_END);
+	}
+
+	private static void writePostProcessing(DataOutput dataOutput, ShortList[] shortLists) throws IOException {
+		dataOutput.writeByte(shortLists.length == 0 ? Tag.TAG_END : Tag.TAG_LIST);
+		dataOutput.writeInt(shortLists.length);
+
+		for (ShortList shortList : shortLists) {
+			int i = shortList == null ? 0 : shortList.size();
+			dataOutput.writeByte(i == 0 ? Tag.TAG_END : Tag.TAG_SHORT);
+			dataOutput.writeInt(i);
+
+			for (int j = 0; j < i; j++) {
+				dataOutput.writeShort(shortList.getShort(j));
+			}
+		}
+	}
+
+	private static void writeHeightmaps(DataOutput dataOutput, Map<Heightmap.Types, long[]> map) throws IOException {
+		int i = 0;
+
+		for (Heightmap.Types types : map.keySet()) {
+			i |= 1 << types.ordinal();
+		}
+
+		for (int j : HEIGHTMAP_KEYS.order(i)) {
+			writeEntry(dataOutput, Tag.TAG_LONG_ARRAY, HEIGHTMAP_KEYS.key(j));
+			writeLongArray(dataOutput, (long[])map.get(HEIGHTMAP_TYPES[j]));
+		}
+
+		dataOutput.writeByte(Tag.TAG_END);
+	}
+
+	private static byte[] encodeBlockState(BlockState blockState) {
+		Tag tag = BlockState.CODEC.encodeStart(NbtOps.INSTANCE, blockState).getOrThrow();
+		FastByteArrayOutputStream fastByteArrayOutputStream = new FastByteArrayOutputStream(64);
+
+		try {
+			tag.write(new NbtIo.StringFallbackDataOutput(new DataOutputStream(fastByteArrayOutputStream)));
+		} catch (IOException var4) {
+			throw new IllegalStateException("Failed to encode " + blockState, var4);
+		}
+
+		return Arrays.copyOf(fastByteArrayOutputStream.array, fastByteArrayOutputStream.length);
+	}
+
+	/**
+	 * The entry order of a {@link CompoundTag} shape. Keys are given in the order the tree path puts
+	 * them, and a shape is the bitmask of the keys that are present.
+	 */
+	static final class KeyOrder {
+		private final String[] keys;
+		private final Map<Integer, int[]> orders = new ConcurrentHashMap();
+
+		KeyOrder(String... strings) {
+			this.keys = strings;
+		}
+
+		String key(int i) {
+			return this.keys[i];
+		}
+
+		int[] order(int i) {
+			return (int[])this.orders.computeIfAbsent(i, integer -> {
+				Map<String, Integer> map = new HashMap();
+
+				for (int j = 0; j < this.keys.length; j++) {
+					if ((integer & 1 << j) != 0) {
+						map.put(this.keys[j], j);
+					}
+				}
+
+				return map.values().stream().mapToInt(Integer::intValue).toArray();
+			});
+		}
+	}
+}
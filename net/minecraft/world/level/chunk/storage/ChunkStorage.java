@@ -13,6 +13,7 @@ import net.minecraft.ReportedException;
 import net.minecraft.SharedConstants;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.NbtUtils;
+import net.minecraft.nbt.StreamTagVisitor;
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.util.datafix.DataFixTypes;
 import net.minecraft.world.level.ChunkPos;
@@ -108,11 +109,20 @@ public class ChunkStorage implements AutoCloseable {
 		return this.worker.loadAsync(chunkPos);
 	}
 
+	public CompletableFuture<Void> read(ChunkPos chunkPos, StreamTagVisitor streamTagVisitor) {
+		return this.worker.loadAsync(chunkPos, streamTagVisitor);
+	}
+
 	public CompletableFuture<Void> write(ChunkPos chunkPos, Supplier<CompoundTag> supplier) {
 		this.handleLegacyStructureIndex(chunkPos);
 		return this.worker.store(chunkPos, supplier);
 	}
 
+	public CompletableFuture<Void> writeEncoded(ChunkPos chunkPos, Supplier<byte[]> supplier) {
+		this.handleLegacyStructureIndex(chunkPos);
+		return this.worker.storeEncoded(chunkPos, supplier);
+	}
+
 	protected void handleLegacyStructureIndex(ChunkPos chunkPos) {
 		if (this.legacyStructureHandler != null) {
 			this.legacyStructureHandler.removeIndex(chunkPos.toLong());
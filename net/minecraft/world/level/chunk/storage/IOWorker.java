@@ -1,43 +1,123 @@
 package net.minecraft.world.level.chunk.storage;
 
+import com.google.common.collect.ImmutableList;
 import com.mojang.logging.LogUtils;
 import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.SequencedMap;
 import java.util.Map.Entry;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import net.minecraft.Util;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.IntTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.NbtIo;
 import net.minecraft.nbt.StreamTagVisitor;
 import net.minecraft.nbt.visitors.CollectFields;
 import net.minecraft.nbt.visitors.FieldSelector;
 import net.minecraft.util.Unit;
+import net.minecraft.util.profiling.metrics.MetricCategory;
+import net.minecraft.util.profiling.metrics.MetricSampler;
+import net.minecraft.util.profiling.metrics.MetricsRegistry;
+import net.minecraft.util.profiling.metrics.ProfilerMeasured;
 import net.minecraft.util.thread.PriorityConsecutiveExecutor;
 import net.minecraft.util.thread.StrictQueue;
 import net.minecraft.world.level.ChunkPos;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 
-public class IOWorker implements ChunkScanAccess, AutoCloseable {
+public class IOWorker implements ChunkScanAccess, AutoCloseable, ProfilerMeasured {
 	private static final Logger LOGGER = LogUtils.getLogger();
+	private static volatile boolean parallelDeserialization;
+	private static volatile boolean batchedWrites;
+	private static final int MAX_WRITE_BATCH_SIZE = 256;
+	private static volatile long regionCompactionInterval;
+	private static volatile float regionCompactionThreshold = 0.25F;
 	private final AtomicBoolean shutdownRequested = new AtomicBoolean();
 	private final PriorityConsecutiveExecutor consecutiveExecutor;
 	private final RegionFileStorage storage;
 	private final SequencedMap<ChunkPos, IOWorker.PendingStore> pendingWrites = new LinkedHashMap();
 	private final Long2ObjectLinkedOpenHashMap<CompletableFuture<BitSet>> regionCacheForBlender = new Long2ObjectLinkedOpenHashMap<>();
 	private static final int REGION_CACHE_SIZE = 1024;
+	private final boolean parallelParsing;
+	private final boolean batchWrites;
+	private final Executor parseExecutor;
+	private final AtomicInteger parsedChunks = new AtomicInteger();
+	private CompletableFuture<?> lastParse = CompletableFuture.completedFuture(null);
+	private final long compactionInterval;
+	private final float compactionThreshold;
+	private long nextCompaction;
+	private final AtomicLong reclaimedBytes = new AtomicLong();
 
 	protected IOWorker(RegionStorageInfo regionStorageInfo, Path path, boolean bl) {
 		this.storage = new RegionFileStorage(regionStorageInfo, path, bl);
 		this.consecutiveExecutor = new PriorityConsecutiveExecutor(IOWorker.Priority.values().length, Util.ioPool(), "IOWorker-" + regionStorageInfo.type());
+		this.parallelParsing = parallelDeserialization;
+		this.batchWrites = batchedWrites;
+		this.compactionInterval = regionCompactionInterval;
+		this.compactionThreshold = regionCompactionThreshold;
+		this.nextCompaction = Util.getMillis() + this.compactionInterval;
+		this.parseExecutor = Util.backgroundExecutor().forName("IOWorker-" + regionStorageInfo.type() + "-parse");
+		if (this.parallelParsing || this.compactionInterval > 0L) {
+			MetricsRegistry.INSTANCE.add(this);
+		}
+	}
+
+	/**
+	 * Enables parallel chunk deserialization for IO workers created after this call.
+	 * <p>
+	 * Region file access stays on the consecutive executor, in submission order, but decompressing
+	 * and parsing the NBT of loaded and scanned chunks is handed to the background worker pool.
+	 * The returned futures still complete in the order the requests were submitted.
+	 * </p>
+	 */
+	public static void setParallelDeserialization(boolean bl) {
+		parallelDeserialization = bl;
+	}
+
+	/**
+	 * Enables group commit of pending chunk stores for IO workers created after this call.
+	 * <p>
+	 * Each background store then takes the oldest pending chunk together with the other pending
+	 * chunks of the same region, at most {@value #MAX_WRITE_BATCH_SIZE} chunks in total, and commits
+	 * them through {@link RegionFileStorage#writeBatch} with a single header update.
+	 * </p>
+	 */
+	public static void setBatchedWrites(boolean bl) {
+		batchedWrites = bl;
+	}
+
+	/**
+	 * Enables background region file compaction for IO workers created after this call.
+	 * <p>
+	 * Whenever a worker has no pending stores and the interval has passed since its last run, it
+	 * compacts every region file of its folder in which at least {@code threshold} of the sectors
+	 * are unused. Each file is compacted in its own background task on the worker's executor, so chunk
+	 * loads and stores are never interleaved with the compaction of the file they touch. An interval
+	 * of zero disables it.
+	 * </p>
+	 */
+	public static void setRegionCompaction(int minutes, float threshold) {
+		regionCompactionInterval = minutes * 60000L;
+		regionCompactionThreshold = threshold;
 	}
 
 	public boolean isOldChunkAround(ChunkPos chunkPos, int i) {
@@ -124,13 +204,42 @@ public class IOWorker implements ChunkScanAccess, AutoCloseable {
 					IOWorker.PendingStore pendingStore = (IOWorker.PendingStore)this.pendingWrites
 						.computeIfAbsent(chunkPos, chunkPosxx -> new IOWorker.PendingStore(compoundTag));
 					pendingStore.data = compoundTag;
+					pendingStore.encoded = null;
 					return pendingStore.result;
 				}
 			)
 			.thenCompose(Function.identity());
 	}
 
+	/**
+	 * Stores a chunk that has already been encoded to NBT bytes, e.g. by {@link ChunkNbtWriter}. The bytes are
+	 * written to the region file as they are; loads of the chunk before it is written parse them again.
+	 */
+	public CompletableFuture<Void> storeEncoded(ChunkPos chunkPos, Supplier<byte[]> supplier) {
+		return this.submitTask(() -> {
+			byte[] bs = (byte[])supplier.get();
+			IOWorker.PendingStore pendingStore = (IOWorker.PendingStore)this.pendingWrites.computeIfAbsent(chunkPos, chunkPosx -> new IOWorker.PendingStore(null));
+			pendingStore.data = null;
+			pendingStore.encoded = bs;
+			return pendingStore.result;
+		}).thenCompose(Function.identity());
+	}
+
 	public CompletableFuture<Optional<CompoundTag>> loadAsync(ChunkPos chunkPos) {
+		if (this.parallelParsing) {
+			return this.submitInOrder(() -> {
+				IOWorker.PendingStore pendingStore = (IOWorker.PendingStore)this.pendingWrites.get(chunkPos);
+				if (pendingStore != null) {
+					return CompletableFuture.completedFuture(Optional.ofNullable(pendingStore.copyData()));
+				} else {
+					DataInputStream dataInputStream = this.openChunk(chunkPos, "Failed to read chunk {}");
+					return this.parseAsync(
+						chunkPos, dataInputStream, "Failed to read chunk {}", Optional.empty(), dataInputStreamx -> Optional.of(NbtIo.read(dataInputStreamx))
+					);
+				}
+			});
+		}
+
 		return this.submitThrowingTask(() -> {
 			IOWorker.PendingStore pendingStore = (IOWorker.PendingStore)this.pendingWrites.get(chunkPos);
 			if (pendingStore != null) {
@@ -167,13 +276,40 @@ public class IOWorker implements ChunkScanAccess, AutoCloseable {
 
 	@Override
 	public CompletableFuture<Void> scanChunk(ChunkPos chunkPos, StreamTagVisitor streamTagVisitor) {
+		return this.scanChunk(chunkPos, streamTagVisitor, false);
+	}
+
+	/**
+	 * Streams a stored chunk into a visitor that keeps the visited arrays, such as {@link StreamingChunkDecoder}.
+	 * Unlike {@link #scanChunk}, a chunk that is still waiting to be stored is copied before it is visited,
+	 * so the visitor never shares arrays with data that has yet to be written.
+	 */
+	public CompletableFuture<Void> loadAsync(ChunkPos chunkPos, StreamTagVisitor streamTagVisitor) {
+		return this.scanChunk(chunkPos, streamTagVisitor, true);
+	}
+
+	private CompletableFuture<Void> scanChunk(ChunkPos chunkPos, StreamTagVisitor streamTagVisitor, boolean bl) {
+		if (this.parallelParsing) {
+			return this.submitInOrder(() -> {
+				IOWorker.PendingStore pendingStore = (IOWorker.PendingStore)this.pendingWrites.get(chunkPos);
+				if (pendingStore != null) {
+					pendingStore.accept(streamTagVisitor, bl);
+					return CompletableFuture.completedFuture(null);
+				} else {
+					DataInputStream dataInputStream = this.openChunk(chunkPos, "Failed to bulk scan chunk {}");
+					return this.parseAsync(chunkPos, dataInputStream, "Failed to bulk scan chunk {}", null, dataInputStreamx -> {
+						NbtIo.parse(dataInputStreamx, streamTagVisitor, NbtAccounter.unlimitedHeap());
+						return null;
+					});
+				}
+			});
+		}
+
 		return this.submitThrowingTask(() -> {
 			try {
 				IOWorker.PendingStore pendingStore = (IOWorker.PendingStore)this.pendingWrites.get(chunkPos);
 				if (pendingStore != null) {
-					if (pendingStore.data != null) {
-						pendingStore.data.acceptAsRoot(streamTagVisitor);
-					}
+					pendingStore.accept(streamTagVisitor, bl);
 				} else {
 					this.storage.scanChunk(chunkPos, streamTagVisitor);
 				}
@@ -186,6 +322,58 @@ public class IOWorker implements ChunkScanAccess, AutoCloseable {
 		});
 	}
 
+	@Nullable
+	private DataInputStream openChunk(ChunkPos chunkPos, String string) throws IOException {
+		try {
+			return this.storage.openChunk(chunkPos);
+		} catch (Exception var4) {
+			LOGGER.warn(string, chunkPos, var4);
+			throw var4;
+		}
+	}
+
+	private <T> CompletableFuture<T> parseAsync(
+		ChunkPos chunkPos, @Nullable DataInputStream dataInputStream, String string, @Nullable T object, IOWorker.ChunkParser<T> chunkParser
+	) {
+		if (dataInputStream == null) {
+			return CompletableFuture.completedFuture(object);
+		} else {
+			return CompletableFuture.supplyAsync(() -> {
+				try (DataInputStream dataInputStream2 = dataInputStream) {
+					T object2 = chunkParser.parse(dataInputStream2);
+					this.parsedChunks.incrementAndGet();
+					return object2;
+				} catch (Exception var10) {
+					LOGGER.warn(string, chunkPos, var10);
+					throw new CompletionException(var10);
+				}
+			}, this.parseExecutor);
+		}
+	}
+
+	/**
+	 * Runs a read on the executor and completes its result in submission order, whether the read hands
+	 * its parsing to the background pool, finishes right away or fails before it got that far.
+	 */
+	private <T> CompletableFuture<T> submitInOrder(IOWorker.ThrowingSupplier<CompletableFuture<T>> throwingSupplier) {
+		return this.submitTask(() -> {
+			CompletableFuture<T> completableFuture;
+			try {
+				completableFuture = throwingSupplier.get();
+			} catch (Exception var4) {
+				completableFuture = CompletableFuture.failedFuture(var4);
+			}
+
+			return this.completeInOrder(completableFuture);
+		}).thenCompose(Function.identity());
+	}
+
+	private <T> CompletableFuture<T> completeInOrder(CompletableFuture<T> completableFuture) {
+		CompletableFuture<T> completableFuture2 = this.lastParse.handle((object, throwable) -> null).thenCompose(object -> completableFuture);
+		this.lastParse = completableFuture2;
+		return completableFuture2;
+	}
+
 	private <T> CompletableFuture<T> submitThrowingTask(IOWorker.ThrowingSupplier<T> throwingSupplier) {
 		return this.consecutiveExecutor.scheduleWithResult(IOWorker.Priority.FOREGROUND.ordinal(), completableFuture -> {
 			if (!this.shutdownRequested.get()) {
@@ -213,8 +401,85 @@ public class IOWorker implements ChunkScanAccess, AutoCloseable {
 	private void storePendingChunk() {
 		Entry<ChunkPos, IOWorker.PendingStore> entry = this.pendingWrites.pollFirstEntry();
 		if (entry != null) {
-			this.runStore((ChunkPos)entry.getKey(), (IOWorker.PendingStore)entry.getValue());
+			if (this.batchWrites) {
+				this.runStoreBatch((ChunkPos)entry.getKey(), (IOWorker.PendingStore)entry.getValue());
+			} else {
+				this.runStore((ChunkPos)entry.getKey(), (IOWorker.PendingStore)entry.getValue());
+			}
+
 			this.tellStorePending();
+		} else if (this.compactionInterval > 0L && Util.getMillis() >= this.nextCompaction && !this.shutdownRequested.get()) {
+			this.nextCompaction = Util.getMillis() + this.compactionInterval;
+			this.compactRegionFiles(this.compactionThreshold).thenAccept(long_ -> {
+				if (long_ > 0L) {
+					LOGGER.info("Compacted region files of {}, reclaimed {} bytes", this.storage.info(), long_);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Compacts every region file of this worker's folder in which at least the given fraction of
+	 * sectors is unused, and returns the total number of bytes reclaimed.
+	 */
+	public CompletableFuture<Long> compactRegionFiles(float f) {
+		return this.submitThrowingTask(this.storage::listRegionFiles).thenCompose(list -> {
+			List<CompletableFuture<Long>> list2 = new ArrayList();
+
+			for (ChunkPos chunkPos : list) {
+				list2.add(this.consecutiveExecutor.scheduleWithResult(IOWorker.Priority.BACKGROUND.ordinal(), completableFuture -> {
+					if (!this.shutdownRequested.get()) {
+						long l = 0L;
+
+						try {
+							l = this.storage.compactRegionFile(chunkPos, f);
+							this.reclaimedBytes.addAndGet(l);
+						} catch (Exception var7) {
+							LOGGER.warn("Failed to compact region file {}, {}", chunkPos.x, chunkPos.z, var7);
+						}
+
+						completableFuture.complete(l);
+					}
+				}));
+			}
+
+			return Util.sequence(list2).thenApply(list2x -> list2x.stream().mapToLong(Long::longValue).sum());
+		});
+	}
+
+	private void runStoreBatch(ChunkPos chunkPos, IOWorker.PendingStore pendingStore) {
+		Map<ChunkPos, IOWorker.PendingStore> map = new LinkedHashMap();
+		map.put(chunkPos, pendingStore);
+		Iterator<Entry<ChunkPos, IOWorker.PendingStore>> iterator = this.pendingWrites.entrySet().iterator();
+
+		while (iterator.hasNext() && map.size() < MAX_WRITE_BATCH_SIZE) {
+			Entry<ChunkPos, IOWorker.PendingStore> entry = (Entry<ChunkPos, IOWorker.PendingStore>)iterator.next();
+			ChunkPos chunkPos2 = (ChunkPos)entry.getKey();
+			if (chunkPos2.getRegionX() == chunkPos.getRegionX() && chunkPos2.getRegionZ() == chunkPos.getRegionZ()) {
+				map.put(chunkPos2, (IOWorker.PendingStore)entry.getValue());
+				iterator.remove();
+			}
+		}
+
+		try {
+			Map<ChunkPos, Exception> map2 = this.storage.writeBatch(chunkPos, map);
+
+			for (Entry<ChunkPos, IOWorker.PendingStore> entry : map.entrySet()) {
+				ChunkPos chunkPos2 = (ChunkPos)entry.getKey();
+				Exception exception = (Exception)map2.get(chunkPos2);
+				if (exception != null) {
+					LOGGER.error("Failed to store chunk {}", chunkPos2, exception);
+					((IOWorker.PendingStore)entry.getValue()).result.completeExceptionally(exception);
+				} else {
+					((IOWorker.PendingStore)entry.getValue()).result.complete(null);
+				}
+			}
+		} catch (Exception var8) {
+			LOGGER.error("Failed to store {} chunks of region {}, {}", map.size(), chunkPos.getRegionX(), chunkPos.getRegionZ(), var8);
+
+			for (IOWorker.PendingStore pendingStore2 : map.values()) {
+				pendingStore2.result.completeExceptionally(var8);
+			}
 		}
 	}
 
@@ -224,7 +489,12 @@ public class IOWorker implements ChunkScanAccess, AutoCloseable {
 
 	private void runStore(ChunkPos chunkPos, IOWorker.PendingStore pendingStore) {
 		try {
-			this.storage.write(chunkPos, pendingStore.data);
+			if (pendingStore.encoded != null) {
+				this.storage.write(chunkPos, pendingStore.encoded);
+			} else {
+				this.storage.write(chunkPos, pendingStore.data);
+			}
+
 			pendingStore.result.complete(null);
 		} catch (Exception var4) {
 			LOGGER.error("Failed to store chunk {}", chunkPos, var4);
@@ -253,19 +523,65 @@ public class IOWorker implements ChunkScanAccess, AutoCloseable {
 		return this.storage.info();
 	}
 
+	@Override
+	public List<MetricSampler> profiledMetrics() {
+		ImmutableList.Builder<MetricSampler> builder = ImmutableList.builder();
+		if (this.parallelParsing) {
+			builder.add(MetricSampler.create("IOWorker-" + this.storage.info().type() + "-chunks-parsed", MetricCategory.CHUNK_IO, () -> this.parsedChunks.getAndSet(0)));
+		}
+
+		if (this.compactionInterval > 0L) {
+			builder.add(MetricSampler.create("IOWorker-" + this.storage.info().type() + "-bytes-reclaimed", MetricCategory.CHUNK_IO, () -> this.reclaimedBytes.getAndSet(0L)));
+		}
+
+		return builder.build();
+	}
+
 	static class PendingStore {
 		@Nullable
 		CompoundTag data;
+		@Nullable
+		byte[] encoded;
 		final CompletableFuture<Void> result = new CompletableFuture();
 
 		public PendingStore(@Nullable CompoundTag compoundTag) {
 			this.data = compoundTag;
 		}
 
+		boolean isRemoved() {
+			return this.data == null && this.encoded == null;
+		}
+
 		@Nullable
-		CompoundTag copyData() {
-			CompoundTag compoundTag = this.data;
-			return compoundTag == null ? null : compoundTag.copy();
+		CompoundTag copyData() throws IOException {
+			if (this.encoded != null) {
+				return NbtIo.read(new DataInputStream(new ByteArrayInputStream(this.encoded)));
+			} else {
+				CompoundTag compoundTag = this.data;
+				return compoundTag == null ? null : compoundTag.copy();
+			}
+		}
+
+		/**
+		 * Visits the pending chunk. Encoded chunks are parsed into fresh arrays, so they never need to be copied.
+		 */
+		void accept(StreamTagVisitor streamTagVisitor, boolean bl) throws IOException {
+			if (this.encoded != null) {
+				NbtIo.parse(new DataInputStream(new ByteArrayInputStream(this.encoded)), streamTagVisitor, NbtAccounter.unlimitedHeap());
+			} else {
+				CompoundTag compoundTag = bl ? this.copyData() : this.data;
+				if (compoundTag != null) {
+					compoundTag.acceptAsRoot(streamTagVisitor);
+				}
+			}
+		}
+
+		void write(DataOutput dataOutput) throws IOException {
+			if (this.encoded != null) {
+				dataOutput.write(this.encoded);
+			} else {
+				NbtIo.write(this.data, dataOutput);
+			}
 		}
 	}
 
@@ -275,6 +591,12 @@ public class IOWorker implements ChunkScanAccess, AutoCloseable {
 		SHUTDOWN;
 	}
 
+	@FunctionalInterface
+	interface ChunkParser<T> {
+		@Nullable
+		T parse(DataInputStream dataInputStream) throws IOException;
+	}
+
 	@FunctionalInterface
 	interface ThrowingSupplier<T> {
 		@Nullable
@@ -27,6 +27,12 @@ public class RecreatingChunkStorage extends ChunkStorage {
 		return this.writeWorker.store(chunkPos, supplier);
 	}
 
+	@Override
+	public CompletableFuture<Void> writeEncoded(ChunkPos chunkPos, Supplier<byte[]> supplier) {
+		this.handleLegacyStructureIndex(chunkPos);
+		return this.writeWorker.storeEncoded(chunkPos, supplier);
+	}
+
 	@Override
 	public void close() throws IOException {
 		super.close();
@@ -32,6 +32,14 @@ public class RegionBitmap {
 		}
 	}
 
+	public int countUsed() {
+		return this.used.cardinality();
+	}
+
+	public int getEnd() {
+		return this.used.length();
+	}
+
 	@VisibleForTesting
 	public IntSet getUsed() {
 		return (IntSet)this.used.stream().collect(IntArraySet::new, IntCollection::add, IntCollection::addAll);
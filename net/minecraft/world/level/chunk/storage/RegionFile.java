@@ -2,20 +2,27 @@ package net.minecraft.world.level.chunk.storage;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.mojang.logging.LogUtils;
+import it.unimi.dsi.fastutil.ints.IntArrays;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.Field;
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
 import net.minecraft.Util;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.util.profiling.jfr.JvmProfiler;
@@ -31,29 +38,53 @@ public class RegionFile implements AutoCloseable {
 	private static final int CHUNK_HEADER_SIZE = 5;
 	private static final int HEADER_OFFSET = 0;
 	private static final ByteBuffer PADDING_BUFFER = ByteBuffer.allocateDirect(1);
+	private static final ByteBuffer EMPTY_SECTOR = ByteBuffer.allocateDirect(4096);
 	private static final String EXTERNAL_FILE_EXTENSION = ".mcc";
 	private static final int EXTERNAL_STREAM_FLAG = 128;
 	private static final int EXTERNAL_CHUNK_THRESHOLD = 256;
 	private static final int CHUNK_NOT_PRESENT = 0;
+	private static final int MAX_COMPACTION_PASSES = 8;
+	@Nullable
+	private static final sun.misc.Unsafe UNSAFE = findUnsafe();
+	private static volatile boolean memoryMappedReads;
 	final RegionStorageInfo info;
 	private final Path path;
 	private final FileChannel file;
 	private final Path externalFileDir;
 	final RegionFileVersion version;
+	@Nullable
+	private final RegionFileDictionary dictionary;
 	private final ByteBuffer header = ByteBuffer.allocateDirect(8192);
 	private final IntBuffer offsets;
 	private final IntBuffer timestamps;
 	@VisibleForTesting
 	protected final RegionBitmap usedSectors = new RegionBitmap();
+	private final boolean mappedReads;
+	private final StampedLock headerLock = new StampedLock();
+	@Nullable
+	private volatile MappedByteBuffer mappedFile;
 
 	public RegionFile(RegionStorageInfo regionStorageInfo, Path path, Path path2, boolean bl) throws IOException {
 		this(regionStorageInfo, path, path2, RegionFileVersion.getSelected(), bl);
 	}
 
 	public RegionFile(RegionStorageInfo regionStorageInfo, Path path, Path path2, RegionFileVersion regionFileVersion, boolean bl) throws IOException {
+		this(regionStorageInfo, path, path2, regionFileVersion, null, bl);
+	}
+
+	public RegionFile(
+		RegionStorageInfo regionStorageInfo,
+		Path path,
+		Path path2,
+		RegionFileVersion regionFileVersion,
+		@Nullable RegionFileDictionary regionFileDictionary,
+		boolean bl
+	) throws IOException {
 		this.info = regionStorageInfo;
 		this.path = path;
 		this.version = regionFileVersion;
+		this.dictionary = regionFileDictionary;
+		this.mappedReads = memoryMappedReads;
 		if (!Files.isDirectory(path2, new LinkOption[0])) {
 			throw new IllegalArgumentException("Expected directory, got " + path2.toAbsolutePath());
 		} else {
@@ -110,45 +141,163 @@ public class RegionFile implements AutoCloseable {
 		return this.externalFileDir.resolve(string);
 	}
 
+	/**
+	 * Enables the memory-mapped read mode for region files opened after this call.
+	 * <p>
+	 * In this mode chunk reads copy their sectors straight out of a read-only mapping of the
+	 * {@code .mca} file without taking the region file monitor, so different chunks of one region
+	 * can be loaded concurrently. The copy holds the read side of the header lock, which header
+	 * updates by {@link #write} and {@link #clear} and the truncation by {@link #compact} take the
+	 * write side of. Reads fall back to the locked channel read when one of those is in progress,
+	 * or when the chunk lies past the end of the current mapping.
+	 * </p>
+	 */
+	public static void setMemoryMappedReads(boolean bl) {
+		memoryMappedReads = bl;
+	}
+
+	@Nullable
+	public DataInputStream getChunkDataInputStream(ChunkPos chunkPos) throws IOException {
+		if (this.mappedReads) {
+			long l = this.headerLock.tryReadLock();
+			if (l != 0L) {
+				int i;
+				ByteBuffer byteBuffer;
+				try {
+					MappedByteBuffer mappedByteBuffer = this.mappedFile;
+					if (mappedByteBuffer == null) {
+						i = -1;
+						byteBuffer = null;
+					} else {
+						i = this.getOffset(chunkPos);
+						byteBuffer = i == 0 ? null : copyMappedChunk(mappedByteBuffer, i);
+					}
+				} finally {
+					this.headerLock.unlockRead(l);
+				}
+
+				if (i == 0) {
+					return null;
+				}
+
+				if (byteBuffer != null) {
+					return this.readChunkStream(chunkPos, byteBuffer, getNumSectors(i) * 4096);
+				}
+			}
+		}
+
+		return this.getChunkDataInputStreamLocked(chunkPos);
+	}
+
 	@Nullable
-	public synchronized DataInputStream getChunkDataInputStream(ChunkPos chunkPos) throws IOException {
+	private static ByteBuffer copyMappedChunk(MappedByteBuffer mappedByteBuffer, int i) {
+		int j = getSectorNumber(i) * 4096;
+		int k = Math.min(getNumSectors(i) * 4096, mappedByteBuffer.capacity() - j);
+		int l = k < 5 ? 0 : mappedByteBuffer.getInt(j);
+		if (l <= 0 || l > k - 4) {
+			return null;
+		} else {
+			byte[] bs = new byte[l + 4];
+			mappedByteBuffer.get(j, bs);
+			return ByteBuffer.wrap(bs);
+		}
+	}
+
+	@Nullable
+	private synchronized DataInputStream getChunkDataInputStreamLocked(ChunkPos chunkPos) throws IOException {
 		int i = this.getOffset(chunkPos);
 		if (i == 0) {
 			return null;
 		} else {
+			if (this.mappedReads) {
+				this.remapIfGrown();
+			}
+
 			int j = getSectorNumber(i);
 			int k = getNumSectors(i);
 			int l = k * 4096;
 			ByteBuffer byteBuffer = ByteBuffer.allocate(l);
 			this.file.read(byteBuffer, j * 4096);
 			byteBuffer.flip();
-			if (byteBuffer.remaining() < 5) {
-				LOGGER.error("Chunk {} header is truncated: expected {} but read {}", chunkPos, l, byteBuffer.remaining());
+			return this.readChunkStream(chunkPos, byteBuffer, l);
+		}
+	}
+
+	private void remapIfGrown() throws IOException {
+		MappedByteBuffer mappedByteBuffer = this.mappedFile;
+		long l = this.file.size();
+		if (l <= Integer.MAX_VALUE && (mappedByteBuffer == null || mappedByteBuffer.capacity() < l)) {
+			MappedByteBuffer mappedByteBuffer2 = this.file.map(FileChannel.MapMode.READ_ONLY, 0L, l);
+			long m = this.headerLock.writeLock();
+
+			try {
+				this.unmap();
+				this.mappedFile = mappedByteBuffer2;
+			} finally {
+				this.headerLock.unlockWrite(m);
+			}
+		}
+	}
+
+	/**
+	 * Drops the current mapping and releases it right away instead of waiting for the buffer to be collected,
+	 * which would otherwise hold the address space and, on Windows, keep the file locked.
+	 * <p>
+	 * Callers hold the write side of the header lock, so no chunk load is still copying out of the mapping.
+	 * </p>
+	 */
+	private void unmap() {
+		MappedByteBuffer mappedByteBuffer = this.mappedFile;
+		this.mappedFile = null;
+		if (mappedByteBuffer != null && UNSAFE != null) {
+			try {
+				UNSAFE.invokeCleaner(mappedByteBuffer);
+			} catch (RuntimeException var3) {
+				LOGGER.warn("Failed to unmap region file {}", this.path, var3);
+			}
+		}
+	}
+
+	@Nullable
+	private static sun.misc.Unsafe findUnsafe() {
+		try {
+			Field field = sun.misc.Unsafe.class.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			return (sun.misc.Unsafe)field.get(null);
+		} catch (ReflectiveOperationException | RuntimeException var1) {
+			LOGGER.warn("Region file mappings will be released by the garbage collector", var1);
+			return null;
+		}
+	}
+
+	@Nullable
+	private DataInputStream readChunkStream(ChunkPos chunkPos, ByteBuffer byteBuffer, int l) throws IOException {
+		if (byteBuffer.remaining() < 5) {
+			LOGGER.error("Chunk {} header is truncated: expected {} but read {}", chunkPos, l, byteBuffer.remaining());
+			return null;
+		} else {
+			int m = byteBuffer.getInt();
+			byte b = byteBuffer.get();
+			if (m == 0) {
+				LOGGER.warn("Chunk {} is allocated, but stream is missing", chunkPos);
 				return null;
 			} else {
-				int m = byteBuffer.getInt();
-				byte b = byteBuffer.get();
-				if (m == 0) {
-					LOGGER.warn("Chunk {} is allocated, but stream is missing", chunkPos);
+				int n = m - 1;
+				if (isExternalStreamChunk(b)) {
+					if (n != 0) {
+						LOGGER.warn("Chunk has both internal and external streams");
+					}
+
+					return this.createExternalChunkInputStream(chunkPos, getExternalChunkVersion(b));
+				} else if (n > byteBuffer.remaining()) {
+					LOGGER.error("Chunk {} stream is truncated: expected {} but read {}", chunkPos, n, byteBuffer.remaining());
+					return null;
+				} else if (n < 0) {
+					LOGGER.error("Declared size {} of chunk {} is negative", m, chunkPos);
 					return null;
 				} else {
-					int n = m - 1;
-					if (isExternalStreamChunk(b)) {
-						if (n != 0) {
-							LOGGER.warn("Chunk has both internal and external streams");
-						}
-
-						return this.createExternalChunkInputStream(chunkPos, getExternalChunkVersion(b));
-					} else if (n > byteBuffer.remaining()) {
-						LOGGER.error("Chunk {} stream is truncated: expected {} but read {}", chunkPos, n, byteBuffer.remaining());
-						return null;
-					} else if (n < 0) {
-						LOGGER.error("Declared size {} of chunk {} is negative", m, chunkPos);
-						return null;
-					} else {
-						JvmProfiler.INSTANCE.onRegionFileRead(this.info, chunkPos, this.version, n);
-						return this.createChunkInputStream(chunkPos, b, createStream(byteBuffer, n));
-					}
+					JvmProfiler.INSTANCE.onRegionFileRead(this.info, chunkPos, this.version, n);
+					return this.createChunkInputStream(chunkPos, b, createStream(byteBuffer, n));
 				}
 			}
 		}
@@ -183,7 +332,7 @@ public class RegionFile implements AutoCloseable {
 			LOGGER.error("Chunk {} has invalid chunk stream version {}", chunkPos, b);
 			return null;
 		} else {
-			return new DataInputStream(regionFileVersion.wrap(inputStream));
+			return new DataInputStream(regionFileVersion.wrap(inputStream, this.dictionary));
 		}
 	}
 
@@ -267,20 +416,31 @@ public class RegionFile implements AutoCloseable {
 	}
 
 	public DataOutputStream getChunkDataOutputStream(ChunkPos chunkPos) throws IOException {
-		return new DataOutputStream(this.version.wrap(new RegionFile.ChunkBuffer(chunkPos)));
+		return new DataOutputStream(this.version.wrap(new RegionFile.ChunkBuffer(chunkPos, null), this.dictionary));
+	}
+
+	public RegionFile.WriteBatch startWriteBatch() {
+		return new RegionFile.WriteBatch();
 	}
 
 	public void flush() throws IOException {
 		this.file.force(true);
 	}
 
-	public void clear(ChunkPos chunkPos) throws IOException {
+	public synchronized void clear(ChunkPos chunkPos) throws IOException {
 		int i = getOffsetIndex(chunkPos);
 		int j = this.offsets.get(i);
 		if (j != 0) {
-			this.offsets.put(i, 0);
-			this.timestamps.put(i, getTimestamp());
-			this.writeHeader();
+			long l = this.headerLock.writeLock();
+
+			try {
+				this.offsets.put(i, 0);
+				this.timestamps.put(i, getTimestamp());
+				this.writeHeader();
+			} finally {
+				this.headerLock.unlockWrite(l);
+			}
+
 			Files.deleteIfExists(this.getExternalChunkPath(chunkPos));
 			this.usedSectors.free(getSectorNumber(j), getNumSectors(j));
 		}
@@ -309,15 +469,231 @@ public class RegionFile implements AutoCloseable {
 			this.file.write(byteBuffer, o * 4096);
 		}
 
-		this.offsets.put(i, this.packSectorOffset(o, n));
-		this.timestamps.put(i, getTimestamp());
-		this.writeHeader();
+		long p = this.headerLock.writeLock();
+
+		try {
+			this.offsets.put(i, this.packSectorOffset(o, n));
+			this.timestamps.put(i, getTimestamp());
+			this.writeHeader();
+		} finally {
+			this.headerLock.unlockWrite(p);
+		}
+
 		commitOp.run();
 		if (k != 0) {
 			this.usedSectors.free(k, l);
 		}
 	}
 
+	/**
+	 * Writes several chunks with a single header update.
+	 * <p>
+	 * Every chunk gets its own run of free sectors, first fit like {@link #write(ChunkPos, ByteBuffer)},
+	 * so holes left by earlier writes are reused instead of growing the file. Chunks that end up in
+	 * adjacent sectors are written together with one gathering write. The on-disk order of operations
+	 * is the same as for a single chunk: all payloads land in free sectors first, then the header is
+	 * rewritten to point at them, and only then are the previously used sectors released. A crash
+	 * before the header write leaves every chunk of the batch at its old version. Oversized chunks
+	 * still go to external files one at a time.
+	 * </p>
+	 */
+	protected synchronized void write(List<RegionFile.BufferedChunk> list) throws IOException {
+		List<RegionFile.BufferedChunk> list2 = new ArrayList<>(list.size());
+
+		for (RegionFile.BufferedChunk bufferedChunk : list) {
+			if (sizeToSectors(bufferedChunk.data.remaining()) >= 256) {
+				this.write(bufferedChunk.pos, bufferedChunk.data);
+			} else {
+				list2.add(bufferedChunk);
+			}
+		}
+
+		if (!list2.isEmpty()) {
+			int[] is = new int[list2.size()];
+			int[] js = new int[list2.size()];
+			int[] ks = new int[list2.size()];
+
+			for (int i = 0; i < list2.size(); i++) {
+				int j = sizeToSectors(((RegionFile.BufferedChunk)list2.get(i)).data.remaining());
+				is[i] = this.packSectorOffset(this.usedSectors.allocate(j), j);
+				ks[i] = i;
+			}
+
+			IntArrays.quickSort(ks, (ix, jx) -> Integer.compare(getSectorNumber(is[ix]), getSectorNumber(is[jx])));
+			int i = 0;
+
+			while (i < ks.length) {
+				int j = i + 1;
+
+				while (j < ks.length && getSectorNumber(is[ks[j]]) == getSectorNumber(is[ks[j - 1]]) + getNumSectors(is[ks[j - 1]])) {
+					j++;
+				}
+
+				this.writeRun(list2, is, ks, i, j);
+				i = j;
+			}
+
+			int k = getTimestamp();
+			long l = this.headerLock.writeLock();
+
+			try {
+				for (int m = 0; m < list2.size(); m++) {
+					int n = getOffsetIndex(((RegionFile.BufferedChunk)list2.get(m)).pos);
+					js[m] = this.offsets.get(n);
+					this.offsets.put(n, is[m]);
+					this.timestamps.put(n, k);
+				}
+
+				this.writeHeader();
+			} finally {
+				this.headerLock.unlockWrite(l);
+			}
+
+			for (int m = 0; m < list2.size(); m++) {
+				Files.deleteIfExists(this.getExternalChunkPath(((RegionFile.BufferedChunk)list2.get(m)).pos));
+				if (js[m] != 0) {
+					this.usedSectors.free(getSectorNumber(js[m]), getNumSectors(js[m]));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes the chunks {@code ks[i]} to {@code ks[j - 1]}, whose sectors follow each other, with one gathering write.
+	 * Every chunk but the last is padded to its full sectors.
+	 */
+	private void writeRun(List<RegionFile.BufferedChunk> list, int[] is, int[] js, int i, int j) throws IOException {
+		ByteBuffer[] byteBuffers = new ByteBuffer[(j - i) * 2 - 1];
+
+		for (int k = i; k < j; k++) {
+			ByteBuffer byteBuffer = ((RegionFile.BufferedChunk)list.get(js[k])).data;
+			byteBuffers[(k - i) * 2] = byteBuffer;
+			if (k < j - 1) {
+				byteBuffers[(k - i) * 2 + 1] = EMPTY_SECTOR.slice(0, getNumSectors(is[js[k]]) * 4096 - byteBuffer.remaining());
+			}
+		}
+
+		ByteBuffer byteBuffer2 = byteBuffers[byteBuffers.length - 1];
+		this.file.position(getSectorNumber(is[js[i]]) * 4096L);
+
+		while (byteBuffer2.hasRemaining()) {
+			this.file.write(byteBuffers);
+		}
+	}
+
+	/**
+	 * Returns the fraction of this file's sectors that hold no chunk data.
+	 */
+	public synchronized float getFragmentation() throws IOException {
+		long l = (this.file.size() + 4096L - 1L) / 4096L;
+		return l <= 2L ? 0.0F : 1.0F - (float)this.usedSectors.countUsed() / (float)l;
+	}
+
+	/**
+	 * Compacts this region file in place and returns the number of bytes it shrank by.
+	 * <p>
+	 * Each pass copies chunks, starting with the one furthest into the file, into the first hole
+	 * that fits them and before their current position, then points the header at the copies and
+	 * frees the old sectors. That is the same order of operations as a regular {@link #write}, so a
+	 * crash at any point leaves every chunk readable at either its old or its new location.
+	 * Once no more chunks move, the unused tail of the file is truncated.
+	 * </p>
+	 * <p>
+	 * The mapping is dropped and the file truncated under the write side of the header lock, so no
+	 * chunk load can be copying out of the old mapping while its tail is cut off.
+	 * </p>
+	 */
+	public synchronized long compact() throws IOException {
+		long l = this.file.size();
+		int i = 0;
+
+		while (i < MAX_COMPACTION_PASSES && this.compactionPass()) {
+			i++;
+		}
+
+		long m = this.usedSectors.getEnd() * 4096L;
+		if (m < l) {
+			long n = this.headerLock.writeLock();
+
+			try {
+				this.unmap();
+				this.file.truncate(m);
+			} finally {
+				this.headerLock.unlockWrite(n);
+			}
+		}
+
+		return l - this.file.size();
+	}
+
+	@VisibleForTesting
+	boolean compactionPass() throws IOException {
+		long[] ls = new long[1024];
+		int i = 0;
+
+		for (int j = 0; j < 1024; j++) {
+			int k = this.offsets.get(j);
+			if (k != 0) {
+				ls[i++] = (long)getSectorNumber(k) << 10 | j;
+			}
+		}
+
+		Arrays.sort(ls, 0, i);
+		int[] is = new int[1024];
+		boolean bl = false;
+
+		for (int j = i - 1; j >= 0; j--) {
+			int k = (int)(ls[j] & 1023L);
+			int l = this.offsets.get(k);
+			int m = getSectorNumber(l);
+			int n = getNumSectors(l);
+			int o = this.usedSectors.allocate(n);
+			if (o >= m) {
+				this.usedSectors.free(o, n);
+			} else {
+				ByteBuffer byteBuffer = ByteBuffer.allocate(n * 4096);
+
+				while (byteBuffer.hasRemaining() && this.file.read(byteBuffer, m * 4096L + byteBuffer.position()) > 0) {
+				}
+
+				byteBuffer.flip();
+
+				while (byteBuffer.hasRemaining()) {
+					this.file.write(byteBuffer, o * 4096L + byteBuffer.position());
+				}
+
+				is[k] = this.packSectorOffset(o, n);
+				bl = true;
+			}
+		}
+
+		if (bl) {
+			int[] js = new int[1024];
+			long p = this.headerLock.writeLock();
+
+			try {
+				for (int k = 0; k < 1024; k++) {
+					if (is[k] != 0) {
+						js[k] = this.offsets.get(k);
+						this.offsets.put(k, is[k]);
+					}
+				}
+
+				this.writeHeader();
+			} finally {
+				this.headerLock.unlockWrite(p);
+			}
+
+			for (int k = 0; k < 1024; k++) {
+				if (js[k] != 0) {
+					this.usedSectors.free(getSectorNumber(js[k]), getNumSectors(js[k]));
+				}
+			}
+		}
+
+		return bl;
+	}
+
 	private ByteBuffer createExternalStub() {
 		ByteBuffer byteBuffer = ByteBuffer.allocate(5);
 		byteBuffer.putInt(1);
@@ -370,6 +746,14 @@ public class RegionFile implements AutoCloseable {
 	}
 
 	public void close() throws IOException {
+		long l = this.headerLock.writeLock();
+
+		try {
+			this.unmap();
+		} finally {
+			this.headerLock.unlockWrite(l);
+		}
+
 		try {
 			this.padToFullSector();
 		} finally {
@@ -391,10 +775,15 @@ public class RegionFile implements AutoCloseable {
 		}
 	}
 
+	record BufferedChunk(ChunkPos pos, ByteBuffer data) {
+	}
+
 	class ChunkBuffer extends ByteArrayOutputStream {
 		private final ChunkPos pos;
+		@Nullable
+		private final RegionFile.WriteBatch batch;
 
-		public ChunkBuffer(final ChunkPos chunkPos) {
+		public ChunkBuffer(final ChunkPos chunkPos, @Nullable final RegionFile.WriteBatch writeBatch) {
 			super(8096);
 			super.write(0);
 			super.write(0);
@@ -402,6 +791,7 @@ public class RegionFile implements AutoCloseable {
 			super.write(0);
 			super.write(RegionFile.this.version.getId());
 			this.pos = chunkPos;
+			this.batch = writeBatch;
 		}
 
 		public void close() throws IOException {
@@ -409,7 +799,36 @@ public class RegionFile implements AutoCloseable {
 			int i = this.count - 5 + 1;
 			JvmProfiler.INSTANCE.onRegionFileWrite(RegionFile.this.info, this.pos, RegionFile.this.version, i);
 			byteBuffer.putInt(0, i);
-			RegionFile.this.write(this.pos, byteBuffer);
+			if (this.batch != null) {
+				this.batch.chunks.add(new RegionFile.BufferedChunk(this.pos, byteBuffer));
+			} else {
+				RegionFile.this.write(this.pos, byteBuffer);
+			}
+		}
+	}
+
+	/**
+	 * Collects compressed chunks of this region file so they can be committed together.
+	 */
+	public class WriteBatch {
+		final List<RegionFile.BufferedChunk> chunks = new ArrayList<>();
+
+		public DataOutputStream getChunkDataOutputStream(ChunkPos chunkPos) throws IOException {
+			return new DataOutputStream(RegionFile.this.version.wrap(RegionFile.this.new ChunkBuffer(chunkPos, this), RegionFile.this.dictionary));
+		}
+
+		/**
+		 * Drops what was buffered for the chunk, e.g. a partial payload left by a failed encode.
+		 */
+		public void discard(ChunkPos chunkPos) {
+			this.chunks.removeIf(bufferedChunk -> bufferedChunk.pos().equals(chunkPos));
+		}
+
+		public void commit() throws IOException {
+			if (!this.chunks.isEmpty()) {
+				RegionFile.this.write(this.chunks);
+				this.chunks.clear();
+			}
 		}
 	}
 
@@ -0,0 +1,82 @@
+package net.minecraft.world.level.chunk.storage;
+
+import com.mojang.logging.LogUtils;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.Level;
+import org.slf4j.Logger;
+
+/**
+ * Offline compaction of every region file in a world folder.
+ * <p>
+ * This is the offline counterpart of the background compaction done by {@link IOWorker}: it walks
+ * the whole world, including the entity and POI storages of every dimension, and compacts each
+ * {@code .mca} file with {@link RegionFile#compact()} regardless of how fragmented it is. It must
+ * only run while no server has the world open.
+ * </p>
+ */
+public final class RegionFileCompactor {
+	private static final Logger LOGGER = LogUtils.getLogger();
+
+	private RegionFileCompactor() {
+	}
+
+	/**
+	 * Compacts all region files below the given world folder and returns the total number of bytes reclaimed.
+	 */
+	public static long compactWorld(String levelId, Path levelPath) throws IOException {
+		List<Path> list;
+		try (Stream<Path> stream = Files.walk(levelPath)) {
+			list = stream.filter(path -> path.getFileName().toString().endsWith(RegionFileStorage.ANVIL_EXTENSION) && Files.isRegularFile(path)).sorted().toList();
+		}
+
+		LOGGER.info("Compacting {} region files in {}", list.size(), levelPath);
+		long l = 0L;
+		long m = 0L;
+
+		for (Path path : list) {
+			Path path2 = path.getParent();
+			RegionStorageInfo regionStorageInfo = new RegionStorageInfo(levelId, getDimension(levelPath, path2), path2.getFileName().toString());
+
+			try (RegionFile regionFile = new RegionFile(regionStorageInfo, path, path2, false)) {
+				m += Files.size(path);
+				long n = regionFile.compact();
+				l += n;
+				LOGGER.debug("Compacted {}, reclaimed {} bytes", path, n);
+			} catch (IOException var17) {
+				LOGGER.error("Failed to compact region file {}", path, var17);
+			}
+		}
+
+		LOGGER.info("Compacted {} region files, reclaimed {} of {} bytes", list.size(), l, m);
+		return l;
+	}
+
+	/**
+	 * Maps a storage folder back to its dimension, the inverse of
+	 * {@link net.minecraft.world.level.dimension.DimensionType#getStorageFolder}.
+	 */
+	private static ResourceKey<Level> getDimension(Path levelPath, Path folder) {
+		Path path = levelPath.relativize(folder.getParent());
+		if (path.getNameCount() >= 3 && path.getName(0).toString().equals("dimensions")) {
+			ResourceLocation resourceLocation = ResourceLocation.tryBuild(
+				path.getName(1).toString(), path.subpath(2, path.getNameCount()).toString().replace(folder.getFileSystem().getSeparator(), "/")
+			);
+			if (resourceLocation != null) {
+				return ResourceKey.create(Registries.DIMENSION, resourceLocation);
+			}
+		}
+
+		return switch (path.toString()) {
+			case "DIM-1" -> Level.NETHER;
+			case "DIM1" -> Level.END;
+			default -> Level.OVERWORLD;
+		};
+	}
+}
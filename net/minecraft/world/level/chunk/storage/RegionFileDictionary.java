@@ -0,0 +1,233 @@
+package net.minecraft.world.level.chunk.storage;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.github.luben.zstd.ZstdDictTrainer;
+import com.github.luben.zstd.ZstdInputStreamNoFinalizer;
+import com.github.luben.zstd.ZstdOutputStreamNoFinalizer;
+import com.mojang.logging.LogUtils;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import net.minecraft.world.level.ChunkPos;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+
+/**
+ * A Zstandard dictionary shared by every region file in one storage folder.
+ * <p>
+ * Each dimension keeps its own {@value #FILE_NAME} next to its {@code .mca} files, trained from
+ * a sample of the uncompressed chunk NBT already stored there. Chunk NBT is highly repetitive across
+ * chunks (tag names, palettes, heightmaps), so a trained dictionary lets small chunks compress far
+ * better than a cold Zstandard or DEFLATE stream.
+ * </p>
+ * <p>
+ * The dictionary id is recorded in the header of every Zstandard frame written with the dictionary,
+ * while frames written before it was trained carry none. Reading follows that record, so chunks
+ * written before and after training can always be read back as long as the file is kept, regardless
+ * of the currently selected compression.
+ * </p>
+ */
+public final class RegionFileDictionary {
+	private static final Logger LOGGER = LogUtils.getLogger();
+	public static final String FILE_NAME = "zstd.dict";
+	public static final int COMPRESSION_LEVEL = 3;
+	private static final int DICTIONARY_SIZE = 112 * 1024;
+	private static final int MAX_SAMPLE_BYTES = 16 * 1024 * 1024;
+	private static final int MIN_SAMPLES = 64;
+	private static final int MAX_REGION_FILES_SAMPLED = 64;
+	private static final int CHUNK_SAMPLE_STRIDE = 67;
+	private static final int MAX_FRAME_HEADER_SIZE = 18;
+	private final byte[] bytes;
+	private final long id;
+	private final ZstdDictCompress compressDictionary;
+	private final ZstdDictDecompress decompressDictionary;
+
+	public RegionFileDictionary(byte[] bytes) {
+		this.bytes = bytes;
+		this.id = Zstd.getDictIdFromDict(bytes);
+		if (this.id == 0L) {
+			throw new IllegalArgumentException("Region compression dictionary has no id");
+		}
+
+		this.compressDictionary = new ZstdDictCompress(bytes, COMPRESSION_LEVEL);
+		this.decompressDictionary = new ZstdDictDecompress(bytes);
+	}
+
+	public long getId() {
+		return this.id;
+	}
+
+	public byte[] getBytes() {
+		return this.bytes;
+	}
+
+	/**
+	 * Wraps a raw chunk stream in a Zstandard decoder, using the dictionary only when the frame header
+	 * records its id. Fails if the frame was written with a dictionary other than the given one.
+	 */
+	public static InputStream wrapZstd(InputStream inputStream, @Nullable RegionFileDictionary regionFileDictionary) throws IOException {
+		PushbackInputStream pushbackInputStream = new PushbackInputStream(inputStream, MAX_FRAME_HEADER_SIZE);
+		byte[] bs = pushbackInputStream.readNBytes(MAX_FRAME_HEADER_SIZE);
+		pushbackInputStream.unread(bs);
+		long l = Zstd.getDictIdFromFrame(bs);
+		ZstdInputStreamNoFinalizer zstdInputStream = new ZstdInputStreamNoFinalizer(pushbackInputStream);
+		if (l != 0L) {
+			if (regionFileDictionary == null) {
+				throw new IOException("Chunk was compressed with dictionary " + l + " but none is loaded");
+			}
+
+			if (regionFileDictionary.id != l) {
+				throw new IOException("Chunk was compressed with dictionary " + l + " but " + regionFileDictionary.id + " is loaded");
+			}
+
+			zstdInputStream.setDict(regionFileDictionary.decompressDictionary);
+		}
+
+		return zstdInputStream;
+	}
+
+	/**
+	 * Wraps a chunk buffer in a Zstandard encoder, using the dictionary when one is available. The frame
+	 * header then records the dictionary id.
+	 */
+	public static OutputStream wrapZstd(OutputStream outputStream, @Nullable RegionFileDictionary regionFileDictionary) throws IOException {
+		ZstdOutputStreamNoFinalizer zstdOutputStream = new ZstdOutputStreamNoFinalizer(outputStream, COMPRESSION_LEVEL);
+		if (regionFileDictionary != null) {
+			zstdOutputStream.setDict(regionFileDictionary.compressDictionary);
+		}
+
+		return zstdOutputStream;
+	}
+
+	/**
+	 * Loads the dictionary stored in the given region folder, if any.
+	 */
+	@Nullable
+	public static RegionFileDictionary load(Path folder) {
+		Path path = folder.resolve(FILE_NAME);
+		if (!Files.isRegularFile(path)) {
+			return null;
+		} else {
+			try {
+				RegionFileDictionary regionFileDictionary = new RegionFileDictionary(Files.readAllBytes(path));
+				LOGGER.debug("Loaded region compression dictionary {} from {}", regionFileDictionary.id, path);
+				return regionFileDictionary;
+			} catch (IOException | RuntimeException var3) {
+				LOGGER.error("Failed to load region compression dictionary {}", path, var3);
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Loads the dictionary of the given region folder, training and saving a new one from the chunks
+	 * already stored there when none exists yet. Returns {@code null} while the folder does not hold
+	 * enough chunks to train a useful dictionary; those chunks are then written as plain Zstandard frames.
+	 */
+	@Nullable
+	public static RegionFileDictionary loadOrTrain(RegionStorageInfo regionStorageInfo, Path folder) {
+		RegionFileDictionary regionFileDictionary = load(folder);
+		if (regionFileDictionary != null) {
+			return regionFileDictionary;
+		} else {
+			List<byte[]> samples = sampleChunks(regionStorageInfo, folder);
+			if (samples.size() < MIN_SAMPLES) {
+				LOGGER.debug("Not enough chunks in {} to train a region compression dictionary ({} < {})", folder, samples.size(), MIN_SAMPLES);
+				return null;
+			} else {
+				try {
+					regionFileDictionary = train(samples);
+					regionFileDictionary.save(folder);
+					LOGGER.info("Trained region compression dictionary {} for {} from {} chunks", regionFileDictionary.id, regionStorageInfo, samples.size());
+					return regionFileDictionary;
+				} catch (IOException | RuntimeException var5) {
+					LOGGER.error("Failed to train region compression dictionary for {}", folder, var5);
+					return null;
+				}
+			}
+		}
+	}
+
+	public static RegionFileDictionary train(List<byte[]> samples) {
+		int sampleBytes = 0;
+
+		for (byte[] sample : samples) {
+			sampleBytes += sample.length;
+		}
+
+		ZstdDictTrainer zstdDictTrainer = new ZstdDictTrainer(Math.min(sampleBytes, MAX_SAMPLE_BYTES), DICTIONARY_SIZE);
+
+		for (byte[] sample : samples) {
+			if (!zstdDictTrainer.addSample(sample)) {
+				break;
+			}
+		}
+
+		return new RegionFileDictionary(zstdDictTrainer.trainSamples());
+	}
+
+	public void save(Path folder) throws IOException {
+		Path path = folder.resolve(FILE_NAME);
+		Path path2 = Files.createTempFile(folder, "zstd", ".dict");
+		Files.write(path2, this.bytes);
+		Files.move(path2, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Collects uncompressed chunk NBT from a spread of chunks in the existing region files of a folder.
+	 */
+	public static List<byte[]> sampleChunks(RegionStorageInfo regionStorageInfo, Path folder) {
+		List<byte[]> samples = new ArrayList<>();
+		if (!Files.isDirectory(folder)) {
+			return samples;
+		} else {
+			List<Path> regionFiles;
+			try (Stream<Path> stream = Files.list(folder)) {
+				regionFiles = stream.filter(path -> path.getFileName().toString().endsWith(RegionFileStorage.ANVIL_EXTENSION))
+					.sorted()
+					.limit(MAX_REGION_FILES_SAMPLED)
+					.toList();
+			} catch (IOException var15) {
+				LOGGER.warn("Failed to list region files in {}", folder, var15);
+				return samples;
+			}
+
+			int sampleBytes = 0;
+
+			for (Path path : regionFiles) {
+				try (RegionFile regionFile = new RegionFile(regionStorageInfo, path, folder, false)) {
+					for (int i = 0; i < 1024 && sampleBytes < MAX_SAMPLE_BYTES; i += CHUNK_SAMPLE_STRIDE) {
+						ChunkPos chunkPos = new ChunkPos(i & 31, i >> 5);
+						if (regionFile.hasChunk(chunkPos)) {
+							try (DataInputStream dataInputStream = regionFile.getChunkDataInputStream(chunkPos)) {
+								if (dataInputStream != null) {
+									byte[] sample = dataInputStream.readAllBytes();
+									samples.add(sample);
+									sampleBytes += sample.length;
+								}
+							}
+						}
+					}
+				} catch (IOException var17) {
+					LOGGER.warn("Failed to sample chunks from {}", path, var17);
+				}
+
+				if (sampleBytes >= MAX_SAMPLE_BYTES) {
+					break;
+				}
+			}
+
+			return samples;
+		}
+	}
+}
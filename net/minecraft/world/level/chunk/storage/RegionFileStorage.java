@@ -4,7 +4,16 @@ import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 import net.minecraft.FileUtil;
 import net.minecraft.SharedConstants;
 import net.minecraft.nbt.CompoundTag;
@@ -18,10 +27,14 @@ import org.jetbrains.annotations.Nullable;
 public final class RegionFileStorage implements AutoCloseable {
 	public static final String ANVIL_EXTENSION = ".mca";
 	private static final int MAX_CACHE_SIZE = 256;
+	private static final Pattern REGION_FILE_NAME = Pattern.compile("^r\\.(-?[0-9]+)\\.(-?[0-9]+)\\.mca$");
 	private final Long2ObjectLinkedOpenHashMap<RegionFile> regionCache = new Long2ObjectLinkedOpenHashMap<>();
 	private final RegionStorageInfo info;
 	private final Path folder;
 	private final boolean sync;
+	@Nullable
+	private RegionFileDictionary dictionary;
+	private boolean dictionaryLoaded;
 
 	RegionFileStorage(RegionStorageInfo regionStorageInfo, Path path, boolean bl) {
 		this.folder = path;
@@ -41,12 +54,33 @@ public final class RegionFileStorage implements AutoCloseable {
 
 			FileUtil.createDirectoriesSafe(this.folder);
 			Path path = this.folder.resolve("r." + chunkPos.getRegionX() + "." + chunkPos.getRegionZ() + ".mca");
-			RegionFile regionFile2 = new RegionFile(this.info, path, this.folder, this.sync);
+			RegionFile regionFile2 = new RegionFile(this.info, path, this.folder, RegionFileVersion.getSelected(), this.getDictionary(), this.sync);
 			this.regionCache.putAndMoveToFirst(l, regionFile2);
 			return regionFile2;
 		}
 	}
 
+	@Nullable
+	private RegionFileDictionary getDictionary() {
+		if (!this.dictionaryLoaded) {
+			this.dictionaryLoaded = true;
+			this.dictionary = RegionFileVersion.getSelected().usesDictionary()
+				? RegionFileDictionary.loadOrTrain(this.info, this.folder)
+				: RegionFileDictionary.load(this.folder);
+		}
+
+		return this.dictionary;
+	}
+
+	/**
+	 * Opens the decompressing stream of a stored chunk without parsing it, so the NBT can be
+	 * decoded on another thread. The caller owns and must close the returned stream.
+	 */
+	@Nullable
+	public DataInputStream openChunk(ChunkPos chunkPos) throws IOException {
+		return this.getRegionFile(chunkPos).getChunkDataInputStream(chunkPos);
+	}
+
 	@Nullable
 	public CompoundTag read(ChunkPos chunkPos) throws IOException {
 		RegionFile regionFile = this.getRegionFile(chunkPos);
@@ -141,6 +175,91 @@ public final class RegionFileStorage implements AutoCloseable {
 		}
 	}
 
+	/**
+	 * Writes a chunk that has already been encoded to uncompressed NBT bytes.
+	 */
+	protected void write(ChunkPos chunkPos, byte[] bs) throws IOException {
+		if (!SharedConstants.DEBUG_DONT_SAVE_WORLD) {
+			try (DataOutputStream dataOutputStream = this.getRegionFile(chunkPos).getChunkDataOutputStream(chunkPos)) {
+				dataOutputStream.write(bs);
+			}
+		}
+	}
+
+	/**
+	 * Writes chunks that all belong to the same region file as one batch: a single gathering
+	 * write for the payloads and one header update. Removed chunks are cleared individually.
+	 * A chunk that fails to encode or clear is left out of the batch and returned with its cause,
+	 * so only the chunks that were not written are reported as failed.
+	 */
+	Map<ChunkPos, Exception> writeBatch(ChunkPos chunkPos, Map<ChunkPos, IOWorker.PendingStore> map) throws IOException {
+		Map<ChunkPos, Exception> map2 = new HashMap();
+		if (!SharedConstants.DEBUG_DONT_SAVE_WORLD) {
+			RegionFile regionFile = this.getRegionFile(chunkPos);
+			RegionFile.WriteBatch writeBatch = regionFile.startWriteBatch();
+			List<ChunkPos> list = new ArrayList();
+
+			for (Entry<ChunkPos, IOWorker.PendingStore> entry : map.entrySet()) {
+				ChunkPos chunkPos2 = (ChunkPos)entry.getKey();
+				IOWorker.PendingStore pendingStore = (IOWorker.PendingStore)entry.getValue();
+
+				try {
+					if (pendingStore.isRemoved()) {
+						regionFile.clear(chunkPos2);
+					} else {
+						try (DataOutputStream dataOutputStream = writeBatch.getChunkDataOutputStream(chunkPos2)) {
+							pendingStore.write(dataOutputStream);
+						}
+
+						list.add(chunkPos2);
+					}
+				} catch (Exception var14) {
+					writeBatch.discard(chunkPos2);
+					map2.put(chunkPos2, var14);
+				}
+			}
+
+			try {
+				writeBatch.commit();
+			} catch (IOException var13) {
+				for (ChunkPos chunkPos3 : list) {
+					map2.put(chunkPos3, var13);
+				}
+			}
+		}
+
+		return map2;
+	}
+
+	/**
+	 * Lists the region files in this storage's folder. The returned positions are region
+	 * coordinates, not chunk coordinates.
+	 */
+	public List<ChunkPos> listRegionFiles() throws IOException {
+		List<ChunkPos> list = new ArrayList();
+		if (Files.isDirectory(this.folder)) {
+			try (Stream<Path> stream = Files.list(this.folder)) {
+				stream.forEach(path -> {
+					Matcher matcher = REGION_FILE_NAME.matcher(path.getFileName().toString());
+					if (matcher.matches()) {
+						list.add(new ChunkPos(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+					}
+				});
+			}
+		}
+
+		return list;
+	}
+
+	/**
+	 * Compacts the given region file if at least the given fraction of its sectors is unused.
+	 * Returns the number of bytes reclaimed.
+	 */
+	protected long compactRegionFile(ChunkPos chunkPos, float f) throws IOException {
+		RegionFile regionFile = this.getRegionFile(ChunkPos.minFromRegion(chunkPos.x, chunkPos.z));
+		return regionFile.getFragmentation() >= f ? regionFile.compact() : 0L;
+	}
+
 	public void close() throws IOException {
 		ExceptionCollector<IOException> exceptionCollector = new ExceptionCollector();
 
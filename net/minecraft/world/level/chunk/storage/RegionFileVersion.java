@@ -27,30 +27,45 @@ public class RegionFileVersion {
 		new RegionFileVersion(
 			1,
 			null,
-			inputStream -> new FastBufferedInputStream(new GZIPInputStream(inputStream)),
-			outputStream -> new BufferedOutputStream(new GZIPOutputStream(outputStream))
+			(inputStream, regionFileDictionary) -> new FastBufferedInputStream(new GZIPInputStream(inputStream)),
+			(outputStream, regionFileDictionary) -> new BufferedOutputStream(new GZIPOutputStream(outputStream))
 		)
 	);
 	public static final RegionFileVersion VERSION_DEFLATE = register(
 		new RegionFileVersion(
 			2,
 			"deflate",
-			inputStream -> new FastBufferedInputStream(new InflaterInputStream(inputStream)),
-			outputStream -> new BufferedOutputStream(new DeflaterOutputStream(outputStream))
+			(inputStream, regionFileDictionary) -> new FastBufferedInputStream(new InflaterInputStream(inputStream)),
+			(outputStream, regionFileDictionary) -> new BufferedOutputStream(new DeflaterOutputStream(outputStream))
+		)
+	);
+	public static final RegionFileVersion VERSION_NONE = register(
+		new RegionFileVersion(
+			3,
+			"none",
+			(inputStream, regionFileDictionary) -> new FastBufferedInputStream(inputStream),
+			(outputStream, regionFileDictionary) -> new BufferedOutputStream(outputStream)
 		)
 	);
-	public static final RegionFileVersion VERSION_NONE = register(new RegionFileVersion(3, "none", FastBufferedInputStream::new, BufferedOutputStream::new));
 	public static final RegionFileVersion VERSION_LZ4 = register(
 		new RegionFileVersion(
 			4,
 			"lz4",
-			inputStream -> new FastBufferedInputStream(new LZ4BlockInputStream(inputStream)),
-			outputStream -> new BufferedOutputStream(new LZ4BlockOutputStream(outputStream))
+			(inputStream, regionFileDictionary) -> new FastBufferedInputStream(new LZ4BlockInputStream(inputStream)),
+			(outputStream, regionFileDictionary) -> new BufferedOutputStream(new LZ4BlockOutputStream(outputStream))
+		)
+	);
+	public static final RegionFileVersion VERSION_ZSTD = register(
+		new RegionFileVersion(
+			5,
+			"zstd",
+			(inputStream, regionFileDictionary) -> new FastBufferedInputStream(RegionFileDictionary.wrapZstd(inputStream, regionFileDictionary)),
+			(outputStream, regionFileDictionary) -> new BufferedOutputStream(RegionFileDictionary.wrapZstd(outputStream, regionFileDictionary))
 		)
 	);
-	public static final RegionFileVersion VERSION_CUSTOM = register(new RegionFileVersion(127, null, inputStream -> {
+	public static final RegionFileVersion VERSION_CUSTOM = register(new RegionFileVersion(127, null, (inputStream, regionFileDictionary) -> {
 		throw new UnsupportedOperationException();
-	}, outputStream -> {
+	}, (outputStream, regionFileDictionary) -> {
 		throw new UnsupportedOperationException();
 	}));
 	public static final RegionFileVersion DEFAULT = VERSION_DEFLATE;
@@ -107,16 +122,28 @@ public class RegionFileVersion {
 		return this.id;
 	}
 
+	public boolean usesDictionary() {
+		return this == VERSION_ZSTD;
+	}
+
 	public OutputStream wrap(OutputStream outputStream) throws IOException {
-		return this.outputWrapper.wrap(outputStream);
+		return this.wrap(outputStream, null);
+	}
+
+	public OutputStream wrap(OutputStream outputStream, @Nullable RegionFileDictionary regionFileDictionary) throws IOException {
+		return this.outputWrapper.wrap(outputStream, regionFileDictionary);
 	}
 
 	public InputStream wrap(InputStream inputStream) throws IOException {
-		return this.inputWrapper.wrap(inputStream);
+		return this.wrap(inputStream, null);
+	}
+
+	public InputStream wrap(InputStream inputStream, @Nullable RegionFileDictionary regionFileDictionary) throws IOException {
+		return this.inputWrapper.wrap(inputStream, regionFileDictionary);
 	}
 
 	@FunctionalInterface
 	interface StreamWrapper<O> {
-		O wrap(O object) throws IOException;
+		O wrap(O object, @Nullable RegionFileDictionary regionFileDictionary) throws IOException;
 	}
 }
@@ -93,8 +93,8 @@ public record SerializableChunkData(
 	List<CompoundTag> blockEntities,
 	CompoundTag structureData
 ) {
-	private static final Codec<List<SavedTick<Block>>> BLOCK_TICKS_CODEC = SavedTick.codec(BuiltInRegistries.BLOCK.byNameCodec()).listOf();
-	private static final Codec<List<SavedTick<Fluid>>> FLUID_TICKS_CODEC = SavedTick.codec(BuiltInRegistries.FLUID.byNameCodec()).listOf();
+	static final Codec<List<SavedTick<Block>>> BLOCK_TICKS_CODEC = SavedTick.codec(BuiltInRegistries.BLOCK.byNameCodec()).listOf();
+	static final Codec<List<SavedTick<Fluid>>> FLUID_TICKS_CODEC = SavedTick.codec(BuiltInRegistries.FLUID.byNameCodec()).listOf();
 	private static final Logger LOGGER = LogUtils.getLogger();
 	private static final String TAG_UPGRADE_DATA = "UpgradeData";
 	private static final String BLOCK_TICKS_TAG = "block_ticks";
@@ -109,6 +109,20 @@ public record SerializableChunkData(
 
 	@Nullable
 	public static SerializableChunkData parse(LevelHeightAccessor levelHeightAccessor, PalettedContainerFactory palettedContainerFactory, CompoundTag compoundTag) {
+		return parse(levelHeightAccessor, palettedContainerFactory, compoundTag, null);
+	}
+
+	/**
+	 * Parses a chunk whose sections may already have been decoded, e.g. by {@link StreamingChunkDecoder}.
+	 * When {@code sections} is {@code null} the sections are read from the {@code sections} tag instead.
+	 */
+	@Nullable
+	public static SerializableChunkData parse(
+		LevelHeightAccessor levelHeightAccessor,
+		PalettedContainerFactory palettedContainerFactory,
+		CompoundTag compoundTag,
+		@Nullable List<SerializableChunkData.SectionData> sections
+	) {
 		if (compoundTag.getString("Status").isEmpty()) {
 			return null;
 		} else {
@@ -153,43 +167,9 @@ public record SerializableChunkData(
 			List<CompoundTag> list3 = compoundTag.getList("entities").stream().flatMap(ListTag::compoundStream).toList();
 			List<CompoundTag> list4 = compoundTag.getList("block_entities").stream().flatMap(ListTag::compoundStream).toList();
 			CompoundTag compoundTag2 = compoundTag.getCompoundOrEmpty("structures");
-			ListTag listTag3 = compoundTag.getListOrEmpty("sections");
-			List<SerializableChunkData.SectionData> list5 = new ArrayList(listTag3.size());
-			Codec<PalettedContainerRO<Holder<Biome>>> codec = palettedContainerFactory.biomeContainerCodec();
-			Codec<PalettedContainer<BlockState>> codec2 = palettedContainerFactory.blockStatesContainerCodec();
-
-			for (int k = 0; k < listTag3.size(); k++) {
-				Optional<CompoundTag> optional = listTag3.getCompound(k);
-				if (!optional.isEmpty()) {
-					CompoundTag compoundTag3 = (CompoundTag)optional.get();
-					int n = compoundTag3.getByteOr("Y", (byte)0);
-					LevelChunkSection levelChunkSection;
-					if (n >= levelHeightAccessor.getMinSectionY() && n <= levelHeightAccessor.getMaxSectionY()) {
-						PalettedContainer<BlockState> palettedContainer = (PalettedContainer<BlockState>)compoundTag3.getCompound("block_states")
-							.map(
-								compoundTagx -> codec2.parse(NbtOps.INSTANCE, compoundTagx)
-									.promotePartial(string -> logErrors(chunkPos, n, string))
-									.getOrThrow(SerializableChunkData.ChunkReadException::new)
-							)
-							.orElseGet(palettedContainerFactory::createForBlockStates);
-						PalettedContainerRO<Holder<Biome>> palettedContainerRO = (PalettedContainerRO<Holder<Biome>>)compoundTag3.getCompound("biomes")
-							.map(
-								compoundTagx -> codec.parse(NbtOps.INSTANCE, compoundTagx)
-									.promotePartial(string -> logErrors(chunkPos, n, string))
-									.getOrThrow(SerializableChunkData.ChunkReadException::new)
-							)
-							.orElseGet(palettedContainerFactory::createForBiomes);
-						levelChunkSection = new LevelChunkSection(palettedContainer, palettedContainerRO);
-					} else {
-						levelChunkSection = null;
-					}
-
-					DataLayer dataLayer = (DataLayer)compoundTag3.getByteArray("BlockLight").map(DataLayer::new).orElse(null);
-					DataLayer dataLayer2 = (DataLayer)compoundTag3.getByteArray("SkyLight").map(DataLayer::new).orElse(null);
-					list5.add(new SerializableChunkData.SectionData(n, levelChunkSection, dataLayer, dataLayer2));
-				}
-			}
-
+			List<SerializableChunkData.SectionData> list5 = sections != null
+				? sections
+				: parseSections(levelHeightAccessor, palettedContainerFactory, chunkPos, compoundTag.getListOrEmpty("sections"));
 			return new SerializableChunkData(
 				palettedContainerFactory,
 				chunkPos,
@@ -213,6 +193,52 @@ public record SerializableChunkData(
 		}
 	}
 
+	private static List<SerializableChunkData.SectionData> parseSections(
+		LevelHeightAccessor levelHeightAccessor, PalettedContainerFactory palettedContainerFactory, ChunkPos chunkPos, ListTag listTag
+	) {
+		List<SerializableChunkData.SectionData> list = new ArrayList(listTag.size());
+		Codec<PalettedContainerRO<Holder<Biome>>> codec = palettedContainerFactory.biomeContainerCodec();
+		Codec<PalettedContainer<BlockState>> codec2 = palettedContainerFactory.blockStatesContainerCodec();
+
+		for (int i = 0; i < listTag.size(); i++) {
+			Optional<CompoundTag> optional = listTag.getCompound(i);
+			if (!optional.isEmpty()) {
+				CompoundTag compoundTag = (CompoundTag)optional.get();
+				int j = compoundTag.getByteOr("Y", (byte)0);
+				LevelChunkSection levelChunkSection;
+				if (j >= levelHeightAccessor.getMinSectionY() && j <= levelHeightAccessor.getMaxSectionY()) {
+					PalettedContainer<BlockState> palettedContainer = (PalettedContainer<BlockState>)compoundTag.getCompound("block_states")
+						.map(compoundTagx -> parseBlockStates(codec2, chunkPos, j, compoundTagx))
+						.orElseGet(palettedContainerFactory::createForBlockStates);
+					PalettedContainerRO<Holder<Biome>> palettedContainerRO = (PalettedContainerRO<Holder<Biome>>)compoundTag.getCompound("biomes")
+						.map(compoundTagx -> parseBiomes(codec, chunkPos, j, compoundTagx))
+						.orElseGet(palettedContainerFactory::createForBiomes);
+					levelChunkSection = new LevelChunkSection(palettedContainer, palettedContainerRO);
+				} else {
+					levelChunkSection = null;
+				}
+
+				DataLayer dataLayer = (DataLayer)compoundTag.getByteArray("BlockLight").map(DataLayer::new).orElse(null);
+				DataLayer dataLayer2 = (DataLayer)compoundTag.getByteArray("SkyLight").map(DataLayer::new).orElse(null);
+				list.add(new SerializableChunkData.SectionData(j, levelChunkSection, dataLayer, dataLayer2));
+			}
+		}
+
+		return list;
+	}
+
+	static PalettedContainer<BlockState> parseBlockStates(Codec<PalettedContainer<BlockState>> codec, ChunkPos chunkPos, int i, CompoundTag compoundTag) {
+		return codec.parse(NbtOps.INSTANCE, compoundTag)
+			.promotePartial(string -> logErrors(chunkPos, i, string))
+			.getOrThrow(SerializableChunkData.ChunkReadException::new);
+	}
+
+	static PalettedContainerRO<Holder<Biome>> parseBiomes(Codec<PalettedContainerRO<Holder<Biome>>> codec, ChunkPos chunkPos, int i, CompoundTag compoundTag) {
+		return codec.parse(NbtOps.INSTANCE, compoundTag)
+			.promotePartial(string -> logErrors(chunkPos, i, string))
+			.getOrThrow(SerializableChunkData.ChunkReadException::new);
+	}
+
 	public ProtoChunk read(ServerLevel serverLevel, PoiManager poiManager, RegionStorageInfo regionStorageInfo, ChunkPos chunkPos) {
 		if (!Objects.equals(chunkPos, this.chunkPos)) {
 			LOGGER.error("Chunk file at {} is in the wrong location; relocating. (Expected {}, got {})", chunkPos, chunkPos, this.chunkPos);
@@ -334,7 +360,7 @@ public record SerializableChunkData(
 		}
 	}
 
-	private static void logErrors(ChunkPos chunkPos, int i, String string) {
+	static void logErrors(ChunkPos chunkPos, int i, String string) {
 		LOGGER.error("Recoverable errors when loading section [{}, {}, {}]: {}", chunkPos.x, i, chunkPos.z, string);
 	}
 
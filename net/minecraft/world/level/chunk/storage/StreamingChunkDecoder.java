@@ -0,0 +1,384 @@
+package net.minecraft.world.level.chunk.storage;
+
+import com.mojang.serialization.Codec;
+import java.util.ArrayList;
+import java.util.List;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.Holder;
+import net.minecraft.nbt.ByteArrayTag;
+import net.minecraft.nbt.ByteTag;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.IntTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.LongArrayTag;
+import net.minecraft.nbt.LongTag;
+import net.minecraft.nbt.NbtOps;
+import net.minecraft.nbt.NbtUtils;
+import net.minecraft.nbt.ShortTag;
+import net.minecraft.nbt.StreamTagVisitor;
+import net.minecraft.nbt.Tag;
+import net.minecraft.nbt.TagType;
+import net.minecraft.nbt.visitors.CollectToTag;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LevelHeightAccessor;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.DataLayer;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.chunk.PalettedContainerFactory;
+import net.minecraft.world.level.chunk.PalettedContainerRO;
+import net.minecraft.world.level.chunk.Strategy;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Decodes a stored chunk from its NBT stream without building a tag tree for its {@code sections} list.
+ * <p>
+ * Everything outside the {@code sections} list is collected into a {@link CompoundTag} exactly like
+ * {@link CollectToTag} does. Sections are picked apart as they stream past: light arrays are kept as the
+ * raw byte arrays that become the {@link DataLayer}s, and the block state and biome containers are later
+ * built from their palette, decoded with the same codec as {@link SerializableChunkData#parse}, and their raw
+ * storage longs with {@link PalettedContainer#unpack(Strategy, List, long[])}, bypassing the boxed stream of the
+ * storage. Containers that are not in the canonical layout fall back to the container codec, so the result is the
+ * same as {@link SerializableChunkData#parse}.
+ * </p>
+ * <p>
+ * The {@code block_states} and {@code biomes} containers themselves are not streamed: each is still collected into
+ * a small {@link CompoundTag} holding its palette entries as tags and its packed {@code data} as a
+ * {@link LongArrayTag}, because the palette codec only reads tags. The packed long arrays are handed to the
+ * container as read, without a copy, but the palette tags are allocated for every section.
+ * </p>
+ * <p>
+ * Arrays are taken over rather than copied, so the visited data must not be shared with anything else;
+ * see {@link IOWorker#loadAsync(ChunkPos, StreamTagVisitor)}. Chunks written by an older data version
+ * still need the data fixer and have to be read as a tree; {@link #needsUpgrade()} tells when that is the case.
+ * </p>
+ */
+public class StreamingChunkDecoder extends CollectToTag {
+	private final LevelHeightAccessor levelHeightAccessor;
+	private final PalettedContainerFactory palettedContainerFactory;
+	private final ChunkPos chunkPos;
+	private final List<StreamingChunkDecoder.PendingSection> sections = new ArrayList();
+	private StreamingChunkDecoder.State state = StreamingChunkDecoder.State.ROOT;
+	@Nullable
+	private StreamingChunkDecoder.PendingSection section;
+	@Nullable
+	private CollectToTag container;
+	private int containerDepth;
+	private String key = "";
+
+	public StreamingChunkDecoder(LevelHeightAccessor levelHeightAccessor, PalettedContainerFactory palettedContainerFactory, ChunkPos chunkPos) {
+		this.levelHeightAccessor = levelHeightAccessor;
+		this.palettedContainerFactory = palettedContainerFactory;
+		this.chunkPos = chunkPos;
+	}
+
+	/**
+	 * Returns whether no chunk was visited, i.e. the chunk is not stored.
+	 */
+	public boolean isEmpty() {
+		return !(this.getResult() instanceof CompoundTag);
+	}
+
+	/**
+	 * Returns whether the chunk was written by another data version and must go through the data fixer.
+	 */
+	public boolean needsUpgrade() {
+		return this.getResult() instanceof CompoundTag compoundTag
+			&& NbtUtils.getDataVersion(compoundTag, -1) != SharedConstants.getCurrentVersion().dataVersion().version();
+	}
+
+	/**
+	 * Builds the decoded chunk. Decoding the section containers happens here rather than while the
+	 * stream is read, so it runs on the caller's thread instead of the IO thread.
+	 */
+	@Nullable
+	public SerializableChunkData build() {
+		if (!(this.getResult() instanceof CompoundTag compoundTag)) {
+			return null;
+		} else {
+			List<SerializableChunkData.SectionData> list = new ArrayList(this.sections.size());
+
+			for (StreamingChunkDecoder.PendingSection pendingSection : this.sections) {
+				list.add(this.buildSection(pendingSection));
+			}
+
+			return SerializableChunkData.parse(this.levelHeightAccessor, this.palettedContainerFactory, compoundTag, list);
+		}
+	}
+
+	private SerializableChunkData.SectionData buildSection(StreamingChunkDecoder.PendingSection pendingSection) {
+		int i = pendingSection.y;
+		LevelChunkSection levelChunkSection;
+		if (i >= this.levelHeightAccessor.getMinSectionY() && i <= this.levelHeightAccessor.getMaxSectionY()) {
+			PalettedContainer<BlockState> palettedContainer = pendingSection.blockStates != null
+				? this.decodeBlockStates(i, pendingSection.blockStates)
+				: this.palettedContainerFactory.createForBlockStates();
+			PalettedContainerRO<Holder<Biome>> palettedContainerRO = pendingSection.biomes != null
+				? this.decodeBiomes(i, pendingSection.biomes)
+				: this.palettedContainerFactory.createForBiomes();
+			levelChunkSection = new LevelChunkSection(palettedContainer, palettedContainerRO);
+		} else {
+			levelChunkSection = null;
+		}
+
+		DataLayer dataLayer = pendingSection.blockLight != null ? new DataLayer(pendingSection.blockLight) : null;
+		DataLayer dataLayer2 = pendingSection.skyLight != null ? new DataLayer(pendingSection.skyLight) : null;
+		return new SerializableChunkData.SectionData(i, levelChunkSection, dataLayer, dataLayer2);
+	}
+
+	private PalettedContainer<BlockState> decodeBlockStates(int i, CompoundTag compoundTag) {
+		return compoundTag.get("palette") instanceof ListTag listTag && isRawStorage(compoundTag.get("data"))
+			? this.decode(i, this.palettedContainerFactory.blockStatesStrategy(), this.palettedContainerFactory.blockStatesPaletteCodec(), listTag, compoundTag)
+			: SerializableChunkData.parseBlockStates(this.palettedContainerFactory.blockStatesContainerCodec(), this.chunkPos, i, compoundTag);
+	}
+
+	private PalettedContainerRO<Holder<Biome>> decodeBiomes(int i, CompoundTag compoundTag) {
+		return compoundTag.get("palette") instanceof ListTag listTag && isRawStorage(compoundTag.get("data"))
+			? this.decode(i, this.palettedContainerFactory.biomeStrategy(), this.palettedContainerFactory.biomePaletteCodec(), listTag, compoundTag)
+			: SerializableChunkData.parseBiomes(this.palettedContainerFactory.biomeContainerCodec(), this.chunkPos, i, compoundTag);
+	}
+
+	/**
+	 * Decodes the palette with the same codec as the container codec, so unknown entries fall back and get logged the
+	 * same way, and unpacks the raw storage longs without streaming them through the codec.
+	 */
+	private <T> PalettedContainer<T> decode(int i, Strategy<T> strategy, Codec<List<T>> codec, ListTag listTag, CompoundTag compoundTag) {
+		List<T> list = codec.parse(NbtOps.INSTANCE, listTag)
+			.promotePartial(string -> SerializableChunkData.logErrors(this.chunkPos, i, string))
+			.getOrThrow(SerializableChunkData.ChunkReadException::new);
+		return PalettedContainer.unpack(strategy, list, getRawStorage(compoundTag)).getOrThrow(SerializableChunkData.ChunkReadException::new);
+	}
+
+	private static boolean isRawStorage(@Nullable Tag tag) {
+		return tag == null || tag instanceof LongArrayTag;
+	}
+
+	@Nullable
+	private static long[] getRawStorage(CompoundTag compoundTag) {
+		return compoundTag.get("data") instanceof LongArrayTag longArrayTag ? longArrayTag.getAsLongArray() : null;
+	}
+
+	private void startContainer() {
+		this.container = new CollectToTag();
+		this.container.visitRootEntry(CompoundTag.TYPE);
+		this.containerDepth = 1;
+	}
+
+	private static boolean isContainer(TagType<?> tagType) {
+		return tagType == ListTag.TYPE || tagType == CompoundTag.TYPE;
+	}
+
+	private StreamTagVisitor.ValueResult visitSectionY(int i) {
+		if (this.section != null && this.key.equals("Y")) {
+			this.section.y = (byte)i;
+		}
+
+		return StreamTagVisitor.ValueResult.CONTINUE;
+	}
+
+	@Override
+	public StreamTagVisitor.ValueResult visitEnd() {
+		return this.container != null ? this.container.visitEnd() : super.visitEnd();
+	}
+
+	@Override
+	public StreamTagVisitor.ValueResult visit(String string) {
+		return this.container != null ? this.container.visit(string) : super.visit(string);
+	}
+
+	@Override
+	public StreamTagVisitor.ValueResult visit(byte b) {
+		if (this.container != null) {
+			return this.container.visit(b);
+		} else {
+			return this.state == StreamingChunkDecoder.State.SECTION ? this.visitSectionY(b) : super.visit(b);
+		}
+	}
+
+	@Override
+	public StreamTagVisitor.ValueResult visit(short s) {
+		if (this.container != null) {
+			return this.container.visit(s);
+		} else {
+			return this.state == StreamingChunkDecoder.State.SECTION ? this.visitSectionY(s) : super.visit(s);
+		}
+	}
+
+	@Override
+	public StreamTagVisitor.ValueResult visit(int i) {
+		if (this.container != null) {
+			return this.container.visit(i);
+		} else {
+			return this.state == StreamingChunkDecoder.State.SECTION ? this.visitSectionY(i) : super.visit(i);
+		}
+	}
+
+	@Override
+	public StreamTagVisitor.ValueResult visit(long l) {
+		if (this.container != null) {
+			return this.container.visit(l);
+		} else {
+			return this.state == StreamingChunkDecoder.State.SECTION ? this.visitSectionY((int)l) : super.visit(l);
+		}
+	}
+
+	@Override
+	public StreamTagVisitor.ValueResult visit(float f) {
+		return this.container != null ? this.container.visit(f) : super.visit(f);
+	}
+
+	@Override
+	public StreamTagVisitor.ValueResult visit(double d) {
+		return this.container != null ? this.container.visit(d) : super.visit(d);
+	}
+
+	@Override
+	public StreamTagVisitor.ValueResult visit(byte[] bs) {
+		if (this.container != null) {
+			return this.container.visit(bs);
+		} else if (this.state == StreamingChunkDecoder.State.SECTION) {
+			if (this.section != null) {
+				if (this.key.equals("BlockLight")) {
+					this.section.blockLight = bs;
+				} else if (this.key.equals("SkyLight")) {
+					this.section.skyLight = bs;
+				}
+			}
+
+			return StreamTagVisitor.ValueResult.CONTINUE;
+		} else {
+			return super.visit(bs);
+		}
+	}
+
+	@Override
+	public StreamTagVisitor.ValueResult visit(int[] is) {
+		return this.container != null ? this.container.visit(is) : super.visit(is);
+	}
+
+	@Override
+	public StreamTagVisitor.ValueResult visit(long[] ls) {
+		return this.container != null ? this.container.visit(ls) : super.visit(ls);
+	}
+
+	@Override
+	public StreamTagVisitor.ValueResult visitList(TagType<?> tagType, int i) {
+		if (this.container != null) {
+			return this.container.visitList(tagType, i);
+		} else {
+			return this.state == StreamingChunkDecoder.State.ROOT ? super.visitList(tagType, i) : StreamTagVisitor.ValueResult.CONTINUE;
+		}
+	}
+
+	@Override
+	public StreamTagVisitor.EntryResult visitElement(TagType<?> tagType, int i) {
+		if (this.container != null) {
+			if (isContainer(tagType)) {
+				this.containerDepth++;
+			}
+
+			return this.container.visitElement(tagType, i);
+		} else if (this.state == StreamingChunkDecoder.State.SECTIONS) {
+			if (tagType == CompoundTag.TYPE) {
+				this.state = StreamingChunkDecoder.State.SECTION;
+				this.section = new StreamingChunkDecoder.PendingSection();
+				return StreamTagVisitor.EntryResult.ENTER;
+			} else {
+				return StreamTagVisitor.EntryResult.SKIP;
+			}
+		} else {
+			return super.visitElement(tagType, i);
+		}
+	}
+
+	@Override
+	public StreamTagVisitor.EntryResult visitEntry(TagType<?> tagType) {
+		return this.container != null ? this.container.visitEntry(tagType) : super.visitEntry(tagType);
+	}
+
+	@Override
+	public StreamTagVisitor.EntryResult visitEntry(TagType<?> tagType, String string) {
+		if (this.container != null) {
+			if (isContainer(tagType)) {
+				this.containerDepth++;
+			}
+
+			return this.container.visitEntry(tagType, string);
+		} else if (this.state == StreamingChunkDecoder.State.SECTION) {
+			this.key = string;
+
+			return switch (string) {
+				case "Y" -> tagType == ByteTag.TYPE || tagType == ShortTag.TYPE || tagType == IntTag.TYPE || tagType == LongTag.TYPE
+					? StreamTagVisitor.EntryResult.ENTER
+					: StreamTagVisitor.EntryResult.SKIP;
+				case "BlockLight", "SkyLight" -> tagType == ByteArrayTag.TYPE ? StreamTagVisitor.EntryResult.ENTER : StreamTagVisitor.EntryResult.SKIP;
+				case "block_states", "biomes" -> {
+					if (tagType == CompoundTag.TYPE) {
+						this.startContainer();
+						yield StreamTagVisitor.EntryResult.ENTER;
+					} else {
+						yield StreamTagVisitor.EntryResult.SKIP;
+					}
+				}
+				default -> StreamTagVisitor.EntryResult.SKIP;
+			};
+		} else if (this.state == StreamingChunkDecoder.State.ROOT && this.depth() == 1 && tagType == ListTag.TYPE && string.equals("sections")) {
+			this.state = StreamingChunkDecoder.State.SECTIONS;
+			return StreamTagVisitor.EntryResult.ENTER;
+		} else {
+			return super.visitEntry(tagType, string);
+		}
+	}
+
+	@Override
+	public StreamTagVisitor.ValueResult visitContainerEnd() {
+		if (this.container != null) {
+			StreamTagVisitor.ValueResult valueResult = this.container.visitContainerEnd();
+			if (--this.containerDepth == 0) {
+				if (this.section != null && this.container.getResult() instanceof CompoundTag compoundTag) {
+					if (this.key.equals("block_states")) {
+						this.section.blockStates = compoundTag;
+					} else {
+						this.section.biomes = compoundTag;
+					}
+				}
+
+				this.container = null;
+			}
+
+			return valueResult;
+		} else if (this.state == StreamingChunkDecoder.State.SECTION) {
+			if (this.section != null) {
+				this.sections.add(this.section);
+				this.section = null;
+			}
+
+			this.state = StreamingChunkDecoder.State.SECTIONS;
+			return StreamTagVisitor.ValueResult.CONTINUE;
+		} else if (this.state == StreamingChunkDecoder.State.SECTIONS) {
+			this.state = StreamingChunkDecoder.State.ROOT;
+			return StreamTagVisitor.ValueResult.CONTINUE;
+		} else {
+			return super.visitContainerEnd();
+		}
+	}
+
+	static class PendingSection {
+		int y;
+		@Nullable
+		CompoundTag blockStates;
+		@Nullable
+		CompoundTag biomes;
+		@Nullable
+		byte[] blockLight;
+		@Nullable
+		byte[] skyLight;
+	}
+
+	static enum State {
+		ROOT,
+		SECTIONS,
+		SECTION;
+	}
+}
@@ -1,17 +1,27 @@
 package net.minecraft.world.level.entity;
 
 import com.mojang.logging.LogUtils;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.stream.Stream;
 import net.minecraft.util.AbortableIterationConsumer;
 import net.minecraft.util.ClassInstanceMultiMap;
 import net.minecraft.util.VisibleForDebug;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.EntityType;
 import net.minecraft.world.phys.AABB;
 import org.slf4j.Logger;
 
 public class EntitySection<T extends EntityAccess> {
 	private static final Logger LOGGER = LogUtils.getLogger();
 	private final ClassInstanceMultiMap<T> storage;
+	/**
+	 * The entities of the section by their type, in the order they were added, so queries for a single
+	 * {@link EntityType} only visit entities of that type. Classes are indexed by {@link #storage}.
+	 */
+	private final Reference2ObjectOpenHashMap<EntityType<?>, List<T>> byType = new Reference2ObjectOpenHashMap<>();
 	private Visibility chunkStatus;
 
 	public EntitySection(Class<T> class_, Visibility visibility) {
@@ -21,10 +31,21 @@ public class EntitySection<T extends EntityAccess> {
 
 	public void add(T entityAccess) {
 		this.storage.add(entityAccess);
+		if (entityAccess instanceof Entity entity) {
+			((List)this.byType.computeIfAbsent(entity.getType(), entityType -> new ArrayList())).add(entityAccess);
+		}
 	}
 
 	public boolean remove(T entityAccess) {
-		return this.storage.remove(entityAccess);
+		boolean bl = this.storage.remove(entityAccess);
+		if (bl && entityAccess instanceof Entity entity) {
+			List<T> list = this.byType.get(entity.getType());
+			if (list != null && list.remove(entityAccess) && list.isEmpty()) {
+				this.byType.remove(entity.getType());
+			}
+		}
+
+		return bl;
 	}
 
 	public AbortableIterationConsumer.Continuation getEntities(AABB aABB, AbortableIterationConsumer<T> abortableIterationConsumer) {
@@ -40,7 +61,16 @@ public class EntitySection<T extends EntityAccess> {
 	public <U extends T> AbortableIterationConsumer.Continuation getEntities(
 		EntityTypeTest<T, U> entityTypeTest, AABB aABB, AbortableIterationConsumer<? super U> abortableIterationConsumer
 	) {
-		Collection<? extends T> collection = this.storage.find(entityTypeTest.getBaseClass());
+		Collection<? extends T> collection;
+		if (entityTypeTest instanceof EntityType<?> entityType) {
+			collection = this.byType.get(entityType);
+			if (collection == null) {
+				return AbortableIterationConsumer.Continuation.CONTINUE;
+			}
+		} else {
+			collection = this.storage.find(entityTypeTest.getBaseClass());
+		}
+
 		if (collection.isEmpty()) {
 			return AbortableIterationConsumer.Continuation.CONTINUE;
 		} else {
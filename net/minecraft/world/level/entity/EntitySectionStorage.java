@@ -17,6 +17,7 @@ import java.util.stream.StreamSupport;
 import net.minecraft.core.SectionPos;
 import net.minecraft.util.AbortableIterationConsumer;
 import net.minecraft.util.VisibleForDebug;
+import net.minecraft.util.profiling.Profiler;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.phys.AABB;
 import org.jetbrains.annotations.Nullable;
@@ -116,7 +117,12 @@ public class EntitySectionStorage<T extends EntityAccess> {
 		this.forEachAccessibleNonEmptySection(aABB, entitySection -> entitySection.getEntities(aABB, abortableIterationConsumer));
 	}
 
+	/**
+	 * Visits the entities passing the test in the box. Each query is counted as {@code getEntitiesOfType} in the
+	 * profiler zone of its caller, whose time includes the query.
+	 */
 	public <U extends T> void getEntities(EntityTypeTest<T, U> entityTypeTest, AABB aABB, AbortableIterationConsumer<U> abortableIterationConsumer) {
+		Profiler.get().incrementCounter("getEntitiesOfType");
 		this.forEachAccessibleNonEmptySection(aABB, entitySection -> entitySection.getEntities(entityTypeTest, aABB, abortableIterationConsumer));
 	}
 
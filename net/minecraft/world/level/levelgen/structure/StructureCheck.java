@@ -1,7 +1,11 @@
 package net.minecraft.world.level.levelgen.structure;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.gson.JsonElement;
 import com.mojang.datafixers.DataFixer;
 import com.mojang.logging.LogUtils;
+import com.mojang.serialization.JsonOps;
 import it.unimi.dsi.fastutil.longs.Long2BooleanFunction;
 import it.unimi.dsi.fastutil.longs.Long2BooleanMap;
 import it.unimi.dsi.fastutil.longs.Long2BooleanOpenHashMap;
@@ -10,9 +14,15 @@ import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import it.unimi.dsi.fastutil.objects.Object2IntMaps;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Map.Entry;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.Holder;
+import net.minecraft.core.HolderSet;
 import net.minecraft.core.Registry;
 import net.minecraft.core.RegistryAccess;
 import net.minecraft.core.registries.Registries;
@@ -20,6 +30,8 @@ import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.IntTag;
 import net.minecraft.nbt.visitors.CollectFields;
 import net.minecraft.nbt.visitors.FieldSelector;
+import net.minecraft.resources.RegistryDataLoader;
+import net.minecraft.resources.RegistryOps;
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.util.datafix.DataFixTypes;
@@ -39,6 +51,19 @@ import org.slf4j.Logger;
 public class StructureCheck {
 	private static final Logger LOGGER = LogUtils.getLogger();
 	private static final int NO_STRUCTURE = -1;
+	private static final Set<ResourceKey<? extends Registry<?>>> FINGERPRINTED_REGISTRIES = Set.of(
+		Registries.DIMENSION_TYPE,
+		Registries.BIOME,
+		Registries.STRUCTURE,
+		Registries.STRUCTURE_SET,
+		Registries.PROCESSOR_LIST,
+		Registries.TEMPLATE_POOL,
+		Registries.NOISE_SETTINGS,
+		Registries.NOISE,
+		Registries.DENSITY_FUNCTION,
+		Registries.MULTI_NOISE_BIOME_SOURCE_PARAMETER_LIST
+	);
+	private static volatile boolean startIndexEnabled;
 	private final ChunkScanAccess storageAccess;
 	private final RegistryAccess registryAccess;
 	private final StructureTemplateManager structureTemplateManager;
@@ -51,6 +76,9 @@ public class StructureCheck {
 	private final DataFixer fixerUpper;
 	private final Long2ObjectMap<Object2IntMap<Structure>> loadedChunks = new Long2ObjectOpenHashMap<>();
 	private final Map<Structure, Long2BooleanMap> featureChecks = new HashMap();
+	@Nullable
+	private final StructureStartIndex startIndex;
+	private final Registry<Structure> structures;
 
 	public StructureCheck(
 		ChunkScanAccess chunkScanAccess,
@@ -62,7 +90,8 @@ public class StructureCheck {
 		LevelHeightAccessor levelHeightAccessor,
 		BiomeSource biomeSource,
 		long l,
-		DataFixer dataFixer
+		DataFixer dataFixer,
+		@Nullable StructureStartIndex structureStartIndex
 	) {
 		this.storageAccess = chunkScanAccess;
 		this.registryAccess = registryAccess;
@@ -74,6 +103,80 @@ public class StructureCheck {
 		this.biomeSource = biomeSource;
 		this.seed = l;
 		this.fixerUpper = dataFixer;
+		this.structures = registryAccess.lookupOrThrow(Registries.STRUCTURE);
+		this.startIndex = structureStartIndex;
+		if (structureStartIndex != null) {
+			structureStartIndex.validate(fingerprint(registryAccess, structureTemplateManager.listTemplateSources(), chunkGenerator, l));
+		}
+	}
+
+	/**
+	 * Enables {@link StructureStartIndex}: whether a structure can start in a chunk is remembered across
+	 * restarts and shared with structure generation, instead of being recomputed for every check.
+	 */
+	public static void setStartIndexEnabled(boolean bl) {
+		startIndexEnabled = bl;
+	}
+
+	public static boolean isStartIndexEnabled() {
+		return startIndexEnabled;
+	}
+
+	/**
+	 * Hashes everything a structure start decision can depend on: the seed, data version and chunk generator,
+	 * every entry and tag of the worldgen registries structures read from, and the pack each structure
+	 * template is loaded from. Holders are encoded by id, so registry contents are hashed separately to
+	 * notice data packs that change a biome tag or noise settings without renaming them. Templates are only
+	 * tracked by source pack; editing a template file in place is not detected.
+	 */
+	static String fingerprint(RegistryAccess registryAccess, Map<ResourceLocation, String> map, ChunkGenerator chunkGenerator, long l) {
+		RegistryOps<JsonElement> registryOps = registryAccess.createSerializationContext(JsonOps.INSTANCE);
+		Hasher hasher = Hashing.sha256().newHasher();
+		hasher.putLong(l);
+		hasher.putInt(SharedConstants.getCurrentVersion().dataVersion().version());
+		putString(hasher, ChunkGenerator.CODEC.encodeStart(registryOps, chunkGenerator).result().map(Object::toString).orElse(""));
+
+		for (RegistryDataLoader.RegistryData<?> registryData : RegistryDataLoader.WORLDGEN_REGISTRIES) {
+			if (FINGERPRINTED_REGISTRIES.contains(registryData.key())) {
+				putRegistry(hasher, registryOps, registryAccess, registryData);
+			}
+		}
+
+		for (Entry<ResourceLocation, String> entry : map.entrySet().stream().sorted(Entry.comparingByKey()).toList()) {
+			putString(hasher, ((ResourceLocation)entry.getKey()).toString());
+			putString(hasher, (String)entry.getValue());
+		}
+
+		return hasher.hash().toString();
+	}
+
+	private static <T> void putRegistry(
+		Hasher hasher, RegistryOps<JsonElement> registryOps, RegistryAccess registryAccess, RegistryDataLoader.RegistryData<T> registryData
+	) {
+		putString(hasher, registryData.key().location().toString());
+		Optional<Registry<T>> optional = registryAccess.lookup(registryData.key());
+		if (optional.isPresent()) {
+			Registry<T> registry = (Registry<T>)optional.get();
+			hasher.putInt(registry.size());
+
+			for (Entry<ResourceKey<T>, T> entry : registry.entrySet().stream().sorted(Comparator.comparing(entryx -> ((ResourceKey)entryx.getKey()).location())).toList()) {
+				putString(hasher, ((ResourceKey)entry.getKey()).location().toString());
+				putString(hasher, registryData.elementCodec().encodeStart(registryOps, (T)entry.getValue()).result().map(Object::toString).orElse(""));
+			}
+
+			for (HolderSet.Named<T> named : registry.getTags().sorted(Comparator.comparing(namedx -> namedx.key().location())).toList()) {
+				putString(hasher, named.key().location().toString());
+				hasher.putInt(named.size());
+				named.stream().map(Holder::getRegisteredName).sorted().forEach(string -> putString(hasher, string));
+			}
+		} else {
+			hasher.putInt(-1);
+		}
+	}
+
+	private static void putString(Hasher hasher, String string) {
+		hasher.putInt(string.length());
+		hasher.putUnencodedChars(string);
 	}
 
 	public StructureCheckResult checkStart(ChunkPos chunkPos, Structure structure, StructurePlacement structurePlacement, boolean bl) {
@@ -89,12 +192,45 @@ public class StructureCheck {
 				return StructureCheckResult.START_NOT_PRESENT;
 			} else {
 				boolean bl2 = ((Long2BooleanMap)this.featureChecks.computeIfAbsent(structure, structurex -> new Long2BooleanOpenHashMap()))
-					.computeIfAbsent(l, (Long2BooleanFunction)(lx -> this.canCreateStructure(chunkPos, structure)));
+					.computeIfAbsent(l, (Long2BooleanFunction)(lx -> this.canCreateIndexedStructure(chunkPos, structure)));
 				return !bl2 ? StructureCheckResult.START_NOT_PRESENT : StructureCheckResult.CHUNK_LOAD_NEEDED;
 			}
 		}
 	}
 
+	private boolean canCreateIndexedStructure(ChunkPos chunkPos, Structure structure) {
+		byte b = this.getIndexedStart(chunkPos, structure);
+		if (b != StructureStartIndex.UNKNOWN) {
+			return b == StructureStartIndex.VALID;
+		} else {
+			boolean bl = this.canCreateStructure(chunkPos, structure);
+			this.recordStart(chunkPos, structure, bl);
+			return bl;
+		}
+	}
+
+	/**
+	 * Returns what {@link StructureStartIndex} knows about a start of {@code structure} in the chunk,
+	 * or {@link StructureStartIndex#UNKNOWN} if the index is disabled or has no entry.
+	 */
+	public byte getIndexedStart(ChunkPos chunkPos, Structure structure) {
+		if (this.startIndex == null) {
+			return StructureStartIndex.UNKNOWN;
+		} else {
+			ResourceLocation resourceLocation = this.structures.getKey(structure);
+			return resourceLocation == null ? StructureStartIndex.UNKNOWN : this.startIndex.get(resourceLocation, chunkPos.toLong());
+		}
+	}
+
+	public void recordStart(ChunkPos chunkPos, Structure structure, boolean bl) {
+		if (this.startIndex != null) {
+			ResourceLocation resourceLocation = this.structures.getKey(structure);
+			if (resourceLocation != null) {
+				this.startIndex.put(resourceLocation, chunkPos.toLong(), bl);
+			}
+		}
+	}
+
 	private boolean canCreateStructure(ChunkPos chunkPos, Structure structure) {
 		return structure.findValidGenerationPoint(
 				new Structure.GenerationContext(
@@ -0,0 +1,134 @@
+package net.minecraft.world.level.levelgen.structure;
+
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import it.unimi.dsi.fastutil.longs.Long2BooleanLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2BooleanMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.LongStream;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.util.datafix.DataFixTypes;
+import net.minecraft.world.level.saveddata.SavedData;
+import net.minecraft.world.level.saveddata.SavedDataType;
+
+/**
+ * Remembers, per structure and chunk, whether a structure start can be placed there: the outcome of
+ * {@link Structure#findValidGenerationPoint}, which samples biomes and terrain height and dominates the
+ * cost of {@code /locate}, explorer maps and structure generation. Entries are added lazily as chunks
+ * are checked or generated and persist with the dimension, so the same candidate is never evaluated
+ * twice.
+ *
+ * <p>The answers only hold for the generator they were computed with, so the index carries a fingerprint
+ * of the seed, data version, chunk generator and the worldgen registries and templates structures are
+ * built from, and drops every entry when it no longer matches. Each structure keeps at most
+ * {@link #MAX_ENTRIES_PER_STRUCTURE} chunks, evicting the least recently used ones. Entries are read and
+ * written from worldgen threads as well as the server thread.
+ */
+public class StructureStartIndex extends SavedData {
+	public static final byte UNKNOWN = -1;
+	public static final byte INVALID = 0;
+	public static final byte VALID = 1;
+	public static final int MAX_ENTRIES_PER_STRUCTURE = 262144;
+	private static final Codec<Long2BooleanMap> ENTRIES_CODEC = RecordCodecBuilder.create(
+		instance -> instance.group(
+				Codec.LONG_STREAM.optionalFieldOf("valid", LongStream.empty()).forGetter(long2BooleanMap -> select(long2BooleanMap, true)),
+				Codec.LONG_STREAM.optionalFieldOf("invalid", LongStream.empty()).forGetter(long2BooleanMap -> select(long2BooleanMap, false))
+			)
+			.apply(instance, (longStream, longStream2) -> {
+				Long2BooleanMap long2BooleanMap = new Long2BooleanLinkedOpenHashMap();
+				longStream.forEach(l -> long2BooleanMap.put(l, true));
+				longStream2.forEach(l -> long2BooleanMap.put(l, false));
+				return long2BooleanMap;
+			})
+	);
+	public static final Codec<StructureStartIndex> CODEC = RecordCodecBuilder.create(
+		instance -> instance.group(
+				Codec.STRING.optionalFieldOf("generator_hash", "").forGetter(structureStartIndex -> structureStartIndex.fingerprint),
+				Codec.unboundedMap(ResourceLocation.CODEC, ENTRIES_CODEC).fieldOf("structures").forGetter(StructureStartIndex::snapshot)
+			)
+			.apply(instance, StructureStartIndex::new)
+	);
+	public static final SavedDataType<StructureStartIndex> TYPE = new SavedDataType<>(
+		"structure_start_index", StructureStartIndex::new, CODEC, DataFixTypes.SAVED_DATA_STRUCTURE_START_INDEX
+	);
+	private String fingerprint = "";
+	private final Map<ResourceLocation, Long2BooleanLinkedOpenHashMap> entries = new HashMap();
+
+	public StructureStartIndex() {
+	}
+
+	private StructureStartIndex(String string, Map<ResourceLocation, Long2BooleanMap> map) {
+		this.fingerprint = string;
+		map.forEach((resourceLocation, long2BooleanMap) -> {
+			Long2BooleanLinkedOpenHashMap long2BooleanLinkedOpenHashMap = new Long2BooleanLinkedOpenHashMap(long2BooleanMap);
+			trim(long2BooleanLinkedOpenHashMap);
+			this.entries.put(resourceLocation, long2BooleanLinkedOpenHashMap);
+		});
+	}
+
+	private synchronized Map<ResourceLocation, Long2BooleanMap> snapshot() {
+		Map<ResourceLocation, Long2BooleanMap> map = new HashMap();
+		this.entries.forEach((resourceLocation, long2BooleanMap) -> map.put(resourceLocation, new Long2BooleanLinkedOpenHashMap(long2BooleanMap)));
+		return map;
+	}
+
+	private static LongStream select(Long2BooleanMap long2BooleanMap, boolean bl) {
+		LongArrayList longArrayList = new LongArrayList();
+		long2BooleanMap.long2BooleanEntrySet().forEach(entry -> {
+			if (entry.getBooleanValue() == bl) {
+				longArrayList.add(entry.getLongKey());
+			}
+		});
+		return longArrayList.longStream();
+	}
+
+	/**
+	 * Drops every entry unless they were computed for the generator described by the given fingerprint.
+	 */
+	public synchronized void validate(String string) {
+		if (!this.fingerprint.equals(string)) {
+			this.fingerprint = string;
+			this.entries.clear();
+			this.setDirty();
+		}
+	}
+
+	public synchronized byte get(ResourceLocation resourceLocation, long l) {
+		Long2BooleanLinkedOpenHashMap long2BooleanLinkedOpenHashMap = (Long2BooleanLinkedOpenHashMap)this.entries.get(resourceLocation);
+		if (long2BooleanLinkedOpenHashMap != null && long2BooleanLinkedOpenHashMap.containsKey(l)) {
+			return long2BooleanLinkedOpenHashMap.getAndMoveToLast(l) ? VALID : INVALID;
+		} else {
+			return UNKNOWN;
+		}
+	}
+
+	public synchronized void put(ResourceLocation resourceLocation, long l, boolean bl) {
+		Long2BooleanLinkedOpenHashMap long2BooleanLinkedOpenHashMap = (Long2BooleanLinkedOpenHashMap)this.entries
+			.computeIfAbsent(resourceLocation, resourceLocationx -> new Long2BooleanLinkedOpenHashMap());
+		if (!long2BooleanLinkedOpenHashMap.containsKey(l) || long2BooleanLinkedOpenHashMap.get(l) != bl) {
+			long2BooleanLinkedOpenHashMap.putAndMoveToLast(l, bl);
+			trim(long2BooleanLinkedOpenHashMap);
+			this.setDirty();
+		} else {
+			long2BooleanLinkedOpenHashMap.getAndMoveToLast(l);
+		}
+	}
+
+	private static void trim(Long2BooleanLinkedOpenHashMap long2BooleanLinkedOpenHashMap) {
+		while (long2BooleanLinkedOpenHashMap.size() > MAX_ENTRIES_PER_STRUCTURE) {
+			long2BooleanLinkedOpenHashMap.removeFirstBoolean();
+		}
+	}
+
+	public synchronized int size() {
+		int i = 0;
+
+		for (Long2BooleanLinkedOpenHashMap long2BooleanLinkedOpenHashMap : this.entries.values()) {
+			i += long2BooleanLinkedOpenHashMap.size();
+		}
+
+		return i;
+	}
+}
@@ -101,6 +101,16 @@ public class StructureTemplateManager {
 		return this.sources.stream().flatMap(source -> (Stream)source.lister().get()).distinct();
 	}
 
+	/**
+	 * Returns the pack each data pack template is loaded from, keyed by template id.
+	 */
+	public Map<ResourceLocation, String> listTemplateSources() {
+		Map<ResourceLocation, String> map = Maps.newHashMap();
+		RESOURCE_LISTER.listMatchingResources(this.resourceManager)
+			.forEach((resourceLocation, resource) -> map.put(RESOURCE_LISTER.fileToId(resourceLocation), resource.sourcePackId()));
+		return map;
+	}
+
 	private Optional<StructureTemplate> tryLoad(ResourceLocation resourceLocation) {
 		for (StructureTemplateManager.Source source : this.sources) {
 			try {
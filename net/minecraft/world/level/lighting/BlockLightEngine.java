@@ -52,7 +52,16 @@ public final class BlockLightEngine extends LightEngine<BlockLightSectionStorage
 				if (this.storage.storingLightForSection(SectionPos.blockToSection(n))) {
 					int j = this.storage.getStoredLevel(n);
 					int k = i - 1;
-					if (k > j) {
+					if (k > j && this.useOpacityMaps) {
+						int q = this.getLightProperties(n);
+						int o = i - LightEngine.OpacityMap.getOpacity(q);
+						if (o > j && this.canPropagateInto(l, m, n, q, direction)) {
+							this.storage.setStoredLevel(n, o);
+							if (o > 1) {
+								this.enqueueIncrease(n, LightEngine.QueueEntry.increaseSkipOneDirection(o, LightEngine.OpacityMap.isEmptyShape(q), direction.getOpposite()));
+							}
+						}
+					} else if (k > j) {
 						this.mutablePos.set(n);
 						BlockState blockState2 = this.getState(this.mutablePos);
 						int o = i - this.getOpacity(blockState2);
@@ -1,5 +1,8 @@
 package net.minecraft.world.level.lighting;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.SectionPos;
 import net.minecraft.world.level.ChunkPos;
@@ -60,6 +63,47 @@ public class LevelLightEngine implements LightEventListener {
 		return i;
 	}
 
+	/**
+	 * Same as {@link #runLightUpdates()}, but runs the block layer on {@code executor} while the sky layer runs on
+	 * the calling thread. The two layers keep separate queues and storage and only read the chunks, so each ends
+	 * up with exactly the data it would have had when run one after the other. If no worker has picked up the
+	 * block layer by the time the sky layer is done, the calling thread runs it itself.
+	 */
+	protected int runLightUpdates(Executor executor) {
+		if (this.blockEngine != null && this.skyEngine != null && this.blockEngine.hasLightWork() && this.skyEngine.hasLightWork()) {
+			FutureTask<Integer> futureTask = new FutureTask<>(this.blockEngine::runLightUpdates);
+			executor.execute(futureTask);
+			int i = this.skyEngine.runLightUpdates();
+			futureTask.run();
+
+			try {
+				return futureTask.get() + i;
+			} catch (InterruptedException var5) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for block light updates", var5);
+			} catch (ExecutionException var6) {
+				if (var6.getCause() instanceof RuntimeException runtimeException) {
+					throw runtimeException;
+				} else if (var6.getCause() instanceof Error error) {
+					throw error;
+				} else {
+					throw new IllegalStateException(var6.getCause());
+				}
+			}
+		} else {
+			int j = 0;
+			if (this.blockEngine != null) {
+				j += this.blockEngine.runLightUpdates();
+			}
+
+			if (this.skyEngine != null) {
+				j += this.skyEngine.runLightUpdates();
+			}
+
+			return j;
+		}
+	}
+
 	@Override
 	public void updateSectionStatus(SectionPos sectionPos, boolean bl) {
 		if (this.blockEngine != null) {
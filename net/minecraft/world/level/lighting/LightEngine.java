@@ -1,8 +1,10 @@
 package net.minecraft.world.level.lighting;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
 import it.unimi.dsi.fastutil.longs.LongIterator;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import java.util.ArrayDeque;
 import java.util.Arrays;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
@@ -10,9 +12,14 @@ import net.minecraft.core.SectionPos;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.ChunkAccess;
 import net.minecraft.world.level.chunk.DataLayer;
+import net.minecraft.world.level.chunk.ImposterProtoChunk;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
 import net.minecraft.world.level.chunk.LightChunk;
 import net.minecraft.world.level.chunk.LightChunkGetter;
+import net.minecraft.world.level.chunk.ProtoChunk;
 import net.minecraft.world.phys.shapes.Shapes;
 import net.minecraft.world.phys.shapes.VoxelShape;
 import org.jetbrains.annotations.Nullable;
@@ -31,11 +38,31 @@ public abstract class LightEngine<M extends DataLayerStorageMap<M>, S extends La
 	private static final int CACHE_SIZE = 2;
 	private final long[] lastChunkPos = new long[2];
 	private final LightChunk[] lastChunk = new LightChunk[2];
+	private static final int MAX_FREE_OPACITY_MAPS = 64;
+	private static volatile boolean opacityMapsEnabled;
+	protected final boolean useOpacityMaps = opacityMapsEnabled;
+	private final Long2ObjectOpenHashMap<byte[]> opacityMaps = new Long2ObjectOpenHashMap<>();
+	private final ArrayDeque<byte[]> freeOpacityMaps = new ArrayDeque<>();
+	@Nullable
+	private byte[] emptyOpacityMap;
+	private long lastOpacityMapPos;
+	@Nullable
+	private byte[] lastOpacityMap;
 
 	protected LightEngine(LightChunkGetter lightChunkGetter, S layerLightSectionStorage) {
 		this.chunkSource = lightChunkGetter;
 		this.storage = layerLightSectionStorage;
 		this.clearChunkCache();
+		this.clearOpacityMaps();
+	}
+
+	/**
+	 * Enables the opacity maps used by {@link #propagateIncrease} in engines created afterwards: the light properties of
+	 * a section's blocks are read once from its palette per run of {@link #runLightUpdates()}, so most propagation steps
+	 * need no block state lookup.
+	 */
+	public static void setOpacityMapsEnabled(boolean bl) {
+		opacityMapsEnabled = bl;
 	}
 
 	public static boolean hasDifferentLightProperties(BlockState blockState, BlockState blockState2) {
@@ -111,6 +138,92 @@ public abstract class LightEngine<M extends DataLayerStorageMap<M>, S extends La
 		Arrays.fill(this.lastChunk, null);
 	}
 
+	/**
+	 * Returns the light properties of the block at {@code l} packed as by {@link LightEngine.OpacityMap#pack}, from the
+	 * opacity map of its section when there is one.
+	 */
+	protected int getLightProperties(long l) {
+		long m = SectionPos.blockToSection(l);
+		byte[] bs;
+		if (m == this.lastOpacityMapPos) {
+			bs = this.lastOpacityMap;
+		} else {
+			bs = this.opacityMaps.get(m);
+			if (bs == null && !this.opacityMaps.containsKey(m)) {
+				bs = this.createOpacityMap(m);
+				this.opacityMaps.put(m, bs);
+			}
+
+			this.lastOpacityMapPos = m;
+			this.lastOpacityMap = bs;
+		}
+
+		return bs != null
+			? bs[SectionPos.sectionRelative(BlockPos.getY(l)) << 8 | SectionPos.sectionRelative(BlockPos.getZ(l)) << 4 | SectionPos.sectionRelative(BlockPos.getX(l))]
+			: LightEngine.OpacityMap.pack(this.getState(BlockPos.of(l)));
+	}
+
+	/**
+	 * Returns whether light can pass from {@code l} into its neighbour {@code n} in {@code direction}, given the
+	 * queue entry {@code m} of {@code l} and the light properties {@code i} of {@code n}. Only looks up block states
+	 * when one of the two blocks uses its shape for light occlusion.
+	 */
+	protected boolean canPropagateInto(long l, long m, long n, int i, Direction direction) {
+		boolean bl = LightEngine.QueueEntry.isFromEmptyShape(m);
+		if (LightEngine.OpacityMap.isEmptyShape(i) && (bl || LightEngine.OpacityMap.isEmptyShape(this.getLightProperties(l)))) {
+			return true;
+		} else {
+			BlockState blockState = bl ? Blocks.AIR.defaultBlockState() : this.getState(BlockPos.of(l));
+			return !this.shapeOccludes(blockState, this.getState(BlockPos.of(n)), direction);
+		}
+	}
+
+	@Nullable
+	private byte[] createOpacityMap(long l) {
+		LightChunk lightChunk = this.getChunk(SectionPos.x(l), SectionPos.z(l));
+		if (lightChunk instanceof ImposterProtoChunk imposterProtoChunk) {
+			lightChunk = imposterProtoChunk.getWrapped();
+		}
+
+		if (lightChunk instanceof ProtoChunk || lightChunk instanceof LevelChunk levelChunk && !levelChunk.getLevel().isDebug()) {
+			ChunkAccess chunkAccess = (ChunkAccess)lightChunk;
+			int i = chunkAccess.getSectionIndexFromSectionY(SectionPos.y(l));
+			if (i >= 0 && i < chunkAccess.getSectionsCount()) {
+				LevelChunkSection levelChunkSection = chunkAccess.getSection(i);
+				if (levelChunkSection.hasOnlyAir()) {
+					if (this.emptyOpacityMap == null) {
+						this.emptyOpacityMap = new byte[4096];
+						Arrays.fill(this.emptyOpacityMap, (byte)LightEngine.OpacityMap.pack(Blocks.AIR.defaultBlockState()));
+					}
+
+					return this.emptyOpacityMap;
+				} else {
+					byte[] bs = this.freeOpacityMaps.poll();
+					if (bs == null) {
+						bs = new byte[4096];
+					}
+
+					levelChunkSection.getStates().mapAll(LightEngine.OpacityMap::pack, bs);
+					return bs;
+				}
+			}
+		}
+
+		return null;
+	}
+
+	private void clearOpacityMaps() {
+		for (byte[] bs : this.opacityMaps.values()) {
+			if (bs != null && bs != this.emptyOpacityMap && this.freeOpacityMaps.size() < MAX_FREE_OPACITY_MAPS) {
+				this.freeOpacityMaps.add(bs);
+			}
+		}
+
+		this.opacityMaps.clear();
+		this.lastOpacityMapPos = Long.MAX_VALUE;
+		this.lastOpacityMap = null;
+	}
+
 	@Override
 	public void checkBlock(BlockPos blockPos) {
 		this.blockNodesToCheck.add(blockPos.asLong());
@@ -148,6 +261,7 @@ public abstract class LightEngine<M extends DataLayerStorageMap<M>, S extends La
 		i += this.propagateDecreases();
 		i += this.propagateIncreases();
 		this.clearChunkCache();
+		this.clearOpacityMaps();
 		this.storage.markNewInconsistencies(this);
 		this.storage.swapSectionMap();
 		return i;
@@ -224,6 +338,28 @@ public abstract class LightEngine<M extends DataLayerStorageMap<M>, S extends La
 
 	protected abstract void propagateDecrease(long l, long m);
 
+	/**
+	 * The light properties propagation needs from a block state, packed into a byte: the opacity light loses when
+	 * entering the block in the low four bits, and whether the block has no shape for light occlusion above them.
+	 */
+	public static class OpacityMap {
+		private static final int OPACITY_MASK = 15;
+		private static final int FLAG_EMPTY_SHAPE = 16;
+
+		public static int pack(BlockState blockState) {
+			int i = Math.max(1, blockState.getLightBlock());
+			return LightEngine.isEmptyShape(blockState) ? i | FLAG_EMPTY_SHAPE : i;
+		}
+
+		public static int getOpacity(int i) {
+			return i & OPACITY_MASK;
+		}
+
+		public static boolean isEmptyShape(int i) {
+			return (i & FLAG_EMPTY_SHAPE) != 0;
+		}
+	}
+
 	public static class QueueEntry {
 		private static final int FROM_LEVEL_BITS = 4;
 		private static final int DIRECTION_BITS = 6;
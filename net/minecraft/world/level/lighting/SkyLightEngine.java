@@ -144,7 +144,18 @@ public final class SkyLightEngine extends LightEngine<SkyLightSectionStorage.Sky
 				if (this.storage.storingLightForSection(SectionPos.blockToSection(n))) {
 					int k = this.storage.getStoredLevel(n);
 					int o = i - 1;
-					if (o > k) {
+					if (o > k && this.useOpacityMaps) {
+						int q = this.getLightProperties(n);
+						int p = i - LightEngine.OpacityMap.getOpacity(q);
+						if (p > k && this.canPropagateInto(l, m, n, q, direction)) {
+							this.storage.setStoredLevel(n, p);
+							if (p > 1) {
+								this.enqueueIncrease(n, LightEngine.QueueEntry.increaseSkipOneDirection(p, LightEngine.OpacityMap.isEmptyShape(q), direction.getOpposite()));
+							}
+
+							this.propagateFromEmptySections(n, direction, p, true, j);
+						}
+					} else if (o > k) {
 						this.mutablePos.set(n);
 						BlockState blockState2 = this.getState(this.mutablePos);
 						int p = i - this.getOpacity(blockState2);
@@ -11,6 +11,7 @@ public class AmphibiousNodeEvaluator extends WalkNodeEvaluator {
 	private final boolean prefersShallowSwimming;
 	private float oldWalkableCost;
 	private float oldWaterBorderCost;
+	private int seaLevel;
 
 	public AmphibiousNodeEvaluator(boolean bl) {
 		this.prefersShallowSwimming = bl;
@@ -27,10 +28,16 @@ public class AmphibiousNodeEvaluator extends WalkNodeEvaluator {
 	}
 
 	@Override
-	public void done() {
+	protected void captureMob() {
+		super.captureMob();
+		this.seaLevel = this.mob.level().getSeaLevel();
+	}
+
+	@Override
+	protected void restoreMob() {
 		this.mob.setPathfindingMalus(PathType.WALKABLE, this.oldWalkableCost);
 		this.mob.setPathfindingMalus(PathType.WATER_BORDER, this.oldWaterBorderCost);
-		super.done();
+		super.restoreMob();
 	}
 
 	@Override
@@ -53,8 +60,8 @@ public class AmphibiousNodeEvaluator extends WalkNodeEvaluator {
 		PathType pathType = this.getCachedPathType(node.x, node.y + 1, node.z);
 		PathType pathType2 = this.getCachedPathType(node.x, node.y, node.z);
 		int j;
-		if (this.mob.getPathfindingMalus(pathType) >= 0.0F && pathType2 != PathType.STICKY_HONEY) {
-			j = Mth.floor(Math.max(1.0F, this.mob.maxUpStep()));
+		if (this.getPathfindingMalus(pathType) >= 0.0F && pathType2 != PathType.STICKY_HONEY) {
+			j = Mth.floor(Math.max(1.0F, this.maxUpStep));
 		} else {
 			j = 0;
 		}
@@ -72,7 +79,7 @@ public class AmphibiousNodeEvaluator extends WalkNodeEvaluator {
 
 		for (int k = 0; k < i; k++) {
 			Node node4 = nodes[k];
-			if (node4.type == PathType.WATER && this.prefersShallowSwimming && node4.y < this.mob.level().getSeaLevel() - 10) {
+			if (node4.type == PathType.WATER && this.prefersShallowSwimming && node4.y < this.seaLevel - 10) {
 				node4.costMalus++;
 			}
 		}
@@ -27,8 +27,12 @@ public class FlyNodeEvaluator extends WalkNodeEvaluator {
 	}
 
 	@Override
-	public void done() {
+	protected void restoreMob() {
 		this.mob.onPathfindingDone();
+	}
+
+	@Override
+	public void done() {
 		this.pathTypeByPosCache.clear();
 		super.done();
 	}
@@ -65,7 +69,7 @@ public class FlyNodeEvaluator extends WalkNodeEvaluator {
 	@Override
 	protected boolean canStartAt(BlockPos blockPos) {
 		PathType pathType = this.getCachedPathType(blockPos.getX(), blockPos.getY(), blockPos.getZ());
-		return this.mob.getPathfindingMalus(pathType) >= 0.0F;
+		return this.getPathfindingMalus(pathType) >= 0.0F;
 	}
 
 	@Override
@@ -269,7 +273,7 @@ public class FlyNodeEvaluator extends WalkNodeEvaluator {
 	protected Node findAcceptedNode(int i, int j, int k) {
 		Node node = null;
 		PathType pathType = this.getCachedPathType(i, j, k);
-		float f = this.mob.getPathfindingMalus(pathType);
+		float f = this.getPathfindingMalus(pathType);
 		if (f >= 0.0F) {
 			node = this.getNode(i, j, k);
 			node.type = pathType;
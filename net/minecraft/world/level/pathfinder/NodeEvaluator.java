@@ -7,12 +7,21 @@ import net.minecraft.core.BlockPos;
 import net.minecraft.tags.BlockTags;
 import net.minecraft.util.Mth;
 import net.minecraft.world.entity.Mob;
+import net.minecraft.world.level.BlockCollisions;
 import net.minecraft.world.level.PathNavigationRegion;
 import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.CampfireBlock;
 import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.border.WorldBorder;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.Vec3;
+import net.minecraft.world.phys.shapes.BooleanOp;
+import net.minecraft.world.phys.shapes.CollisionContext;
+import net.minecraft.world.phys.shapes.Shapes;
+import net.minecraft.world.phys.shapes.VoxelShape;
 
 public abstract class NodeEvaluator {
+	private static final PathType[] PATH_TYPES = PathType.values();
 	protected PathfindingContext currentContext;
 	protected Mob mob;
 	protected final Int2ObjectMap<Node> nodes = new Int2ObjectOpenHashMap<>();
@@ -23,6 +32,14 @@ public abstract class NodeEvaluator {
 	protected boolean canOpenDoors;
 	protected boolean canFloat;
 	protected boolean canWalkOverFences;
+	private final float[] pathfindingMalus = new float[PATH_TYPES.length];
+	protected float mobWidth;
+	protected float mobHeight;
+	protected float maxUpStep;
+	protected int maxFallDistance;
+	protected AABB mobBoundingBox;
+	protected Vec3 mobPosition;
+	private CollisionContext collisionContext;
 
 	public void prepare(PathNavigationRegion pathNavigationRegion, Mob mob) {
 		this.currentContext = new PathfindingContext(pathNavigationRegion, mob);
@@ -33,9 +50,69 @@ public abstract class NodeEvaluator {
 		this.entityDepth = Mth.floor(mob.getBbWidth() + 1.0F);
 	}
 
+	/**
+	 * Copies what the search reads from the mob once every override of {@link #prepare} has set it up. Apart from
+	 * finding the start and target nodes, the search reads only these copies and never the mob itself, so the rest of
+	 * it may run on another thread.
+	 */
+	protected void captureMob() {
+		for (PathType pathType : PATH_TYPES) {
+			this.pathfindingMalus[pathType.ordinal()] = this.mob.getPathfindingMalus(pathType);
+		}
+
+		this.mobWidth = this.mob.getBbWidth();
+		this.mobHeight = this.mob.getBbHeight();
+		this.maxUpStep = this.mob.maxUpStep();
+		this.maxFallDistance = this.mob.getMaxFallDistance();
+		this.mobBoundingBox = this.mob.getBoundingBox();
+		this.mobPosition = this.mob.position();
+		this.collisionContext = CollisionContext.of(this.mob);
+	}
+
+	/**
+	 * Undoes what preparing the search changed on the mob. Called once the start and target nodes are found.
+	 */
+	protected void restoreMob() {
+	}
+
 	public void done() {
 		this.currentContext = null;
 		this.mob = null;
+		this.collisionContext = null;
+	}
+
+	/**
+	 * Returns the malus the mob had for the path type when the search was prepared.
+	 */
+	protected float getPathfindingMalus(PathType pathType) {
+		return this.pathfindingMalus[pathType.ordinal()];
+	}
+
+	protected float getPathfindingMalus(Mob mob, PathType pathType) {
+		return mob == this.mob ? this.getPathfindingMalus(pathType) : mob.getPathfindingMalus(pathType);
+	}
+
+	/**
+	 * Checks the box for collisions like {@link net.minecraft.world.level.CollisionGetter#noCollision(net.minecraft.world.entity.Entity, AABB)}
+	 * does for the mob, but where the mob was when the search was prepared. Path navigation regions have no entities
+	 * to collide with.
+	 */
+	protected boolean noCollision(AABB aABB) {
+		BlockCollisions<VoxelShape> blockCollisions = new BlockCollisions<>(
+			this.currentContext.level(), this.collisionContext, aABB, false, (mutableBlockPos, voxelShape) -> voxelShape
+		);
+
+		while (blockCollisions.hasNext()) {
+			if (!blockCollisions.next().isEmpty()) {
+				return false;
+			}
+		}
+
+		WorldBorder worldBorder = this.currentContext.level().getWorldBorder();
+		double d = Math.max(Mth.absMax(aABB.getXsize(), aABB.getZsize()), 1.0);
+		return !(worldBorder.getDistanceToBorder(this.mobPosition.x, this.mobPosition.z) < d * 2.0)
+			|| !worldBorder.isWithinBounds(this.mobPosition.x, this.mobPosition.z, d)
+			|| !Shapes.joinIsNotEmpty(worldBorder.getCollisionShape(), Shapes.create(aABB), BooleanOp.AND);
 	}
 
 	protected Node getNode(BlockPos blockPos) {
@@ -40,22 +40,45 @@ public class PathFinder {
 		this.maxVisitedNodes = i;
 	}
 
+	public NodeEvaluator getNodeEvaluator() {
+		return this.nodeEvaluator;
+	}
+
 	@Nullable
 	public Path findPath(PathNavigationRegion pathNavigationRegion, Mob mob, Set<BlockPos> set, float f, int i, float g) {
+		PathFinder.PreparedSearch preparedSearch = this.prepareSearch(pathNavigationRegion, mob, set);
+		return preparedSearch == null ? null : this.findPath(preparedSearch, f, i, g);
+	}
+
+	/**
+	 * Prepares the node evaluator and finds the start and target nodes, which is everything of a search that reads the
+	 * mob. The rest of it, see {@link #findPath(PathFinder.PreparedSearch, float, int, float)}, only reads the region
+	 * and may run on another thread if the region is a {@linkplain PathNavigationRegion#copyOf copy}. Returns
+	 * {@code null} if there is no start node.
+	 */
+	@Nullable
+	public PathFinder.PreparedSearch prepareSearch(PathNavigationRegion pathNavigationRegion, Mob mob, Set<BlockPos> set) {
 		this.openSet.clear();
 		this.nodeEvaluator.prepare(pathNavigationRegion, mob);
+		this.nodeEvaluator.captureMob();
 		Node node = this.nodeEvaluator.getStart();
 		if (node == null) {
 			return null;
 		} else {
 			Map<Target, BlockPos> map = (Map<Target, BlockPos>)set.stream()
 				.collect(Collectors.toMap(blockPos -> this.nodeEvaluator.getTarget(blockPos.getX(), blockPos.getY(), blockPos.getZ()), Function.identity()));
-			Path path = this.findPath(node, map, f, i, g);
-			this.nodeEvaluator.done();
-			return path;
+			this.nodeEvaluator.restoreMob();
+			return new PathFinder.PreparedSearch(pathNavigationRegion, node, map);
 		}
 	}
 
+	@Nullable
+	public Path findPath(PathFinder.PreparedSearch preparedSearch, float f, int i, float g) {
+		Path path = this.findPath(preparedSearch.start(), preparedSearch.targets(), f, i, g);
+		this.nodeEvaluator.done();
+		return path;
+	}
+
 	@Nullable
 	private Path findPath(Node node, Map<Target, BlockPos> map, float f, int i, float g) {
 		ProfilerFiller profilerFiller = Profiler.get();
@@ -167,4 +190,7 @@ public class PathFinder {
 
 		return new Path(list, blockPos, bl);
 	}
+
+	public record PreparedSearch(PathNavigationRegion region, Node start, Map<Target, BlockPos> targets) {
+	}
 }
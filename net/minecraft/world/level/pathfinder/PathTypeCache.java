@@ -1,44 +1,128 @@
 package net.minecraft.world.level.pathfinder;
 
-import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
 import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.ChunkPos;
 import org.jetbrains.annotations.Nullable;
 
+/**
+ * Path types of a level, shared by every mob searching in it, cached per section.
+ * <p>
+ * Each block packs two types into a {@code short}: the low byte holds the type of its state alone, see
+ * {@link WalkNodeEvaluator#getPathTypeFromState}, and the high byte the type seen by a walking mob, which also
+ * depends on the block below and on dangers in the 26 neighbours, see {@link WalkNodeEvaluator#getPathTypeStatic}.
+ * Each byte is the ordinal plus one, so zero means not computed yet. A changed block clears its own state type and
+ * the walking types of its neighbourhood.
+ * </p>
+ * <p>
+ * At most {@link #MAX_SECTIONS} sections are kept. The least recently used section is evicted when a new one is
+ * needed. The cache may only be used by the server thread.
+ * </p>
+ */
 public class PathTypeCache {
-	private static final int SIZE = 4096;
-	private static final int MASK = 4095;
-	private final long[] positions = new long[4096];
-	private final PathType[] pathTypes = new PathType[4096];
+	private static final int MAX_SECTIONS = 512;
+	private static final PathType[] TYPES = PathType.values();
+	private final Long2ObjectLinkedOpenHashMap<short[]> sections = new Long2ObjectLinkedOpenHashMap<>();
+	private long lastSectionKey = Long.MAX_VALUE;
+	@Nullable
+	private short[] lastSection;
 
 	public PathType getOrCompute(BlockGetter blockGetter, BlockPos blockPos) {
-		long l = blockPos.asLong();
-		int i = index(l);
-		PathType pathType = this.get(i, l);
-		return pathType != null ? pathType : this.compute(blockGetter, blockPos, i, l);
+		short[] ss = this.getOrCreateSection(blockPos.getX(), blockPos.getY(), blockPos.getZ());
+		int i = index(blockPos.getX(), blockPos.getY(), blockPos.getZ());
+		int j = ss[i] & 255;
+		if (j != 0) {
+			return TYPES[j - 1];
+		} else {
+			PathType pathType = WalkNodeEvaluator.getPathTypeFromState(blockGetter, blockPos);
+			ss[i] = (short)(ss[i] & -256 | pathType.ordinal() + 1);
+			return pathType;
+		}
 	}
 
-	@Nullable
-	private PathType get(int i, long l) {
-		return this.positions[i] == l ? this.pathTypes[i] : null;
+	/**
+	 * Returns the type of the block for a walking mob, computing it with the context if it is not cached.
+	 */
+	public PathType getOrComputeWalkable(PathfindingContext pathfindingContext, int i, int j, int k) {
+		short[] ss = this.getOrCreateSection(i, j, k);
+		int l = index(i, j, k);
+		int m = ss[l] >> 8 & 255;
+		if (m != 0) {
+			return TYPES[m - 1];
+		} else {
+			PathType pathType = WalkNodeEvaluator.computePathTypeStatic(pathfindingContext, i, j, k);
+			ss = this.getOrCreateSection(i, j, k);
+			ss[l] = (short)(ss[l] & 255 | pathType.ordinal() + 1 << 8);
+			return pathType;
+		}
 	}
 
-	private PathType compute(BlockGetter blockGetter, BlockPos blockPos, int i, long l) {
-		PathType pathType = WalkNodeEvaluator.getPathTypeFromState(blockGetter, blockPos);
-		this.positions[i] = l;
-		this.pathTypes[i] = pathType;
-		return pathType;
+	public void invalidate(BlockPos blockPos) {
+		if (!this.sections.isEmpty()) {
+			int i = blockPos.getX();
+			int j = blockPos.getY();
+			int k = blockPos.getZ();
+
+			for (int l = -1; l <= 1; l++) {
+				for (int m = -1; m <= 1; m++) {
+					for (int n = -1; n <= 1; n++) {
+						short[] ss = this.getSection(i + l, j + m, k + n);
+						if (ss != null) {
+							int o = index(i + l, j + m, k + n);
+							ss[o] = (short)(l == 0 && m == 0 && n == 0 ? 0 : ss[o] & 255);
+						}
+					}
+				}
+			}
+		}
 	}
 
-	public void invalidate(BlockPos blockPos) {
-		long l = blockPos.asLong();
-		int i = index(l);
-		if (this.positions[i] == l) {
-			this.pathTypes[i] = null;
+	/**
+	 * Drops the sections of a chunk that was loaded or unloaded, since searches read missing chunks as empty, and of
+	 * its neighbours, whose walking types near the border look into it.
+	 */
+	public void invalidateChunk(ChunkPos chunkPos) {
+		if (!this.sections.isEmpty()) {
+			this.sections.keySet().removeIf((long l) -> Math.abs(SectionPos.x(l) - chunkPos.x) <= 1 && Math.abs(SectionPos.z(l) - chunkPos.z) <= 1);
+			this.lastSectionKey = Long.MAX_VALUE;
+			this.lastSection = null;
+		}
+	}
+
+	public int size() {
+		return this.sections.size();
+	}
+
+	@Nullable
+	private short[] getSection(int i, int j, int k) {
+		long l = SectionPos.asLong(SectionPos.blockToSectionCoord(i), SectionPos.blockToSectionCoord(j), SectionPos.blockToSectionCoord(k));
+		return l == this.lastSectionKey ? this.lastSection : this.sections.get(l);
+	}
+
+	private short[] getOrCreateSection(int i, int j, int k) {
+		long l = SectionPos.asLong(SectionPos.blockToSectionCoord(i), SectionPos.blockToSectionCoord(j), SectionPos.blockToSectionCoord(k));
+		if (l == this.lastSectionKey) {
+			return this.lastSection;
+		} else {
+			short[] ss = this.sections.getAndMoveToFirst(l);
+			if (ss == null) {
+				if (this.sections.size() >= MAX_SECTIONS) {
+					this.sections.removeLast();
+				}
+
+				ss = new short[4096];
+				this.sections.putAndMoveToFirst(l, ss);
+			}
+
+			this.lastSectionKey = l;
+			this.lastSection = ss;
+			return ss;
 		}
 	}
 
-	private static int index(long l) {
-		return (int)HashCommon.mix(l) & 4095;
+	private static int index(int i, int j, int k) {
+		return (j & 15) << 8 | (k & 15) << 4 | i & 15;
 	}
 }
@@ -4,6 +4,7 @@ import net.minecraft.core.BlockPos;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.entity.Mob;
 import net.minecraft.world.level.CollisionGetter;
+import net.minecraft.world.level.PathNavigationRegion;
 import net.minecraft.world.level.block.state.BlockState;
 import org.jetbrains.annotations.Nullable;
 
@@ -16,7 +17,9 @@ public class PathfindingContext {
 
 	public PathfindingContext(CollisionGetter collisionGetter, Mob mob) {
 		this.level = collisionGetter;
-		if (mob.level() instanceof ServerLevel serverLevel) {
+		if (!(collisionGetter instanceof PathNavigationRegion pathNavigationRegion && pathNavigationRegion.isCopy())
+			&& mob.level() instanceof ServerLevel serverLevel
+			&& serverLevel.getServer().isSameThread()) {
 			this.cache = serverLevel.getPathTypeCache();
 		} else {
 			this.cache = null;
@@ -25,11 +28,24 @@ public class PathfindingContext {
 		this.mobPosition = mob.blockPosition();
 	}
 
+	public PathfindingContext(CollisionGetter collisionGetter, @Nullable PathTypeCache pathTypeCache, BlockPos blockPos) {
+		this.level = collisionGetter;
+		this.cache = pathTypeCache;
+		this.mobPosition = blockPos;
+	}
+
 	public PathType getPathTypeFromState(int i, int j, int k) {
 		BlockPos blockPos = this.mutablePos.set(i, j, k);
 		return this.cache == null ? WalkNodeEvaluator.getPathTypeFromState(this.level, blockPos) : this.cache.getOrCompute(this.level, blockPos);
 	}
 
+	/**
+	 * Returns the type of the block for a walking mob, see {@link WalkNodeEvaluator#getPathTypeStatic}.
+	 */
+	public PathType getWalkablePathType(int i, int j, int k) {
+		return this.cache == null ? WalkNodeEvaluator.computePathTypeStatic(this, i, j, k) : this.cache.getOrComputeWalkable(this, i, j, k);
+	}
+
 	public BlockState getBlockState(BlockPos blockPos) {
 		return this.level.getBlockState(blockPos);
 	}
@@ -84,7 +84,7 @@ public class SwimNodeEvaluator extends NodeEvaluator {
 		Node node = null;
 		PathType pathType = this.getCachedBlockType(i, j, k);
 		if (this.allowBreaching && pathType == PathType.BREACH || pathType == PathType.WATER) {
-			float f = this.mob.getPathfindingMalus(pathType);
+			float f = this.getPathfindingMalus(pathType);
 			if (f >= 0.0F) {
 				node = this.getNode(i, j, k);
 				node.type = pathType;
@@ -44,8 +44,12 @@ public class WalkNodeEvaluator extends NodeEvaluator {
 	}
 
 	@Override
-	public void done() {
+	protected void restoreMob() {
 		this.mob.onPathfindingDone();
+	}
+
+	@Override
+	public void done() {
 		this.pathTypesByPosCacheByMob.clear();
 		this.collisionCache.clear();
 		super.done();
@@ -105,13 +109,13 @@ public class WalkNodeEvaluator extends NodeEvaluator {
 	protected Node getStartNode(BlockPos blockPos) {
 		Node node = this.getNode(blockPos);
 		node.type = this.getCachedPathType(node.x, node.y, node.z);
-		node.costMalus = this.mob.getPathfindingMalus(node.type);
+		node.costMalus = this.getPathfindingMalus(node.type);
 		return node;
 	}
 
 	protected boolean canStartAt(BlockPos blockPos) {
 		PathType pathType = this.getCachedPathType(blockPos.getX(), blockPos.getY(), blockPos.getZ());
-		return pathType != PathType.OPEN && this.mob.getPathfindingMalus(pathType) >= 0.0F;
+		return pathType != PathType.OPEN && this.getPathfindingMalus(pathType) >= 0.0F;
 	}
 
 	@Override
@@ -125,8 +129,8 @@ public class WalkNodeEvaluator extends NodeEvaluator {
 		int j = 0;
 		PathType pathType = this.getCachedPathType(node.x, node.y + 1, node.z);
 		PathType pathType2 = this.getCachedPathType(node.x, node.y, node.z);
-		if (this.mob.getPathfindingMalus(pathType) >= 0.0F && pathType2 != PathType.STICKY_HONEY) {
-			j = Mth.floor(Math.max(1.0F, this.mob.maxUpStep()));
+		if (this.getPathfindingMalus(pathType) >= 0.0F && pathType2 != PathType.STICKY_HONEY) {
+			j = Mth.floor(Math.max(1.0F, this.maxUpStep));
 		}
 
 		double d = this.getFloorLevel(new BlockPos(node.x, node.y, node.z));
@@ -162,7 +166,7 @@ public class WalkNodeEvaluator extends NodeEvaluator {
 		if (node3 == null || node2 == null || node3.y > node.y || node2.y > node.y) {
 			return false;
 		} else if (node2.type != PathType.WALKABLE_DOOR && node3.type != PathType.WALKABLE_DOOR) {
-			boolean bl = node3.type == PathType.FENCE && node2.type == PathType.FENCE && this.mob.getBbWidth() < 0.5;
+			boolean bl = node3.type == PathType.FENCE && node2.type == PathType.FENCE && this.mobWidth < 0.5;
 			return (node3.y < node.y || node3.costMalus >= 0.0F || bl) && (node2.y < node.y || node2.costMalus >= 0.0F || bl);
 		} else {
 			return false;
@@ -182,9 +186,11 @@ public class WalkNodeEvaluator extends NodeEvaluator {
 	}
 
 	private boolean canReachWithoutCollision(Node node) {
-		AABB aABB = this.mob.getBoundingBox();
+		AABB aABB = this.mobBoundingBox;
 		Vec3 vec3 = new Vec3(
-			node.x - this.mob.getX() + aABB.getXsize() / 2.0, node.y - this.mob.getY() + aABB.getYsize() / 2.0, node.z - this.mob.getZ() + aABB.getZsize() / 2.0
+			node.x - this.mobPosition.x + aABB.getXsize() / 2.0,
+			node.y - this.mobPosition.y + aABB.getYsize() / 2.0,
+			node.z - this.mobPosition.z + aABB.getZsize() / 2.0
 		);
 		int i = Mth.ceil(vec3.length() / aABB.getSize());
 		vec3 = vec3.scale(1.0F / i);
@@ -225,7 +231,7 @@ public class WalkNodeEvaluator extends NodeEvaluator {
 			return null;
 		} else {
 			PathType pathType2 = this.getCachedPathType(i, j, k);
-			float f = this.mob.getPathfindingMalus(pathType2);
+			float f = this.getPathfindingMalus(pathType2);
 			if (f >= 0.0F) {
 				node = this.getNodeAndUpdateCostToMax(i, j, k, pathType2, f);
 			}
@@ -258,7 +264,7 @@ public class WalkNodeEvaluator extends NodeEvaluator {
 	}
 
 	private double getMobJumpHeight() {
-		return Math.max(1.125, this.mob.maxUpStep());
+		return Math.max(1.125, this.maxUpStep);
 	}
 
 	private Node getNodeAndUpdateCostToMax(int i, int j, int k, PathType pathType, float f) {
@@ -288,20 +294,20 @@ public class WalkNodeEvaluator extends NodeEvaluator {
 		Node node = this.findAcceptedNode(i, j + 1, k, l - 1, d, direction, pathType);
 		if (node == null) {
 			return null;
-		} else if (this.mob.getBbWidth() >= 1.0F) {
+		} else if (this.mobWidth >= 1.0F) {
 			return node;
 		} else if (node.type != PathType.OPEN && node.type != PathType.WALKABLE) {
 			return node;
 		} else {
 			double e = i - direction.getStepX() + 0.5;
 			double f = k - direction.getStepZ() + 0.5;
-			double g = this.mob.getBbWidth() / 2.0;
+			double g = this.mobWidth / 2.0;
 			AABB aABB = new AABB(
 				e - g,
 				this.getFloorLevel(mutableBlockPos.set(e, (double)(j + 1), f)) + 0.001,
 				f - g,
 				e + g,
-				this.mob.getBbHeight() + this.getFloorLevel(mutableBlockPos.set((double)node.x, (double)node.y, (double)node.z)) - 0.002,
+				this.mobHeight + this.getFloorLevel(mutableBlockPos.set((double)node.x, (double)node.y, (double)node.z)) - 0.002,
 				f + g
 			);
 			return this.hasCollisions(aABB) ? null : node;
@@ -312,13 +318,13 @@ public class WalkNodeEvaluator extends NodeEvaluator {
 	private Node tryFindFirstNonWaterBelow(int i, int j, int k, @Nullable Node node) {
 		j--;
 
-		while (j > this.mob.level().getMinY()) {
+		while (j > this.currentContext.level().getMinY()) {
 			PathType pathType = this.getCachedPathType(i, j, k);
 			if (pathType != PathType.WATER) {
 				return node;
 			}
 
-			node = this.getNodeAndUpdateCostToMax(i, j, k, pathType, this.mob.getPathfindingMalus(pathType));
+			node = this.getNodeAndUpdateCostToMax(i, j, k, pathType, this.getPathfindingMalus(pathType));
 			j--;
 		}
 
@@ -326,13 +332,13 @@ public class WalkNodeEvaluator extends NodeEvaluator {
 	}
 
 	private Node tryFindFirstGroundNodeBelow(int i, int j, int k) {
-		for (int l = j - 1; l >= this.mob.level().getMinY(); l--) {
-			if (j - l > this.mob.getMaxFallDistance()) {
+		for (int l = j - 1; l >= this.currentContext.level().getMinY(); l--) {
+			if (j - l > this.maxFallDistance) {
 				return this.getBlockedNode(i, l, k);
 			}
 
 			PathType pathType = this.getCachedPathType(i, l, k);
-			float f = this.mob.getPathfindingMalus(pathType);
+			float f = this.getPathfindingMalus(pathType);
 			if (pathType != PathType.OPEN) {
 				if (f >= 0.0F) {
 					return this.getNodeAndUpdateCostToMax(i, l, k, pathType, f);
@@ -346,7 +352,7 @@ public class WalkNodeEvaluator extends NodeEvaluator {
 	}
 
 	private boolean hasCollisions(AABB aABB) {
-		return this.collisionCache.computeIfAbsent(aABB, (Object2BooleanFunction<? super AABB>)(object -> !this.currentContext.level().noCollision(this.mob, aABB)));
+		return this.collisionCache.computeIfAbsent(aABB, (Object2BooleanFunction<? super AABB>)(object -> !this.noCollision(aABB)));
 	}
 
 	protected PathType getCachedPathType(int i, int j, int k) {
@@ -365,18 +371,18 @@ public class WalkNodeEvaluator extends NodeEvaluator {
 			PathType pathType = PathType.BLOCKED;
 
 			for (PathType pathType2 : set) {
-				if (mob.getPathfindingMalus(pathType2) < 0.0F) {
+				if (this.getPathfindingMalus(mob, pathType2) < 0.0F) {
 					return pathType2;
 				}
 
-				if (mob.getPathfindingMalus(pathType2) >= mob.getPathfindingMalus(pathType)) {
+				if (this.getPathfindingMalus(mob, pathType2) >= this.getPathfindingMalus(mob, pathType)) {
 					pathType = pathType2;
 				}
 			}
 
 			return this.entityWidth <= 1
 					&& pathType != PathType.OPEN
-					&& mob.getPathfindingMalus(pathType) == 0.0F
+					&& this.getPathfindingMalus(mob, pathType) == 0.0F
 					&& this.getPathType(pathfindingContext, i, j, k) == PathType.OPEN
 				? PathType.OPEN
 				: pathType;
@@ -393,7 +399,7 @@ public class WalkNodeEvaluator extends NodeEvaluator {
 					int p = m + j;
 					int q = n + k;
 					PathType pathType = this.getPathType(pathfindingContext, o, p, q);
-					BlockPos blockPos = this.mob.blockPosition();
+					BlockPos blockPos = pathfindingContext.mobPosition();
 					boolean bl = this.canPassDoors();
 					if (pathType == PathType.DOOR_WOOD_CLOSED && this.canOpenDoors() && bl) {
 						pathType = PathType.WALKABLE_DOOR;
@@ -427,9 +433,10 @@ public class WalkNodeEvaluator extends NodeEvaluator {
 	}
 
 	public static PathType getPathTypeStatic(PathfindingContext pathfindingContext, BlockPos.MutableBlockPos mutableBlockPos) {
-		int i = mutableBlockPos.getX();
-		int j = mutableBlockPos.getY();
-		int k = mutableBlockPos.getZ();
+		return pathfindingContext.getWalkablePathType(mutableBlockPos.getX(), mutableBlockPos.getY(), mutableBlockPos.getZ());
+	}
+
+	static PathType computePathTypeStatic(PathfindingContext pathfindingContext, int i, int j, int k) {
 		PathType pathType = pathfindingContext.getPathTypeFromState(i, j, k);
 		if (pathType == PathType.OPEN && j >= pathfindingContext.level().getMinY() + 1) {
 			return switch (pathfindingContext.getPathTypeFromState(i, j - 1, k)) {
@@ -0,0 +1,109 @@
+package net.minecraft.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.DecoderException;
+import java.util.Random;
+import net.minecraft.network.protocol.game.GamePacketTypes;
+import net.minecraft.network.protocol.login.LoginPacketTypes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Checks that {@link CompressionEncoder} and {@link CompressionDecoder} round trip heap and direct buffers at every
+ * compression level, and that the per thread inflater survives a truncated packet.
+ */
+@DisplayName("Compression Tests")
+class CompressionTest {
+    private static final int THRESHOLD = 64;
+
+    @AfterEach
+    void resetLevels() {
+        CompressionEncoder.setLevels(-1, -1, -1);
+    }
+
+    private static byte[] payload(Random random, int size) {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte)(random.nextInt(8) == 0 ? random.nextInt() : i / 64);
+        }
+        return bytes;
+    }
+
+    private static ByteBuf compress(byte[] bytes, boolean direct, int level) {
+        ByteBuf in = direct ? Unpooled.directBuffer(bytes.length) : Unpooled.buffer(bytes.length);
+        in.writeBytes(bytes);
+        ByteBuf out = direct ? Unpooled.directBuffer(16) : Unpooled.buffer(16);
+        new CompressionEncoder(THRESHOLD).encode(in, out, level);
+        assertThat(in.isReadable()).isFalse();
+        in.release();
+        return out;
+    }
+
+    private static byte[] decompress(EmbeddedChannel channel, ByteBuf frame) {
+        channel.writeInbound(frame);
+        ByteBuf byteBuf = channel.readInbound();
+        byte[] bytes = ByteBufUtil.getBytes(byteBuf);
+        byteBuf.release();
+        return bytes;
+    }
+
+    @Test
+    @DisplayName("Packets round trip at every level from heap and direct buffers")
+    void roundTrip() {
+        Random random = new Random(42L);
+        EmbeddedChannel channel = new EmbeddedChannel(new CompressionDecoder(THRESHOLD, true));
+        for (int size : new int[]{0, 1, THRESHOLD - 1, THRESHOLD, 1000, 70000}) {
+            byte[] bytes = payload(random, size);
+            for (int level = -1; level <= 9; level++) {
+                assertThat(decompress(channel, compress(bytes, true, level))).as("direct, %s bytes, level %s", size, level).isEqualTo(bytes);
+                assertThat(decompress(channel, compress(bytes, false, level))).as("heap, %s bytes, level %s", size, level).isEqualTo(bytes);
+            }
+        }
+
+        assertThat(channel.finish()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Higher levels compress better")
+    void levelsApply() {
+        byte[] bytes = payload(new Random(7L), 50000);
+        ByteBuf stored = compress(bytes, true, 0);
+        ByteBuf best = compress(bytes, true, 9);
+        assertThat(stored.readableBytes()).isGreaterThan(bytes.length);
+        assertThat(best.readableBytes()).isLessThan(bytes.length / 2);
+        stored.release();
+        best.release();
+    }
+
+    @Test
+    @DisplayName("Chunk and configuration packets get their own levels")
+    void levelsPerPacketType() {
+        assertThat(CompressionEncoder.hasPacketLevels()).isFalse();
+        CompressionEncoder.setLevels(4, 1, 12);
+        assertThat(CompressionEncoder.hasPacketLevels()).isTrue();
+        assertThat(CompressionEncoder.levelFor(ConnectionProtocol.PLAY, GamePacketTypes.CLIENTBOUND_LEVEL_CHUNK_WITH_LIGHT)).isEqualTo(1);
+        assertThat(CompressionEncoder.levelFor(ConnectionProtocol.PLAY, GamePacketTypes.CLIENTBOUND_LIGHT_UPDATE)).isEqualTo(1);
+        assertThat(CompressionEncoder.levelFor(ConnectionProtocol.PLAY, GamePacketTypes.CLIENTBOUND_SET_TIME)).isEqualTo(4);
+        assertThat(CompressionEncoder.levelFor(ConnectionProtocol.LOGIN, LoginPacketTypes.CLIENTBOUND_LOGIN_FINISHED)).isEqualTo(9);
+    }
+
+    @Test
+    @DisplayName("A truncated packet does not break the next one")
+    void recoversFromTruncatedPacket() {
+        byte[] bytes = payload(new Random(3L), 5000);
+        ByteBuf truncated = compress(bytes, true, 6);
+        truncated.writerIndex(truncated.writerIndex() / 2);
+        EmbeddedChannel channel = new EmbeddedChannel(new CompressionDecoder(THRESHOLD, true));
+        assertThatThrownBy(() -> channel.writeInbound(truncated)).isInstanceOf(DecoderException.class);
+
+        EmbeddedChannel channel2 = new EmbeddedChannel(new CompressionDecoder(THRESHOLD, true));
+        assertThat(decompress(channel2, compress(bytes, false, 6))).isEqualTo(bytes);
+        channel.finishAndReleaseAll();
+        channel2.finishAndReleaseAll();
+    }
+}
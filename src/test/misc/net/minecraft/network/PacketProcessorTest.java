@@ -0,0 +1,170 @@
+package net.minecraft.network;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.PacketUtils;
+import net.minecraft.network.protocol.game.GamePacketTypes;
+import net.minecraft.server.RunningOnDifferentThreadException;
+import net.minecraft.util.profiling.metrics.MetricSampler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks that {@link PacketProcessor.Worker} handles the packets of a connection in order on virtual threads, that a
+ * chained task holds back the rest of its connection without holding a worker thread, that packets go to the server
+ * thread when workers are disabled and that the processing time of each packet type is recorded.
+ */
+@DisplayName("Packet Processor Tests")
+class PacketProcessorTest {
+    private PacketProcessor processor;
+
+    @AfterEach
+    void tearDown() {
+        PacketProcessor.setWorkerThreads(0);
+        if (processor != null) {
+            processor.close();
+        }
+    }
+
+    private static PacketListener listener() {
+        PacketListener listener = mock(PacketListener.class);
+        when(listener.shouldHandleMessage(any())).thenReturn(true);
+        return listener;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Packet<PacketListener> packet(Runnable handler) {
+        Packet<PacketListener> packet = mock(Packet.class);
+        doReturn(GamePacketTypes.SERVERBOUND_CHAT_SESSION_UPDATE).when(packet).type();
+        doAnswer(invocation -> {
+            handler.run();
+            return null;
+        }).when(packet).handle(any());
+        return packet;
+    }
+
+    @Test
+    @DisplayName("Workers handle the packets of a connection in order off the server thread")
+    void workerHandlesPacketsInOrder() throws InterruptedException {
+        PacketProcessor.setWorkerThreads(2);
+        processor = new PacketProcessor(Thread.currentThread());
+        PacketProcessor.Worker worker = processor.createWorker("Test Worker");
+        assertThat(worker).isNotNull();
+
+        PacketListener listener = listener();
+        List<Integer> handled = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(100);
+        for (int i = 0; i < 100; i++) {
+            int index = i;
+            Packet<PacketListener> packet = packet(() -> {
+                threads.add(Thread.currentThread());
+                handled.add(index);
+                latch.countDown();
+            });
+            worker.scheduleIfPossible(listener, packet);
+        }
+
+        assertThat(latch.await(10L, TimeUnit.SECONDS)).isTrue();
+        assertThat(handled).isSortedAccordingTo(Integer::compare).hasSize(100);
+        assertThat(threads).allMatch(Thread::isVirtual).noneMatch(thread -> thread == Thread.currentThread());
+    }
+
+    @Test
+    @DisplayName("A chained task holds back its connection without holding a worker thread")
+    void chainedTaskHoldsBackConnection() throws InterruptedException {
+        PacketProcessor.setWorkerThreads(1);
+        processor = new PacketProcessor(Thread.currentThread());
+        PacketProcessor.Worker worker = processor.createWorker("Test Worker");
+        PacketProcessor.Worker other = processor.createWorker("Other Worker");
+        CompletableFuture<Void> command = new CompletableFuture<>();
+        List<String> handled = new CopyOnWriteArrayList<>();
+        CountDownLatch otherLatch = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(1);
+        worker.executeChained(GamePacketTypes.SERVERBOUND_CHAT_COMMAND, () -> {
+            handled.add("command");
+            return command;
+        });
+        worker.execute(GamePacketTypes.SERVERBOUND_CHAT, () -> {
+            handled.add("chat");
+            latch.countDown();
+        });
+        other.execute(GamePacketTypes.SERVERBOUND_CHAT, otherLatch::countDown);
+
+        assertThat(otherLatch.await(10L, TimeUnit.SECONDS)).isTrue();
+        assertThat(latch.await(200L, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(handled).containsExactly("command");
+        command.complete(null);
+        assertThat(latch.await(10L, TimeUnit.SECONDS)).isTrue();
+        assertThat(handled).containsExactly("command", "chat");
+    }
+
+    @Test
+    @DisplayName("Packets are handed to the worker and handled there")
+    void ensureRunningOnWorker() throws InterruptedException {
+        PacketProcessor.setWorkerThreads(1);
+        processor = new PacketProcessor(Thread.currentThread());
+        PacketProcessor.Worker worker = processor.createWorker("Test Worker");
+        PacketListener listener = listener();
+        CountDownLatch latch = new CountDownLatch(1);
+        Packet<PacketListener>[] packet = new Packet[1];
+        packet[0] = packet(() -> {
+            PacketUtils.ensureRunningOnWorker(packet[0], listener, worker, processor);
+            latch.countDown();
+        });
+
+        assertThatThrownBy(() -> PacketUtils.ensureRunningOnWorker(packet[0], listener, worker, processor))
+            .isSameAs(RunningOnDifferentThreadException.RUNNING_ON_DIFFERENT_THREAD);
+        assertThat(latch.await(10L, TimeUnit.SECONDS)).isTrue();
+        verify(listener, never()).onPacketError(any(), any());
+    }
+
+    @Test
+    @DisplayName("Without workers packets go to the server thread")
+    void disabledWorkersUseServerThread() {
+        Thread thread = new Thread(() -> {});
+        processor = new PacketProcessor(thread);
+        assertThat(processor.createWorker("Test Worker")).isNull();
+
+        PacketListener listener = listener();
+        Packet<PacketListener> packet = packet(() -> {});
+        assertThatThrownBy(() -> PacketUtils.ensureRunningOnWorker(packet, listener, null, processor))
+            .isSameAs(RunningOnDifferentThreadException.RUNNING_ON_DIFFERENT_THREAD);
+        verify(packet, never()).handle(any());
+        processor.processQueuedPackets();
+        verify(packet).handle(listener);
+    }
+
+    @Test
+    @DisplayName("Processing time is recorded per packet type")
+    void recordsProcessingTime() {
+        processor = new PacketProcessor(Thread.currentThread());
+        assertThat(processor.profiledMetrics()).isEmpty();
+        processor.scheduleIfPossible(listener(), packet(() -> {
+            try {
+                Thread.sleep(5L);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }));
+        processor.processQueuedPackets();
+
+        List<MetricSampler> metrics = processor.profiledMetrics();
+        assertThat(metrics).extracting(MetricSampler::getName).containsExactly("packet-processing-time/" + GamePacketTypes.SERVERBOUND_CHAT_SESSION_UPDATE);
+        MetricSampler sampler = metrics.getFirst();
+        sampler.onEndTick(0);
+        sampler.onEndTick(1);
+        MetricSampler.SamplerResult result = sampler.result();
+        sampler.onFinished();
+        assertThat(result.valueAtTick(0)).isGreaterThanOrEqualTo(5.0);
+        assertThat(result.valueAtTick(1)).isZero();
+    }
+}
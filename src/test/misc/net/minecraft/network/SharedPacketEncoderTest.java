@@ -0,0 +1,108 @@
+package net.minecraft.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.List;
+import java.util.stream.IntStream;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.PacketFlow;
+import net.minecraft.network.protocol.game.ClientGamePacketListener;
+import net.minecraft.network.protocol.game.ClientboundBundlePacket;
+import net.minecraft.network.protocol.game.ClientboundMoveEntityPacket;
+import net.minecraft.network.protocol.game.ClientboundRemoveEntitiesPacket;
+import net.minecraft.network.protocol.game.GameProtocols;
+import net.minecraft.server.Bootstrap;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Checks that a connection sending a packet encoded by {@link SharedPacketEncoder} writes exactly the bytes it would
+ * have written encoding the packet itself.
+ */
+@DisplayName("Shared Packet Encoder Tests")
+class SharedPacketEncoderTest {
+    private static ProtocolInfo<ClientGamePacketListener> protocolInfo;
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        protocolInfo = GameProtocols.CLIENTBOUND_TEMPLATE.bind(RegistryFriendlyByteBuf.decorator(RegistryAccess.fromRegistryOfRegistries(BuiltInRegistries.REGISTRY)));
+    }
+
+    /**
+     * A channel with the outbound handlers of a network connection in the game protocol.
+     */
+    private static EmbeddedChannel channel(Connection connection, int threshold) {
+        return new EmbeddedChannel(new ChannelInitializer<EmbeddedChannel>() {
+            @Override
+            protected void initChannel(EmbeddedChannel channel) {
+                channel.pipeline().addLast("prepender", new Varint21LengthFieldPrepender());
+                if (threshold >= 0) {
+                    channel.pipeline().addLast("compress", new CompressionEncoder(threshold));
+                }
+
+                channel.pipeline().addLast("encoder", new PacketEncoder<>(protocolInfo)).addLast("packet_handler", connection);
+            }
+        });
+    }
+
+    private static byte[] readOutbound(EmbeddedChannel channel) {
+        ByteBuf byteBuf = channel.readOutbound();
+        assertThat(byteBuf).isNotNull();
+        byte[] bytes = ByteBufUtil.getBytes(byteBuf);
+        byteBuf.release();
+        assertThat((Object)channel.readOutbound()).isNull();
+        return bytes;
+    }
+
+    private static void assertSameBytes(int channelThreshold, int encoderThreshold, Packet<?> packet) {
+        Connection connection = new Connection(PacketFlow.CLIENTBOUND);
+        EmbeddedChannel channel = channel(connection, channelThreshold);
+        channel.writeOutbound(packet);
+        byte[] expected = readOutbound(channel);
+
+        SharedPacketEncoder.Encoded encoded = new SharedPacketEncoder(protocolInfo, encoderThreshold).encode(packet);
+        assertThat(encoded).isNotNull();
+        connection.send(encoded, true);
+        assertThat(readOutbound(channel)).isEqualTo(expected);
+        connection.send(encoded, true);
+        encoded.release();
+        assertThat(readOutbound(channel)).isEqualTo(expected);
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    @DisplayName("Small and compressed packets match per-connection encoding")
+    void matchesConnectionEncoding() {
+        Packet<?> small = new ClientboundMoveEntityPacket.Pos(42, (short)10, (short)-3, (short)7, true);
+        Packet<?> large = new ClientboundRemoveEntitiesPacket(IntStream.range(0, 2000).toArray());
+        for (int threshold : new int[]{-1, 0, 256}) {
+            assertSameBytes(threshold, threshold, small);
+            assertSameBytes(threshold, threshold, large);
+        }
+    }
+
+    @Test
+    @DisplayName("A connection with another compression threshold encodes the packet itself")
+    void mismatchedThresholdFallsBack() {
+        Packet<?> large = new ClientboundRemoveEntitiesPacket(IntStream.range(0, 2000).toArray());
+        assertSameBytes(256, -1, large);
+        assertSameBytes(-1, 256, large);
+        assertSameBytes(1024, 64, new ClientboundRemoveEntitiesPacket(IntStream.range(0, 100).toArray()));
+    }
+
+    @Test
+    @DisplayName("Bundles are not shared")
+    void bundlesAreNotShared() {
+        SharedPacketEncoder encoder = new SharedPacketEncoder(protocolInfo, 256);
+        assertThat(encoder.encode(new ClientboundBundlePacket(List.of()))).isNull();
+    }
+}
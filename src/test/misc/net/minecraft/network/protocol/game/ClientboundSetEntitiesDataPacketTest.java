@@ -0,0 +1,122 @@
+package net.minecraft.network.protocol.game;
+
+import io.netty.buffer.Unpooled;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.syncher.EntityDataSerializers;
+import net.minecraft.network.syncher.SynchedEntityData;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.entity.Pose;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Checks that {@link ClientboundSetEntitiesDataPacket} decodes to the entity data it was given and is smaller than
+ * sending a {@link ClientboundSetEntityDataPacket} per entity.
+ */
+@DisplayName("Set Entities Data Packet Tests")
+class ClientboundSetEntitiesDataPacketTest {
+    private static RegistryAccess registryAccess;
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        registryAccess = RegistryAccess.fromRegistryOfRegistries(BuiltInRegistries.REGISTRY);
+    }
+
+    private static RegistryFriendlyByteBuf buffer() {
+        return new RegistryFriendlyByteBuf(Unpooled.buffer(), registryAccess);
+    }
+
+    private static ClientboundSetEntitiesDataPacket roundTrip(ClientboundSetEntitiesDataPacket packet) {
+        RegistryFriendlyByteBuf buffer = buffer();
+        ClientboundSetEntitiesDataPacket.STREAM_CODEC.encode(buffer, packet);
+        ClientboundSetEntitiesDataPacket decoded = ClientboundSetEntitiesDataPacket.STREAM_CODEC.decode(buffer);
+        assertThat(buffer.isReadable()).isFalse();
+        buffer.release();
+        return decoded;
+    }
+
+    private static List<ClientboundSetEntityDataPacket> mobs(Random random, int count) {
+        List<ClientboundSetEntityDataPacket> list = new ArrayList<>();
+        int id = 100;
+        for (int i = 0; i < count; i++) {
+            id += 1 + random.nextInt(5);
+            List<SynchedEntityData.DataValue<?>> values = new ArrayList<>();
+            values.add(new SynchedEntityData.DataValue<>(0, EntityDataSerializers.BYTE, (byte)(random.nextInt(4) == 0 ? 2 : 0)));
+            if (random.nextBoolean()) {
+                values.add(new SynchedEntityData.DataValue<>(6, EntityDataSerializers.POSE, random.nextBoolean() ? Pose.STANDING : Pose.CROUCHING));
+            }
+            if (random.nextInt(3) == 0) {
+                values.add(new SynchedEntityData.DataValue<>(9, EntityDataSerializers.FLOAT, random.nextInt(20) + 0.5F));
+            }
+            list.add(new ClientboundSetEntityDataPacket(id, values));
+        }
+        return list;
+    }
+
+    @Test
+    @DisplayName("Entity data round trips")
+    void roundTrips() {
+        List<ClientboundSetEntityDataPacket> entities = new ArrayList<>(mobs(new Random(42L), 300));
+        entities.add(new ClientboundSetEntityDataPacket(5, List.of(new SynchedEntityData.DataValue<>(0, EntityDataSerializers.BYTE, (byte)0))));
+
+        ClientboundSetEntitiesDataPacket decoded = roundTrip(new ClientboundSetEntitiesDataPacket(entities));
+        assertThat(decoded.entities()).isEqualTo(entities);
+    }
+
+    @Test
+    @DisplayName("Repeated item stacks are copied")
+    void repeatedValuesAreCopied() {
+        ItemStack itemStack = new ItemStack(Items.DIAMOND, 3);
+        List<ClientboundSetEntityDataPacket> entities = List.of(
+            new ClientboundSetEntityDataPacket(1, List.of(new SynchedEntityData.DataValue<>(8, EntityDataSerializers.ITEM_STACK, itemStack))),
+            new ClientboundSetEntityDataPacket(2, List.of(new SynchedEntityData.DataValue<>(8, EntityDataSerializers.ITEM_STACK, itemStack)))
+        );
+
+        ClientboundSetEntitiesDataPacket decoded = roundTrip(new ClientboundSetEntitiesDataPacket(entities));
+        ItemStack first = (ItemStack)decoded.entities().get(0).packedItems().getFirst().value();
+        ItemStack second = (ItemStack)decoded.entities().get(1).packedItems().getFirst().value();
+        assertThat(ItemStack.matches(first, itemStack)).isTrue();
+        assertThat(ItemStack.matches(second, itemStack)).isTrue();
+        assertThat(second).isNotSameAs(first);
+    }
+
+    @Test
+    @DisplayName("A batch is smaller than a packet per entity")
+    void batchIsSmaller() {
+        List<ClientboundSetEntityDataPacket> entities = mobs(new Random(7L), 200);
+        RegistryFriendlyByteBuf buffer = buffer();
+        for (ClientboundSetEntityDataPacket packet : entities) {
+            ClientboundSetEntityDataPacket.STREAM_CODEC.encode(buffer, packet);
+        }
+        // each packet also takes its packet id, frame length and compressed length
+        int separate = buffer.readableBytes() + 3 * entities.size();
+        buffer.clear();
+        ClientboundSetEntitiesDataPacket.STREAM_CODEC.encode(buffer, new ClientboundSetEntitiesDataPacket(entities));
+        int batched = buffer.readableBytes();
+        buffer.release();
+
+        assertThat(batched).isLessThan(separate * 2 / 3);
+    }
+
+    @Test
+    @DisplayName("Batches above the entity limit are rejected")
+    void limitsEntityCount() {
+        List<ClientboundSetEntityDataPacket> entities = mobs(new Random(3L), ClientboundSetEntitiesDataPacket.MAX_ENTITIES + 1);
+        RegistryFriendlyByteBuf buffer = buffer();
+        assertThatThrownBy(() -> ClientboundSetEntitiesDataPacket.STREAM_CODEC.encode(buffer, new ClientboundSetEntitiesDataPacket(entities)))
+            .isInstanceOf(RuntimeException.class);
+        buffer.release();
+    }
+}
@@ -0,0 +1,173 @@
+package net.minecraft.server.level;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.SharedPacketEncoder;
+import net.minecraft.network.protocol.game.ClientboundLevelChunkWithLightPacket;
+import net.minecraft.network.protocol.game.GameProtocols;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.entity.ai.navigation.AsyncPathfinder;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LightLayer;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.DataLayer;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.lighting.LayerLightEventListener;
+import net.minecraft.world.level.lighting.LevelLightEngine;
+import net.minecraft.world.level.pathfinder.PathTypeCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks that {@link ChunkPacketCache} shares a chunk's encoded packet until the chunk changes, including block changes
+ * that send no block update, and keeps its encoded packets within the configured size.
+ */
+@DisplayName("Chunk Packet Cache Tests")
+class ChunkPacketCacheTest {
+    private static final int LIGHT_SECTIONS = 26;
+
+    private ServerLevel level;
+    private LevelLightEngine lightEngine;
+    private ChunkPacketCache cache;
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+    }
+
+    @BeforeEach
+    void setUp() {
+        SharedPacketEncoder encoder = new SharedPacketEncoder(
+            GameProtocols.CLIENTBOUND_TEMPLATE.bind(RegistryFriendlyByteBuf.decorator(RegistryAccess.fromRegistryOfRegistries(BuiltInRegistries.REGISTRY))), -1
+        );
+        MinecraftServer server = mock(MinecraftServer.class);
+        when(server.getSharedPacketEncoder()).thenReturn(encoder);
+        level = mock(ServerLevel.class);
+        when(level.getServer()).thenReturn(server);
+
+        Random random = new Random(42L);
+        LayerLightEventListener listener = mock(LayerLightEventListener.class);
+        when(listener.getDataLayerData(any())).thenAnswer(invocation -> {
+            byte[] bytes = new byte[DataLayer.SIZE];
+            random.nextBytes(bytes);
+            return new DataLayer(bytes);
+        });
+        lightEngine = mock(LevelLightEngine.class);
+        when(lightEngine.getLightSectionCount()).thenReturn(LIGHT_SECTIONS);
+        when(lightEngine.getLayerListener(any(LightLayer.class))).thenReturn(listener);
+
+        ChunkPacketCache.setMaxSize(1);
+        cache = new ChunkPacketCache();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.clear();
+        ChunkPacketCache.setMaxSize(0);
+    }
+
+    private static LevelChunk chunk(int x, int z) {
+        LevelChunk chunk = mock(LevelChunk.class);
+        when(chunk.getPos()).thenReturn(new ChunkPos(x, z));
+        when(chunk.getSections()).thenReturn(new LevelChunkSection[0]);
+        return chunk;
+    }
+
+    @Test
+    @DisplayName("A chunk's packet is encoded once until it is invalidated")
+    void sharesUntilInvalidated() {
+        LevelChunk chunk = chunk(3, -7);
+        SharedPacketEncoder.Encoded first = cache.get(level, chunk, lightEngine);
+        assertThat(first).isNotNull();
+        assertThat(first.packet()).isInstanceOf(ClientboundLevelChunkWithLightPacket.class);
+        assertThat(cache.get(level, chunk, lightEngine)).isSameAs(first);
+        assertThat(cache.getBytes()).isEqualTo(first.bufferSize());
+
+        cache.invalidate(chunk.getPos());
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getBytes()).isZero();
+        SharedPacketEncoder.Encoded second = cache.get(level, chunk, lightEngine);
+        assertThat(second).isNotNull().isNotSameAs(first);
+        assertThat(cache.get(level, chunk(3, -7), lightEngine)).as("reloaded chunk").isNotSameAs(second);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("The least recently sent packets are dropped to stay within the size")
+    void evictsLeastRecentlySent() {
+        List<LevelChunk> chunks = new ArrayList<>();
+        List<SharedPacketEncoder.Encoded> packets = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            LevelChunk chunk = chunk(i, 0);
+            chunks.add(chunk);
+            packets.add(cache.get(level, chunk, lightEngine));
+            assertThat(cache.get(level, chunks.get(0), lightEngine)).isSameAs(packets.get(0));
+        }
+
+        assertThat(cache.getBytes()).isLessThanOrEqualTo(1024L * 1024L);
+        assertThat(cache.size()).isLessThan(chunks.size());
+        assertThat(cache.get(level, chunks.get(1), lightEngine)).as("evicted").isNotSameAs(packets.get(1));
+        assertThat(cache.get(level, chunks.get(11), lightEngine)).isSameAs(packets.get(11));
+    }
+
+    @Test
+    @DisplayName("A disabled cache encodes nothing and drops what it kept")
+    void disabledCacheIsEmpty() {
+        assertThat(cache.get(level, chunk(0, 0), lightEngine)).isNotNull();
+        ChunkPacketCache.setMaxSize(0);
+        assertThat(cache.get(level, chunk(0, 0), lightEngine)).isNull();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getBytes()).isZero();
+    }
+
+    private static void setField(Class<?> owner, Object object, String name, Object value) throws ReflectiveOperationException {
+        Field field = owner.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(object, value);
+    }
+
+    @Test
+    @DisplayName("Changing a block without update flags drops the chunk's packet")
+    void blockChangeWithoutFlagsInvalidates() throws ReflectiveOperationException {
+        ChunkMap chunkMap = mock(ChunkMap.class);
+        when(chunkMap.getChunkPacketCache()).thenReturn(cache);
+        ServerChunkCache chunkSource = mock(ServerChunkCache.class);
+        setField(ServerChunkCache.class, chunkSource, "chunkMap", chunkMap);
+        setField(ServerLevel.class, level, "pathTypesByPosCache", new PathTypeCache());
+        setField(ServerLevel.class, level, "asyncPathfinder", mock(AsyncPathfinder.class));
+        when(level.getChunkSource()).thenReturn(chunkSource);
+        doCallRealMethod().when(level).setBlock(any(), any(), anyInt(), anyInt());
+        doCallRealMethod().when(level).setBlocksDirty(any(), any(), any());
+
+        LevelChunk chunk = chunk(3, -7);
+        BlockPos blockPos = new BlockPos(3 * 16 + 5, 64, -7 * 16 + 2);
+        BlockState stone = Blocks.STONE.defaultBlockState();
+        when(level.getChunkAt(blockPos)).thenReturn(chunk);
+        when(level.getBlockState(blockPos)).thenReturn(stone);
+        when(chunk.setBlockState(blockPos, stone, 0)).thenReturn(Blocks.AIR.defaultBlockState());
+
+        SharedPacketEncoder.Encoded encoded = cache.get(level, chunk, lightEngine);
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(level.setBlock(blockPos, stone, 0, 512)).isTrue();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.get(level, chunk, lightEngine)).isNotSameAs(encoded);
+    }
+}
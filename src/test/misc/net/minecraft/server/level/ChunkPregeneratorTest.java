@@ -0,0 +1,82 @@
+package net.minecraft.server.level;
+
+import com.mojang.serialization.JavaOps;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.SharedConstants;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.ChunkPos;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Checks the tile order used by {@link ChunkPregenerator} and the data it persists between restarts.
+ */
+@DisplayName("Chunk Pregenerator Tests")
+class ChunkPregeneratorTest {
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+    }
+
+    @Test
+    @DisplayName("Tile order covers every chunk of the area exactly once")
+    void tileOrderCoversArea() {
+        for (ChunkPregenerationData.Area area : new ChunkPregenerationData.Area[]{
+            new ChunkPregenerationData.Area(0, 0, 0),
+            new ChunkPregenerationData.Area(-3, 7, 40),
+            new ChunkPregenerationData.Area(1000, -2000, 625),
+            new ChunkPregenerationData.Area(-17, 95, 16)
+        }) {
+            LongSet chunks = new LongOpenHashSet();
+            long[] tiles = ChunkPregenerator.tileOrder(area);
+            assertThat(new LongOpenHashSet(tiles)).hasSize(tiles.length);
+            for (long tilePos : tiles) {
+                ChunkPregenerator.Tile tile = new ChunkPregenerator.Tile(area, tilePos);
+                while (tile.hasPendingChunks()) {
+                    ChunkPos pos = tile.nextChunk();
+                    assertThat(pos.x).isBetween(area.minX(), area.maxX());
+                    assertThat(pos.z).isBetween(area.minZ(), area.maxZ());
+                    assertThat(pos.getRegionX()).isEqualTo(ChunkPos.getX(tilePos));
+                    assertThat(pos.getRegionZ()).isEqualTo(ChunkPos.getZ(tilePos));
+                    assertThat(chunks.add(pos.toLong())).isTrue();
+                }
+            }
+
+            assertThat((long)chunks.size()).isEqualTo(area.chunkCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Consecutive tiles of a square area share an edge")
+    void tileOrderFollowsCurve() {
+        long[] tiles = ChunkPregenerator.tileOrder(new ChunkPregenerationData.Area(512, 512, 511));
+        assertThat(tiles).hasSize(32 * 32);
+        for (int i = 1; i < tiles.length; i++) {
+            int distance = Math.abs(ChunkPos.getX(tiles[i]) - ChunkPos.getX(tiles[i - 1])) + Math.abs(ChunkPos.getZ(tiles[i]) - ChunkPos.getZ(tiles[i - 1]));
+            assertThat(distance).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Pregeneration data survives a codec round trip")
+    void dataRoundTrip() {
+        ChunkPregenerationData data = new ChunkPregenerationData();
+        data.start(new ChunkPregenerationData.Area(12, -40, 625));
+        data.completeTile();
+        data.completeTile();
+
+        Object encoded = ChunkPregenerationData.CODEC.encodeStart(JavaOps.INSTANCE, data).getOrThrow();
+        ChunkPregenerationData decoded = ChunkPregenerationData.CODEC.parse(JavaOps.INSTANCE, encoded).getOrThrow();
+        assertThat(decoded.area()).isEqualTo(data.area());
+        assertThat(decoded.completedTiles()).isEqualTo(2);
+
+        data.clear();
+        decoded = ChunkPregenerationData.CODEC.parse(JavaOps.INSTANCE, ChunkPregenerationData.CODEC.encodeStart(JavaOps.INSTANCE, data).getOrThrow()).getOrThrow();
+        assertThat(decoded.area()).isNull();
+    }
+}
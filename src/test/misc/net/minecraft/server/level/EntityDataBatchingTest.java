@@ -0,0 +1,132 @@
+package net.minecraft.server.level;
+
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import net.minecraft.SharedConstants;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.common.ServerboundCustomPayloadPacket;
+import net.minecraft.network.protocol.common.custom.EntityDataBatchingPayload;
+import net.minecraft.network.protocol.game.ClientboundSetEntitiesDataPacket;
+import net.minecraft.network.protocol.game.ClientboundSetEntityDataPacket;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.server.network.ServerPlayerConnection;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks that {@link ChunkMap} only batches the entity data changes of connections that announced support for
+ * {@link ClientboundSetEntitiesDataPacket}, that every other connection keeps getting one packet per entity right away
+ * and that the announcement survives the custom payload codec.
+ */
+@DisplayName("Entity Data Batching Tests")
+class EntityDataBatchingTest {
+    private ChunkMap chunkMap;
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+    }
+
+    @BeforeEach
+    void setUp() throws ReflectiveOperationException {
+        chunkMap = mock(ChunkMap.class);
+        Field field = ChunkMap.class.getDeclaredField("entityDataBatches");
+        field.setAccessible(true);
+        field.set(chunkMap, new Reference2ObjectOpenHashMap<ServerPlayerConnection, List<ClientboundSetEntityDataPacket>>());
+        doCallRealMethod().when(chunkMap).batchEntityData(any(), any());
+        doCallRealMethod().when(chunkMap).sendEntityDataBatches();
+    }
+
+    private static List<Packet<?>> sent(ServerPlayerConnection connection) {
+        List<Packet<?>> packets = new ArrayList<>();
+        doAnswer(invocation -> packets.add(invocation.getArgument(0))).when(connection).send(any(Packet.class));
+        return packets;
+    }
+
+    private static ServerPlayerConnection connection(boolean batches) {
+        ServerPlayerConnection connection = mock(ServerPlayerConnection.class);
+        when(connection.acceptsEntityDataBatches()).thenReturn(batches);
+        return connection;
+    }
+
+    private static ClientboundSetEntityDataPacket change(int id) {
+        return new ClientboundSetEntityDataPacket(id, List.of());
+    }
+
+    @Test
+    @DisplayName("Connections without support get every change right away")
+    void vanillaConnectionsAreNotBatched() {
+        ServerPlayerConnection connection = connection(false);
+        List<Packet<?>> packets = sent(connection);
+        chunkMap.batchEntityData(connection, change(7));
+        chunkMap.batchEntityData(connection, change(3));
+        assertThat(packets).containsExactly(change(7), change(3));
+
+        chunkMap.sendEntityDataBatches();
+        assertThat(packets).hasSize(2).noneMatch(ClientboundSetEntitiesDataPacket.class::isInstance);
+    }
+
+    @Test
+    @DisplayName("Connections with support get the changes of a tick in one packet, sorted by entity id")
+    void supportingConnectionsAreBatched() {
+        ServerPlayerConnection batching = connection(true);
+        ServerPlayerConnection vanilla = connection(false);
+        List<Packet<?>> batchingPackets = sent(batching);
+        List<Packet<?>> vanillaPackets = sent(vanilla);
+        for (int id : new int[]{9, 2, 5}) {
+            chunkMap.batchEntityData(batching, change(id));
+            chunkMap.batchEntityData(vanilla, change(id));
+        }
+
+        assertThat(batchingPackets).isEmpty();
+        assertThat(vanillaPackets).containsExactly(change(9), change(2), change(5));
+
+        chunkMap.sendEntityDataBatches();
+        assertThat(batchingPackets).containsExactly(new ClientboundSetEntitiesDataPacket(List.of(change(2), change(5), change(9))));
+        assertThat(vanillaPackets).hasSize(3);
+
+        chunkMap.sendEntityDataBatches();
+        assertThat(batchingPackets).as("batches are cleared once sent").hasSize(1);
+    }
+
+    @Test
+    @DisplayName("A single change is sent as a plain packet and large batches are split")
+    void singleAndLargeBatches() {
+        ServerPlayerConnection single = connection(true);
+        ServerPlayerConnection large = connection(true);
+        List<Packet<?>> singlePackets = sent(single);
+        List<Packet<?>> largePackets = sent(large);
+        int count = ClientboundSetEntitiesDataPacket.MAX_ENTITIES * 2 + 1;
+        chunkMap.batchEntityData(single, change(1));
+        for (int id = count - 1; id >= 0; id--) {
+            chunkMap.batchEntityData(large, change(id));
+        }
+
+        chunkMap.sendEntityDataBatches();
+        assertThat(singlePackets).containsExactly(change(1));
+        assertThat(largePackets).hasSize(3).allMatch(ClientboundSetEntitiesDataPacket.class::isInstance);
+        assertThat(largePackets.stream().flatMap(packet -> ((ClientboundSetEntitiesDataPacket)packet).entities().stream()).map(ClientboundSetEntityDataPacket::id))
+            .containsExactlyElementsOf(IntStream.range(0, count).boxed().toList());
+    }
+
+    @Test
+    @DisplayName("The announcement survives the serverbound custom payload codec")
+    void announcementRoundTrips() {
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+        ServerboundCustomPayloadPacket.STREAM_CODEC.encode(buf, new ServerboundCustomPayloadPacket(new EntityDataBatchingPayload(EntityDataBatchingPayload.VERSION)));
+        ServerboundCustomPayloadPacket packet = ServerboundCustomPayloadPacket.STREAM_CODEC.decode(buf);
+        assertThat(packet.payload()).isEqualTo(new EntityDataBatchingPayload(EntityDataBatchingPayload.VERSION));
+        assertThat(buf.readableBytes()).isZero();
+    }
+}
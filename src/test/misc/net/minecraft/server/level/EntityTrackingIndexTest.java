@@ -0,0 +1,219 @@
+package net.minecraft.server.level;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import net.minecraft.SharedConstants;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.server.network.ServerGamePacketListenerImpl;
+import net.minecraft.server.network.ServerPlayerConnection;
+import net.minecraft.world.level.ChunkPos;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks that re-evaluating moved players through {@link EntityTrackingIndex} in {@link ChunkMap#updateMovedPlayers}
+ * leaves every player seeing the same entities as the full scan over all tracked entities, while checking fewer of
+ * them, and that {@link EntityTrackingIndex#getCandidates} reuses its result set.
+ */
+@DisplayName("Entity Tracking Index Tests")
+class EntityTrackingIndexTest {
+    private static final int ENTITIES = 400;
+    private static final int PLAYERS = 6;
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ChunkMap.setIndexedEntityTracking(false);
+    }
+
+    private static void setField(Object object, String name, Object value) throws ReflectiveOperationException {
+        Field field = ChunkMap.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(object, value);
+    }
+
+    /**
+     * The positions of the entities and players, shared by both tracking modes.
+     */
+    private static final class Scenario {
+        final long[] entityChunks = new long[ENTITIES];
+        final int[] entityRanges = new int[ENTITIES];
+        final ServerPlayer[] players = new ServerPlayer[PLAYERS];
+        final Map<ServerPlayer, ChunkPos> playerChunks = new HashMap<>();
+        final Map<ServerPlayer, Integer> viewDistances = new HashMap<>();
+
+        Scenario(Random random) {
+            for (int i = 0; i < ENTITIES; i++) {
+                entityChunks[i] = ChunkPos.asLong(random.nextInt(80) - 40, random.nextInt(80) - 40);
+                entityRanges[i] = 1 + random.nextInt(10);
+            }
+
+            for (int i = 0; i < PLAYERS; i++) {
+                ServerPlayer player = mock(ServerPlayer.class);
+                player.connection = mock(ServerGamePacketListenerImpl.class);
+                doAnswer(invocation -> playerChunks.get(player)).when(player).chunkPosition();
+                players[i] = player;
+                playerChunks.put(player, new ChunkPos(random.nextInt(60) - 30, random.nextInt(60) - 30));
+                viewDistances.put(player, 2 + random.nextInt(8));
+            }
+        }
+
+        /**
+         * Whether an entity is visible to a player: within both the entity's range and the player's view distance,
+         * and not hidden from that player.
+         */
+        boolean isVisible(int i, ServerPlayer player) {
+            ChunkPos chunkPos = playerChunks.get(player);
+            int range = Math.min(entityRanges[i], viewDistances.get(player));
+            int index = List.of(players).indexOf(player);
+            return Math.abs(ChunkPos.getX(entityChunks[i]) - chunkPos.x) <= range
+                && Math.abs(ChunkPos.getZ(entityChunks[i]) - chunkPos.z) <= range
+                && (i * 31 + index) % 7 != 0;
+        }
+    }
+
+    /**
+     * A chunk map in one tracking mode whose tracked entities apply {@link Scenario#isVisible} when they update a player.
+     */
+    private static final class Tracker {
+        final boolean indexed;
+        final ChunkMap chunkMap = mock(ChunkMap.class);
+        final EntityTrackingIndex<ChunkMap.TrackedEntity> index = new EntityTrackingIndex<>();
+        final Int2ObjectMap<ChunkMap.TrackedEntity> entityMap = new Int2ObjectOpenHashMap<>();
+        final List<Set<ServerPlayerConnection>> seenBy = new ArrayList<>();
+        int checks;
+
+        Tracker(Scenario scenario, boolean indexed) throws ReflectiveOperationException {
+            this.indexed = indexed;
+            setField(chunkMap, "entityMap", entityMap);
+            setField(chunkMap, "entityTrackingIndex", index);
+            doCallRealMethod().when(chunkMap).updateMovedPlayers(anyList());
+            doAnswer(invocation -> scenario.viewDistances.get(invocation.<ServerPlayer>getArgument(0))).when(chunkMap).getPlayerViewDistance(any());
+            for (int i = 0; i < ENTITIES; i++) {
+                int id = i;
+                ChunkMap.TrackedEntity trackedEntity = mock(ChunkMap.TrackedEntity.class);
+                seenBy.add(new HashSet<>());
+                doAnswer(invocation -> {
+                    update(scenario, id, invocation.getArgument(0));
+                    return null;
+                }).when(trackedEntity).updatePlayer(any());
+                doAnswer(invocation -> {
+                    for (ServerPlayer player : invocation.<List<ServerPlayer>>getArgument(0)) {
+                        update(scenario, id, player);
+                    }
+
+                    return null;
+                }).when(trackedEntity).updatePlayers(anyList());
+                entityMap.put(id, trackedEntity);
+                index.add(trackedEntity, scenario.entityChunks[id]);
+                trackedEntity.updatePlayers(List.of(scenario.players));
+            }
+        }
+
+        private void update(Scenario scenario, int id, ServerPlayer player) {
+            checks++;
+            ChunkMap.TrackedEntity trackedEntity = entityMap.get(id);
+            if (scenario.isVisible(id, player)) {
+                if (seenBy.get(id).add(player.connection)) {
+                    index.startSeeing(player.connection, trackedEntity);
+                }
+            } else if (seenBy.get(id).remove(player.connection)) {
+                index.stopSeeing(player.connection, trackedEntity);
+            }
+        }
+
+        void moveEntity(Scenario scenario, int id, long from, List<ServerPlayer> players) {
+            ChunkMap.TrackedEntity trackedEntity = entityMap.get(id);
+            index.move(trackedEntity, from, scenario.entityChunks[id]);
+            trackedEntity.updatePlayers(players);
+        }
+
+        void updateMovedPlayers(List<ServerPlayer> players) {
+            ChunkMap.setIndexedEntityTracking(indexed);
+            chunkMap.updateMovedPlayers(players);
+        }
+    }
+
+    @Test
+    @DisplayName("Moved players see the same entities with the index as with the full scan")
+    void indexedMatchesFullScan() throws ReflectiveOperationException {
+        Random random = new Random(17L);
+        Scenario scenario = new Scenario(random);
+        Tracker full = new Tracker(scenario, false);
+        Tracker indexed = new Tracker(scenario, true);
+        assertThat(indexed.seenBy).isEqualTo(full.seenBy);
+        int fullChecks = 0;
+        int indexedChecks = 0;
+
+        for (int tick = 0; tick < 200; tick++) {
+            for (int i = 0; i < ENTITIES; i++) {
+                if (random.nextInt(10) == 0) {
+                    long from = scenario.entityChunks[i];
+                    scenario.entityChunks[i] = ChunkPos.asLong(ChunkPos.getX(from) + random.nextInt(3) - 1, ChunkPos.getZ(from) + random.nextInt(3) - 1);
+                    full.moveEntity(scenario, i, from, List.of(scenario.players));
+                    indexed.moveEntity(scenario, i, from, List.of(scenario.players));
+                }
+            }
+
+            List<ServerPlayer> moved = new ArrayList<>();
+            for (ServerPlayer player : scenario.players) {
+                if (random.nextInt(3) == 0) {
+                    ChunkPos chunkPos = scenario.playerChunks.get(player);
+                    int distance = random.nextInt(8) == 0 ? 12 : 1;
+                    scenario.playerChunks.put(
+                        player, new ChunkPos(chunkPos.x + random.nextInt(2 * distance + 1) - distance, chunkPos.z + random.nextInt(2 * distance + 1) - distance)
+                    );
+                    moved.add(player);
+                }
+            }
+
+            if (!moved.isEmpty()) {
+                full.checks = 0;
+                indexed.checks = 0;
+                full.updateMovedPlayers(moved);
+                indexed.updateMovedPlayers(moved);
+                fullChecks += full.checks;
+                indexedChecks += indexed.checks;
+            }
+
+            assertThat(indexed.seenBy).as("tick %s", tick).isEqualTo(full.seenBy);
+        }
+
+        assertThat(indexedChecks).isPositive().isLessThan(fullChecks / 2);
+    }
+
+    @Test
+    @DisplayName("Candidates are collected into a reused set")
+    void candidatesReuseTheirSet() {
+        EntityTrackingIndex<String> index = new EntityTrackingIndex<>();
+        ServerPlayerConnection connection = mock(ServerPlayerConnection.class);
+        index.add("near", ChunkPos.asLong(1, 1));
+        index.add("far", ChunkPos.asLong(20, 20));
+        index.startSeeing(connection, "far");
+
+        Set<String> candidates = index.getCandidates(connection, 0, 0, 2);
+        assertThat(candidates).containsExactlyInAnyOrder("near", "far");
+        index.stopSeeing(connection, "far");
+        assertThat(index.getCandidates(connection, 0, 0, 2)).isSameAs(candidates).containsExactly("near");
+        assertThat(index.getCandidates(connection, 20, 20, 0)).isSameAs(candidates).containsExactly("far");
+    }
+}
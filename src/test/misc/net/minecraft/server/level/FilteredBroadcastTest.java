@@ -0,0 +1,144 @@
+package net.minecraft.server.level;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import net.minecraft.SharedConstants;
+import net.minecraft.network.SharedPacketEncoder;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.game.ClientGamePacketListener;
+import net.minecraft.network.protocol.game.ClientboundRemoveEntitiesPacket;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerConnection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks that {@link ChunkMap.TrackedEntity#sendToTrackingPlayersFiltered} only encodes a shared frame once a second
+ * tracking player passes the filter, tests every player against the filter once and hands each match the packet once.
+ */
+@DisplayName("Filtered Broadcast Tests")
+class FilteredBroadcastTest {
+    private final Packet<? super ClientGamePacketListener> packet = new ClientboundRemoveEntitiesPacket(5);
+    private final Set<ServerPlayerConnection> seenBy = new LinkedHashSet<>();
+    private SharedPacketEncoder encoder;
+    private SharedPacketEncoder.Encoded encoded;
+    private ChunkMap.TrackedEntity trackedEntity;
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+    }
+
+    @BeforeEach
+    void setUp() throws ReflectiveOperationException {
+        SharedPacketEncoder.setEnabled(true);
+        encoder = mock(SharedPacketEncoder.class);
+        encoded = mock(SharedPacketEncoder.Encoded.class);
+        when(encoder.encode(packet)).thenReturn(encoded);
+        MinecraftServer server = mock(MinecraftServer.class);
+        when(server.getSharedPacketEncoder()).thenReturn(encoder);
+        ServerLevel level = mock(ServerLevel.class);
+        when(level.getServer()).thenReturn(server);
+        ChunkMap chunkMap = mock(ChunkMap.class);
+        setField(ChunkMap.class, chunkMap, "level", level);
+
+        trackedEntity = mock(ChunkMap.TrackedEntity.class);
+        setField(ChunkMap.TrackedEntity.class, trackedEntity, "this$0", chunkMap);
+        setField(ChunkMap.TrackedEntity.class, trackedEntity, "seenBy", seenBy);
+        doCallRealMethod().when(trackedEntity).sendToTrackingPlayersFiltered(any(), any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SharedPacketEncoder.setEnabled(false);
+    }
+
+    private static void setField(Class<?> type, Object object, String name, Object value) throws ReflectiveOperationException {
+        Field field = type.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(object, value);
+    }
+
+    private List<ServerPlayerConnection> players(int count) {
+        List<ServerPlayerConnection> connections = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ServerPlayerConnection connection = mock(ServerPlayerConnection.class);
+            when(connection.getPlayer()).thenReturn(mock(ServerPlayer.class));
+            connections.add(connection);
+            seenBy.add(connection);
+        }
+
+        return connections;
+    }
+
+    private List<ServerPlayer> broadcast(List<ServerPlayerConnection> matching) {
+        List<ServerPlayer> tested = new ArrayList<>();
+        Predicate<ServerPlayer> predicate = serverPlayer -> {
+            tested.add(serverPlayer);
+            return matching.stream().anyMatch(connection -> connection.getPlayer() == serverPlayer);
+        };
+        trackedEntity.sendToTrackingPlayersFiltered(packet, predicate);
+        return tested;
+    }
+
+    @Test
+    @DisplayName("Nothing is encoded or sent when no player matches")
+    void noMatch() {
+        List<ServerPlayerConnection> connections = players(6);
+        assertThat(broadcast(List.of())).hasSize(6).doesNotHaveDuplicates();
+        verifyNoInteractions(encoder);
+        for (ServerPlayerConnection connection : connections) {
+            verify(connection, never()).send(any(Packet.class));
+            verify(connection, never()).send(any(SharedPacketEncoder.Encoded.class));
+        }
+    }
+
+    @Test
+    @DisplayName("A single match among many players gets the packet without a shared frame")
+    void singleMatch() {
+        List<ServerPlayerConnection> connections = players(6);
+        assertThat(broadcast(List.of(connections.get(4)))).hasSize(6).doesNotHaveDuplicates();
+        verifyNoInteractions(encoder);
+        verify(connections.get(4)).send(packet);
+        verify(connections.get(4), never()).send(any(SharedPacketEncoder.Encoded.class));
+        verify(connections.get(0), never()).send(any(Packet.class));
+    }
+
+    @Test
+    @DisplayName("Several matches share one frame that is released once")
+    void severalMatches() {
+        List<ServerPlayerConnection> connections = players(6);
+        List<ServerPlayerConnection> matching = List.of(connections.get(1), connections.get(3), connections.get(5));
+        assertThat(broadcast(matching)).hasSize(6).doesNotHaveDuplicates();
+        verify(encoder).encode(packet);
+        verify(encoded).release();
+        for (ServerPlayerConnection connection : connections) {
+            verify(connection, times(matching.contains(connection) ? 1 : 0)).send(encoded);
+            verify(connection, never()).send(any(Packet.class));
+        }
+    }
+
+    @Test
+    @DisplayName("Matches get the packet itself when it cannot be shared")
+    void unsharedMatches() {
+        when(encoder.encode(packet)).thenReturn(null);
+        List<ServerPlayerConnection> connections = players(4);
+        broadcast(List.of(connections.get(0), connections.get(2)));
+        verify(encoder).encode(packet);
+        verify(connections.get(0)).send(packet);
+        verify(connections.get(2)).send(packet);
+        verify(connections.get(1), never()).send(any(Packet.class));
+    }
+}
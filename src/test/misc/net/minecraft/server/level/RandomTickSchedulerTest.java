@@ -0,0 +1,191 @@
+package net.minecraft.server.level;
+
+import com.mojang.serialization.Lifecycle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.MappedRegistry;
+import net.minecraft.core.Registry;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.data.registries.VanillaRegistries;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainerFactory;
+import net.minecraft.world.level.material.Fluids;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks that {@link RandomTickScheduler} selects the same candidates for a chunk however the chunks are spread over
+ * tasks, batches them per section with only randomly ticking states, and that {@link ServerLevel} applies them with a
+ * per-chunk random generator that does not depend on the order chunks are ticked in.
+ */
+@DisplayName("Random Tick Scheduler Tests")
+class RandomTickSchedulerTest {
+    private static final int SECTIONS = 24;
+    private static PalettedContainerFactory factory;
+    private static BlockState[] states;
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        MappedRegistry<Biome> registry = new MappedRegistry<>(Registries.BIOME, Lifecycle.stable());
+        VanillaRegistries.createLookup().lookupOrThrow(Registries.BIOME).listElements()
+            .forEach(reference -> Registry.register(registry, reference.key(), reference.value()));
+        registry.freeze();
+        factory = PalettedContainerFactory.create(new RegistryAccess.ImmutableRegistryAccess(List.of(registry)));
+        states = new BlockState[]{
+            Blocks.STONE.defaultBlockState(),
+            Blocks.AIR.defaultBlockState(),
+            Blocks.WATER.defaultBlockState(),
+            Blocks.LAVA.defaultBlockState(),
+            Blocks.WHEAT.defaultBlockState(),
+            Blocks.GRASS_BLOCK.defaultBlockState(),
+            Blocks.OAK_LEAVES.defaultBlockState()
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        ServerLevel.setIndexedRandomTicks(false);
+    }
+
+    private static LevelChunk chunk(ChunkPos chunkPos, LevelChunkSection[] sections) {
+        LevelChunk chunk = mock(LevelChunk.class);
+        when(chunk.getPos()).thenReturn(chunkPos);
+        when(chunk.getSections()).thenReturn(sections);
+        when(chunk.getSectionYFromSectionIndex(anyInt())).thenAnswer(invocation -> invocation.<Integer>getArgument(0) - 4);
+        return chunk;
+    }
+
+    private static List<LevelChunk> chunks(Random random, int count) {
+        List<LevelChunk> chunks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            LevelChunkSection[] sections = new LevelChunkSection[SECTIONS];
+            for (int j = 0; j < SECTIONS; j++) {
+                sections[j] = new LevelChunkSection(factory);
+                if (random.nextInt(3) != 0) {
+                    int stateCount = 1 + random.nextInt(states.length);
+                    for (int k = 0; k < 4096; k++) {
+                        sections[j].setBlockState(k & 15, k >> 8 & 15, k >> 4 & 15, states[random.nextInt(stateCount)]);
+                    }
+                }
+            }
+
+            chunks.add(chunk(new ChunkPos(random.nextInt(200) - 100, random.nextInt(200) - 100), sections));
+        }
+
+        return chunks;
+    }
+
+    @Test
+    @DisplayName("Candidates of a chunk do not depend on how chunks are spread over tasks")
+    void candidatesAreDeterministic() {
+        List<LevelChunk> chunks = chunks(new Random(3L), 150);
+        RandomTickScheduler scheduler = new RandomTickScheduler();
+        for (boolean indexed : new boolean[]{false, true}) {
+            ServerLevel.setIndexedRandomTicks(indexed);
+            int[][] candidates = scheduler.selectCandidates(chunks, 3, 123456789L);
+            assertThat(scheduler.selectCandidates(chunks, 3, 123456789L)).isDeepEqualTo(candidates);
+            for (int i = 0; i < chunks.size(); i++) {
+                assertThat(scheduler.selectCandidates(List.of(chunks.get(i)), 3, 123456789L)[0]).as("chunk %s", i).isEqualTo(candidates[i]);
+            }
+
+            assertThat(scheduler.selectCandidates(chunks, 3, 987654321L)).isNotEqualTo(candidates);
+        }
+    }
+
+    @Test
+    @DisplayName("Candidates are batched per section and only hold randomly ticking states")
+    void candidatesAreBatchedPerSection() {
+        List<LevelChunk> chunks = chunks(new Random(5L), 40);
+        int[][] candidates = new RandomTickScheduler().selectCandidates(chunks, 3, 42L);
+        int total = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            LevelChunkSection[] sections = chunks.get(i).getSections();
+            int lastSection = -1;
+            int k = 0;
+            while (k < candidates[i].length) {
+                int section = candidates[i][k] >>> 24;
+                int count = candidates[i][k] & 16777215;
+                assertThat(section).isGreaterThan(lastSection).isLessThan(SECTIONS);
+                assertThat(count).isPositive().isLessThanOrEqualTo(3);
+                for (int j = k + 1; j <= k + count; j++) {
+                    int index = candidates[i][j];
+                    BlockState state = sections[section].getBlockState(index & 15, index >> 8 & 15, index >> 4 & 15);
+                    assertThat(state.isRandomlyTicking() || state.getFluidState().isRandomlyTicking()).isTrue();
+                }
+
+                lastSection = section;
+                total += count;
+                k += count + 1;
+            }
+
+            assertThat(k).isEqualTo(candidates[i].length);
+        }
+
+        assertThat(total).isPositive();
+    }
+
+    @Test
+    @DisplayName("Ticks are applied with a per-chunk random that does not depend on the chunk order")
+    void applyIsDeterministic() {
+        ServerLevel level = mock(ServerLevel.class);
+        doCallRealMethod().when(level).tickRandomTickCandidates(any(), any(), any());
+        Map<ChunkPos, List<String>> ticks = new HashMap<>();
+        List<LevelChunk> chunks = new ArrayList<>();
+        List<int[]> candidates = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            ChunkPos chunkPos = new ChunkPos(i * 3 - 7, 11 - i * 5);
+            BlockState state = mock(BlockState.class);
+            when(state.isRandomlyTicking()).thenReturn(true);
+            when(state.getFluidState()).thenReturn(Fluids.EMPTY.defaultFluidState());
+            doAnswer(invocation -> ticks.computeIfAbsent(chunkPos, pos -> new ArrayList<>())
+                .add(invocation.<BlockPos>getArgument(1) + ":" + invocation.<RandomSource>getArgument(2).nextInt(1000000)))
+                .when(state).randomTick(any(), any(), any());
+            LevelChunkSection[] sections = new LevelChunkSection[SECTIONS];
+            for (int j = 0; j < SECTIONS; j++) {
+                sections[j] = mock(LevelChunkSection.class);
+                when(sections[j].isRandomlyTicking()).thenReturn(j != 6);
+                when(sections[j].getBlockState(anyInt(), anyInt(), anyInt())).thenReturn(state);
+            }
+
+            chunks.add(chunk(chunkPos, sections));
+            candidates.add(new int[]{2 << 24 | 2, 0x123, 0xfff, 6 << 24 | 1, 0x456, 9 << 24 | 3, 0, 0x010, 0x100});
+        }
+
+        RandomTickScheduler scheduler = new RandomTickScheduler();
+        for (int i = 0; i < chunks.size(); i++) {
+            level.tickRandomTickCandidates(chunks.get(i), candidates.get(i), scheduler.randomFor(77L, chunks.get(i).getPos()));
+        }
+
+        Map<ChunkPos, List<String>> forward = new HashMap<>(ticks);
+        ticks.clear();
+        for (int i = chunks.size() - 1; i >= 0; i--) {
+            level.tickRandomTickCandidates(chunks.get(i), candidates.get(i), scheduler.randomFor(77L, chunks.get(i).getPos()));
+        }
+
+        assertThat(ticks).isEqualTo(forward).hasSize(chunks.size());
+        assertThat(forward.get(chunks.getFirst().getPos())).hasSize(5).first().isEqualTo(new BlockPos(-112 + 3, -32 + 1, 176 + 2) + ":" + scheduler.randomFor(77L, new ChunkPos(-7, 11)).nextInt(1000000));
+        assertThat(forward.values().stream().map(List::getFirst).distinct()).hasSize(chunks.size());
+        verify(chunks.getFirst().getSections()[6], never()).getBlockState(anyInt(), anyInt(), anyInt());
+    }
+}
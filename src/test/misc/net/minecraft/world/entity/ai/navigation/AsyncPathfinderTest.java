@@ -0,0 +1,332 @@
+package net.minecraft.world.entity.ai.navigation;
+
+import com.mojang.serialization.Lifecycle;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.MappedRegistry;
+import net.minecraft.core.Registry;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.data.registries.VanillaRegistries;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.LevelHeightAccessor;
+import net.minecraft.world.level.PathNavigationRegion;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.border.WorldBorder;
+import net.minecraft.world.level.chunk.ChunkSource;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.PalettedContainerFactory;
+import net.minecraft.world.level.chunk.ProtoChunk;
+import net.minecraft.world.level.chunk.UpgradeData;
+import net.minecraft.world.level.levelgen.structure.BoundingBox;
+import net.minecraft.world.level.pathfinder.Node;
+import net.minecraft.world.level.pathfinder.Path;
+import net.minecraft.world.level.pathfinder.PathFinder;
+import net.minecraft.world.level.pathfinder.PathType;
+import net.minecraft.world.level.pathfinder.WalkNodeEvaluator;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.Vec3;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.*;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks how {@link AsyncPathfinder} tracks block changes and caps the searches running at the same time, and that a
+ * search finished on a worker finds the same path as on the main thread without reading the mob or the live chunks.
+ */
+@DisplayName("Async Pathfinder Tests")
+class AsyncPathfinderTest {
+    private static final int RADIUS = 2;
+    private static final float MAX_PATH_LENGTH = 24.0F;
+    private static final int ACCURACY = 8;
+    private static PalettedContainerFactory factory;
+    private static final Path PATH = new Path(List.of(new Node(0, 64, 0), new Node(1, 64, 0)), new BlockPos(20, 64, 20), false);
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        MappedRegistry<Biome> registry = new MappedRegistry<>(Registries.BIOME, Lifecycle.stable());
+        VanillaRegistries.createLookup().lookupOrThrow(Registries.BIOME).listElements()
+            .forEach(reference -> Registry.register(registry, reference.key(), reference.value()));
+        registry.freeze();
+        factory = PalettedContainerFactory.create(new RegistryAccess.ImmutableRegistryAccess(List.of(registry)));
+    }
+
+    @AfterEach
+    void resetCap() {
+        AsyncPathfinder.setMaxSearchesInFlight(64);
+    }
+
+    private static PathNavigationRegion region() {
+        PathNavigationRegion region = mock(PathNavigationRegion.class);
+        when(region.getChunkBounds()).thenReturn(new BoundingBox(-16, -64, -16, 31, 319, 31));
+        return region;
+    }
+
+    private static PathFinder.PreparedSearch prepared() {
+        return new PathFinder.PreparedSearch(region(), new Node(0, 64, 0), Map.of());
+    }
+
+    private static PathFinder pathFinder(CountDownLatch latch) {
+        PathFinder pathFinder = mock(PathFinder.class);
+        when(pathFinder.findPath(any(PathFinder.PreparedSearch.class), anyFloat(), anyInt(), anyFloat())).thenAnswer(invocation -> {
+            latch.await(10, TimeUnit.SECONDS);
+            return PATH;
+        });
+        return pathFinder;
+    }
+
+    @Test
+    @DisplayName("Block changes inside the searched chunks make the result stale")
+    void blockChangeMarksStale() {
+        AsyncPathfinder pathfinder = new AsyncPathfinder();
+        CountDownLatch latch = new CountDownLatch(1);
+        AsyncPathfinder.Search search = pathfinder.submit(pathFinder(latch), prepared(), mock(Mob.class), 16.0F, 0, 1.0F);
+        assertThat(search).isNotNull();
+
+        pathfinder.blockChanged(new BlockPos(32, 64, 0));
+        pathfinder.blockChanged(new BlockPos(0, 64, -17));
+        assertThat(search.isStale()).isFalse();
+
+        latch.countDown();
+        await().atMost(10, TimeUnit.SECONDS).until(search::isDone);
+        assertThat(search.getPath()).isSameAs(PATH);
+        assertThat(search.isStale()).isFalse();
+
+        pathfinder.blockChanged(new BlockPos(31, 200, -16));
+        assertThat(search.isStale()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Released searches no longer track block changes")
+    void releasedSearchIsForgotten() {
+        AsyncPathfinder pathfinder = new AsyncPathfinder();
+        CountDownLatch latch = new CountDownLatch(0);
+        AsyncPathfinder.Search search = pathfinder.submit(pathFinder(latch), prepared(), mock(Mob.class), 16.0F, 0, 1.0F);
+        await().atMost(10, TimeUnit.SECONDS).until(search::isDone);
+        search.release();
+
+        pathfinder.blockChanged(BlockPos.ZERO);
+        assertThat(search.isStale()).isFalse();
+        assertThat(pathfinder.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Submitting beyond the cap fails until a search finishes")
+    void capsSearchesInFlight() {
+        AsyncPathfinder.setMaxSearchesInFlight(1);
+        AsyncPathfinder pathfinder = new AsyncPathfinder();
+        CountDownLatch latch = new CountDownLatch(1);
+        PathFinder pathFinder = pathFinder(latch);
+        AsyncPathfinder.Search search = pathfinder.submit(pathFinder, prepared(), mock(Mob.class), 16.0F, 0, 1.0F);
+        assertThat(search).isNotNull();
+        assertThat(pathfinder.submit(pathFinder, prepared(), mock(Mob.class), 16.0F, 0, 1.0F)).isNull();
+
+        latch.countDown();
+        await().atMost(10, TimeUnit.SECONDS).until(search::isDone);
+        await().atMost(10, TimeUnit.SECONDS).until(() -> AsyncPathfinder.getSearchesInFlight() == 0);
+        assertThat(pathfinder.submit(pathFinder, prepared(), mock(Mob.class), 16.0F, 0, 1.0F)).isNotNull();
+    }
+
+    @Test
+    @DisplayName("A failing search is reported as stale")
+    void failureIsStale() {
+        AsyncPathfinder pathfinder = new AsyncPathfinder();
+        PathFinder pathFinder = mock(PathFinder.class);
+        when(pathFinder.findPath(any(PathFinder.PreparedSearch.class), anyFloat(), anyInt(), anyFloat())).thenThrow(new IllegalStateException("palette resized"));
+        AsyncPathfinder.Search search = pathfinder.submit(pathFinder, prepared(), mock(Mob.class), 16.0F, 0, 1.0F);
+        await().atMost(10, TimeUnit.SECONDS).until(search::isDone);
+        assertThat(search.isStale()).isTrue();
+        assertThat(search.getPath()).isNull();
+    }
+
+    /**
+     * Chunks 128 blocks high around the origin with a stone floor at y 63 and random walls, fences, slabs, water and
+     * gaps on top of it, served to path navigation regions through a mocked level.
+     */
+    private static Level level(Random random, Map<ChunkPos, ProtoChunk> chunks) {
+        BlockState[] obstacles = {
+            Blocks.STONE.defaultBlockState(),
+            Blocks.OAK_FENCE.defaultBlockState(),
+            Blocks.OAK_SLAB.defaultBlockState(),
+            Blocks.WATER.defaultBlockState(),
+            Blocks.CACTUS.defaultBlockState(),
+            Blocks.AIR.defaultBlockState()
+        };
+        Level level = mock(Level.class);
+        ChunkSource chunkSource = mock(ChunkSource.class);
+        for (int x = -RADIUS; x <= RADIUS; x++) {
+            for (int z = -RADIUS; z <= RADIUS; z++) {
+                ChunkPos chunkPos = new ChunkPos(x, z);
+                ProtoChunk chunk = new ProtoChunk(chunkPos, UpgradeData.EMPTY, LevelHeightAccessor.create(0, 128), factory, null);
+                for (int i = 0; i < 256; i++) {
+                    BlockPos blockPos = chunkPos.getBlockAt(i & 15, 63, i >> 4);
+                    chunk.setBlockState(blockPos, Blocks.STONE.defaultBlockState());
+                    if (random.nextInt(5) == 0 && blockPos.getX() * blockPos.getX() + blockPos.getZ() * blockPos.getZ() > 4) {
+                        BlockState obstacle = obstacles[random.nextInt(obstacles.length)];
+                        int height = 1 + random.nextInt(3);
+                        for (int y = 0; y < height; y++) {
+                            chunk.setBlockState(obstacle.isAir() ? blockPos.below(y) : blockPos.above(y + 1), obstacle);
+                        }
+                    }
+                }
+
+                chunks.put(chunkPos, chunk);
+                LevelChunk levelChunk = mock(LevelChunk.class, delegatesTo(chunk));
+                when(chunkSource.getChunkNow(x, z)).thenReturn(levelChunk);
+            }
+        }
+
+        when(level.getChunkSource()).thenReturn(chunkSource);
+        when(level.getMinY()).thenReturn(0);
+        when(level.getHeight()).thenReturn(128);
+        when(level.getMinSectionY()).thenCallRealMethod();
+        when(level.getMaxSectionY()).thenCallRealMethod();
+        when(level.getMaxY()).thenCallRealMethod();
+        when(level.getWorldBorder()).thenReturn(new WorldBorder());
+        return level;
+    }
+
+    /**
+     * A mob standing at the origin that records the name of every method called on it from another thread.
+     */
+    private static Mob mob(Level level, Thread thread, List<String> offThread) {
+        Vec3 position = new Vec3(0.5, 64.0, 0.5);
+        return mock(Mob.class, invocation -> {
+            if (Thread.currentThread() != thread) {
+                offThread.add(invocation.getMethod().getName());
+            }
+
+            return switch (invocation.getMethod().getName()) {
+                case "getPathfindingMalus" -> ((PathType)invocation.getArgument(0)).getMalus();
+                case "getBbWidth" -> 0.6F;
+                case "getBbHeight" -> 1.95F;
+                case "maxUpStep" -> 0.6F;
+                case "getMaxFallDistance" -> 3;
+                case "position" -> position;
+                case "getX" -> position.x;
+                case "getY" -> position.y;
+                case "getZ" -> position.z;
+                case "getBlockY" -> 64;
+                case "blockPosition" -> BlockPos.containing(position);
+                case "getBoundingBox" -> new AABB(0.2, 64.0, 0.2, 0.8, 65.95, 0.8);
+                case "onGround" -> true;
+                case "level" -> level;
+                case "getMainHandItem" -> ItemStack.EMPTY;
+                default -> RETURNS_DEFAULTS.answer(invocation);
+            };
+        });
+    }
+
+    private static Set<BlockPos> targets(Random random) {
+        Set<BlockPos> targets = new HashSet<>();
+        for (int i = 1 + random.nextInt(2); i > 0; i--) {
+            targets.add(new BlockPos(random.nextInt(41) - 20, 64, random.nextInt(41) - 20));
+        }
+
+        return targets;
+    }
+
+    private static PathNavigationRegion region(Level level, boolean copy) {
+        int i = (int)(MAX_PATH_LENGTH + ACCURACY);
+        BlockPos from = new BlockPos(-i, 64 - i, -i);
+        BlockPos to = new BlockPos(i, 64 + i, i);
+        return copy ? PathNavigationRegion.copyOf(level, from, to) : new PathNavigationRegion(level, from, to);
+    }
+
+    private static Path finish(AsyncPathfinder pathfinder, PathFinder pathFinder, PathFinder.PreparedSearch preparedSearch, Mob mob) {
+        AsyncPathfinder.Search search = pathfinder.submit(pathFinder, preparedSearch, mob, MAX_PATH_LENGTH, 1, 1.0F);
+        assertThat(search).isNotNull();
+        await().atMost(10, TimeUnit.SECONDS).until(search::isDone);
+        assertThat(search.isStale()).isFalse();
+        return search.getPath();
+    }
+
+    private static void assertSamePath(Path actual, Path expected) {
+        if (expected == null) {
+            assertThat(actual).isNull();
+        } else {
+            assertThat(actual).isNotNull();
+            assertThat(actual.sameAs(expected)).as("%s and %s", actual, expected).isTrue();
+            assertThat(actual.getTarget()).isEqualTo(expected.getTarget());
+            assertThat(actual.canReach()).isEqualTo(expected.canReach());
+        }
+    }
+
+    @Test
+    @DisplayName("Searches finished on a worker find the same paths as on the main thread")
+    void asyncMatchesSync() {
+        Random random = new Random(17L);
+        AsyncPathfinder pathfinder = new AsyncPathfinder();
+        List<String> offThread = new CopyOnWriteArrayList<>();
+        int reached = 0;
+        for (int round = 0; round < 20; round++) {
+            Level level = level(random, new HashMap<>());
+            Mob mob = mob(level, Thread.currentThread(), offThread);
+            Set<BlockPos> targets = targets(random);
+            Path expected = new PathFinder(new WalkNodeEvaluator(), 400).findPath(region(level, false), mob, targets, MAX_PATH_LENGTH, 1, 1.0F);
+
+            PathFinder pathFinder = new PathFinder(new WalkNodeEvaluator(), 400);
+            PathFinder.PreparedSearch preparedSearch = pathFinder.prepareSearch(region(level, true), mob, targets);
+            assertThat(preparedSearch).isNotNull();
+            Path actual = finish(pathfinder, pathFinder, preparedSearch, mob);
+            assertSamePath(actual, expected);
+            if (expected != null && expected.canReach()) {
+                reached++;
+            }
+        }
+
+        assertThat(reached).as("searches that reached their target").isGreaterThan(5);
+        assertThat(offThread).as("mob methods called off the main thread").isEmpty();
+    }
+
+    @Test
+    @DisplayName("Blocks changed after a search was prepared do not affect it")
+    void searchReadsCopiedBlocks() {
+        Random random = new Random(5L);
+        AsyncPathfinder pathfinder = new AsyncPathfinder();
+        Map<ChunkPos, ProtoChunk> chunks = new HashMap<>();
+        Level level = level(random, chunks);
+        Mob mob = mob(level, Thread.currentThread(), new CopyOnWriteArrayList<>());
+        Set<BlockPos> targets = Set.of(new BlockPos(12, 64, 9));
+        Path expected = new PathFinder(new WalkNodeEvaluator(), 400).findPath(region(level, false), mob, targets, MAX_PATH_LENGTH, 1, 1.0F);
+        assertThat(expected).isNotNull();
+
+        PathFinder pathFinder = new PathFinder(new WalkNodeEvaluator(), 400);
+        PathFinder.PreparedSearch preparedSearch = pathFinder.prepareSearch(region(level, true), mob, targets);
+        for (ProtoChunk chunk : chunks.values()) {
+            for (int i = 0; i < 256; i++) {
+                for (int y = 64; y < 68; y++) {
+                    chunk.setBlockState(chunk.getPos().getBlockAt(i & 15, y, i >> 4), Blocks.STONE.defaultBlockState());
+                }
+            }
+        }
+
+        assertSamePath(finish(pathfinder, pathFinder, preparedSearch, mob), expected);
+        assertThat(new PathFinder(new WalkNodeEvaluator(), 400).findPath(region(level, false), mob, targets, MAX_PATH_LENGTH, 1, 1.0F))
+            .as("path through the walled-in level")
+            .satisfiesAnyOf(path -> assertThat(path).isNull(), path -> assertThat(path.sameAs(expected)).isFalse());
+    }
+}
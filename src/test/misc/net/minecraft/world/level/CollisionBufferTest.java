@@ -0,0 +1,211 @@
+package net.minecraft.world.level;
+
+import com.google.common.collect.ImmutableList;
+import it.unimi.dsi.fastutil.floats.FloatArraySet;
+import it.unimi.dsi.fastutil.floats.FloatArrays;
+import it.unimi.dsi.fastutil.floats.FloatSet;
+import java.util.List;
+import java.util.Random;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.SlabBlock;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.properties.SlabType;
+import net.minecraft.world.level.border.WorldBorder;
+import net.minecraft.world.level.material.FluidState;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.Vec3;
+import net.minecraft.world.phys.shapes.Shapes;
+import net.minecraft.world.phys.shapes.VoxelShape;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Checks that {@link CollisionBuffer} resolves movements exactly like colliding with the list of moved block shapes.
+ */
+@DisplayName("Collision Buffer Tests")
+class CollisionBufferTest {
+    private static final int SIZE = 16;
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+    }
+
+    private static List<VoxelShape> shapes(Terrain terrain, List<VoxelShape> entityShapes, AABB aABB) {
+        return ImmutableList.<VoxelShape>builder().addAll(entityShapes).addAll(terrain.getBlockCollisions(null, aABB)).build();
+    }
+
+    private static Vec3 collideWithShapes(Vec3 vec3, AABB aABB, List<VoxelShape> list) {
+        if (list.isEmpty()) {
+            return vec3;
+        }
+
+        Vec3 result = Vec3.ZERO;
+        for (Direction.Axis axis : Direction.axisStepOrder(vec3)) {
+            double d = vec3.get(axis);
+            if (d != 0.0) {
+                result = result.with(axis, Shapes.collide(axis, aABB.move(result), list, d));
+            }
+        }
+
+        return result;
+    }
+
+    private static float[] stepUpHeights(AABB aABB, List<VoxelShape> list, float f, float g) {
+        FloatSet floatSet = new FloatArraySet(4);
+        for (VoxelShape voxelShape : list) {
+            for (double d : voxelShape.getCoords(Direction.Axis.Y)) {
+                float h = (float)(d - aABB.minY);
+                if (!(h < 0.0F) && h != g) {
+                    if (h > f) {
+                        break;
+                    }
+
+                    floatSet.add(h);
+                }
+            }
+        }
+
+        float[] fs = floatSet.toFloatArray();
+        FloatArrays.unstableSort(fs);
+        return fs;
+    }
+
+    @Test
+    @DisplayName("Random movements match the shape list")
+    void matchesShapeList() {
+        Terrain terrain = new Terrain(new Random(1L));
+        Random random = new Random(2L);
+        CollisionBuffer buffer = new CollisionBuffer();
+        List<VoxelShape> entityShapes = List.of(Shapes.box(7.0, 4.0, 7.0, 8.5, 4.5, 8.5));
+        for (int i = 0; i < 20000; i++) {
+            double width = random.nextBoolean() ? 0.25 : 0.6 + random.nextInt(3) * 0.4;
+            double x = 2.0 + random.nextDouble() * (SIZE - 4);
+            double y = 2.0 + random.nextInt(3) + (random.nextInt(4) == 0 ? random.nextDouble() : random.nextInt(3) * 0.5);
+            double z = 2.0 + random.nextDouble() * (SIZE - 4);
+            AABB aABB = new AABB(x - width / 2, y, z - width / 2, x + width / 2, y + width * 2, z + width / 2);
+            Vec3 move = new Vec3(random.nextGaussian() * 0.6, random.nextGaussian() * 0.6, random.nextGaussian() * 0.6);
+            List<VoxelShape> extra = random.nextInt(4) == 0 ? entityShapes : List.of();
+
+            List<VoxelShape> list = shapes(terrain, extra, aABB.expandTowards(move));
+            buffer.collect(null, terrain, extra, aABB.expandTowards(move));
+            assertThat(buffer.size()).isEqualTo(list.size());
+            assertThat(buffer.collide(move, aABB)).as("move %s of %s", move, aABB).isEqualTo(collideWithShapes(move, aABB, list));
+
+            AABB step = aABB.expandTowards(move.x, 1.0, move.z);
+            list = shapes(terrain, extra, step);
+            buffer.collect(null, terrain, extra, step);
+            float g = (float)(random.nextInt(3) * 0.5);
+            assertThat(buffer.collectCandidateStepUpHeights(aABB, 1.0F, g)).isEqualTo(stepUpHeights(aABB, list, 1.0F, g));
+        }
+    }
+
+    @Test
+    @DisplayName("Releasing the buffer drops its colliders")
+    void releaseClears() {
+        Terrain terrain = new Terrain(new Random(3L));
+        CollisionBuffer buffer = new CollisionBuffer();
+        AABB aABB = new AABB(4.2, 2.0, 4.2, 4.8, 3.5, 4.8);
+        buffer.collect(null, terrain, List.of(), aABB.expandTowards(0.0, -1.0, 0.0));
+        assertThat(buffer.isEmpty()).isFalse();
+        assertThat(buffer.collide(new Vec3(0.0, -1.0, 0.0), aABB).y).isEqualTo(-0.5);
+
+        buffer.release();
+        assertThat(buffer.isEmpty()).isTrue();
+        assertThat(buffer.collide(new Vec3(0.0, -1.0, 0.0), aABB).y).isEqualTo(-1.0);
+    }
+
+    /**
+     * A floor of full blocks at y 0 with a random mix of full blocks, slabs, fences, stairs and panes up to y 5, and a
+     * single slab in the column at x 4, z 4.
+     */
+    private static class Terrain implements CollisionGetter {
+        private final BlockState[] states = new BlockState[SIZE * SIZE * 6];
+        private final WorldBorder worldBorder = new WorldBorder();
+
+        Terrain(Random random) {
+            BlockState[] blocks = {
+                Blocks.STONE.defaultBlockState(),
+                Blocks.STONE_SLAB.defaultBlockState(),
+                Blocks.STONE_SLAB.defaultBlockState().setValue(SlabBlock.TYPE, SlabType.TOP),
+                Blocks.OAK_FENCE.defaultBlockState(),
+                Blocks.OAK_STAIRS.defaultBlockState(),
+                Blocks.GLASS_PANE.defaultBlockState()
+            };
+            for (int x = 0; x < SIZE; x++) {
+                for (int z = 0; z < SIZE; z++) {
+                    states[index(x, 0, z)] = Blocks.STONE.defaultBlockState();
+                    for (int y = 1; y < 6; y++) {
+                        if (x == 4 && z == 4) {
+                            states[index(x, y, z)] = y == 1 ? Blocks.STONE_SLAB.defaultBlockState() : Blocks.AIR.defaultBlockState();
+                        } else {
+                            states[index(x, y, z)] = random.nextInt(4) == 0 ? blocks[random.nextInt(blocks.length)] : Blocks.AIR.defaultBlockState();
+                        }
+                    }
+                }
+            }
+        }
+
+        private static int index(int x, int y, int z) {
+            return (y * SIZE + z) * SIZE + x;
+        }
+
+        @Override
+        public BlockState getBlockState(BlockPos blockPos) {
+            int x = blockPos.getX();
+            int y = blockPos.getY();
+            int z = blockPos.getZ();
+            if (x < 0 || x >= SIZE || z < 0 || z >= SIZE || y < 0) {
+                return Blocks.STONE.defaultBlockState();
+            } else if (y >= 6) {
+                return Blocks.AIR.defaultBlockState();
+            }
+
+            return states[index(x, y, z)];
+        }
+
+        @Override
+        public FluidState getFluidState(BlockPos blockPos) {
+            return getBlockState(blockPos).getFluidState();
+        }
+
+        @Override
+        public BlockEntity getBlockEntity(BlockPos blockPos) {
+            return null;
+        }
+
+        @Override
+        public WorldBorder getWorldBorder() {
+            return worldBorder;
+        }
+
+        @Override
+        public BlockGetter getChunkForCollisions(int i, int j) {
+            return this;
+        }
+
+        @Override
+        public List<VoxelShape> getEntityCollisions(Entity entity, AABB aABB) {
+            return List.of();
+        }
+
+        @Override
+        public int getHeight() {
+            return 384;
+        }
+
+        @Override
+        public int getMinY() {
+            return -64;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package net.minecraft.world.level.chunk;
+
+import com.mojang.serialization.Lifecycle;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.MappedRegistry;
+import net.minecraft.core.Registry;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.data.registries.VanillaRegistries;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Checks that {@link RandomTickIndex} follows block changes and that drawing random ticks from it
+ * ticks every block at the same rate as sampling random positions of the section.
+ */
+@DisplayName("Random Tick Index Tests")
+class RandomTickIndexTest {
+    private static PalettedContainerFactory factory;
+    private static BlockState[] states;
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        MappedRegistry<Biome> registry = new MappedRegistry<>(Registries.BIOME, Lifecycle.stable());
+        VanillaRegistries.createLookup().lookupOrThrow(Registries.BIOME).listElements()
+            .forEach(reference -> Registry.register(registry, reference.key(), reference.value()));
+        registry.freeze();
+        factory = PalettedContainerFactory.create(new RegistryAccess.ImmutableRegistryAccess(List.of(registry)));
+        states = new BlockState[]{
+            Blocks.AIR.defaultBlockState(),
+            Blocks.STONE.defaultBlockState(),
+            Blocks.WATER.defaultBlockState(),
+            Blocks.LAVA.defaultBlockState(),
+            Blocks.WHEAT.defaultBlockState(),
+            Blocks.GRASS_BLOCK.defaultBlockState(),
+            Blocks.OAK_LEAVES.defaultBlockState()
+        };
+    }
+
+    @Test
+    @DisplayName("should track ticking positions through block changes")
+    void testIndexFollowsChanges() {
+        Random random = new Random(1L);
+        LevelChunkSection section = new LevelChunkSection(factory);
+        for (int i = 0; i < 4096; i++) {
+            section.setBlockState(i & 15, i >> 8 & 15, i >> 4 & 15, states[random.nextInt(2)]);
+        }
+
+        section.setBlockState(3, 4, 5, Blocks.WHEAT.defaultBlockState());
+        assertThat(indexedPositions(section)).isEqualTo(tickingPositions(section));
+
+        for (int i = 0; i < 20000; i++) {
+            section.setBlockState(random.nextInt(16), random.nextInt(16), random.nextInt(16), states[random.nextInt(states.length)]);
+        }
+
+        assertThat(indexedPositions(section)).isEqualTo(tickingPositions(section));
+        assertThat(indexedPositions(section.copy())).isEqualTo(tickingPositions(section));
+
+        section.recalcBlockCounts();
+        assertThat(indexedPositions(section)).isEqualTo(tickingPositions(section));
+    }
+
+    @Test
+    @DisplayName("should tick every block at the same rate as position sampling")
+    void testSameTickRate() {
+        LevelChunkSection section = new LevelChunkSection(factory);
+        for (int i = 0; i < 4096; i++) {
+            section.setBlockState(i & 15, i >> 8 & 15, i >> 4 & 15, Blocks.STONE.defaultBlockState());
+        }
+
+        int[] ticking = {0x000, 0x123, 0x456, 0x789, 0xabc, 0xfff};
+        for (int position : ticking) {
+            section.setBlockState(position & 15, position >> 8 & 15, position >> 4 & 15, Blocks.WHEAT.defaultBlockState());
+        }
+
+        section.setBlockState(0x123 & 15, 0x123 >> 8 & 15, 0x123 >> 4 & 15, Blocks.LAVA.defaultBlockState());
+        RandomTickIndex index = section.getRandomTickIndex();
+        int draws = 4096 * 4000;
+        int[] sampled = new int[4096];
+        int[] indexed = new int[4096];
+        Random random = new Random(2L);
+        for (int i = 0; i < draws; i++) {
+            int position = random.nextInt(4096);
+            if (RandomTickIndex.isRandomlyTicking(section.getBlockState(position & 15, position >> 8 & 15, position >> 4 & 15))) {
+                sampled[position]++;
+            }
+
+            int drawn = index.sample(random.nextInt(4096));
+            if (drawn != -1) {
+                indexed[drawn]++;
+            }
+        }
+
+        // Each draw hits a given ticking block with probability 1/4096, so both counts are binomial
+        // with mean 4000 and a standard deviation of about 63; allow five deviations either way.
+        double mean = draws / 4096.0;
+        double tolerance = 5.0 * Math.sqrt(mean);
+        int sampledTotal = 0;
+        int indexedTotal = 0;
+        for (int position = 0; position < 4096; position++) {
+            sampledTotal += sampled[position];
+            indexedTotal += indexed[position];
+        }
+
+        for (int position : ticking) {
+            assertThat((double)sampled[position]).isCloseTo(mean, within(tolerance));
+            assertThat((double)indexed[position]).isCloseTo(mean, within(tolerance));
+        }
+
+        assertThat(indexedTotal).isEqualTo(indexed[0x000] + indexed[0x123] + indexed[0x456] + indexed[0x789] + indexed[0xabc] + indexed[0xfff]);
+        assertThat((double)indexedTotal).isCloseTo(sampledTotal, within(5.0 * Math.sqrt(2.0 * ticking.length * mean)));
+    }
+
+    private static Set<Integer> indexedPositions(LevelChunkSection section) {
+        RandomTickIndex index = section.getRandomTickIndex();
+        Set<Integer> positions = new HashSet<>();
+        for (int i = 0; i < index.size(); i++) {
+            assertThat(positions.add(index.sample(i))).isTrue();
+        }
+
+        return positions;
+    }
+
+    private static Set<Integer> tickingPositions(LevelChunkSection section) {
+        Set<Integer> positions = new HashSet<>();
+        for (int i = 0; i < 4096; i++) {
+            if (RandomTickIndex.isRandomlyTicking(section.getBlockState(i & 15, i >> 8 & 15, i >> 4 & 15))) {
+                positions.add(i);
+            }
+        }
+
+        return positions;
+    }
+}
@@ -0,0 +1,230 @@
+package net.minecraft.world.level.chunk.storage;
+
+import com.mojang.serialization.Lifecycle;
+import it.unimi.dsi.fastutil.shorts.ShortArrayList;
+import it.unimi.dsi.fastutil.shorts.ShortList;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Holder;
+import net.minecraft.core.MappedRegistry;
+import net.minecraft.core.Registry;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.data.registries.VanillaRegistries;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.DataLayer;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.chunk.PalettedContainerFactory;
+import net.minecraft.world.level.chunk.UpgradeData;
+import net.minecraft.world.level.chunk.status.ChunkStatus;
+import net.minecraft.world.level.levelgen.Heightmap;
+import net.minecraft.world.level.material.Fluid;
+import net.minecraft.world.level.material.Fluids;
+import net.minecraft.world.ticks.SavedTick;
+import net.minecraft.world.ticks.TickPriority;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Checks that {@link ChunkNbtWriter} produces exactly the bytes of the tag tree path,
+ * {@code NbtIo.write(data.write(), output)}, for full, proto and empty chunks.
+ */
+@DisplayName("Direct Chunk Serialization Tests")
+class ChunkNbtWriterTest {
+    private static BlockState[] states;
+    private static PalettedContainerFactory factory;
+    private static List<Holder<Biome>> biomes;
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        states = new BlockState[]{
+            Blocks.AIR.defaultBlockState(),
+            Blocks.STONE.defaultBlockState(),
+            Blocks.OAK_STAIRS.defaultBlockState(),
+            Blocks.WATER.defaultBlockState(),
+            Blocks.REDSTONE_WIRE.defaultBlockState(),
+            Blocks.OAK_LEAVES.defaultBlockState(),
+            Blocks.CHEST.defaultBlockState()
+        };
+        MappedRegistry<Biome> registry = new MappedRegistry<>(Registries.BIOME, Lifecycle.stable());
+        VanillaRegistries.createLookup().lookupOrThrow(Registries.BIOME).listElements()
+            .forEach(reference -> Registry.register(registry, reference.key(), reference.value()));
+        registry.freeze();
+        factory = PalettedContainerFactory.create(new RegistryAccess.ImmutableRegistryAccess(List.of(registry)));
+        biomes = registry.listElements().<Holder<Biome>>map(reference -> reference).limit(8).toList();
+    }
+
+    @Test
+    @DisplayName("should match the tag tree path for full chunks")
+    void testFullChunks() throws IOException {
+        for (int seed = 0; seed < 16; seed++) {
+            assertSameBytes(createChunk(new Random(seed), ChunkStatus.FULL));
+        }
+    }
+
+    @Test
+    @DisplayName("should match the tag tree path for proto chunks")
+    void testProtoChunks() throws IOException {
+        for (int seed = 0; seed < 16; seed++) {
+            assertSameBytes(createChunk(new Random(seed), ChunkStatus.FEATURES));
+        }
+    }
+
+    @Test
+    @DisplayName("should match the tag tree path for chunks without sections")
+    void testEmptyChunk() throws IOException {
+        SerializableChunkData data = new SerializableChunkData(
+            factory,
+            new ChunkPos(0, 0),
+            -4,
+            0L,
+            0L,
+            ChunkStatus.EMPTY,
+            null,
+            null,
+            UpgradeData.EMPTY,
+            null,
+            new EnumMap<>(Heightmap.Types.class),
+            new ChunkAccess.PackedTicks(List.of(), List.of()),
+            new ShortList[0],
+            false,
+            List.of(),
+            List.of(),
+            List.of(),
+            new CompoundTag()
+        );
+        assertSameBytes(data);
+    }
+
+    private static void assertSameBytes(SerializableChunkData data) throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        NbtIo.write(data.write(), new DataOutputStream(expected));
+        assertThat(ChunkNbtWriter.write(data)).isEqualTo(expected.toByteArray());
+    }
+
+    private static SerializableChunkData createChunk(Random random, ChunkStatus status) {
+        List<SerializableChunkData.SectionData> sections = new ArrayList<>();
+        for (int y = -5; y < 21; y++) {
+            LevelChunkSection section = null;
+            if (y >= -4 && y < 20) {
+                PalettedContainer<BlockState> blockStates = factory.createForBlockStates();
+                int stateCount = random.nextInt(states.length) + 1;
+                if (random.nextInt(4) != 0) {
+                    for (int i = 0; i < 4096; i++) {
+                        blockStates.getAndSetUnchecked(i & 15, i >> 8 & 15, i >> 4 & 15, states[random.nextInt(stateCount)]);
+                    }
+                }
+
+                PalettedContainer<Holder<Biome>> biomeStates = factory.createForBiomes();
+                int biomeCount = random.nextInt(biomes.size()) + 1;
+                for (int i = 0; i < 64; i++) {
+                    biomeStates.getAndSetUnchecked(i & 3, i >> 4 & 3, i >> 2 & 3, biomes.get(random.nextInt(biomeCount)));
+                }
+
+                section = new LevelChunkSection(blockStates, biomeStates);
+            }
+
+            DataLayer blockLight = random.nextBoolean() ? randomLayer(random) : null;
+            DataLayer skyLight = random.nextBoolean() ? randomLayer(random) : null;
+            sections.add(new SerializableChunkData.SectionData(y, section, blockLight, skyLight));
+        }
+
+        Map<Heightmap.Types, long[]> heightmaps = new EnumMap<>(Heightmap.Types.class);
+        for (Heightmap.Types types : status.heightmapsAfter()) {
+            if (random.nextBoolean()) {
+                heightmaps.put(types, random.longs(37).toArray());
+            }
+        }
+
+        List<SavedTick<Block>> blockTicks = new ArrayList<>();
+        List<SavedTick<Fluid>> fluidTicks = new ArrayList<>();
+        for (int i = random.nextInt(4); i > 0; i--) {
+            BlockPos pos = new BlockPos(random.nextInt(16), random.nextInt(64), random.nextInt(16));
+            blockTicks.add(new SavedTick<>(Blocks.REDSTONE_WIRE, pos, random.nextInt(10), TickPriority.NORMAL));
+            fluidTicks.add(new SavedTick<>(Fluids.WATER, pos, random.nextInt(10), TickPriority.HIGH));
+        }
+
+        ShortList[] postProcessing = new ShortList[24];
+        for (int i = 0; i < postProcessing.length; i++) {
+            if (random.nextInt(3) == 0) {
+                ShortList list = new ShortArrayList();
+                for (int j = random.nextInt(4); j > 0; j--) {
+                    list.add((short)random.nextInt(4096));
+                }
+
+                postProcessing[i] = list;
+            }
+        }
+
+        List<CompoundTag> blockEntities = new ArrayList<>();
+        List<CompoundTag> entities = new ArrayList<>();
+        for (int i = random.nextInt(3); i > 0; i--) {
+            CompoundTag blockEntity = new CompoundTag();
+            blockEntity.putString("id", "minecraft:chest");
+            blockEntity.putInt("x", random.nextInt(16));
+            blockEntity.putInt("y", random.nextInt(64));
+            blockEntity.putInt("z", random.nextInt(16));
+            blockEntities.add(blockEntity);
+            CompoundTag entity = new CompoundTag();
+            entity.putString("id", "minecraft:pig");
+            entity.putFloat("Health", 10.0F);
+            entities.add(entity);
+        }
+
+        CompoundTag structures = new CompoundTag();
+        structures.put("starts", new CompoundTag());
+        CompoundTag references = new CompoundTag();
+        if (random.nextBoolean()) {
+            references.putLongArray("minecraft:village_plains", new long[]{ChunkPos.asLong(1, 2)});
+        }
+
+        structures.put("References", references);
+        return new SerializableChunkData(
+            factory,
+            new ChunkPos(random.nextInt(64) - 32, random.nextInt(64) - 32),
+            -4,
+            random.nextLong(),
+            random.nextLong(),
+            status,
+            null,
+            null,
+            UpgradeData.EMPTY,
+            random.nextBoolean() ? random.longs(1536).toArray() : null,
+            heightmaps,
+            new ChunkAccess.PackedTicks(blockTicks, fluidTicks),
+            postProcessing,
+            random.nextBoolean(),
+            sections,
+            entities,
+            blockEntities,
+            structures
+        );
+    }
+
+    private static DataLayer randomLayer(Random random) {
+        byte[] data = new byte[2048];
+        random.nextBytes(data);
+        return new DataLayer(data);
+    }
+}
@@ -0,0 +1,253 @@
+package net.minecraft.world.level.chunk.storage;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import net.minecraft.SharedConstants;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.StreamTagVisitor;
+import net.minecraft.nbt.TagType;
+import net.minecraft.nbt.visitors.CollectToTag;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.util.profiling.metrics.MetricSampler;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Checks that chunks stored through {@link IOWorker} with batched writes come back unchanged, both while they are
+ * pending and from the region files once the worker was closed, that a chunk failing to encode does not fail the rest
+ * of its batch, that with parallel deserialization loads and
+ * scans parse the same chunks and complete in the order they were submitted, including ones that fail, and that the
+ * chunks parsed metric is only reported while parallel deserialization is enabled.
+ */
+@DisplayName("IO Worker Tests")
+class IOWorkerTest {
+    private static RegionStorageInfo info;
+
+    @TempDir
+    Path folder;
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        info = new RegionStorageInfo("test", Level.OVERWORLD, "chunk");
+    }
+
+    @AfterEach
+    void tearDown() {
+        IOWorker.setBatchedWrites(false);
+        IOWorker.setParallelDeserialization(false);
+    }
+
+    private static CompoundTag chunk(Random random, ChunkPos chunkPos) {
+        CompoundTag compoundTag = new CompoundTag();
+        compoundTag.putInt("xPos", chunkPos.x);
+        compoundTag.putInt("zPos", chunkPos.z);
+        compoundTag.putLongArray("data", random.longs(random.nextInt(random.nextInt(8) == 0 ? 6000 : 600)).toArray());
+        return compoundTag;
+    }
+
+    private static void assertChunks(IOWorker worker, Map<ChunkPos, CompoundTag> chunks) {
+        for (Map.Entry<ChunkPos, CompoundTag> entry : chunks.entrySet()) {
+            assertThat(worker.loadAsync(entry.getKey()).join()).as("chunk %s", entry.getKey()).isEqualTo(Optional.ofNullable(entry.getValue()));
+        }
+    }
+
+    @Test
+    @DisplayName("Batched writes round-trip through the region files")
+    void batchedWritesRoundTrip() throws Exception {
+        IOWorker.setBatchedWrites(true);
+        Random random = new Random(21L);
+        Map<ChunkPos, CompoundTag> chunks = new HashMap<>();
+        try (IOWorker worker = new IOWorker(info, folder, false)) {
+            for (int round = 0; round < 3; round++) {
+                List<CompletableFuture<Void>> futures = new ArrayList<>();
+                for (int i = 0; i < 400; i++) {
+                    ChunkPos chunkPos = new ChunkPos(random.nextInt(64) - 32, random.nextInt(64) - 32);
+                    CompoundTag compoundTag = random.nextInt(10) == 0 ? null : chunk(random, chunkPos);
+                    chunks.put(chunkPos, compoundTag);
+                    futures.add(worker.store(chunkPos, compoundTag));
+                }
+
+                assertChunks(worker, chunks);
+                CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+                worker.synchronize(true).join();
+                assertChunks(worker, chunks);
+            }
+        }
+
+        IOWorker.setBatchedWrites(false);
+        try (IOWorker worker = new IOWorker(info, folder, false)) {
+            assertChunks(worker, chunks);
+        }
+    }
+
+    @Test
+    @DisplayName("A chunk that fails to encode only fails itself within a write batch")
+    void batchedWriteFailureIsPerChunk() throws Exception {
+        Random random = new Random(4L);
+        Map<ChunkPos, CompoundTag> chunks = new HashMap<>();
+        Map<ChunkPos, IOWorker.PendingStore> batch = new LinkedHashMap<>();
+        ChunkPos broken = new ChunkPos(5, 5);
+        for (int i = 0; i < 64; i++) {
+            ChunkPos chunkPos = new ChunkPos(i % 8, i / 8);
+            CompoundTag compoundTag = chunk(random, chunkPos);
+            if (chunkPos.equals(broken)) {
+                batch.put(chunkPos, new IOWorker.PendingStore(compoundTag) {
+                    @Override
+                    void write(DataOutput dataOutput) throws IOException {
+                        dataOutput.write(new byte[300]);
+                        throw new IOException("encoding failed");
+                    }
+                });
+            } else {
+                chunks.put(chunkPos, compoundTag);
+                batch.put(chunkPos, new IOWorker.PendingStore(compoundTag));
+            }
+        }
+
+        try (RegionFileStorage storage = new RegionFileStorage(info, folder, false)) {
+            Map<ChunkPos, Exception> failures = storage.writeBatch(broken, batch);
+            assertThat(failures).containsOnlyKeys(broken);
+            assertThat(failures.get(broken)).hasMessage("encoding failed");
+        }
+
+        try (RegionFileStorage storage = new RegionFileStorage(info, folder, false)) {
+            assertThat(storage.read(broken)).isNull();
+            for (Map.Entry<ChunkPos, CompoundTag> entry : chunks.entrySet()) {
+                assertThat(storage.read(entry.getKey())).as("chunk %s", entry.getKey()).isEqualTo(entry.getValue());
+            }
+        }
+    }
+
+    private static Map<ChunkPos, CompoundTag> storeChunks(Path folder, Random random, int count) {
+        Map<ChunkPos, CompoundTag> chunks = new HashMap<>();
+        try (IOWorker worker = new IOWorker(info, folder, false)) {
+            for (int i = 0; i < count; i++) {
+                ChunkPos chunkPos = new ChunkPos(random.nextInt(32), random.nextInt(32));
+                CompoundTag compoundTag = chunk(random, chunkPos);
+                chunks.put(chunkPos, compoundTag);
+                worker.store(chunkPos, compoundTag);
+            }
+
+            worker.synchronize(true).join();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+
+        return chunks;
+    }
+
+    @Test
+    @DisplayName("Parallel deserialization loads and scans the stored chunks")
+    void parallelParsingRoundTrip() throws Exception {
+        Map<ChunkPos, CompoundTag> chunks = storeChunks(folder, new Random(4L), 300);
+        IOWorker.setParallelDeserialization(true);
+        try (IOWorker worker = new IOWorker(info, folder, false)) {
+            List<CompletableFuture<Optional<CompoundTag>>> loads = new ArrayList<>();
+            List<CollectToTag> scans = new ArrayList<>();
+            List<CompletableFuture<Void>> scanFutures = new ArrayList<>();
+            List<ChunkPos> positions = List.copyOf(chunks.keySet());
+            for (ChunkPos chunkPos : positions) {
+                loads.add(worker.loadAsync(chunkPos));
+                CollectToTag collectToTag = new CollectToTag();
+                scans.add(collectToTag);
+                scanFutures.add(worker.scanChunk(chunkPos, collectToTag));
+            }
+
+            for (int i = 0; i < positions.size(); i++) {
+                CompoundTag expected = chunks.get(positions.get(i));
+                assertThat(loads.get(i).join()).contains(expected);
+                scanFutures.get(i).join();
+                assertThat(scans.get(i).getResult()).isEqualTo(expected);
+            }
+
+            assertThat(worker.loadAsync(new ChunkPos(100, 100)).join()).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("Parallel reads complete in submission order, failed reads included")
+    void parallelReadsCompleteInOrder() throws Exception {
+        Map<ChunkPos, CompoundTag> chunks = storeChunks(folder, new Random(8L), 64);
+        // a directory in place of the region file makes opening any chunk of region 1, 0 fail
+        Files.createDirectories(folder.resolve("r.1.0.mca"));
+        IOWorker.setParallelDeserialization(true);
+        CountDownLatch latch = new CountDownLatch(1);
+        StreamTagVisitor blocked = new CollectToTag() {
+            @Override
+            public StreamTagVisitor.ValueResult visitRootEntry(TagType<?> tagType) {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+
+                return super.visitRootEntry(tagType);
+            }
+        };
+
+        try (IOWorker worker = new IOWorker(info, folder, false)) {
+            List<ChunkPos> positions = List.copyOf(chunks.keySet());
+            List<Integer> completed = new CopyOnWriteArrayList<>();
+            List<CompletableFuture<?>> futures = new ArrayList<>();
+            futures.add(worker.scanChunk(positions.getFirst(), blocked));
+            futures.add(worker.loadAsync(new ChunkPos(40, 3)));
+            futures.add(worker.scanChunk(new ChunkPos(33, 0), new CollectToTag()));
+            for (ChunkPos chunkPos : positions) {
+                futures.add(worker.loadAsync(chunkPos));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                int index = i;
+                futures.get(i).whenComplete((object, throwable) -> completed.add(index));
+            }
+
+            worker.synchronize(false).join();
+            try {
+                assertThat(futures).noneMatch(CompletableFuture::isDone);
+            } finally {
+                latch.countDown();
+            }
+
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).handle((object, throwable) -> null).get(10L, TimeUnit.SECONDS);
+
+            assertThat(completed).isSortedAccordingTo(Integer::compare).hasSize(futures.size());
+            assertThat(futures.get(1)).isCompletedExceptionally();
+            assertThat(futures.get(2)).isCompletedExceptionally();
+            assertThat(futures.subList(3, futures.size())).allMatch(future -> !future.isCompletedExceptionally());
+        }
+    }
+
+    @Test
+    @DisplayName("The chunks parsed metric is only reported with parallel deserialization")
+    void parsedMetricOnlyWhenEnabled() throws Exception {
+        try (IOWorker worker = new IOWorker(info, folder.resolve("serial"), false)) {
+            assertThat(worker.profiledMetrics()).isEmpty();
+        }
+
+        IOWorker.setParallelDeserialization(true);
+        try (IOWorker worker = new IOWorker(info, folder.resolve("parallel"), false)) {
+            assertThat(worker.profiledMetrics()).extracting(MetricSampler::getName).containsExactly("IOWorker-chunk-chunks-parsed");
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package net.minecraft.world.level.chunk.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import net.minecraft.SharedConstants;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.StringTag;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Checks that Zstandard chunks written before a region folder trained its {@link RegionFileDictionary} and chunks
+ * written with it both round-trip, and that a chunk written with a dictionary is refused rather than misread when
+ * that dictionary is not the one loaded.
+ */
+@DisplayName("Region File Dictionary Tests")
+class RegionFileDictionaryTest {
+    private static final String[] BLOCKS = {
+        "minecraft:stone", "minecraft:deepslate", "minecraft:dirt", "minecraft:grass_block", "minecraft:water",
+        "minecraft:air", "minecraft:andesite", "minecraft:gravel", "minecraft:coal_ore", "minecraft:iron_ore"
+    };
+    private static RegionStorageInfo info;
+
+    @TempDir
+    Path folder;
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        info = new RegionStorageInfo("test", Level.OVERWORLD, "chunk");
+    }
+
+    @AfterEach
+    void tearDown() {
+        RegionFileVersion.configure("deflate");
+    }
+
+    private static CompoundTag chunk(Random random, ChunkPos chunkPos) {
+        CompoundTag tag = new CompoundTag();
+        tag.putInt("xPos", chunkPos.x);
+        tag.putInt("zPos", chunkPos.z);
+        tag.putString("Status", "minecraft:full");
+        tag.putLong("Seed", random.nextLong());
+        ListTag sections = new ListTag();
+        for (int i = -4; i < 20; i++) {
+            CompoundTag section = new CompoundTag();
+            section.putByte("Y", (byte)i);
+            ListTag palette = new ListTag();
+            int paletteSize = 1 + random.nextInt(6);
+            for (int j = 0; j < paletteSize; j++) {
+                CompoundTag state = new CompoundTag();
+                state.putString("Name", BLOCKS[random.nextInt(BLOCKS.length)]);
+                palette.add(state);
+            }
+
+            CompoundTag blockStates = new CompoundTag();
+            blockStates.put("palette", palette);
+            long[] data = new long[64];
+            for (int j = 0; j < data.length; j++) {
+                data[j] = random.nextInt(4) == 0 ? random.nextLong() : 0L;
+            }
+
+            blockStates.putLongArray("data", data);
+            section.put("block_states", blockStates);
+            ListTag biomes = new ListTag();
+            biomes.add(StringTag.valueOf("minecraft:plains"));
+            CompoundTag biomeContainer = new CompoundTag();
+            biomeContainer.put("palette", biomes);
+            section.put("biomes", biomeContainer);
+            sections.add(section);
+        }
+
+        tag.put("sections", sections);
+        return tag;
+    }
+
+    private static byte[] bytes(CompoundTag tag) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        NbtIo.write(tag, new DataOutputStream(outputStream));
+        return outputStream.toByteArray();
+    }
+
+    private static RegionFileDictionary train(Random random) throws IOException {
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            samples.add(bytes(chunk(random, new ChunkPos(i, -i))));
+        }
+
+        return RegionFileDictionary.train(samples);
+    }
+
+    private static Map<ChunkPos, CompoundTag> write(RegionFileStorage storage, Random random, int region, int step) throws IOException {
+        Map<ChunkPos, CompoundTag> chunks = new HashMap<>();
+        for (int i = 0; i < 1024; i += step) {
+            ChunkPos chunkPos = new ChunkPos(region * 32 + (i & 31), i >> 5);
+            CompoundTag tag = chunk(random, chunkPos);
+            storage.write(chunkPos, tag);
+            chunks.put(chunkPos, tag);
+        }
+
+        return chunks;
+    }
+
+    private static void assertChunks(RegionFileStorage storage, Map<ChunkPos, CompoundTag> chunks) throws IOException {
+        for (Map.Entry<ChunkPos, CompoundTag> entry : chunks.entrySet()) {
+            assertThat(storage.read(entry.getKey())).as("chunk %s", entry.getKey()).isEqualTo(entry.getValue());
+        }
+    }
+
+    @Test
+    @DisplayName("Chunks written before and after training round-trip")
+    void chunksBeforeAndAfterTrainingRoundTrip() throws IOException {
+        RegionFileVersion.configure("zstd");
+        Random random = new Random(1L);
+        Map<ChunkPos, CompoundTag> before = new HashMap<>();
+        try (RegionFileStorage storage = new RegionFileStorage(info, folder, false)) {
+            for (int region = 0; region < 5; region++) {
+                before.putAll(write(storage, random, region, 67));
+            }
+        }
+
+        assertThat(folder.resolve(RegionFileDictionary.FILE_NAME)).doesNotExist();
+        Map<ChunkPos, CompoundTag> after = new HashMap<>();
+        try (RegionFileStorage storage = new RegionFileStorage(info, folder, false)) {
+            assertChunks(storage, before);
+            assertThat(folder.resolve(RegionFileDictionary.FILE_NAME)).exists();
+            for (int region = 0; region < 5; region++) {
+                after.putAll(write(storage, random, region, 41));
+            }
+
+            before.keySet().removeAll(after.keySet());
+            assertChunks(storage, before);
+            assertChunks(storage, after);
+        }
+
+        try (RegionFileStorage storage = new RegionFileStorage(info, folder, false)) {
+            assertChunks(storage, before);
+            assertChunks(storage, after);
+        }
+
+        RegionFileVersion.configure("deflate");
+        try (RegionFileStorage storage = new RegionFileStorage(info, folder, false)) {
+            assertChunks(storage, before);
+            assertChunks(storage, after);
+        }
+    }
+
+    @Test
+    @DisplayName("Chunks written without a dictionary are read without the loaded one")
+    void chunksWithoutDictionaryIgnoreIt() throws IOException {
+        Random random = new Random(2L);
+        RegionFileDictionary dictionary = train(random);
+        Path path = folder.resolve("r.0.0.mca");
+        Map<ChunkPos, CompoundTag> chunks = new HashMap<>();
+        try (RegionFile regionFile = new RegionFile(info, path, folder, RegionFileVersion.VERSION_ZSTD, null, false)) {
+            for (int i = 0; i < 64; i++) {
+                ChunkPos chunkPos = new ChunkPos(i & 31, i >> 5);
+                CompoundTag tag = chunk(random, chunkPos);
+                try (DataOutputStream outputStream = regionFile.getChunkDataOutputStream(chunkPos)) {
+                    NbtIo.write(tag, outputStream);
+                }
+
+                chunks.put(chunkPos, tag);
+            }
+        }
+
+        try (RegionFile regionFile = new RegionFile(info, path, folder, RegionFileVersion.VERSION_ZSTD, dictionary, false)) {
+            for (Map.Entry<ChunkPos, CompoundTag> entry : chunks.entrySet()) {
+                assertThat(NbtIo.read(regionFile.getChunkDataInputStream(entry.getKey()))).isEqualTo(entry.getValue());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Chunks written with another dictionary are refused")
+    void chunksWithOtherDictionaryAreRefused() throws IOException {
+        Random random = new Random(3L);
+        RegionFileDictionary dictionary = train(random);
+        RegionFileDictionary other = train(random);
+        assertThat(other.getId()).isNotEqualTo(dictionary.getId());
+        Path path = folder.resolve("r.0.0.mca");
+        ChunkPos chunkPos = new ChunkPos(3, 4);
+        CompoundTag tag = chunk(random, chunkPos);
+        try (RegionFile regionFile = new RegionFile(info, path, folder, RegionFileVersion.VERSION_ZSTD, dictionary, false)) {
+            try (DataOutputStream outputStream = regionFile.getChunkDataOutputStream(chunkPos)) {
+                NbtIo.write(tag, outputStream);
+            }
+
+            assertThat(NbtIo.read(regionFile.getChunkDataInputStream(chunkPos))).isEqualTo(tag);
+        }
+
+        try (RegionFile regionFile = new RegionFile(info, path, folder, RegionFileVersion.VERSION_ZSTD, other, false)) {
+            assertThatThrownBy(() -> regionFile.getChunkDataInputStream(chunkPos)).isInstanceOf(IOException.class).hasMessageContaining(Long.toString(dictionary.getId()));
+        }
+
+        try (RegionFile regionFile = new RegionFile(info, path, folder, RegionFileVersion.VERSION_ZSTD, null, false)) {
+            assertThatThrownBy(() -> regionFile.getChunkDataInputStream(chunkPos)).isInstanceOf(IOException.class);
+        }
+
+        assertThat(Files.size(path)).isPositive();
+    }
+}
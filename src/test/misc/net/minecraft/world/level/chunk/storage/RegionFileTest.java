@@ -0,0 +1,341 @@
+package net.minecraft.world.level.chunk.storage;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import net.minecraft.SharedConstants;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks that {@link RegionFile#compact} shrinks a fragmented region file without losing or mixing up chunks, that the
+ * file is readable at every point a crash could interrupt it and that memory-mapped loads keep working while it runs,
+ * that closing the file releases its mapping, and that batched writes round-trip, reuse free sectors and only become visible with their header update.
+ */
+@DisplayName("Region File Tests")
+class RegionFileTest {
+    private static RegionStorageInfo info;
+
+    @TempDir
+    Path folder;
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        info = new RegionStorageInfo("test", Level.OVERWORLD, "chunk");
+    }
+
+    @AfterEach
+    void tearDown() {
+        RegionFile.setMemoryMappedReads(false);
+    }
+
+    private RegionFile open(Path path) throws IOException {
+        return new RegionFile(info, path, folder, RegionFileVersion.VERSION_NONE, false);
+    }
+
+    private static byte[] payload(Random random, ChunkPos chunkPos) {
+        byte[] bytes = new byte[64 + random.nextInt(random.nextInt(8) == 0 ? 40000 : 6000)];
+        random.nextBytes(bytes);
+        ByteBuffer.wrap(bytes).putInt(chunkPos.x).putInt(chunkPos.z);
+        return bytes;
+    }
+
+    private static void write(RegionFile regionFile, ChunkPos chunkPos, byte[] bytes) throws IOException {
+        try (DataOutputStream outputStream = regionFile.getChunkDataOutputStream(chunkPos)) {
+            outputStream.write(bytes);
+        }
+    }
+
+    private static void writeBatch(RegionFile regionFile, Map<ChunkPos, byte[]> chunks) throws IOException {
+        RegionFile.WriteBatch batch = regionFile.startWriteBatch();
+        for (Map.Entry<ChunkPos, byte[]> entry : chunks.entrySet()) {
+            try (DataOutputStream outputStream = batch.getChunkDataOutputStream(entry.getKey())) {
+                outputStream.write(entry.getValue());
+            }
+        }
+
+        batch.commit();
+    }
+
+    private static byte[] read(RegionFile regionFile, ChunkPos chunkPos) throws IOException {
+        try (DataInputStream inputStream = regionFile.getChunkDataInputStream(chunkPos)) {
+            return inputStream == null ? null : inputStream.readAllBytes();
+        }
+    }
+
+    private static void assertChunks(RegionFile regionFile, Map<ChunkPos, byte[]> chunks) throws IOException {
+        for (int i = 0; i < 1024; i++) {
+            ChunkPos chunkPos = new ChunkPos(i & 31, i >> 5);
+            assertThat(read(regionFile, chunkPos)).as("chunk %s", chunkPos).isEqualTo(chunks.get(chunkPos));
+        }
+    }
+
+    /**
+     * Fills a region file, then rewrites and clears some of its chunks so that holes are left all over it.
+     */
+    private static Map<ChunkPos, byte[]> fragment(RegionFile regionFile, Random random) throws IOException {
+        Map<ChunkPos, byte[]> chunks = new HashMap<>();
+        for (int i = 0; i < 1024; i += 1 + random.nextInt(2)) {
+            ChunkPos chunkPos = new ChunkPos(i & 31, i >> 5);
+            byte[] bytes = payload(random, chunkPos);
+            write(regionFile, chunkPos, bytes);
+            chunks.put(chunkPos, bytes);
+        }
+
+        for (ChunkPos chunkPos : List.copyOf(chunks.keySet())) {
+            switch (random.nextInt(4)) {
+                case 0 -> {
+                    regionFile.clear(chunkPos);
+                    chunks.remove(chunkPos);
+                }
+                case 1 -> {
+                    byte[] bytes = payload(random, chunkPos);
+                    write(regionFile, chunkPos, bytes);
+                    chunks.put(chunkPos, bytes);
+                }
+                default -> {
+                }
+            }
+        }
+
+        return chunks;
+    }
+
+    @Test
+    @DisplayName("Compaction shrinks the file and keeps every chunk")
+    void compactionKeepsChunks() throws IOException {
+        Path path = folder.resolve("r.0.0.mca");
+        Map<ChunkPos, byte[]> chunks;
+        try (RegionFile regionFile = open(path)) {
+            chunks = fragment(regionFile, new Random(42L));
+            float fragmentation = regionFile.getFragmentation();
+            long size = Files.size(path);
+            assertThat(fragmentation).isGreaterThan(0.1F);
+
+            long shrunk = regionFile.compact();
+            assertThat(shrunk).isPositive();
+            assertThat(Files.size(path)).isEqualTo(size - shrunk);
+            assertThat(regionFile.getFragmentation()).isLessThan(fragmentation);
+            assertChunks(regionFile, chunks);
+        }
+
+        try (RegionFile regionFile = open(path)) {
+            assertChunks(regionFile, chunks);
+            assertThat(regionFile.compact()).as("compacting again").isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("A crash during any compaction pass leaves every chunk readable")
+    void crashDuringCompaction() throws IOException {
+        Path path = folder.resolve("r.0.0.mca");
+        try (RegionFile regionFile = open(path)) {
+            Map<ChunkPos, byte[]> chunks = fragment(regionFile, new Random(7L));
+            int passes = 0;
+            boolean moved = true;
+            while (moved) {
+                byte[] header = new byte[8192];
+                try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    fileChannel.read(ByteBuffer.wrap(header), 0L);
+                }
+
+                moved = regionFile.compactionPass();
+                passes++;
+
+                // the pass copied chunks into free sectors but its header update never reached the disk
+                Path crashed = folder.resolve("r.1." + passes + ".mca");
+                Files.copy(path, crashed);
+                try (FileChannel fileChannel = FileChannel.open(crashed, StandardOpenOption.WRITE)) {
+                    fileChannel.write(ByteBuffer.wrap(header), 0L);
+                }
+
+                try (RegionFile crashedFile = open(crashed)) {
+                    assertChunks(crashedFile, chunks);
+                }
+
+                // the header update reached the disk but the file was not truncated yet
+                Path updated = folder.resolve("r.2." + passes + ".mca");
+                Files.copy(path, updated);
+                try (RegionFile updatedFile = open(updated)) {
+                    assertChunks(updatedFile, chunks);
+                }
+            }
+
+            assertThat(passes).isGreaterThan(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Memory-mapped loads keep working while the file is compacted")
+    void mappedReadsDuringCompaction() throws Exception {
+        RegionFile.setMemoryMappedReads(true);
+        Random random = new Random(3L);
+        for (int round = 0; round < 3; round++) {
+            try (RegionFile regionFile = open(folder.resolve("r." + round + ".0.mca"))) {
+                Map<ChunkPos, byte[]> chunks = fragment(regionFile, random);
+                assertChunks(regionFile, chunks);
+                List<Throwable> errors = new CopyOnWriteArrayList<>();
+                AtomicBoolean done = new AtomicBoolean();
+                List<Thread> readers = new CopyOnWriteArrayList<>();
+                for (int i = 0; i < 4; i++) {
+                    int seed = i;
+                    readers.add(Thread.ofPlatform().start(() -> {
+                        Random readerRandom = new Random(seed);
+                        try {
+                            while (!done.get()) {
+                                int index = readerRandom.nextInt(1024);
+                                ChunkPos chunkPos = new ChunkPos(index & 31, index >> 5);
+                                assertThat(read(regionFile, chunkPos)).isEqualTo(chunks.get(chunkPos));
+                            }
+                        } catch (Throwable throwable) {
+                            errors.add(throwable);
+                        }
+                    }));
+                }
+
+                regionFile.compact();
+                done.set(true);
+                for (Thread reader : readers) {
+                    reader.join();
+                }
+
+                assertThat(errors).isEmpty();
+                assertChunks(regionFile, chunks);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Closing a memory-mapped region file releases its mapping")
+    void closeReleasesMapping() throws IOException {
+        Path maps = Path.of("/proc/self/maps");
+        assumeTrue(Files.isReadable(maps), "needs /proc/self/maps");
+        RegionFile.setMemoryMappedReads(true);
+        Path path = folder.toRealPath().resolve("r.0.0.mca");
+        ChunkPos chunkPos = new ChunkPos(1, 2);
+        byte[] bytes = payload(new Random(5L), chunkPos);
+        try (RegionFile regionFile = open(path)) {
+            write(regionFile, chunkPos, bytes);
+            assertThat(read(regionFile, chunkPos)).isEqualTo(bytes);
+            assertThat(Files.readString(maps)).contains(path.toString());
+        }
+
+        assertThat(Files.readString(maps)).doesNotContain(path.toString());
+    }
+
+    @Test
+    @DisplayName("Batched writes round-trip through a reopened file")
+    void batchedWritesRoundTrip() throws IOException {
+        Path path = folder.resolve("r.0.0.mca");
+        Random random = new Random(5L);
+        Map<ChunkPos, byte[]> chunks;
+        try (RegionFile regionFile = open(path)) {
+            chunks = fragment(regionFile, random);
+            for (int round = 0; round < 4; round++) {
+                Map<ChunkPos, byte[]> batch = new HashMap<>();
+                for (int i = 0; i < 200; i++) {
+                    int index = random.nextInt(1024);
+                    ChunkPos chunkPos = new ChunkPos(index & 31, index >> 5);
+                    batch.put(chunkPos, payload(random, chunkPos));
+                }
+
+                writeBatch(regionFile, batch);
+                chunks.putAll(batch);
+                assertChunks(regionFile, chunks);
+            }
+        }
+
+        try (RegionFile regionFile = open(path)) {
+            assertChunks(regionFile, chunks);
+        }
+    }
+
+    @Test
+    @DisplayName("Batched writes fill free sectors before growing the file")
+    void batchedWritesReuseFreeSectors() throws IOException {
+        Path path = folder.resolve("r.0.0.mca");
+        try (RegionFile regionFile = open(path)) {
+            Random random = new Random(9L);
+            Map<ChunkPos, byte[]> chunks = fragment(regionFile, random);
+            long size = Files.size(path);
+            Map<ChunkPos, byte[]> batch = new HashMap<>();
+            for (int i = 0; i < 1024 && batch.size() < 64; i++) {
+                ChunkPos chunkPos = new ChunkPos(i & 31, i >> 5);
+                if (!chunks.containsKey(chunkPos)) {
+                    byte[] bytes = new byte[1000];
+                    random.nextBytes(bytes);
+                    batch.put(chunkPos, bytes);
+                }
+            }
+
+            writeBatch(regionFile, batch);
+            chunks.putAll(batch);
+            assertThat(Files.size(path)).isEqualTo(size);
+            assertChunks(regionFile, chunks);
+        }
+    }
+
+    @Test
+    @DisplayName("A crash before the header update of a batch leaves every chunk at its old version")
+    void crashDuringBatchedWrite() throws IOException {
+        Path path = folder.resolve("r.0.0.mca");
+        Random random = new Random(13L);
+        try (RegionFile regionFile = open(path)) {
+            Map<ChunkPos, byte[]> chunks = fragment(regionFile, random);
+            for (int round = 0; round < 3; round++) {
+                byte[] header = new byte[8192];
+                try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    fileChannel.read(ByteBuffer.wrap(header), 0L);
+                }
+
+                Map<ChunkPos, byte[]> batch = new HashMap<>();
+                for (ChunkPos chunkPos : chunks.keySet()) {
+                    if (random.nextBoolean()) {
+                        batch.put(chunkPos, payload(random, chunkPos));
+                    }
+                }
+
+                writeBatch(regionFile, batch);
+
+                // the payloads of the batch reached the disk but its header update did not
+                Path crashed = folder.resolve("r.1." + round + ".mca");
+                Files.copy(path, crashed);
+                try (FileChannel fileChannel = FileChannel.open(crashed, StandardOpenOption.WRITE)) {
+                    fileChannel.write(ByteBuffer.wrap(header), 0L);
+                }
+
+                try (RegionFile crashedFile = open(crashed)) {
+                    assertChunks(crashedFile, chunks);
+                }
+
+                chunks.putAll(batch);
+                Path updated = folder.resolve("r.2." + round + ".mca");
+                Files.copy(path, updated);
+                try (RegionFile updatedFile = open(updated)) {
+                    assertChunks(updatedFile, chunks);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package net.minecraft.world.level.chunk.storage;
+
+import com.mojang.serialization.Lifecycle;
+import it.unimi.dsi.fastutil.shorts.ShortList;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.Holder;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.core.MappedRegistry;
+import net.minecraft.core.Registry;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.data.registries.VanillaRegistries;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.IntTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.LongArrayTag;
+import net.minecraft.nbt.LongTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.StringTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LevelHeightAccessor;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.biome.Biomes;
+import net.minecraft.world.level.biome.FixedBiomeSource;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.DataLayer;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainerFactory;
+import net.minecraft.world.level.chunk.ProtoChunk;
+import net.minecraft.world.level.chunk.UpgradeData;
+import net.minecraft.world.level.chunk.status.ChunkStatus;
+import net.minecraft.world.level.levelgen.Aquifer;
+import net.minecraft.world.level.levelgen.Beardifier;
+import net.minecraft.world.level.levelgen.Heightmap;
+import net.minecraft.world.level.levelgen.NoiseBasedChunkGenerator;
+import net.minecraft.world.level.levelgen.NoiseChunk;
+import net.minecraft.world.level.levelgen.NoiseGeneratorSettings;
+import net.minecraft.world.level.levelgen.RandomState;
+import net.minecraft.world.level.levelgen.blending.Blender;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Checks that {@link StreamingChunkDecoder} decodes generated overworld chunks exactly like
+ * {@link SerializableChunkData#parse}, including sections whose palettes hold unknown, invalid or mistyped entries and
+ * sections that cannot be decoded at all.
+ */
+@DisplayName("Streaming Chunk Decoder Tests")
+class StreamingChunkDecoderTest {
+    private static final LevelHeightAccessor HEIGHT = LevelHeightAccessor.create(-64, 384);
+    private static PalettedContainerFactory factory;
+    private static List<CompoundTag> chunks;
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        HolderLookup.Provider registries = VanillaRegistries.createLookup();
+        MappedRegistry<Biome> registry = new MappedRegistry<>(Registries.BIOME, Lifecycle.stable());
+        registries.lookupOrThrow(Registries.BIOME).listElements()
+            .forEach(reference -> Registry.register(registry, reference.key(), reference.value()));
+        registry.freeze();
+        factory = PalettedContainerFactory.create(new RegistryAccess.ImmutableRegistryAccess(List.of(registry)));
+        List<Holder<Biome>> biomes = registry.listElements().<Holder<Biome>>map(reference -> reference).limit(12).toList();
+
+        RandomState randomState = RandomState.create(registries, NoiseGeneratorSettings.OVERWORLD, 4242L);
+        Holder<NoiseGeneratorSettings> settings = registries.lookupOrThrow(Registries.NOISE_SETTINGS).getOrThrow(NoiseGeneratorSettings.OVERWORLD);
+        NoiseBasedChunkGenerator generator = new NoiseBasedChunkGenerator(
+            new FixedBiomeSource(registries.lookupOrThrow(Registries.BIOME).getOrThrow(Biomes.PLAINS)), settings
+        );
+        Aquifer.FluidStatus lava = new Aquifer.FluidStatus(-54, Blocks.LAVA.defaultBlockState());
+        Aquifer.FluidStatus water = new Aquifer.FluidStatus(settings.value().seaLevel(), settings.value().defaultFluid());
+        Aquifer.FluidPicker fluidPicker = (x, y, z) -> y < Math.min(-54, settings.value().seaLevel()) ? lava : water;
+
+        chunks = new ArrayList<>();
+        Random random = new Random(11L);
+        for (ChunkPos pos : List.of(new ChunkPos(0, 0), new ChunkPos(7, -2), new ChunkPos(-300, 450))) {
+            ProtoChunk chunk = new ProtoChunk(pos, UpgradeData.EMPTY, HEIGHT, factory, null);
+            chunk.getOrCreateNoiseChunk(
+                access -> NoiseChunk.forChunk(access, randomState, Beardifier.EMPTY, settings.value(), fluidPicker, Blender.empty())
+            );
+            generator.fillFromNoise(Blender.empty(), randomState, null, chunk).join();
+            chunk.fillBiomesFromNoise((x, y, z, sampler) -> biomes.get(Math.floorMod(x / 3 + y / 5 * 3 + z / 2, biomes.size())), randomState.sampler());
+            chunks.add(serialize(chunk, random).write());
+        }
+    }
+
+    private static SerializableChunkData serialize(ProtoChunk chunk, Random random) {
+        List<SerializableChunkData.SectionData> sections = new ArrayList<>();
+        LevelChunkSection[] levelChunkSections = chunk.getSections();
+        for (int y = HEIGHT.getMinSectionY() - 1; y <= HEIGHT.getMaxSectionY() + 1; y++) {
+            LevelChunkSection section = y >= HEIGHT.getMinSectionY() && y <= HEIGHT.getMaxSectionY()
+                ? levelChunkSections[chunk.getSectionIndexFromSectionY(y)]
+                : null;
+            sections.add(new SerializableChunkData.SectionData(y, section, randomLayer(random), random.nextBoolean() ? randomLayer(random) : null));
+        }
+
+        return new SerializableChunkData(
+            factory,
+            chunk.getPos(),
+            HEIGHT.getMinSectionY(),
+            0L,
+            0L,
+            ChunkStatus.NOISE,
+            null,
+            null,
+            UpgradeData.EMPTY,
+            null,
+            new EnumMap<>(Heightmap.Types.class),
+            new ChunkAccess.PackedTicks(List.of(), List.of()),
+            new ShortList[HEIGHT.getSectionsCount()],
+            false,
+            sections,
+            List.of(),
+            List.of(),
+            new CompoundTag()
+        );
+    }
+
+    private static DataLayer randomLayer(Random random) {
+        byte[] data = new byte[2048];
+        random.nextBytes(data);
+        return new DataLayer(data);
+    }
+
+    private static SerializableChunkData decode(CompoundTag tag) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        NbtIo.write(tag, new DataOutputStream(output));
+        StreamingChunkDecoder decoder = new StreamingChunkDecoder(HEIGHT, factory, new ChunkPos(tag.getIntOr("xPos", 0), tag.getIntOr("zPos", 0)));
+        NbtIo.parse(new DataInputStream(new ByteArrayInputStream(output.toByteArray())), decoder, NbtAccounter.unlimitedHeap());
+        assertThat(decoder.needsUpgrade()).isFalse();
+        return decoder.build();
+    }
+
+    private static void assertSameAsParse(CompoundTag tag) throws IOException {
+        SerializableChunkData expected = SerializableChunkData.parse(HEIGHT, factory, tag.copy());
+        SerializableChunkData actual = decode(tag);
+        assertThat(actual.write()).isEqualTo(expected.write());
+    }
+
+    /**
+     * Applies a change to the block state or biome container of every section that has one.
+     */
+    private static CompoundTag withContainers(CompoundTag chunk, String key, Consumer<CompoundTag> consumer) {
+        CompoundTag copy = chunk.copy();
+        for (CompoundTag section : copy.getListOrEmpty("sections").compoundStream().toList()) {
+            section.getCompound(key).ifPresent(consumer);
+        }
+
+        return copy;
+    }
+
+    private static Consumer<CompoundTag> replacePaletteEntry(Tag tag) {
+        return container -> {
+            ListTag palette = container.getListOrEmpty("palette");
+            palette.set(palette.size() - 1, tag.copy());
+        };
+    }
+
+    @Test
+    @DisplayName("Generated chunks decode the same as the tag tree path")
+    void generatedChunksMatchParse() throws IOException {
+        for (CompoundTag chunk : chunks) {
+            assertSameAsParse(chunk);
+        }
+    }
+
+    @Test
+    @DisplayName("Unknown, invalid and mistyped palette entries fall back the same way")
+    void malformedPalettesMatchParse() throws IOException {
+        CompoundTag unknownBlock = new CompoundTag();
+        unknownBlock.putString("Name", "minecraft:not_a_block");
+        CompoundTag invalidProperty = new CompoundTag();
+        invalidProperty.putString("Name", "minecraft:oak_stairs");
+        CompoundTag properties = new CompoundTag();
+        properties.putString("facing", "up");
+        properties.putString("unknown", "true");
+        invalidProperty.put("Properties", properties);
+        CompoundTag missingName = new CompoundTag();
+        missingName.putString("name", "minecraft:stone");
+
+        for (CompoundTag chunk : chunks) {
+            assertSameAsParse(withContainers(chunk, "block_states", replacePaletteEntry(unknownBlock)));
+            assertSameAsParse(withContainers(chunk, "block_states", replacePaletteEntry(invalidProperty)));
+            assertSameAsParse(withContainers(chunk, "block_states", replacePaletteEntry(missingName)));
+            assertSameAsParse(withContainers(chunk, "block_states", replacePaletteEntry(StringTag.valueOf("minecraft:stone"))));
+            assertSameAsParse(withContainers(chunk, "biomes", replacePaletteEntry(StringTag.valueOf("minecraft:not_a_biome"))));
+            assertSameAsParse(withContainers(chunk, "biomes", replacePaletteEntry(StringTag.valueOf("not a location"))));
+            assertSameAsParse(withContainers(chunk, "biomes", replacePaletteEntry(IntTag.valueOf(3))));
+        }
+    }
+
+    @Test
+    @DisplayName("Storage outside the canonical layout decodes the same way")
+    void nonCanonicalStorageMatchesParse() throws IOException {
+        for (CompoundTag chunk : chunks) {
+            assertSameAsParse(withContainers(chunk, "block_states", container -> container.getLongArray("data").ifPresent(data -> {
+                ListTag list = new ListTag();
+                for (long l : data) {
+                    list.add(LongTag.valueOf(l));
+                }
+
+                container.put("data", list);
+            })));
+        }
+    }
+
+    @Test
+    @DisplayName("Containers that cannot be decoded fail on both paths")
+    void brokenContainersFail() {
+        CompoundTag chunk = chunks.getFirst();
+        List<CompoundTag> broken = List.of(
+            withContainers(chunk, "block_states", container -> container.getLongArray("data").ifPresent(data -> container.putLongArray("data", new long[data.length / 2]))),
+            withContainers(chunk, "block_states", container -> {
+                ListTag palette = container.getListOrEmpty("palette");
+                if (palette.size() > 1) {
+                    container.remove("data");
+                }
+            }),
+            withContainers(chunk, "biomes", container -> container.put("data", new LongArrayTag(new long[]{1L}))),
+            withContainers(chunk, "biomes", container -> container.remove("palette"))
+        );
+
+        for (CompoundTag tag : broken) {
+            assertThatThrownBy(() -> SerializableChunkData.parse(HEIGHT, factory, tag.copy())).isInstanceOf(SerializableChunkData.ChunkReadException.class);
+            assertThatThrownBy(() -> decode(tag)).isInstanceOf(SerializableChunkData.ChunkReadException.class);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package net.minecraft.world.level.entity;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.minecraft.SharedConstants;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.util.AbortableIterationConsumer;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.item.ItemEntity;
+import net.minecraft.world.entity.monster.Husk;
+import net.minecraft.world.entity.monster.Zombie;
+import net.minecraft.world.phys.AABB;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks that {@link EntitySection} answers queries by {@link EntityType} from its type index with the same entities,
+ * in the same order, as filtering every entity of the section.
+ */
+@DisplayName("Entity Section Tests")
+class EntitySectionTest {
+    private static final AABB EVERYWHERE = new AABB(-100.0, -100.0, -100.0, 100.0, 100.0, 100.0);
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+    }
+
+    private static <T extends Entity> T entity(Class<T> entityClass, EntityType<?> type, double x) {
+        T entity = mock(entityClass);
+        doReturn(type).when(entity).getType();
+        when(entity.getBoundingBox()).thenReturn(new AABB(x, 0.0, 0.0, x + 0.5, 0.5, 0.5));
+        return entity;
+    }
+
+    private static <U extends Entity> List<U> query(EntitySection<Entity> section, EntityTypeTest<Entity, U> test, AABB aABB) {
+        List<U> list = new ArrayList<>();
+        section.getEntities(test, aABB, entity -> {
+            list.add(entity);
+            return AbortableIterationConsumer.Continuation.CONTINUE;
+        });
+        return list;
+    }
+
+    private static List<Entity> all(EntitySection<Entity> section, AABB aABB) {
+        List<Entity> list = new ArrayList<>();
+        section.getEntities(aABB, entity -> {
+            list.add(entity);
+            return AbortableIterationConsumer.Continuation.CONTINUE;
+        });
+        return list;
+    }
+
+    @Test
+    @DisplayName("Queries by type match filtering all entities")
+    void typeQueriesMatchFiltering() {
+        EntitySection<Entity> section = new EntitySection<>(Entity.class, Visibility.TICKING);
+        List<Entity> entities = List.of(
+            entity(ItemEntity.class, EntityType.ITEM, 0.0),
+            entity(Zombie.class, EntityType.ZOMBIE, 1.0),
+            entity(ItemEntity.class, EntityType.ITEM, 2.0),
+            entity(Husk.class, EntityType.HUSK, 3.0),
+            entity(ItemEntity.class, EntityType.ITEM, 4.0)
+        );
+        entities.forEach(section::add);
+
+        AABB firstItems = new AABB(-0.1, 0.0, 0.0, 2.2, 1.0, 1.0);
+        for (AABB aABB : List.of(EVERYWHERE, firstItems)) {
+            for (EntityType<?> type : List.of(EntityType.ITEM, EntityType.ZOMBIE, EntityType.HUSK, EntityType.PLAYER)) {
+                List<Entity> found = new ArrayList<>(query(section, type, aABB));
+                assertThat(found)
+                    .as("%s in %s", type, aABB)
+                    .containsExactlyElementsOf(all(section, aABB).stream().filter(entity -> entity.getType() == type).toList());
+            }
+        }
+
+        assertThat(query(section, EntityTypeTest.forClass(Zombie.class), EVERYWHERE)).containsExactly((Zombie)entities.get(1), (Zombie)entities.get(3));
+    }
+
+    @Test
+    @DisplayName("Removed entities leave the type index")
+    void removeUpdatesIndex() {
+        EntitySection<Entity> section = new EntitySection<>(Entity.class, Visibility.TICKING);
+        ItemEntity first = entity(ItemEntity.class, EntityType.ITEM, 0.0);
+        ItemEntity second = entity(ItemEntity.class, EntityType.ITEM, 1.0);
+        section.add(first);
+        section.add(second);
+
+        assertThat(section.remove(first)).isTrue();
+        assertThat(query(section, EntityType.ITEM, EVERYWHERE)).containsExactly(second);
+        assertThat(section.remove(first)).isFalse();
+        assertThat(section.remove(second)).isTrue();
+        assertThat(query(section, EntityType.ITEM, EVERYWHERE)).isEmpty();
+        assertThat(section.isEmpty()).isTrue();
+
+        section.add(first);
+        assertThat(query(section, EntityType.ITEM, EVERYWHERE)).containsExactly(first);
+    }
+
+    @Test
+    @DisplayName("Aborting stops the type query")
+    void abortStopsQuery() {
+        EntitySection<Entity> section = new EntitySection<>(Entity.class, Visibility.TICKING);
+        section.add(entity(ItemEntity.class, EntityType.ITEM, 0.0));
+        section.add(entity(ItemEntity.class, EntityType.ITEM, 1.0));
+        List<ItemEntity> seen = new ArrayList<>();
+        AbortableIterationConsumer.Continuation continuation = section.getEntities(EntityType.ITEM, EVERYWHERE, entity -> {
+            seen.add(entity);
+            return AbortableIterationConsumer.Continuation.ABORT;
+        });
+
+        assertThat(continuation).isEqualTo(AbortableIterationConsumer.Continuation.ABORT);
+        assertThat(seen).hasSize(1);
+    }
+}
@@ -0,0 +1,171 @@
+package net.minecraft.world.level.levelgen.structure;
+
+import com.mojang.serialization.JavaOps;
+import com.mojang.serialization.Lifecycle;
+import java.util.List;
+import java.util.Map;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.Holder;
+import net.minecraft.core.MappedRegistry;
+import net.minecraft.core.Registry;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.tags.BiomeTags;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.biome.BiomeGenerationSettings;
+import net.minecraft.world.level.biome.BiomeSpecialEffects;
+import net.minecraft.world.level.biome.Biomes;
+import net.minecraft.world.level.biome.FixedBiomeSource;
+import net.minecraft.world.level.biome.MobSpawnSettings;
+import net.minecraft.world.level.chunk.ChunkGenerator;
+import net.minecraft.world.level.levelgen.NoiseBasedChunkGenerator;
+import net.minecraft.world.level.levelgen.NoiseGeneratorSettings;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Checks lookups, persistence, eviction and invalidation of {@link StructureStartIndex}, and that the
+ * generator fingerprint from {@link StructureCheck} follows registry contents rather than just their ids.
+ */
+@DisplayName("Structure Start Index Tests")
+class StructureStartIndexTest {
+    private static final ResourceLocation VILLAGE = ResourceLocation.withDefaultNamespace("village_plains");
+    private static final ResourceLocation MONUMENT = ResourceLocation.withDefaultNamespace("monument");
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+    }
+
+    @Test
+    @DisplayName("Entries are kept per structure and chunk")
+    void lookup() {
+        StructureStartIndex index = new StructureStartIndex();
+        long chunk = ChunkPos.asLong(12, -7);
+        assertThat(index.get(VILLAGE, chunk)).isEqualTo(StructureStartIndex.UNKNOWN);
+
+        index.put(VILLAGE, chunk, true);
+        index.put(MONUMENT, chunk, false);
+        assertThat(index.get(VILLAGE, chunk)).isEqualTo(StructureStartIndex.VALID);
+        assertThat(index.get(MONUMENT, chunk)).isEqualTo(StructureStartIndex.INVALID);
+        assertThat(index.get(VILLAGE, ChunkPos.asLong(12, -6))).isEqualTo(StructureStartIndex.UNKNOWN);
+        assertThat(index.isDirty()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Index survives a codec round trip")
+    void roundTrip() {
+        StructureStartIndex index = new StructureStartIndex();
+        index.validate("42");
+        for (int i = 0; i < 100; i++) {
+            index.put(i % 3 == 0 ? MONUMENT : VILLAGE, ChunkPos.asLong(i * 7 - 300, 40 - i), i % 2 == 0);
+        }
+
+        Object encoded = StructureStartIndex.CODEC.encodeStart(JavaOps.INSTANCE, index).getOrThrow();
+        StructureStartIndex decoded = StructureStartIndex.CODEC.parse(JavaOps.INSTANCE, encoded).getOrThrow();
+        assertThat(decoded.size()).isEqualTo(100);
+        for (int i = 0; i < 100; i++) {
+            ResourceLocation structure = i % 3 == 0 ? MONUMENT : VILLAGE;
+            long chunk = ChunkPos.asLong(i * 7 - 300, 40 - i);
+            assertThat(decoded.get(structure, chunk)).isEqualTo(index.get(structure, chunk));
+        }
+
+        decoded.setDirty(false);
+        decoded.validate("42");
+        assertThat(decoded.size()).isEqualTo(100);
+        assertThat(decoded.isDirty()).isFalse();
+    }
+
+    @Test
+    @DisplayName("A different generator fingerprint drops every entry")
+    void invalidation() {
+        StructureStartIndex index = new StructureStartIndex();
+        index.validate("1");
+        index.put(VILLAGE, ChunkPos.asLong(0, 0), true);
+        index.validate("2");
+        assertThat(index.size()).isZero();
+        assertThat(index.get(VILLAGE, ChunkPos.asLong(0, 0))).isEqualTo(StructureStartIndex.UNKNOWN);
+    }
+
+    @Test
+    @DisplayName("Each structure keeps only its most recently used chunks")
+    void eviction() {
+        StructureStartIndex index = new StructureStartIndex();
+        int max = StructureStartIndex.MAX_ENTRIES_PER_STRUCTURE;
+        for (int i = 0; i < max; i++) {
+            index.put(VILLAGE, i, i % 2 == 0);
+        }
+
+        index.put(MONUMENT, 0L, true);
+        assertThat(index.get(VILLAGE, 0L)).isEqualTo(StructureStartIndex.VALID);
+        index.put(VILLAGE, max, true);
+        index.put(VILLAGE, max + 1, true);
+        assertThat(index.size()).isEqualTo(max + 1);
+        assertThat(index.get(VILLAGE, 0L)).isEqualTo(StructureStartIndex.VALID);
+        assertThat(index.get(VILLAGE, 1L)).isEqualTo(StructureStartIndex.UNKNOWN);
+        assertThat(index.get(VILLAGE, 2L)).isEqualTo(StructureStartIndex.UNKNOWN);
+        assertThat(index.get(VILLAGE, 3L)).isEqualTo(StructureStartIndex.INVALID);
+        assertThat(index.get(MONUMENT, 0L)).isEqualTo(StructureStartIndex.VALID);
+    }
+
+    @Test
+    @DisplayName("An old int fingerprint is not trusted")
+    void legacyFingerprint() {
+        StructureStartIndex index = StructureStartIndex.CODEC.parse(JavaOps.INSTANCE, Map.of("fingerprint", 7, "structures", Map.of())).getOrThrow();
+        index.validate("");
+        index.put(VILLAGE, 0L, false);
+        index.validate(fingerprint(biomes(List.of(Biomes.PLAINS)), Map.of(), 0L));
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("The fingerprint changes with tag and registry contents, templates and seed")
+    void fingerprintContents() {
+        Map<ResourceLocation, String> templates = Map.of(ResourceLocation.withDefaultNamespace("village/plains/town_centers/plains_fountain_01"), "vanilla");
+        String plains = fingerprint(biomes(List.of(Biomes.PLAINS)), templates, 0L);
+        assertThat(plains).hasSize(64).isEqualTo(fingerprint(biomes(List.of(Biomes.PLAINS)), templates, 0L));
+        assertThat(fingerprint(biomes(List.of(Biomes.PLAINS, Biomes.DESERT)), templates, 0L)).isNotEqualTo(plains);
+        assertThat(fingerprint(biomes(List.of(Biomes.PLAINS), 1.5F), templates, 0L)).isNotEqualTo(plains);
+        assertThat(fingerprint(biomes(List.of(Biomes.PLAINS)), Map.of(), 0L)).isNotEqualTo(plains);
+        assertThat(fingerprint(biomes(List.of(Biomes.PLAINS)), Map.of(templates.keySet().iterator().next(), "file/villages"), 0L))
+            .isNotEqualTo(plains);
+        assertThat(fingerprint(biomes(List.of(Biomes.PLAINS)), templates, 1L)).isNotEqualTo(plains);
+    }
+
+    private static String fingerprint(Registry<Biome> biomes, Map<ResourceLocation, String> templates, long seed) {
+        ChunkGenerator generator = new NoiseBasedChunkGenerator(
+            new FixedBiomeSource(biomes.getOrThrow(Biomes.PLAINS)), Holder.direct(NoiseGeneratorSettings.dummy())
+        );
+        return StructureCheck.fingerprint(new RegistryAccess.ImmutableRegistryAccess(List.of(biomes)), templates, generator, seed);
+    }
+
+    private static Registry<Biome> biomes(List<ResourceKey<Biome>> villageBiomes) {
+        return biomes(villageBiomes, 2.0F);
+    }
+
+    private static Registry<Biome> biomes(List<ResourceKey<Biome>> villageBiomes, float desertTemperature) {
+        MappedRegistry<Biome> registry = new MappedRegistry<>(Registries.BIOME, Lifecycle.stable());
+        Registry.register(registry, Biomes.PLAINS, biome(0.8F));
+        Registry.register(registry, Biomes.DESERT, biome(desertTemperature));
+        registry.bindTag(BiomeTags.HAS_VILLAGE_PLAINS, villageBiomes.stream().<Holder<Biome>>map(registry::getOrThrow).toList());
+        return registry.freeze();
+    }
+
+    private static Biome biome(float temperature) {
+        return new Biome.BiomeBuilder()
+            .hasPrecipitation(true)
+            .temperature(temperature)
+            .downfall(0.4F)
+            .specialEffects(new BiomeSpecialEffects.Builder().fogColor(12638463).waterColor(4159204).waterFogColor(329011).skyColor(7907327).build())
+            .mobSpawnSettings(MobSpawnSettings.EMPTY)
+            .generationSettings(BiomeGenerationSettings.EMPTY)
+            .build();
+    }
+}
@@ -0,0 +1,107 @@
+package net.minecraft.world.level.lighting;
+
+import com.mojang.serialization.Lifecycle;
+import java.util.List;
+import java.util.Random;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.MappedRegistry;
+import net.minecraft.core.Registry;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.data.registries.VanillaRegistries;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.SlabBlock;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.properties.SlabType;
+import net.minecraft.world.level.chunk.PalettedContainerFactory;
+import net.minecraft.world.level.chunk.ProtoChunk;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Validates the opacity map fast path of {@link LightEngine} against the block state path on
+ * randomized worlds that mix opaque, translucent and shape-occluding blocks.
+ */
+@DisplayName("Light Opacity Map Tests")
+class OpacityMapTest {
+    private static final int RADIUS = 2;
+    private static PalettedContainerFactory factory;
+    private static BlockState[] solids;
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        MappedRegistry<Biome> registry = new MappedRegistry<>(Registries.BIOME, Lifecycle.stable());
+        VanillaRegistries.createLookup().lookupOrThrow(Registries.BIOME).listElements()
+            .forEach(reference -> Registry.register(registry, reference.key(), reference.value()));
+        registry.freeze();
+        factory = PalettedContainerFactory.create(new RegistryAccess.ImmutableRegistryAccess(List.of(registry)));
+        solids = new BlockState[]{
+            Blocks.STONE.defaultBlockState(),
+            Blocks.GLASS.defaultBlockState(),
+            Blocks.WATER.defaultBlockState(),
+            Blocks.OAK_LEAVES.defaultBlockState(),
+            Blocks.OAK_SLAB.defaultBlockState().setValue(SlabBlock.TYPE, SlabType.BOTTOM),
+            Blocks.OAK_SLAB.defaultBlockState().setValue(SlabBlock.TYPE, SlabType.TOP),
+            Blocks.OAK_STAIRS.defaultBlockState(),
+            Blocks.DIRT_PATH.defaultBlockState(),
+            Blocks.SEA_LANTERN.defaultBlockState()
+        };
+    }
+
+    @AfterEach
+    void disableOpacityMaps() {
+        LightEngine.setOpacityMapsEnabled(false);
+    }
+
+    @Test
+    @DisplayName("should light new chunks like the block state path")
+    void testInitialLight() {
+        for (int seed = 0; seed < 4; seed++) {
+            TestLightChunks chunks = new TestLightChunks(factory, RADIUS, new Random(seed), solids);
+            chunks.assertSameLight(light(chunks, false), light(chunks, true));
+        }
+    }
+
+    @Test
+    @DisplayName("should relight block changes like the block state path")
+    void testRelight() {
+        Random random = new Random(11L);
+        TestLightChunks chunks = new TestLightChunks(factory, RADIUS, random, solids);
+        LevelLightEngine expected = light(chunks, false);
+        LevelLightEngine actual = light(chunks, true);
+        for (int round = 0; round < 4; round++) {
+            for (int i = 0; i < 500; i++) {
+                BlockPos pos = new BlockPos(random.nextInt(80) - 32, random.nextInt(80), random.nextInt(80) - 32);
+                ProtoChunk chunk = chunks.chunks.get(ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4));
+                BlockState state = random.nextInt(3) == 0 ? Blocks.AIR.defaultBlockState() : solids[random.nextInt(solids.length)];
+                chunk.getSection(pos.getY() >> 4).setBlockState(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15, state);
+                expected.checkBlock(pos);
+                actual.checkBlock(pos);
+            }
+
+            chunks.chunks.values().forEach(ProtoChunk::initializeLightSources);
+            run(expected);
+            run(actual);
+            chunks.assertSameLight(expected, actual);
+        }
+    }
+
+    private static LevelLightEngine light(TestLightChunks chunks, boolean opacityMaps) {
+        LightEngine.setOpacityMapsEnabled(opacityMaps);
+        return chunks.light(OpacityMapTest::run);
+    }
+
+    private static void run(LevelLightEngine engine) {
+        do {
+            engine.runLightUpdates();
+        } while (engine.hasLightWork());
+    }
+}
@@ -0,0 +1,178 @@
+package net.minecraft.world.level.lighting;
+
+import com.mojang.serialization.Lifecycle;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.MappedRegistry;
+import net.minecraft.core.Registry;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.SectionPos;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.data.registries.VanillaRegistries;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LevelHeightAccessor;
+import net.minecraft.world.level.LightLayer;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.DataLayer;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.LightChunk;
+import net.minecraft.world.level.chunk.LightChunkGetter;
+import net.minecraft.world.level.chunk.PalettedContainerFactory;
+import net.minecraft.world.level.chunk.ProtoChunk;
+import net.minecraft.world.level.chunk.UpgradeData;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Checks that running the block and sky layers side by side with
+ * {@link LevelLightEngine#runLightUpdates(Executor)} produces the same light data as running them
+ * one after the other.
+ */
+@DisplayName("Parallel Light Updates Tests")
+class ParallelLightUpdatesTest {
+    private static final int RADIUS = 2;
+    private static final LevelHeightAccessor HEIGHT = LevelHeightAccessor.create(0, 128);
+    private static PalettedContainerFactory factory;
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        MappedRegistry<Biome> registry = new MappedRegistry<>(Registries.BIOME, Lifecycle.stable());
+        VanillaRegistries.createLookup().lookupOrThrow(Registries.BIOME).listElements()
+            .forEach(reference -> Registry.register(registry, reference.key(), reference.value()));
+        registry.freeze();
+        factory = PalettedContainerFactory.create(new RegistryAccess.ImmutableRegistryAccess(List.of(registry)));
+    }
+
+    @Test
+    @DisplayName("should match sequential updates when a worker runs the block layer")
+    void testWorkerThread() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            for (int seed = 0; seed < 4; seed++) {
+                Chunks chunks = new Chunks(new Random(seed));
+                assertSameLight(chunks, light(chunks, null), light(chunks, executor));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("should run the block layer itself when no worker picks it up")
+    void testCallerRuns() {
+        Chunks chunks = new Chunks(new Random(7L));
+        assertSameLight(chunks, light(chunks, null), light(chunks, runnable -> {}));
+    }
+
+    private static LevelLightEngine light(Chunks chunks, @Nullable Executor executor) {
+        LevelLightEngine engine = new LevelLightEngine(chunks, true, true);
+        for (ProtoChunk chunk : chunks.chunks.values()) {
+            for (int i = 0; i < chunk.getSectionsCount(); i++) {
+                if (!chunk.getSection(i).hasOnlyAir()) {
+                    engine.updateSectionStatus(SectionPos.of(chunk.getPos(), chunk.getSectionYFromSectionIndex(i)), false);
+                }
+            }
+
+            engine.setLightEnabled(chunk.getPos(), true);
+        }
+
+        run(engine, executor);
+        for (ProtoChunk chunk : chunks.chunks.values()) {
+            engine.propagateLightSources(chunk.getPos());
+        }
+
+        run(engine, executor);
+        return engine;
+    }
+
+    private static void run(LevelLightEngine engine, @Nullable Executor executor) {
+        do {
+            if (executor == null) {
+                engine.runLightUpdates();
+            } else {
+                engine.runLightUpdates(executor);
+            }
+        } while (engine.hasLightWork());
+    }
+
+    private static void assertSameLight(Chunks chunks, LevelLightEngine expected, LevelLightEngine actual) {
+        for (LightLayer layer : LightLayer.values()) {
+            for (ProtoChunk chunk : chunks.chunks.values()) {
+                for (int y = expected.getMinLightSection(); y < expected.getMaxLightSection(); y++) {
+                    SectionPos pos = SectionPos.of(chunk.getPos(), y);
+                    DataLayer expectedData = expected.getLayerListener(layer).getDataLayerData(pos);
+                    DataLayer actualData = actual.getLayerListener(layer).getDataLayerData(pos);
+                    if (expectedData == null) {
+                        assertThat(actualData).as("%s %s", layer, pos).isNull();
+                    } else {
+                        assertThat(actualData).as("%s %s", layer, pos).isNotNull();
+                        assertThat(actualData.getData()).as("%s %s", layer, pos).isEqualTo(expectedData.getData());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A square of proto chunks with stone up to y 64, random air pockets and scattered light sources.
+     */
+    private static final class Chunks implements LightChunkGetter {
+        private final Long2ObjectMap<ProtoChunk> chunks = new Long2ObjectOpenHashMap<>();
+        private final ProtoChunk level;
+
+        Chunks(Random random) {
+            BlockState stone = Blocks.STONE.defaultBlockState();
+            BlockState glowstone = Blocks.GLOWSTONE.defaultBlockState();
+            BlockState torch = Blocks.TORCH.defaultBlockState();
+            for (int x = -RADIUS; x <= RADIUS; x++) {
+                for (int z = -RADIUS; z <= RADIUS; z++) {
+                    ProtoChunk chunk = new ProtoChunk(new ChunkPos(x, z), UpgradeData.EMPTY, HEIGHT, factory, null);
+                    for (int y = 0; y < 64; y++) {
+                        LevelChunkSection section = chunk.getSection(y >> 4);
+                        for (int i = 0; i < 256; i++) {
+                            int roll = random.nextInt(1000);
+                            if (roll >= 300) {
+                                section.setBlockState(i & 15, y & 15, i >> 4, roll < 305 ? glowstone : stone);
+                            }
+                        }
+                    }
+
+                    for (int i = 0; i < 4; i++) {
+                        chunk.getSection(4).setBlockState(random.nextInt(16), 0, random.nextInt(16), torch);
+                    }
+
+                    chunk.initializeLightSources();
+                    chunks.put(chunk.getPos().toLong(), chunk);
+                }
+            }
+
+            level = chunks.get(ChunkPos.ZERO.toLong());
+        }
+
+        @Nullable
+        @Override
+        public LightChunk getChunkForLighting(int x, int z) {
+            return chunks.get(ChunkPos.asLong(x, z));
+        }
+
+        @Override
+        public BlockGetter getLevel() {
+            return level;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package net.minecraft.world.level.lighting;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import java.util.Random;
+import java.util.function.Consumer;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LevelHeightAccessor;
+import net.minecraft.world.level.LightLayer;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.DataLayer;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.LightChunk;
+import net.minecraft.world.level.chunk.LightChunkGetter;
+import net.minecraft.world.level.chunk.PalettedContainerFactory;
+import net.minecraft.world.level.chunk.ProtoChunk;
+import net.minecraft.world.level.chunk.UpgradeData;
+import org.jetbrains.annotations.Nullable;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * A square of proto chunks, 128 blocks high, for lighting tests. Up to y 64 each block is air with
+ * a 30% chance and otherwise one of the given solid states, with 0.5% of them glowstone; a few
+ * torches stand on the surface.
+ */
+final class TestLightChunks implements LightChunkGetter {
+    static final LevelHeightAccessor HEIGHT = LevelHeightAccessor.create(0, 128);
+
+    final Long2ObjectMap<ProtoChunk> chunks = new Long2ObjectOpenHashMap<>();
+    private final ProtoChunk level;
+
+    TestLightChunks(PalettedContainerFactory factory, int radius, Random random, BlockState... solids) {
+        BlockState glowstone = Blocks.GLOWSTONE.defaultBlockState();
+        BlockState torch = Blocks.TORCH.defaultBlockState();
+        for (int x = -radius; x <= radius; x++) {
+            for (int z = -radius; z <= radius; z++) {
+                ProtoChunk chunk = new ProtoChunk(new ChunkPos(x, z), UpgradeData.EMPTY, HEIGHT, factory, null);
+                for (int y = 0; y < 64; y++) {
+                    LevelChunkSection section = chunk.getSection(y >> 4);
+                    for (int i = 0; i < 256; i++) {
+                        int roll = random.nextInt(1000);
+                        if (roll >= 300) {
+                            section.setBlockState(i & 15, y & 15, i >> 4, roll < 305 ? glowstone : solids[random.nextInt(solids.length)]);
+                        }
+                    }
+                }
+
+                for (int i = 0; i < 4; i++) {
+                    chunk.getSection(4).setBlockState(random.nextInt(16), 0, random.nextInt(16), torch);
+                }
+
+                chunk.initializeLightSources();
+                chunks.put(chunk.getPos().toLong(), chunk);
+            }
+        }
+
+        level = chunks.get(ChunkPos.ZERO.toLong());
+    }
+
+    @Nullable
+    @Override
+    public LightChunk getChunkForLighting(int x, int z) {
+        return chunks.get(ChunkPos.asLong(x, z));
+    }
+
+    @Override
+    public BlockGetter getLevel() {
+        return level;
+    }
+
+    /**
+     * Lights every chunk the way the light chunk statuses do, running pending updates with {@code runner}.
+     */
+    LevelLightEngine light(Consumer<LevelLightEngine> runner) {
+        LevelLightEngine engine = new LevelLightEngine(this, true, true);
+        for (ProtoChunk chunk : chunks.values()) {
+            for (int i = 0; i < chunk.getSectionsCount(); i++) {
+                if (!chunk.getSection(i).hasOnlyAir()) {
+                    engine.updateSectionStatus(SectionPos.of(chunk.getPos(), chunk.getSectionYFromSectionIndex(i)), false);
+                }
+            }
+
+            engine.setLightEnabled(chunk.getPos(), true);
+        }
+
+        runner.accept(engine);
+        for (ProtoChunk chunk : chunks.values()) {
+            engine.propagateLightSources(chunk.getPos());
+        }
+
+        runner.accept(engine);
+        return engine;
+    }
+
+    void assertSameLight(LevelLightEngine expected, LevelLightEngine actual) {
+        for (LightLayer layer : LightLayer.values()) {
+            for (ProtoChunk chunk : chunks.values()) {
+                for (int y = expected.getMinLightSection(); y < expected.getMaxLightSection(); y++) {
+                    SectionPos pos = SectionPos.of(chunk.getPos(), y);
+                    DataLayer expectedData = expected.getLayerListener(layer).getDataLayerData(pos);
+                    DataLayer actualData = actual.getLayerListener(layer).getDataLayerData(pos);
+                    if (expectedData == null) {
+                        assertThat(actualData).as("%s %s", layer, pos).isNull();
+                    } else {
+                        assertThat(actualData).as("%s %s", layer, pos).isNotNull();
+                        assertThat(actualData.getData()).as("%s %s", layer, pos).isEqualTo(expectedData.getData());
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package net.minecraft.world.level.pathfinder;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.CollisionGetter;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.border.WorldBorder;
+import net.minecraft.world.level.material.FluidState;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.shapes.VoxelShape;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Checks that the path types cached by {@link PathTypeCache} match freshly computed ones, also after blocks
+ * change, and that the number of cached sections stays bounded.
+ */
+@DisplayName("Path Type Cache Tests")
+class PathTypeCacheTest {
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+    }
+
+    private static void assertMatches(Terrain blocks, PathTypeCache cache, BlockPos center) {
+        PathfindingContext cached = new PathfindingContext(blocks, cache, center);
+        PathfindingContext uncached = new PathfindingContext(blocks, null, center);
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        for (BlockPos blockPos : BlockPos.betweenClosed(center.offset(-6, -2, -6), center.offset(6, 2, 6))) {
+            pos.set(blockPos);
+            assertThat(WalkNodeEvaluator.getPathTypeStatic(cached, pos))
+                .as("walking type at %s", blockPos)
+                .isEqualTo(WalkNodeEvaluator.getPathTypeStatic(uncached, pos.set(blockPos)));
+            assertThat(cached.getPathTypeFromState(blockPos.getX(), blockPos.getY(), blockPos.getZ()))
+                .isEqualTo(uncached.getPathTypeFromState(blockPos.getX(), blockPos.getY(), blockPos.getZ()));
+        }
+    }
+
+    @Test
+    @DisplayName("Cached types match computed types across section borders")
+    void cachedTypesMatch() {
+        Terrain blocks = new Terrain();
+        blocks.set(new BlockPos(15, 64, 15), Blocks.CACTUS.defaultBlockState());
+        blocks.set(new BlockPos(16, 63, 17), Blocks.WATER.defaultBlockState());
+        blocks.set(new BlockPos(18, 64, 14), Blocks.OAK_FENCE.defaultBlockState());
+        PathTypeCache cache = new PathTypeCache();
+        assertMatches(blocks, cache, new BlockPos(16, 64, 16));
+        assertMatches(blocks, cache, new BlockPos(16, 64, 16));
+    }
+
+    @Test
+    @DisplayName("A changed block updates the walking types around it")
+    void invalidationReachesNeighbours() {
+        Terrain blocks = new Terrain();
+        PathTypeCache cache = new PathTypeCache();
+        BlockPos center = new BlockPos(16, 64, 16);
+        assertMatches(blocks, cache, center);
+        PathfindingContext context = new PathfindingContext(blocks, cache, center);
+        assertThat(WalkNodeEvaluator.getPathTypeStatic(context, new BlockPos.MutableBlockPos(17, 64, 16))).isEqualTo(PathType.WALKABLE);
+
+        BlockPos cactus = new BlockPos(16, 64, 16);
+        blocks.set(cactus, Blocks.CACTUS.defaultBlockState());
+        cache.invalidate(cactus);
+        assertThat(WalkNodeEvaluator.getPathTypeStatic(context, new BlockPos.MutableBlockPos(17, 64, 16))).isEqualTo(PathType.DANGER_OTHER);
+        assertMatches(blocks, cache, center);
+
+        blocks.set(cactus, Blocks.AIR.defaultBlockState());
+        cache.invalidate(cactus);
+        assertMatches(blocks, cache, center);
+    }
+
+    @Test
+    @DisplayName("Loading a chunk drops the sections around it")
+    void chunkInvalidation() {
+        Terrain blocks = new Terrain();
+        PathTypeCache cache = new PathTypeCache();
+        assertMatches(blocks, cache, new BlockPos(8, 64, 8));
+        assertThat(cache.size()).isPositive();
+        cache.invalidateChunk(new ChunkPos(5, 5));
+        assertThat(cache.size()).isPositive();
+        cache.invalidateChunk(new ChunkPos(1, 1));
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("The number of cached sections is bounded")
+    void evictsSections() {
+        Terrain blocks = new Terrain();
+        PathTypeCache cache = new PathTypeCache();
+        for (int i = 0; i < 2000; i++) {
+            cache.getOrCompute(blocks, new BlockPos(i * 16, 64, 0));
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(512);
+        assertMatches(blocks, cache, new BlockPos(0, 64, 0));
+    }
+
+    /**
+     * Stone below y 64 and air above, with explicitly set blocks.
+     */
+    private static class Terrain implements CollisionGetter {
+        private final Map<BlockPos, BlockState> states = new HashMap<>();
+        private final WorldBorder worldBorder = new WorldBorder();
+
+        void set(BlockPos pos, BlockState state) {
+            states.put(pos.immutable(), state);
+        }
+
+        @Override
+        public BlockState getBlockState(BlockPos blockPos) {
+            BlockState state = states.get(blockPos);
+            if (state != null) {
+                return state;
+            }
+
+            return blockPos.getY() < 64
+                ? Blocks.STONE.defaultBlockState()
+                : Blocks.AIR.defaultBlockState();
+        }
+
+        @Override
+        public FluidState getFluidState(BlockPos blockPos) {
+            return getBlockState(blockPos).getFluidState();
+        }
+
+        @Override
+        public BlockEntity getBlockEntity(BlockPos blockPos) {
+            return null;
+        }
+
+        @Override
+        public WorldBorder getWorldBorder() {
+            return worldBorder;
+        }
+
+        @Override
+        public BlockGetter getChunkForCollisions(int i, int j) {
+            return this;
+        }
+
+        @Override
+        public List<VoxelShape> getEntityCollisions(Entity entity, AABB aabb) {
+            return List.of();
+        }
+
+        @Override
+        public int getHeight() {
+            return 384;
+        }
+
+        @Override
+        public int getMinY() {
+            return -64;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package net.minecraft.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.minecraft.SharedConstants;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.chunk.Strategy;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Measures compressing the packet stream a player receives while loading terrain, copying every packet through heap
+ * arrays as {@link CompressionEncoder} used to and handing the direct buffers straight to zlib as it does now.
+ * <p>
+ * The stream holds about one megabyte of packets: chunk packets made of real paletted block sections of layered
+ * terrain with caves and ores plus their light, between small movement sized packets below the threshold. The time
+ * per operation is therefore the time to compress a megabyte, and the compression ratio of the stream at the
+ * benchmarked level is printed once the trial ends.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+    private static final int THRESHOLD = 256;
+    private static final int STREAM_SIZE = 1024 * 1024;
+
+    @Param({"1", "6", "9"})
+    public int level;
+
+    @Param({"array", "direct"})
+    public String implementation;
+
+    private final List<ByteBuf> packets = new ArrayList<>();
+    private CompressionEncoder encoder;
+    private Deflater deflater;
+    private byte[] encodeBuf;
+    private ByteBuf out;
+    private long uncompressedBytes;
+    private long compressedBytes;
+
+    @Setup
+    public void setup() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        Random random = new Random(42L);
+        int size = 0;
+        while (size < STREAM_SIZE) {
+            ByteBuf chunk = chunkPacket(random);
+            size += chunk.readableBytes();
+            packets.add(chunk);
+            for (int i = 0; i < 20; i++) {
+                ByteBuf packet = Unpooled.directBuffer();
+                int length = random.nextInt(8) == 0 ? 300 + random.nextInt(200) : 8 + random.nextInt(40);
+                for (int j = 0; j < length; j++) {
+                    packet.writeByte(j % 7 == 0 ? random.nextInt(256) : j % 3);
+                }
+                size += packet.readableBytes();
+                packets.add(packet);
+            }
+        }
+
+        encoder = new CompressionEncoder(THRESHOLD);
+        deflater = new Deflater(level);
+        encodeBuf = new byte[8192];
+        out = Unpooled.directBuffer(STREAM_SIZE);
+    }
+
+    /**
+     * A chunk packet body of 24 block sections, stone with ores and caves below the surface at section 8, then dirt and
+     * grass, then air, followed by sky and block light for 26 sections.
+     */
+    private static ByteBuf chunkPacket(Random random) {
+        ByteBuf byteBuf = Unpooled.directBuffer();
+        FriendlyByteBuf friendlyByteBuf = new FriendlyByteBuf(byteBuf);
+        friendlyByteBuf.writeVarInt(random.nextInt(100));
+        friendlyByteBuf.writeInt(random.nextInt());
+        friendlyByteBuf.writeInt(random.nextInt());
+        BlockState[] ores = {Blocks.COAL_ORE.defaultBlockState(), Blocks.IRON_ORE.defaultBlockState(), Blocks.ANDESITE.defaultBlockState(), Blocks.GRAVEL.defaultBlockState()};
+        for (int section = 0; section < 24; section++) {
+            PalettedContainer<BlockState> container = new PalettedContainer<>(Blocks.AIR.defaultBlockState(), Strategy.createForBlockStates(Block.BLOCK_STATE_REGISTRY));
+            if (section <= 8) {
+                for (int y = 0; y < 16; y++) {
+                    for (int z = 0; z < 16; z++) {
+                        for (int x = 0; x < 16; x++) {
+                            BlockState blockState;
+                            if (section == 8 && y >= 12) {
+                                blockState = y == 15 ? Blocks.GRASS_BLOCK.defaultBlockState() : Blocks.DIRT.defaultBlockState();
+                            } else if (random.nextInt(40) == 0) {
+                                blockState = ores[random.nextInt(ores.length)];
+                            } else if (section < 6 && (x + y + z + section) % 13 < 2) {
+                                blockState = Blocks.CAVE_AIR.defaultBlockState();
+                            } else {
+                                blockState = section < 4 ? Blocks.DEEPSLATE.defaultBlockState() : Blocks.STONE.defaultBlockState();
+                            }
+                            container.set(x, y, z, blockState);
+                        }
+                    }
+                }
+            }
+            friendlyByteBuf.writeShort(section <= 8 ? 4096 : 0);
+            container.write(friendlyByteBuf);
+            friendlyByteBuf.writeByte(0);
+            friendlyByteBuf.writeVarInt(random.nextInt(8));
+        }
+
+        for (int section = 0; section < 26; section++) {
+            if (section >= 8 && section <= 10) {
+                for (int i = 0; i < 2048; i++) {
+                    friendlyByteBuf.writeByte(section == 8 ? (i >> 7) * 0x11 : 0xFF);
+                }
+            }
+            if (section < 8 && random.nextInt(3) == 0) {
+                for (int i = 0; i < 2048; i++) {
+                    friendlyByteBuf.writeByte(random.nextInt(16) == 0 ? random.nextInt(256) : 0);
+                }
+            }
+        }
+
+        return byteBuf;
+    }
+
+    @Benchmark
+    public void compress(Blackhole blackhole) {
+        long compressed = 0L;
+        for (ByteBuf packet : packets) {
+            packet.readerIndex(0);
+            out.clear();
+            if (implementation.equals("direct")) {
+                encoder.encode(packet, out, level);
+            } else {
+                int i = packet.readableBytes();
+                if (i < THRESHOLD) {
+                    VarInt.write(out, 0);
+                    out.writeBytes(packet);
+                } else {
+                    byte[] bs = new byte[i];
+                    packet.readBytes(bs);
+                    VarInt.write(out, bs.length);
+                    deflater.setInput(bs, 0, i);
+                    deflater.finish();
+                    while (!deflater.finished()) {
+                        int j = deflater.deflate(encodeBuf);
+                        out.writeBytes(encodeBuf, 0, j);
+                    }
+                    deflater.reset();
+                }
+            }
+            compressed += out.readableBytes();
+        }
+
+        compressedBytes = compressed;
+        blackhole.consume(compressed);
+    }
+
+    @TearDown
+    public void tearDown() {
+        uncompressedBytes = packets.stream().mapToLong(ByteBuf::writerIndex).sum();
+        System.out.printf("%n%s at level %d: %d bytes compressed to %d, ratio %.3f%n", implementation, level, uncompressedBytes, compressedBytes, (double)compressedBytes / uncompressedBytes);
+        packets.forEach(ByteBuf::release);
+        packets.clear();
+        out.release();
+        deflater.end();
+    }
+
+    /**
+     * Main method to run the benchmark standalone.
+     */
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+            .include(CompressionBenchmark.class.getSimpleName())
+            .build();
+        new Runner(opt).run();
+    }
+}
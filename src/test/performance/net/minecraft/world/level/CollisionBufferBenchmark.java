@@ -0,0 +1,168 @@
+package net.minecraft.world.level;
+
+import com.google.common.collect.ImmutableList;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.border.WorldBorder;
+import net.minecraft.world.level.material.FluidState;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.Vec3;
+import net.minecraft.world.phys.shapes.Shapes;
+import net.minecraft.world.phys.shapes.VoxelShape;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures resolving the movement of item sized boxes falling onto and sliding along a floor, by colliding with the
+ * list of moved block shapes as before and with {@link CollisionBuffer}.
+ * <p>
+ * Each invocation moves 1000 boxes resting on a stone floor with scattered slabs and fences. Run with
+ * {@code -prof gc} to compare the allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBufferBenchmark {
+
+    private static final int SIZE = 32;
+    private static final int BOXES = 1000;
+
+    @Param({"shapes", "buffer"})
+    public String collider;
+
+    private Terrain terrain;
+    private AABB[] boxes;
+    private Vec3[] moves;
+
+    @Setup
+    public void setup() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        Random random = new Random(42L);
+        terrain = new Terrain(random);
+        boxes = new AABB[BOXES];
+        moves = new Vec3[BOXES];
+        for (int i = 0; i < BOXES; i++) {
+            double x = 2.0 + random.nextDouble() * (SIZE - 4);
+            double z = 2.0 + random.nextDouble() * (SIZE - 4);
+            boxes[i] = new AABB(x - 0.125, 1.0, z - 0.125, x + 0.125, 1.25, z + 0.125);
+            moves[i] = new Vec3(random.nextGaussian() * 0.1, -0.04, random.nextGaussian() * 0.1);
+        }
+    }
+
+    @Benchmark
+    public void collide(Blackhole blackhole) {
+        if (collider.equals("buffer")) {
+            CollisionBuffer buffer = CollisionBuffer.get();
+            for (int i = 0; i < BOXES; i++) {
+                buffer.collect(null, terrain, List.of(), boxes[i].expandTowards(moves[i]));
+                blackhole.consume(buffer.collide(moves[i], boxes[i]));
+                buffer.release();
+            }
+        } else {
+            for (int i = 0; i < BOXES; i++) {
+                AABB aABB = boxes[i].expandTowards(moves[i]);
+                List<VoxelShape> list = ImmutableList.<VoxelShape>builderWithExpectedSize(1).addAll(terrain.getBlockCollisions(null, aABB)).build();
+                Vec3 result = Vec3.ZERO;
+                for (Direction.Axis axis : Direction.axisStepOrder(moves[i])) {
+                    double d = moves[i].get(axis);
+                    if (d != 0.0) {
+                        result = result.with(axis, Shapes.collide(axis, boxes[i].move(result), list, d));
+                    }
+                }
+
+                blackhole.consume(result);
+            }
+        }
+    }
+
+    /**
+     * A stone floor at y 0 with a slab or fence on one in ten blocks above it.
+     */
+    static class Terrain implements CollisionGetter {
+        private final BlockState[] states = new BlockState[SIZE * SIZE];
+        private final WorldBorder worldBorder = new WorldBorder();
+
+        Terrain(Random random) {
+            for (int i = 0; i < states.length; i++) {
+                int kind = random.nextInt(20);
+                states[i] = kind == 0
+                    ? Blocks.STONE_SLAB.defaultBlockState()
+                    : kind == 1 ? Blocks.OAK_FENCE.defaultBlockState() : Blocks.AIR.defaultBlockState();
+            }
+        }
+
+        @Override
+        public BlockState getBlockState(BlockPos blockPos) {
+            int x = blockPos.getX();
+            int y = blockPos.getY();
+            int z = blockPos.getZ();
+            if (y <= 0 || x < 0 || x >= SIZE || z < 0 || z >= SIZE) {
+                return y <= 0 ? Blocks.STONE.defaultBlockState() : Blocks.AIR.defaultBlockState();
+            }
+
+            return y == 1 ? states[z * SIZE + x] : Blocks.AIR.defaultBlockState();
+        }
+
+        @Override
+        public FluidState getFluidState(BlockPos blockPos) {
+            return getBlockState(blockPos).getFluidState();
+        }
+
+        @Override
+        public BlockEntity getBlockEntity(BlockPos blockPos) {
+            return null;
+        }
+
+        @Override
+        public WorldBorder getWorldBorder() {
+            return worldBorder;
+        }
+
+        @Override
+        public BlockGetter getChunkForCollisions(int i, int j) {
+            return this;
+        }
+
+        @Override
+        public List<VoxelShape> getEntityCollisions(Entity entity, AABB aABB) {
+            return List.of();
+        }
+
+        @Override
+        public int getHeight() {
+            return 384;
+        }
+
+        @Override
+        public int getMinY() {
+            return -64;
+        }
+    }
+
+    /**
+     * Main method to run the benchmark standalone.
+     */
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+            .include(CollisionBufferBenchmark.class.getSimpleName())
+            .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,141 @@
+package net.minecraft.world.level.chunk;
+
+import com.mojang.serialization.Lifecycle;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.MappedRegistry;
+import net.minecraft.core.Registry;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.data.registries.VanillaRegistries;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the random tick selection of {@code ServerLevel.tickChunk}, which samples positions and
+ * looks up their states, with drawing from each section's {@link RandomTickIndex}.
+ * <p>
+ * Each invocation selects the ticks of one chunk of 24 stone sections at randomTickSpeed 3. Only
+ * the selection is measured; the selected ticks are counted instead of applied.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomTickIndexBenchmark {
+
+    private static final int SECTIONS = 24;
+    private static final int RANDOM_TICK_SPEED = 3;
+
+    @Param({"1", "64", "1024"})
+    public int tickingBlocksPerSection;
+
+    private LevelChunkSection[] sections;
+    private int randValue;
+
+    @Setup
+    public void setup() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        MappedRegistry<Biome> registry = new MappedRegistry<>(Registries.BIOME, Lifecycle.stable());
+        VanillaRegistries.createLookup().lookupOrThrow(Registries.BIOME).listElements()
+            .forEach(reference -> Registry.register(registry, reference.key(), reference.value()));
+        registry.freeze();
+        PalettedContainerFactory factory = PalettedContainerFactory.create(new RegistryAccess.ImmutableRegistryAccess(List.of(registry)));
+
+        Random random = new Random(42L);
+        BlockState stone = Blocks.STONE.defaultBlockState();
+        BlockState wheat = Blocks.WHEAT.defaultBlockState();
+        sections = new LevelChunkSection[SECTIONS];
+        for (int i = 0; i < SECTIONS; i++) {
+            LevelChunkSection section = new LevelChunkSection(factory);
+            for (int j = 0; j < 4096; j++) {
+                section.setBlockState(j & 15, j >> 8 & 15, j >> 4 & 15, stone);
+            }
+
+            for (int j = 0; j < tickingBlocksPerSection; j++) {
+                section.setBlockState(random.nextInt(16), random.nextInt(16), random.nextInt(16), wheat);
+            }
+
+            section.getRandomTickIndex();
+            sections[i] = section;
+        }
+    }
+
+    /**
+     * The current loop: sample positions and check each state.
+     */
+    @Benchmark
+    public int sampledSelection() {
+        int ticks = 0;
+        for (LevelChunkSection section : sections) {
+            if (section.isRandomlyTicking()) {
+                for (int i = 0; i < RANDOM_TICK_SPEED; i++) {
+                    randValue = randValue * 3 + 1013904223;
+                    int value = randValue >> 2;
+                    BlockState state = section.getBlockState(value & 15, value >> 16 & 15, value >> 8 & 15);
+                    if (state.isRandomlyTicking()) {
+                        ticks++;
+                    }
+
+                    if (state.getFluidState().isRandomlyTicking()) {
+                        ticks++;
+                    }
+                }
+            }
+        }
+
+        return ticks;
+    }
+
+    /**
+     * Draws from the per-section index; only hits look up a state.
+     */
+    @Benchmark
+    public int indexedSelection() {
+        int ticks = 0;
+        for (LevelChunkSection section : sections) {
+            if (section.isRandomlyTicking()) {
+                RandomTickIndex index = section.getRandomTickIndex();
+                for (int i = 0; i < RANDOM_TICK_SPEED; i++) {
+                    randValue = randValue * 3 + 1013904223;
+                    int value = randValue >> 2;
+                    int position = index.sample((value >> 16 & 15) << 8 | (value >> 8 & 15) << 4 | value & 15);
+                    if (position != -1) {
+                        BlockState state = section.getBlockState(position & 15, position >> 8 & 15, position >> 4 & 15);
+                        if (state.isRandomlyTicking()) {
+                            ticks++;
+                        }
+
+                        if (state.getFluidState().isRandomlyTicking()) {
+                            ticks++;
+                        }
+                    }
+                }
+            }
+        }
+
+        return ticks;
+    }
+
+    /**
+     * Main method to run the benchmark standalone.
+     */
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+            .include(RandomTickIndexBenchmark.class.getSimpleName())
+            .build();
+        new Runner(opt).run();
+    }
+}
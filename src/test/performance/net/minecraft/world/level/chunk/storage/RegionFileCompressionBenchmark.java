@@ -0,0 +1,198 @@
+package net.minecraft.world.level.chunk.storage;
+
+import net.minecraft.SharedConstants;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.Level;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares region chunk compression formats on chunk NBT.
+ * <p>
+ * By default the samples are synthetic chunk-shaped NBT. To benchmark real data, point
+ * {@code -DregionDir=<world>/region} at a region folder; chunks are then sampled from its
+ * {@code .mca} files the same way the Zstandard dictionary trainer samples them.
+ * The compressed size of every format is printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegionFileCompressionBenchmark {
+
+    @Param({"deflate", "lz4", "zstd", "zstd-dict"})
+    public String compression;
+
+    private List<byte[]> samples;
+    private byte[][] compressed;
+    private RegionFileVersion version;
+    private RegionFileDictionary dictionary;
+
+    @Setup
+    public void setup() throws IOException {
+        String regionDir = System.getProperty("regionDir");
+        samples = regionDir != null ? sampleRegionFolder(Paths.get(regionDir)) : syntheticChunks(512);
+        version = switch (compression) {
+            case "deflate" -> RegionFileVersion.VERSION_DEFLATE;
+            case "lz4" -> RegionFileVersion.VERSION_LZ4;
+            default -> RegionFileVersion.VERSION_ZSTD;
+        };
+        dictionary = compression.equals("zstd-dict") ? RegionFileDictionary.train(samples) : null;
+
+        long rawBytes = 0;
+        long compressedBytes = 0;
+        compressed = new byte[samples.size()][];
+        for (int i = 0; i < compressed.length; i++) {
+            compressed[i] = compress(samples.get(i));
+            rawBytes += samples.get(i).length;
+            compressedBytes += compressed[i].length;
+        }
+
+        System.out.printf("%s: %,d chunks, %,d -> %,d bytes (ratio %.3f)%n",
+            compression, samples.size(), rawBytes, compressedBytes, (double) compressedBytes / rawBytes);
+    }
+
+    /**
+     * Chunks encoded per second.
+     */
+    @Benchmark
+    @OperationsPerInvocation(512)
+    public void encode(Blackhole blackhole) throws IOException {
+        for (int i = 0; i < 512; i++) {
+            blackhole.consume(compress(samples.get(i % samples.size())));
+        }
+    }
+
+    /**
+     * Chunks decoded per second.
+     */
+    @Benchmark
+    @OperationsPerInvocation(512)
+    public void decode(Blackhole blackhole) throws IOException {
+        for (int i = 0; i < 512; i++) {
+            try (InputStream inputStream = version.wrap(new ByteArrayInputStream(compressed[i % compressed.length]), dictionary)) {
+                blackhole.consume(inputStream.readAllBytes());
+            }
+        }
+    }
+
+    private byte[] compress(byte[] sample) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(sample.length / 2);
+        try (OutputStream outputStream = version.wrap(buffer, dictionary)) {
+            outputStream.write(sample);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static List<byte[]> sampleRegionFolder(Path folder) {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        RegionStorageInfo info = new RegionStorageInfo("benchmark", Level.OVERWORLD, "chunk");
+        List<byte[]> samples = RegionFileDictionary.sampleChunks(info, folder);
+        if (samples.isEmpty()) {
+            throw new IllegalStateException("No chunks found in " + folder);
+        }
+        return samples;
+    }
+
+    /**
+     * Builds chunk-shaped NBT: 24 sections with a small block palette, packed block state
+     * longs, light arrays and heightmaps, similar in structure to what SerializableChunkData writes.
+     */
+    private static List<byte[]> syntheticChunks(int count) throws IOException {
+        Random random = new Random(12345L);
+        String[] blocks = {"minecraft:stone", "minecraft:deepslate", "minecraft:dirt", "minecraft:grass_block",
+            "minecraft:air", "minecraft:water", "minecraft:iron_ore", "minecraft:coal_ore", "minecraft:andesite"};
+        List<byte[]> chunks = new ArrayList<>(count);
+
+        for (int c = 0; c < count; c++) {
+            CompoundTag chunk = new CompoundTag();
+            chunk.putInt("DataVersion", 4556);
+            chunk.putInt("xPos", c % 32);
+            chunk.putInt("zPos", c / 32);
+            chunk.putInt("yPos", -4);
+            chunk.putString("Status", "minecraft:full");
+            chunk.putLong("LastUpdate", 100000L + random.nextInt(1000));
+            chunk.putLong("InhabitedTime", random.nextInt(5000));
+
+            ListTag sections = new ListTag();
+            for (int y = -4; y < 20; y++) {
+                CompoundTag section = new CompoundTag();
+                section.putByte("Y", (byte) y);
+                CompoundTag blockStates = new CompoundTag();
+                ListTag palette = new ListTag();
+                int paletteSize = 1 + random.nextInt(6);
+                for (int p = 0; p < paletteSize; p++) {
+                    CompoundTag entry = new CompoundTag();
+                    entry.putString("Name", blocks[(y + 4 + p) % blocks.length]);
+                    palette.add(entry);
+                }
+                blockStates.put("palette", palette);
+                if (paletteSize > 1) {
+                    long[] data = new long[256];
+                    for (int i = 0; i < data.length; i++) {
+                        data[i] = random.nextInt(4) == 0 ? random.nextLong() : data[Math.max(0, i - 1)];
+                    }
+                    blockStates.putLongArray("data", data);
+                }
+                section.put("block_states", blockStates);
+                byte[] light = new byte[2048];
+                if (y > 4) {
+                    Arrays.fill(light, (byte) 0xFF);
+                }
+                section.putByteArray("SkyLight", light);
+                sections.add(section);
+            }
+            chunk.put("sections", sections);
+
+            CompoundTag heightmaps = new CompoundTag();
+            long[] heights = new long[37];
+            for (int i = 0; i < heights.length; i++) {
+                heights[i] = 0x2040810204081L * (64 + random.nextInt(4));
+            }
+            heightmaps.putLongArray("MOTION_BLOCKING", heights);
+            heightmaps.putLongArray("WORLD_SURFACE", heights.clone());
+            chunk.put("Heightmaps", heightmaps);
+
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try (DataOutputStream outputStream = new DataOutputStream(buffer)) {
+                NbtIo.write(chunk, outputStream);
+            }
+            chunks.add(buffer.toByteArray());
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Main method to run the benchmark standalone.
+     */
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+            .include(RegionFileCompressionBenchmark.class.getSimpleName())
+            .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,95 @@
+package net.minecraft.world.level.chunk.storage;
+
+import net.minecraft.SharedConstants;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures concurrent chunk loads from a single region file, comparing the locked
+ * {@code FileChannel} read path with the memory-mapped read mode.
+ * <p>
+ * The region file holds all 1024 chunks, stored uncompressed so the benchmark measures
+ * the region file itself rather than decompression.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class RegionFileReadBenchmark {
+
+    private static final int CHUNK_BYTES = 12 * 1024;
+
+    @Param({"false", "true"})
+    public boolean memoryMapped;
+
+    private Path folder;
+    private RegionFile regionFile;
+
+    @Setup
+    public void setup() throws IOException {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        folder = Files.createTempDirectory("region-read-benchmark");
+        RegionStorageInfo info = new RegionStorageInfo("benchmark", Level.OVERWORLD, "chunk");
+        RegionFile.setMemoryMappedReads(memoryMapped);
+        regionFile = new RegionFile(info, folder.resolve("r.0.0.mca"), folder, RegionFileVersion.VERSION_NONE, false);
+
+        Random random = new Random(42L);
+        byte[] payload = new byte[CHUNK_BYTES];
+        for (int i = 0; i < 1024; i++) {
+            random.nextBytes(payload);
+            try (DataOutputStream outputStream = regionFile.getChunkDataOutputStream(new ChunkPos(i & 31, i >> 5))) {
+                outputStream.write(payload);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        regionFile.close();
+        RegionFile.setMemoryMappedReads(false);
+        try (Stream<Path> files = Files.walk(folder)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * Chunk loads per second across all benchmark threads.
+     */
+    @Benchmark
+    public byte[] readChunk() throws IOException {
+        int index = ThreadLocalRandom.current().nextInt(1024);
+        try (DataInputStream inputStream = regionFile.getChunkDataInputStream(new ChunkPos(index & 31, index >> 5))) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    /**
+     * Main method to run the benchmark standalone.
+     */
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+            .include(RegionFileReadBenchmark.class.getSimpleName())
+            .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,162 @@
+package net.minecraft.world.level.lighting;
+
+import com.mojang.serialization.Lifecycle;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.MappedRegistry;
+import net.minecraft.core.Registry;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.SectionPos;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.data.registries.VanillaRegistries;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LevelHeightAccessor;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.LightChunk;
+import net.minecraft.world.level.chunk.LightChunkGetter;
+import net.minecraft.world.level.chunk.PalettedContainerFactory;
+import net.minecraft.world.level.chunk.ProtoChunk;
+import net.minecraft.world.level.chunk.UpgradeData;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relights a 32x32 chunk area from scratch with and without the opacity maps of
+ * {@link LightEngine}: section statuses and light enabling first, then propagation of every
+ * chunk's light sources.
+ * <p>
+ * The area has stone, glass, leaves and slabs up to y 64 with 30% air pockets, glowstone in
+ * 0.5% of the solid blocks and torches on the surface, so propagation crosses both full blocks
+ * and blocks that occlude light by shape.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LightOpacityMapBenchmark {
+
+    private static final LevelHeightAccessor HEIGHT = LevelHeightAccessor.create(0, 128);
+    private static final int SIZE = 32;
+
+    @Param({"false", "true"})
+    public boolean opacityMaps;
+
+    private final Long2ObjectMap<ProtoChunk> chunks = new Long2ObjectOpenHashMap<>();
+    private LightChunkGetter chunkGetter;
+
+    @Setup
+    public void setup() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        MappedRegistry<Biome> registry = new MappedRegistry<>(Registries.BIOME, Lifecycle.stable());
+        VanillaRegistries.createLookup().lookupOrThrow(Registries.BIOME).listElements()
+            .forEach(reference -> Registry.register(registry, reference.key(), reference.value()));
+        registry.freeze();
+        PalettedContainerFactory factory = PalettedContainerFactory.create(new RegistryAccess.ImmutableRegistryAccess(List.of(registry)));
+
+        Random random = new Random(42L);
+        BlockState[] solids = {
+            Blocks.STONE.defaultBlockState(),
+            Blocks.STONE.defaultBlockState(),
+            Blocks.STONE.defaultBlockState(),
+            Blocks.GLASS.defaultBlockState(),
+            Blocks.OAK_LEAVES.defaultBlockState(),
+            Blocks.OAK_SLAB.defaultBlockState()
+        };
+        BlockState glowstone = Blocks.GLOWSTONE.defaultBlockState();
+        BlockState torch = Blocks.TORCH.defaultBlockState();
+        chunks.clear();
+        for (int x = 0; x < SIZE; x++) {
+            for (int z = 0; z < SIZE; z++) {
+                ProtoChunk chunk = new ProtoChunk(new ChunkPos(x, z), UpgradeData.EMPTY, HEIGHT, factory, null);
+                for (int y = 0; y < 64; y++) {
+                    LevelChunkSection section = chunk.getSection(y >> 4);
+                    for (int i = 0; i < 256; i++) {
+                        int roll = random.nextInt(1000);
+                        if (roll >= 300) {
+                            section.setBlockState(i & 15, y & 15, i >> 4, roll < 305 ? glowstone : solids[random.nextInt(solids.length)]);
+                        }
+                    }
+                }
+
+                for (int i = 0; i < 4; i++) {
+                    chunk.getSection(4).setBlockState(random.nextInt(16), 0, random.nextInt(16), torch);
+                }
+
+                chunk.initializeLightSources();
+                chunks.put(chunk.getPos().toLong(), chunk);
+            }
+        }
+
+        ProtoChunk level = chunks.get(ChunkPos.ZERO.toLong());
+        chunkGetter = new LightChunkGetter() {
+            @Override
+            public LightChunk getChunkForLighting(int x, int z) {
+                return chunks.get(ChunkPos.asLong(x, z));
+            }
+
+            @Override
+            public BlockGetter getLevel() {
+                return level;
+            }
+        };
+        LightEngine.setOpacityMapsEnabled(opacityMaps);
+    }
+
+    @TearDown
+    public void tearDown() {
+        LightEngine.setOpacityMapsEnabled(false);
+    }
+
+    @Benchmark
+    public LevelLightEngine relight() {
+        LevelLightEngine engine = new LevelLightEngine(chunkGetter, true, true);
+        for (ProtoChunk chunk : chunks.values()) {
+            for (int i = 0; i < chunk.getSectionsCount(); i++) {
+                if (!chunk.getSection(i).hasOnlyAir()) {
+                    engine.updateSectionStatus(SectionPos.of(chunk.getPos(), chunk.getSectionYFromSectionIndex(i)), false);
+                }
+            }
+
+            engine.setLightEnabled(chunk.getPos(), true);
+        }
+
+        run(engine);
+        for (ProtoChunk chunk : chunks.values()) {
+            engine.propagateLightSources(chunk.getPos());
+        }
+
+        run(engine);
+        return engine;
+    }
+
+    private void run(LevelLightEngine engine) {
+        do {
+            engine.runLightUpdates();
+        } while (engine.hasLightWork());
+    }
+
+    /**
+     * Main method to run the benchmark standalone.
+     */
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+            .include(LightOpacityMapBenchmark.class.getSimpleName())
+            .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,187 @@
+package net.minecraft.world.level.pathfinder;
+
+import net.minecraft.SharedConstants;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.CollisionGetter;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.border.WorldBorder;
+import net.minecraft.world.level.material.FluidState;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.shapes.VoxelShape;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the path type lookups of walking mobs searching the same area, with and without the level's
+ * {@link PathTypeCache}.
+ * <p>
+ * Each invocation runs the lookups of 8 searches. Every search asks for the type of each block of a
+ * 33x3x33 box around its own start, which lies within a few blocks of the others, the way
+ * {@link WalkNodeEvaluator#getPathTypeWithinMobBB} asks for a one block wide, two blocks tall mob. The
+ * terrain is a grass floor with patches of water, cactus, fences and powder snow. {@code none} computes every
+ * type, {@code cold} starts each invocation with an empty cache and {@code shared} keeps the cache across
+ * invocations, as many mobs in the same area do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathTypeCacheBenchmark {
+
+    private static final int SIZE = 64;
+    private static final int FLOOR_Y = 64;
+    private static final int SEARCHES = 8;
+    private static final int RADIUS = 16;
+
+    @Param({"none", "cold", "shared"})
+    public String cache;
+
+    private Terrain terrain;
+    private PathTypeCache sharedCache;
+    private BlockPos[] starts;
+
+    @Setup
+    public void setup() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        terrain = new Terrain(new Random(42L));
+        sharedCache = new PathTypeCache();
+        Random random = new Random(7L);
+        starts = new BlockPos[SEARCHES];
+        for (int i = 0; i < SEARCHES; i++) {
+            starts[i] = new BlockPos(SIZE / 2 - 4 + random.nextInt(9), FLOOR_Y + 1, SIZE / 2 - 4 + random.nextInt(9));
+        }
+    }
+
+    @Benchmark
+    public int lookups() {
+        PathTypeCache pathTypeCache = switch (cache) {
+            case "cold" -> new PathTypeCache();
+            case "shared" -> sharedCache;
+            default -> null;
+        };
+        int sum = 0;
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        for (BlockPos start : starts) {
+            PathfindingContext context = new PathfindingContext(terrain, pathTypeCache, start);
+            for (int x = -RADIUS; x <= RADIUS; x++) {
+                for (int z = -RADIUS; z <= RADIUS; z++) {
+                    for (int y = -1; y <= 1; y++) {
+                        for (int h = 0; h < 2; h++) {
+                            pos.set(start.getX() + x, start.getY() + y + h, start.getZ() + z);
+                            sum += WalkNodeEvaluator.getPathTypeStatic(context, pos).ordinal();
+                        }
+                    }
+                }
+            }
+        }
+
+        return sum;
+    }
+
+    /**
+     * A fixed area read straight from an array, so only the path type logic is measured.
+     */
+    static class Terrain implements CollisionGetter {
+        private final BlockState[] states = new BlockState[SIZE * SIZE * 4];
+        private final WorldBorder worldBorder = new WorldBorder();
+
+        Terrain(Random random) {
+            BlockState grass = Blocks.GRASS_BLOCK.defaultBlockState();
+            BlockState[] hazards = {
+                Blocks.WATER.defaultBlockState(),
+                Blocks.CACTUS.defaultBlockState(),
+                Blocks.OAK_FENCE.defaultBlockState(),
+                Blocks.POWDER_SNOW.defaultBlockState()
+            };
+            for (int x = 0; x < SIZE; x++) {
+                for (int z = 0; z < SIZE; z++) {
+                    states[index(x, FLOOR_Y - 1, z)] = Blocks.DIRT.defaultBlockState();
+                    states[index(x, FLOOR_Y, z)] = grass;
+                    states[index(x, FLOOR_Y + 1, z)] = Blocks.AIR.defaultBlockState();
+                    states[index(x, FLOOR_Y + 2, z)] = Blocks.AIR.defaultBlockState();
+                    if (random.nextInt(20) == 0) {
+                        BlockState hazard = hazards[random.nextInt(hazards.length)];
+                        states[index(x, hazard.is(Blocks.WATER) ? FLOOR_Y : FLOOR_Y + 1, z)] = hazard;
+                    }
+                }
+            }
+        }
+
+        private static int index(int x, int y, int z) {
+            return ((y - FLOOR_Y + 1) * SIZE + z) * SIZE + x;
+        }
+
+        @Override
+        public BlockState getBlockState(BlockPos blockPos) {
+            int x = blockPos.getX();
+            int y = blockPos.getY();
+            int z = blockPos.getZ();
+            if (x < 0 || x >= SIZE || z < 0 || z >= SIZE || y < FLOOR_Y - 1) {
+                return Blocks.STONE.defaultBlockState();
+            } else if (y > FLOOR_Y + 2) {
+                return Blocks.AIR.defaultBlockState();
+            }
+
+            return states[index(x, y, z)];
+        }
+
+        @Override
+        public FluidState getFluidState(BlockPos blockPos) {
+            return getBlockState(blockPos).getFluidState();
+        }
+
+        @Override
+        public BlockEntity getBlockEntity(BlockPos blockPos) {
+            return null;
+        }
+
+        @Override
+        public WorldBorder getWorldBorder() {
+            return worldBorder;
+        }
+
+        @Override
+        public BlockGetter getChunkForCollisions(int i, int j) {
+            return this;
+        }
+
+        @Override
+        public List<VoxelShape> getEntityCollisions(Entity entity, AABB aabb) {
+            return List.of();
+        }
+
+        @Override
+        public int getHeight() {
+            return 384;
+        }
+
+        @Override
+        public int getMinY() {
+            return -64;
+        }
+    }
+
+    /**
+     * Main method to run the benchmark standalone.
+     */
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+            .include(PathTypeCacheBenchmark.class.getSimpleName())
+            .build();
+        new Runner(opt).run();
+    }
+}